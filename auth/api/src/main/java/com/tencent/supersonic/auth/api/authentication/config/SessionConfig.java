@@ -25,6 +25,17 @@ public class SessionConfig {
      */
     private int maxConcurrent = 5;
 
+    /**
+     * How long a validated session is served from memory in milliseconds (default: 30 seconds).
+     * Revocations on this instance take effect at once, on the other instances within this time.
+     */
+    private long cacheTtl = 30000;
+
+    /**
+     * Interval in milliseconds for writing the buffered last activity times (default: 1 minute)
+     */
+    private long activityFlushInterval = 60000;
+
     /**
      * Session revocation settings
      */
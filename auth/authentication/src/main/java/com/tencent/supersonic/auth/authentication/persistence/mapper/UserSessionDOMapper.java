@@ -3,8 +3,22 @@ package com.tencent.supersonic.auth.authentication.persistence.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.tencent.supersonic.auth.authentication.persistence.dataobject.UserSessionDO;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
 
 @Mapper
 public interface UserSessionDOMapper extends BaseMapper<UserSessionDO> {
 
+    /**
+     * Set the last activity time of the sessions in one statement, skipping the revoked ones.
+     */
+    @Update("<script>" + "UPDATE s2_user_session SET last_activity_at = CASE session_id "
+            + "<foreach collection='list' item='session'>"
+            + "WHEN #{session.sessionId} THEN #{session.lastActivityAt} " + "</foreach>"
+            + "ELSE last_activity_at END WHERE revoked = 0 AND session_id IN "
+            + "<foreach collection='list' item='session' open='(' separator=',' close=')'>"
+            + "#{session.sessionId}" + "</foreach>" + "</script>")
+    int batchUpdateLastActivity(@Param("list") List<UserSessionDO> sessions);
 }
@@ -2,11 +2,13 @@ package com.tencent.supersonic.auth.authentication.rest;
 
 import com.tencent.supersonic.auth.api.authentication.pojo.Tenant;
 import com.tencent.supersonic.auth.api.authentication.service.TenantService;
+import com.tencent.supersonic.common.mybatis.TenantSqlInterceptor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * REST controller for admin tenant management. Requires super admin privileges.
@@ -103,4 +105,12 @@ public class AdminTenantController {
         tenantService.activateTenant(id);
         return ResponseEntity.ok().build();
     }
+
+    /**
+     * Get the hit and parse counts of the tenant SQL rewrite templates.
+     */
+    @GetMapping("/sql-rewrite/stats")
+    public ResponseEntity<Map<String, Object>> getSqlRewriteStats() {
+        return ResponseEntity.ok(TenantSqlInterceptor.getRewriteStats());
+    }
 }
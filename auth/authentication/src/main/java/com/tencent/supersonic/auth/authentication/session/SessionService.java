@@ -1,38 +1,59 @@
 package com.tencent.supersonic.auth.authentication.session;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
 import com.tencent.supersonic.auth.api.authentication.config.SessionConfig;
 import com.tencent.supersonic.auth.authentication.persistence.dataobject.UserSessionDO;
 import com.tencent.supersonic.auth.authentication.persistence.mapper.UserSessionDOMapper;
 import com.tencent.supersonic.auth.authentication.refresh.RefreshTokenService;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.security.SecureRandom;
+import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Service for managing user sessions.
+ *
+ * <p>
+ * Validated sessions are served from memory for a short time and the last activity times are
+ * buffered and written in batches, so that an authenticated request does not cost a read and a
+ * write of the session table. Revoking a session drops it from memory at once.
  */
 @Slf4j
 @Service
 public class SessionService {
 
     private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+    private static final int ACTIVITY_BATCH_SIZE = 500;
 
     private final UserSessionDOMapper sessionMapper;
     private final SessionConfig sessionConfig;
     private final RefreshTokenService refreshTokenService;
+    private final Cache<String, UserSessionDO> validSessions;
+    /** the last activity time of the sessions not written yet, by session ID */
+    private final Map<String, Date> pendingActivities = new ConcurrentHashMap<>();
 
     public SessionService(UserSessionDOMapper sessionMapper, SessionConfig sessionConfig,
             RefreshTokenService refreshTokenService) {
         this.sessionMapper = sessionMapper;
         this.sessionConfig = sessionConfig;
         this.refreshTokenService = refreshTokenService;
+        this.validSessions = CacheBuilder.newBuilder().maximumSize(100000)
+                .expireAfterWrite(sessionConfig.getCacheTtl(), TimeUnit.MILLISECONDS).build();
     }
 
     /**
@@ -96,29 +117,87 @@ public class SessionService {
     }
 
     /**
-     * Validate a session.
+     * Validate a session, served from memory within the cache TTL.
      */
     public UserSessionDO validateSession(String sessionId) {
-        UserSessionDO session = getSession(sessionId);
-        if (session == null || !session.isValid()) {
+        if (sessionId == null || sessionId.isEmpty()) {
             return null;
         }
-        return session;
+        UserSessionDO session = validSessions.getIfPresent(sessionId);
+        if (session == null) {
+            session = getSession(sessionId);
+            if (session == null || !session.isValid()) {
+                return null;
+            }
+            validSessions.put(sessionId, session);
+        }
+        // the expiry is checked against the current time even for a cached session
+        return session.isValid() ? session : null;
     }
 
     /**
-     * Update session last activity time.
+     * Update session last activity time. The time is buffered and written by
+     * {@link #flushLastActivities()}.
      */
-    @Transactional
     public void updateLastActivity(String sessionId) {
         if (!isEnabled() || sessionId == null) {
             return;
         }
 
-        UserSessionDO session = getSession(sessionId);
-        if (session != null && session.isValid()) {
-            session.setLastActivityAt(new Date());
-            sessionMapper.updateById(session);
+        if (validateSession(sessionId) != null) {
+            pendingActivities.put(sessionId, new Date());
+        }
+    }
+
+    /**
+     * Write the buffered last activity times in batches (scheduled task).
+     */
+    @Scheduled(fixedDelayString = "${s2.authentication.session.activity-flush-interval:60000}")
+    public void flushLastActivities() {
+        if (pendingActivities.isEmpty()) {
+            return;
+        }
+        List<UserSessionDO> sessions = new ArrayList<>();
+        for (String sessionId : new ArrayList<>(pendingActivities.keySet())) {
+            Date lastActivityAt = pendingActivities.remove(sessionId);
+            if (lastActivityAt != null) {
+                UserSessionDO session = new UserSessionDO();
+                session.setSessionId(sessionId);
+                session.setLastActivityAt(lastActivityAt);
+                sessions.add(session);
+            }
+        }
+        for (List<UserSessionDO> batch : Lists.partition(sessions, ACTIVITY_BATCH_SIZE)) {
+            try {
+                sessionMapper.batchUpdateLastActivity(batch);
+            } catch (Exception e) {
+                log.warn("Failed to update last activity of {} sessions: {}", batch.size(),
+                        e.getMessage());
+            }
+        }
+        log.debug("Flushed last activity of {} sessions", sessions.size());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        flushLastActivities();
+    }
+
+    /**
+     * Drop a session from memory now and, when revoked in a transaction, once more after the
+     * commit, so that a concurrent validation cannot cache the state before the revocation.
+     */
+    private void evictSession(String sessionId) {
+        validSessions.invalidate(sessionId);
+        pendingActivities.remove(sessionId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager
+                    .registerSynchronization(new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            validSessions.invalidate(sessionId);
+                        }
+                    });
         }
     }
 
@@ -140,6 +219,7 @@ public class SessionService {
         session.setRevokedAt(new Date());
         session.setRevokedReason(reason);
         sessionMapper.updateById(session);
+        evictSession(sessionId);
 
         // Revoke associated refresh tokens
         refreshTokenService.revokeTokensForSession(session.getId());
@@ -176,6 +256,7 @@ public class SessionService {
             session.setRevokedAt(new Date());
             session.setRevokedReason(reason);
             sessionMapper.updateById(session);
+            evictSession(session.getSessionId());
 
             // Revoke associated refresh tokens
             refreshTokenService.revokeTokensForSession(session.getId());
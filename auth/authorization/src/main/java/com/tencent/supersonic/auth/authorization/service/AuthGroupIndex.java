@@ -0,0 +1,152 @@
+package com.tencent.supersonic.auth.authorization.service;
+
+import com.tencent.supersonic.auth.api.authorization.pojo.AuthGroup;
+import com.tencent.supersonic.auth.api.authorization.pojo.AuthRule;
+import org.springframework.util.CollectionUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable index of the auth groups of one tenant, keyed by model and then by the authorized
+ * user or department. The resource names of each group are flattened once when the index is built,
+ * so that resolving the groups of a principal is a few map lookups instead of a scan over all the
+ * groups.
+ */
+public class AuthGroupIndex {
+
+    private final Map<Long, Map<String, List<CompiledGroup>>> groupsByUser = new HashMap<>();
+    private final Map<Long, Map<String, List<CompiledGroup>>> groupsByDepartment =
+            new HashMap<>();
+    private final int groupCount;
+    private final long version;
+
+    public AuthGroupIndex(List<AuthGroup> authGroups) {
+        this(authGroups, 0L);
+    }
+
+    /** an index of the groups loaded under the given version of the groups */
+    public AuthGroupIndex(List<AuthGroup> authGroups, long version) {
+        this.version = version;
+        int ordinal = 0;
+        for (AuthGroup authGroup : authGroups) {
+            if (authGroup == null || authGroup.getModelId() == null) {
+                continue;
+            }
+            CompiledGroup compiledGroup = new CompiledGroup(ordinal++, authGroup);
+            index(groupsByUser, authGroup.getModelId(), authGroup.getAuthorizedUsers(),
+                    compiledGroup);
+            index(groupsByDepartment, authGroup.getModelId(),
+                    authGroup.getAuthorizedDepartmentIds(), compiledGroup);
+        }
+        this.groupCount = ordinal;
+    }
+
+    /**
+     * the groups of the model granted to the user directly or to one of the departments, in the
+     * order the groups were loaded
+     */
+    public List<CompiledGroup> getGroups(Long modelId, String userName,
+            Collection<String> departmentIds) {
+        Map<Integer, CompiledGroup> matched = new LinkedHashMap<>();
+        collect(groupsByUser, modelId, userName, matched);
+        if (!CollectionUtils.isEmpty(departmentIds)) {
+            for (String departmentId : departmentIds) {
+                collect(groupsByDepartment, modelId, departmentId, matched);
+            }
+        }
+        if (matched.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<CompiledGroup> groups = new ArrayList<>(matched.values());
+        groups.sort(Comparator.comparingInt(CompiledGroup::getOrdinal));
+        return groups;
+    }
+
+    public int getGroupCount() {
+        return groupCount;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    private static void index(Map<Long, Map<String, List<CompiledGroup>>> groups, Long modelId,
+            List<String> principals, CompiledGroup compiledGroup) {
+        if (CollectionUtils.isEmpty(principals)) {
+            return;
+        }
+        Map<String, List<CompiledGroup>> groupsByPrincipal =
+                groups.computeIfAbsent(modelId, k -> new HashMap<>());
+        for (String principal : principals) {
+            List<CompiledGroup> principalGroups =
+                    groupsByPrincipal.computeIfAbsent(principal, k -> new ArrayList<>());
+            // a principal listed twice in a group is matched once
+            if (principalGroups.isEmpty()
+                    || principalGroups.get(principalGroups.size() - 1) != compiledGroup) {
+                principalGroups.add(compiledGroup);
+            }
+        }
+    }
+
+    private static void collect(Map<Long, Map<String, List<CompiledGroup>>> groups, Long modelId,
+            String principal, Map<Integer, CompiledGroup> matched) {
+        if (principal == null) {
+            return;
+        }
+        Map<String, List<CompiledGroup>> groupsByPrincipal = groups.get(modelId);
+        if (groupsByPrincipal == null) {
+            return;
+        }
+        List<CompiledGroup> principalGroups = groupsByPrincipal.get(principal);
+        if (principalGroups != null) {
+            principalGroups.forEach(group -> matched.putIfAbsent(group.getOrdinal(), group));
+        }
+    }
+
+    /** an auth group with its resource names flattened from the auth rules */
+    public static class CompiledGroup {
+
+        private final int ordinal;
+        private final AuthGroup authGroup;
+        private final List<String> resourceNames;
+
+        CompiledGroup(int ordinal, AuthGroup authGroup) {
+            this.ordinal = ordinal;
+            this.authGroup = authGroup;
+            List<String> names = new ArrayList<>();
+            if (authGroup.getAuthRules() != null) {
+                for (AuthRule authRule : authGroup.getAuthRules()) {
+                    names.addAll(authRule.resourceNames());
+                }
+            }
+            this.resourceNames = Collections.unmodifiableList(names);
+        }
+
+        public int getOrdinal() {
+            return ordinal;
+        }
+
+        public AuthGroup getAuthGroup() {
+            return authGroup;
+        }
+
+        public List<String> getResourceNames() {
+            return resourceNames;
+        }
+
+        public List<String> getDimensionFilters() {
+            return authGroup.getDimensionFilters();
+        }
+
+        public String getDimensionFilterDescription() {
+            return authGroup.getDimensionFilterDescription();
+        }
+    }
+}
@@ -1,11 +1,12 @@
 package com.tencent.supersonic.auth.authorization.service;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.gson.Gson;
 import com.tencent.supersonic.auth.api.authentication.service.UserService;
 import com.tencent.supersonic.auth.api.authorization.pojo.AuthGroup;
 import com.tencent.supersonic.auth.api.authorization.pojo.AuthRes;
-import com.tencent.supersonic.auth.api.authorization.pojo.AuthRule;
 import com.tencent.supersonic.auth.api.authorization.pojo.DimensionFilter;
 import com.tencent.supersonic.auth.api.authorization.request.BatchAuthorizeReq;
 import com.tencent.supersonic.auth.api.authorization.request.QueryAuthResReq;
@@ -14,6 +15,8 @@ import com.tencent.supersonic.auth.api.authorization.response.BatchOperationResu
 import com.tencent.supersonic.auth.api.authorization.service.AuthService;
 import com.tencent.supersonic.auth.authorization.persistence.dataobject.AuthGroupDO;
 import com.tencent.supersonic.auth.authorization.persistence.mapper.AuthGroupDOMapper;
+import com.tencent.supersonic.auth.authorization.service.AuthGroupIndex.CompiledGroup;
+import com.tencent.supersonic.common.context.TenantContext;
 import com.tencent.supersonic.common.pojo.User;
 import com.tencent.supersonic.common.pojo.enums.AuthChangeType;
 import com.tencent.supersonic.common.service.AuthAuditService;
@@ -21,13 +24,20 @@ import com.tencent.supersonic.common.util.RowFilterValidator;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.CollectionUtils;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @Service
@@ -39,6 +49,29 @@ public class AuthServiceImpl implements AuthService {
     private final AuthAuditService authAuditService;
     private final Gson gson = new Gson();
 
+    private static final long NO_TENANT = -1L;
+
+    /*
+     * the caches are per instance, so a change of the auth groups or organizations made on another
+     * instance takes effect here within this many seconds
+     */
+    private static final long CACHE_EXPIRE_SECONDS = 30;
+
+    /*
+     * the auth groups indexed per tenant, since the tenant interceptor scopes the groups loaded.
+     * Every change of the groups made here drops the indexes once committed, the expiry only
+     * bounds the staleness of the changes made by the other instances.
+     */
+    private final Cache<Long, AuthGroupIndex> authGroupIndexes = CacheBuilder.newBuilder()
+            .expireAfterWrite(CACHE_EXPIRE_SECONDS, TimeUnit.SECONDS).build();
+
+    /* bumped by every invalidation, an index loaded under an older version is not served */
+    private final AtomicLong authGroupVersion = new AtomicLong();
+
+    /* the organizations of the users, including the parent organizations */
+    private final Cache<String, Set<String>> userOrgIds = CacheBuilder.newBuilder()
+            .maximumSize(10000).expireAfterWrite(CACHE_EXPIRE_SECONDS, TimeUnit.SECONDS).build();
+
     public AuthServiceImpl(AuthGroupDOMapper authGroupDOMapper, UserService userService,
             AuthAuditService authAuditService) {
         this.authGroupDOMapper = authGroupDOMapper;
@@ -75,6 +108,7 @@ public class AuthServiceImpl implements AuthService {
             authGroupDO.setGroupId(nextGroupId);
             authGroupDO.setConfig(gson.toJson(group));
             authGroupDOMapper.insert(authGroupDO);
+            invalidateAuthGroupIndexes();
 
             // Audit log for create
             authAuditService.logAuthChange(AuthChangeType.CREATE, "MODEL", group.getModelId(),
@@ -89,6 +123,7 @@ public class AuthServiceImpl implements AuthService {
             authGroupDO.setGroupId(group.getGroupId());
             authGroupDO.setConfig(gson.toJson(group));
             authGroupDOMapper.updateById(authGroupDO);
+            invalidateAuthGroupIndexes();
 
             // Audit log for update
             authAuditService.logAuthChange(AuthChangeType.UPDATE, "MODEL", group.getModelId(),
@@ -127,6 +162,7 @@ public class AuthServiceImpl implements AuthService {
         String oldValue = oldGroupDO != null ? oldGroupDO.getConfig() : null;
 
         authGroupDOMapper.deleteById(group.getGroupId());
+        invalidateAuthGroupIndexes();
 
         // Audit log for delete
         authAuditService.logAuthChange(AuthChangeType.DELETE, "MODEL", group.getModelId(),
@@ -139,29 +175,19 @@ public class AuthServiceImpl implements AuthService {
         if (CollectionUtils.isEmpty(req.getModelIds())) {
             return new AuthorizedResourceResp();
         }
-        Set<String> userOrgIds = userService.getUserAllOrgId(user.getName());
-        List<AuthGroup> groups =
-                getAuthGroups(req.getModelIds(), user.getName(), new ArrayList<>(userOrgIds));
+        Set<String> orgIds = getUserOrgIds(user.getName());
+        Map<Long, List<CompiledGroup>> authGroupsByModelId =
+                getAuthGroups(req.getModelIds(), user.getName(), orgIds);
         AuthorizedResourceResp resource = new AuthorizedResourceResp();
-        Map<Long, List<AuthGroup>> authGroupsByModelId =
-                groups.stream().collect(Collectors.groupingBy(AuthGroup::getModelId));
         for (Long modelId : req.getModelIds()) {
-            if (authGroupsByModelId.containsKey(modelId)) {
-                List<AuthGroup> authGroups = authGroupsByModelId.get(modelId);
-                for (AuthGroup authRuleGroup : authGroups) {
-                    List<AuthRule> authRules = authRuleGroup.getAuthRules();
-                    for (AuthRule authRule : authRules) {
-                        for (String resBizName : authRule.resourceNames()) {
-                            resource.getAuthResList().add(new AuthRes(modelId, resBizName));
-                        }
-                    }
+            for (CompiledGroup authGroup : authGroupsByModelId.get(modelId)) {
+                for (String resBizName : authGroup.getResourceNames()) {
+                    resource.getAuthResList().add(new AuthRes(modelId, resBizName));
                 }
             }
         }
-        Set<Map.Entry<Long, List<AuthGroup>>> entries = authGroupsByModelId.entrySet();
-        for (Map.Entry<Long, List<AuthGroup>> entry : entries) {
-            List<AuthGroup> authGroups = entry.getValue();
-            for (AuthGroup authGroup : authGroups) {
+        for (List<CompiledGroup> authGroups : authGroupsByModelId.values()) {
+            for (CompiledGroup authGroup : authGroups) {
                 DimensionFilter df = new DimensionFilter();
                 df.setDescription(authGroup.getDimensionFilterDescription());
                 df.setExpressions(authGroup.getDimensionFilters());
@@ -171,26 +197,80 @@ public class AuthServiceImpl implements AuthService {
         return resource;
     }
 
-    private List<AuthGroup> getAuthGroups(List<Long> modelIds, String userName,
-            List<String> departmentIds) {
-        List<AuthGroup> groups = load().stream().filter(group -> {
-            if (!modelIds.contains(group.getModelId())) {
-                return false;
-            }
-            if (!CollectionUtils.isEmpty(group.getAuthorizedUsers())
-                    && group.getAuthorizedUsers().contains(userName)) {
-                return true;
+    private Map<Long, List<CompiledGroup>> getAuthGroups(List<Long> modelIds, String userName,
+            Set<String> departmentIds) {
+        AuthGroupIndex authGroupIndex = getAuthGroupIndex();
+        Map<Long, List<CompiledGroup>> groupsByModelId = new LinkedHashMap<>();
+        for (Long modelId : modelIds) {
+            groupsByModelId.computeIfAbsent(modelId,
+                    k -> authGroupIndex.getGroups(modelId, userName, departmentIds));
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("user:{} department:{} authGroups:{}", userName, departmentIds,
+                    groupsByModelId.values().stream().flatMap(List::stream)
+                            .map(CompiledGroup::getAuthGroup).collect(Collectors.toList()));
+        }
+        return groupsByModelId;
+    }
+
+    /**
+     * The index of the tenant, loaded again if it was loaded before the last invalidation, since a
+     * load in flight while the groups change may have read the rows before the change.
+     */
+    private AuthGroupIndex getAuthGroupIndex() {
+        Long tenantId = TenantContext.getTenantId();
+        Long key = tenantId == null ? NO_TENANT : tenantId;
+        while (true) {
+            long version = authGroupVersion.get();
+            AuthGroupIndex authGroupIndex;
+            try {
+                authGroupIndex =
+                        authGroupIndexes.get(key, () -> new AuthGroupIndex(load(), version));
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Failed to load auth groups", e.getCause());
             }
-            for (String departmentId : departmentIds) {
-                if (!CollectionUtils.isEmpty(group.getAuthorizedDepartmentIds())
-                        && group.getAuthorizedDepartmentIds().contains(departmentId)) {
-                    return true;
-                }
+            if (authGroupIndex.getVersion() == authGroupVersion.get()) {
+                return authGroupIndex;
             }
-            return false;
-        }).collect(Collectors.toList());
-        log.info("user:{} department:{} authGroups:{}", userName, departmentIds, groups);
-        return groups;
+            authGroupIndexes.asMap().remove(key, authGroupIndex);
+        }
+    }
+
+    private Set<String> getUserOrgIds(String userName) {
+        Long tenantId = TenantContext.getTenantId();
+        String key = (tenantId == null ? NO_TENANT : tenantId) + "_" + userName;
+        try {
+            return userOrgIds.get(key, () -> {
+                Set<String> orgIds = userService.getUserAllOrgId(userName);
+                return orgIds == null ? Collections.emptySet() : orgIds;
+            });
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to query organizations of user: " + userName,
+                    e.getCause());
+        }
+    }
+
+    /**
+     * Drops the indexed auth groups of all the tenants. Inside a transaction this waits for the
+     * commit, otherwise a concurrent query could index the rows about to be replaced.
+     */
+    private void invalidateAuthGroupIndexes() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            doInvalidateAuthGroupIndexes();
+            return;
+        }
+        TransactionSynchronizationManager
+                .registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        doInvalidateAuthGroupIndexes();
+                    }
+                });
+    }
+
+    private void doInvalidateAuthGroupIndexes() {
+        authGroupVersion.incrementAndGet();
+        authGroupIndexes.invalidateAll();
     }
 
     @Override
@@ -218,6 +298,7 @@ public class AuthServiceImpl implements AuthService {
                 nextGroupId++;
             }
         }
+        invalidateAuthGroupIndexes();
         return result;
     }
 
@@ -245,6 +326,7 @@ public class AuthServiceImpl implements AuthService {
                 result.addFail(group.getGroupId(), e.getMessage());
             }
         }
+        invalidateAuthGroupIndexes();
         return result;
     }
 
@@ -265,6 +347,7 @@ public class AuthServiceImpl implements AuthService {
                 result.addFail(groupId, e.getMessage());
             }
         }
+        invalidateAuthGroupIndexes();
         return result;
     }
 
@@ -319,6 +402,7 @@ public class AuthServiceImpl implements AuthService {
                 result.addFail(groupId, e.getMessage());
             }
         }
+        invalidateAuthGroupIndexes();
         return result;
     }
 
@@ -357,6 +441,7 @@ public class AuthServiceImpl implements AuthService {
                 result.addFail(groupId, e.getMessage());
             }
         }
+        invalidateAuthGroupIndexes();
         return result;
     }
 }
@@ -0,0 +1,77 @@
+package com.tencent.supersonic.auth.authorization.service;
+
+import com.google.common.collect.Lists;
+import com.tencent.supersonic.auth.api.authorization.pojo.AuthGroup;
+import com.tencent.supersonic.auth.api.authorization.pojo.AuthRule;
+import com.tencent.supersonic.auth.authorization.service.AuthGroupIndex.CompiledGroup;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+class AuthGroupIndexTest {
+
+    @Test
+    void testUserAndDepartmentMatch() {
+        AuthGroupIndex authGroupIndex = new AuthGroupIndex(Lists.newArrayList(
+                authGroup(1, 1L, Lists.newArrayList("alice"), null, "pv"),
+                authGroup(2, 1L, null, Lists.newArrayList("d1"), "uv"),
+                authGroup(3, 1L, Lists.newArrayList("bob"), Lists.newArrayList("d2"), "visits")));
+
+        Assertions.assertEquals(Lists.newArrayList(1),
+                groupIds(authGroupIndex.getGroups(1L, "alice", null)));
+        Assertions.assertEquals(Lists.newArrayList(1, 2),
+                groupIds(authGroupIndex.getGroups(1L, "alice", Lists.newArrayList("d1"))));
+        Assertions.assertEquals(Lists.newArrayList(2, 3),
+                groupIds(authGroupIndex.getGroups(1L, "tom", Lists.newArrayList("d2", "d1"))));
+        Assertions.assertTrue(
+                authGroupIndex.getGroups(1L, "tom", Lists.newArrayList("d3")).isEmpty());
+        Assertions.assertEquals(3, authGroupIndex.getGroupCount());
+    }
+
+    @Test
+    void testModelMatch() {
+        AuthGroupIndex authGroupIndex = new AuthGroupIndex(Lists.newArrayList(
+                authGroup(1, 1L, Lists.newArrayList("alice"), null, "pv"),
+                authGroup(2, 2L, Lists.newArrayList("alice"), null, "uv"),
+                authGroup(3, null, Lists.newArrayList("alice"), null, "visits")));
+
+        Assertions.assertEquals(Lists.newArrayList(2),
+                groupIds(authGroupIndex.getGroups(2L, "alice", null)));
+        Assertions.assertTrue(authGroupIndex.getGroups(3L, "alice", null).isEmpty());
+        Assertions.assertEquals(2, authGroupIndex.getGroupCount());
+    }
+
+    @Test
+    void testDeduplicateGroups() {
+        AuthGroupIndex authGroupIndex = new AuthGroupIndex(Lists.newArrayList(
+                authGroup(1, 1L, Lists.newArrayList("alice", "alice"),
+                        Lists.newArrayList("d1", "d2"), "pv", "uv"),
+                authGroup(2, 1L, Lists.newArrayList("alice"), null, "visits")));
+
+        List<CompiledGroup> groups =
+                authGroupIndex.getGroups(1L, "alice", Lists.newArrayList("d1", "d2"));
+        Assertions.assertEquals(Lists.newArrayList(1, 2), groupIds(groups));
+        Assertions.assertEquals(Lists.newArrayList("pv", "uv"), groups.get(0).getResourceNames());
+    }
+
+    private static List<Integer> groupIds(List<CompiledGroup> groups) {
+        return groups.stream().map(group -> group.getAuthGroup().getGroupId())
+                .collect(Collectors.toList());
+    }
+
+    private static AuthGroup authGroup(Integer groupId, Long modelId, List<String> users,
+            List<String> departmentIds, String... metrics) {
+        AuthRule authRule = new AuthRule();
+        authRule.setMetrics(Lists.newArrayList(metrics));
+        AuthGroup authGroup = new AuthGroup();
+        authGroup.setGroupId(groupId);
+        authGroup.setModelId(modelId);
+        authGroup.setAuthorizedUsers(users);
+        authGroup.setAuthorizedDepartmentIds(departmentIds);
+        authGroup.setAuthRules(Collections.singletonList(authRule));
+        return authGroup;
+    }
+}
@@ -18,6 +18,8 @@ public class ChatParseResp {
     private List<SemanticParseInfo> selectedParses = Lists.newArrayList();
     private ParseTimeCostResp parseTimeCost = new ParseTimeCostResp();
     private List<Text2SQLExemplar> usedExemplars;
+    /** generation of the dictionary the question was mapped against */
+    private Long dictGeneration;
 
     public ChatParseResp(Long queryId) {
         this.queryId = queryId;
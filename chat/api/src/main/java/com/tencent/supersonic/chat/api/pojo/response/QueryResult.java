@@ -5,9 +5,11 @@ import com.tencent.supersonic.common.pojo.QueryColumn;
 import com.tencent.supersonic.headless.api.pojo.AggregateInfo;
 import com.tencent.supersonic.headless.api.pojo.SchemaElement;
 import com.tencent.supersonic.headless.api.pojo.SemanticParseInfo;
+import com.tencent.supersonic.headless.api.pojo.StageCost;
 import com.tencent.supersonic.headless.api.pojo.response.QueryState;
 import lombok.Data;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -28,4 +30,8 @@ public class QueryResult {
     private List<SchemaElement> recommendedDimensions;
     private AggregateInfo aggregateInfo;
     private String errorMsg;
+    /** the executors and processors run for the request, in order */
+    private List<StageCost> stageCosts = new ArrayList<>();
+    /** the deferred processors are still enriching the result, to be fetched again later */
+    private boolean enrichmentPending;
 }
@@ -83,6 +83,10 @@ public class SqlExecutor implements ChatQueryExecutor {
         QuerySqlReq sqlReq = QuerySqlReq.builder().sql(finalSql).build();
         sqlReq.setSqlInfo(parseInfo.getSqlInfo());
         sqlReq.setDataSetId(parseInfo.getDataSetId());
+        // lets the chat page cancel the query by its chat query id
+        if (Objects.nonNull(executeContext.getRequest().getQueryId())) {
+            sqlReq.setRequestId(String.valueOf(executeContext.getRequest().getQueryId()));
+        }
 
         long startTime = System.currentTimeMillis();
         QueryResult queryResult = new QueryResult();
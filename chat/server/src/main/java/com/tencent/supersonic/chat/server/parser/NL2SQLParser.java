@@ -164,6 +164,7 @@ public class NL2SQLParser implements ChatQueryParser {
         resp.setState(parseResp.getState());
         resp.setParseTimeCost(parseResp.getParseTimeCost());
         resp.setErrorMsg(parseResp.getErrorMsg());
+        resp.setDictGeneration(parseResp.getDictGeneration());
     }
 
     private void rewriteMultiTurn(ParseContext parseContext, QueryNLReq queryNLReq) {
@@ -1,12 +1,9 @@
 package com.tencent.supersonic.chat.server.processor.execute;
 
-import com.alibaba.fastjson.JSON;
-import com.alibaba.fastjson.JSONObject;
 import com.tencent.supersonic.chat.api.pojo.response.QueryResult;
 import com.tencent.supersonic.chat.server.agent.Agent;
-import com.tencent.supersonic.chat.server.persistence.dataobject.ChatQueryDO;
-import com.tencent.supersonic.chat.server.persistence.repository.ChatQueryRepository;
 import com.tencent.supersonic.chat.server.pojo.ExecuteContext;
+import com.tencent.supersonic.chat.server.service.ChatManageService;
 import com.tencent.supersonic.common.pojo.ChatApp;
 import com.tencent.supersonic.common.pojo.enums.AppModule;
 import com.tencent.supersonic.common.util.ChatAppManager;
@@ -23,6 +20,7 @@ import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
@@ -70,6 +68,12 @@ public class DataInterpretProcessor implements ExecuteResultProcessor {
                 && StringUtils.isBlank(executeContext.getResponse().getTextSummary()); // 如果已经有汇总的结果了，无法再次处理
     }
 
+    @Override
+    public boolean isDeferrable(ExecuteContext executeContext) {
+        // the streaming interpretation is already written behind by its handler
+        return !executeContext.getRequest().isStreamingResult();
+    }
+
     @Override
     public void process(ExecuteContext executeContext) {
         QueryResult queryResult = executeContext.getResponse();
@@ -104,14 +108,13 @@ public class DataInterpretProcessor implements ExecuteResultProcessor {
 
                         @Override
                         public void onComplete(Response<AiMessage> response) {
-                            ChatQueryRepository chatQueryRepository =
-                                    ContextUtils.getBean(ChatQueryRepository.class);
-                            ChatQueryDO chatQueryDO = chatQueryRepository.getChatQueryDO(queryId);
-                            JSONObject queryResult = JSON.parseObject(chatQueryDO.getQueryResult());
-                            queryResult.put("textSummary",
+                            ChatManageService chatManageService =
+                                    ContextUtils.getBean(ChatManageService.class);
+                            QueryResult summaryResult = new QueryResult();
+                            summaryResult.setTextSummary(
                                     resultCache.get(queryId).toString().substring(tip.length()));
-                            chatQueryDO.setQueryResult(queryResult.toJSONString());
-                            chatQueryRepository.updateChatQuery(chatQueryDO);
+                            chatManageService.mergeQueryResult(queryId, summaryResult,
+                                    Collections.singletonList("textSummary"));
                             resultCache.remove(queryId);
                         }
 
@@ -33,6 +33,11 @@ public class DimensionRecommendProcessor implements ExecuteResultProcessor {
                 && !CollectionUtils.isEmpty(semanticParseInfo.getMetrics());
     }
 
+    @Override
+    public boolean isDeferrable(ExecuteContext executeContext) {
+        return true;
+    }
+
     @Override
     public void process(ExecuteContext executeContext) {
         QueryResult queryResult = executeContext.getResponse();
@@ -9,4 +9,13 @@ public interface ExecuteResultProcessor extends ResultProcessor {
     boolean accept(ExecuteContext executeContext);
 
     void process(ExecuteContext executeContext);
+
+    /**
+     * Whether the processor may run after the execution result is returned to the user. Deferred
+     * processors run concurrently on a copy of the result, so they must only set their own fields
+     * of the result and replace, rather than modify, the collections of the parse info.
+     */
+    default boolean isDeferrable(ExecuteContext executeContext) {
+        return false;
+    }
 }
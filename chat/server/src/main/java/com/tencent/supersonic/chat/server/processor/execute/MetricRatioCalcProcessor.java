@@ -5,7 +5,6 @@ import com.tencent.supersonic.chat.server.pojo.ExecuteContext;
 import com.tencent.supersonic.common.jsqlparser.SqlSelectHelper;
 import com.tencent.supersonic.common.pojo.DateConf;
 import com.tencent.supersonic.common.pojo.DateConf.DateMode;
-import com.tencent.supersonic.common.pojo.QueryColumn;
 import com.tencent.supersonic.common.pojo.User;
 import com.tencent.supersonic.common.pojo.enums.AggOperatorEnum;
 import com.tencent.supersonic.common.pojo.enums.DatePeriodEnum;
@@ -22,7 +21,6 @@ import com.tencent.supersonic.headless.api.pojo.response.SemanticQueryResp;
 import com.tencent.supersonic.headless.chat.utils.QueryReqBuilder;
 import com.tencent.supersonic.headless.core.config.AggregatorConfig;
 import com.tencent.supersonic.headless.server.facade.service.SemanticLayerService;
-import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.util.CollectionUtils;
 
@@ -34,15 +32,16 @@ import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import static com.tencent.supersonic.common.pojo.Constants.DAY_FORMAT;
@@ -53,7 +52,9 @@ import static com.tencent.supersonic.common.pojo.Constants.TIMES_FORMAT;
 import static com.tencent.supersonic.common.pojo.Constants.TIME_FORMAT;
 
 /**
- * Add ratio queries for metric queries.
+ * Add the period-over-period ratios of the metric for aggregate queries. The values of the latest
+ * date and of the two comparison dates are taken from the rows already fetched when they are there,
+ * otherwise fetched together in one query, and the ratios are computed from them.
  */
 @Slf4j
 public class MetricRatioCalcProcessor implements ExecuteResultProcessor {
@@ -67,6 +68,11 @@ public class MetricRatioCalcProcessor implements ExecuteResultProcessor {
                 && QueryType.AGGREGATE.equals(semanticParseInfo.getQueryType());
     }
 
+    @Override
+    public boolean isDeferrable(ExecuteContext executeContext) {
+        return true;
+    }
+
     @Override
     public void process(ExecuteContext executeContext) {
         QueryResult queryResult = executeContext.getResponse();
@@ -112,23 +118,36 @@ public class MetricRatioCalcProcessor implements ExecuteResultProcessor {
                 metricInfo.setDate(value.get(dateField).toString());
             });
 
-            CompletableFuture<MetricInfo> metricInfoRoll =
-                    CompletableFuture.supplyAsync(() -> queryRatio(user, semanticParseInfo,
-                            ratioMetric.get(), AggOperatorEnum.RATIO_ROLL, queryResult));
-            CompletableFuture<MetricInfo> metricInfoOver =
-                    CompletableFuture.supplyAsync(() -> queryRatio(user, semanticParseInfo,
-                            ratioMetric.get(), AggOperatorEnum.RATIO_OVER, queryResult));
+            String lastDay = lastDayOp.get();
+            DatePeriodEnum period = semanticParseInfo.getDateInfo().getPeriod();
+            String rollDay = getRatioDate(AggOperatorEnum.RATIO_ROLL, period, lastDay);
+            String overDay = getRatioDate(AggOperatorEnum.RATIO_OVER, period, lastDay);
 
-            CompletableFuture.allOf(metricInfoRoll, metricInfoOver).join();
+            Map<String, Object> periodValues = getPeriodValues(user, semanticParseInfo,
+                    ratioMetric.get(), queryResult, lastDay, rollDay, overDay);
+            Object currentValue = periodValues.get(lastDay);
+            if (Objects.isNull(currentValue)) {
+                aggregateInfo.getMetricInfos().add(metricInfo);
+                return aggregateInfo;
+            }
 
-            if (metricInfoRoll.get().getName() != null) {
-                metricInfo.setName(metricInfoRoll.get().getName());
+            DecimalFormat df = new DecimalFormat("#.####");
+            metricInfo.setValue(df.format(currentValue));
+            metricInfo.setName(ratioMetric.get().getName());
+            String statisticsRollName = RatioOverType.DAY_ON_DAY.getShowName();
+            String statisticsOverName = RatioOverType.WEEK_ON_DAY.getShowName();
+            if (DatePeriodEnum.MONTH.equals(period)) {
+                statisticsRollName = RatioOverType.MONTH_ON_MONTH.getShowName();
+                statisticsOverName = RatioOverType.YEAR_ON_MONTH.getShowName();
             }
-            if (metricInfoOver.get().getValue() != null) {
-                metricInfo.setValue(metricInfoRoll.get().getValue());
+            if (DatePeriodEnum.WEEK.equals(period)) {
+                statisticsRollName = RatioOverType.WEEK_ON_WEEK.getShowName();
+                statisticsOverName = RatioOverType.MONTH_ON_WEEK.getShowName();
             }
-            metricInfo.getStatistics().putAll(metricInfoRoll.get().getStatistics());
-            metricInfo.getStatistics().putAll(metricInfoOver.get().getStatistics());
+            metricInfo.getStatistics().put(statisticsRollName,
+                    getRatio(currentValue, periodValues.get(rollDay)));
+            metricInfo.getStatistics().put(statisticsOverName,
+                    getRatio(currentValue, periodValues.get(overDay)));
 
             aggregateInfo.getMetricInfos().add(metricInfo);
         } catch (Exception e) {
@@ -146,79 +165,98 @@ public class MetricRatioCalcProcessor implements ExecuteResultProcessor {
                 .collect(Collectors.toSet());
     }
 
-    @SneakyThrows
-    private MetricInfo queryRatio(User user, SemanticParseInfo semanticParseInfo,
-            SchemaElement metric, AggOperatorEnum aggOperatorEnum, QueryResult queryResult) {
-
-        QueryStructReq queryStructReq =
-                QueryReqBuilder.buildStructRatioReq(semanticParseInfo, metric, aggOperatorEnum);
+    /**
+     * the metric values by date of the latest date and the comparison dates, taken from the rows
+     * already fetched when they hold one row per date and cover the comparison dates, otherwise
+     * fetched in one query over the three dates
+     */
+    private Map<String, Object> getPeriodValues(User user, SemanticParseInfo semanticParseInfo,
+            SchemaElement metric, QueryResult queryResult, String lastDay, String rollDay,
+            String overDay) {
         String dateField = QueryReqBuilder.getDateField(semanticParseInfo.getDateInfo());
-        queryStructReq.setGroups(new ArrayList<>(Arrays.asList(dateField)));
-        queryStructReq
-                .setDateInfo(getRatioDateConf(aggOperatorEnum, semanticParseInfo, queryResult));
+        Map<String, Object> resultValues =
+                getValuesByDate(queryResult.getQueryResults(), dateField, metric.getBizName());
+        if (resultValues != null && resultValues.containsKey(rollDay)
+                && resultValues.containsKey(overDay)) {
+            return resultValues;
+        }
+
+        Set<String> dates = new LinkedHashSet<>(Arrays.asList(lastDay, rollDay, overDay));
+        dates.remove("");
+        QueryStructReq queryStructReq = QueryReqBuilder.buildStructReq(semanticParseInfo);
+        queryStructReq.setQueryType(QueryType.AGGREGATE);
+        queryStructReq.setAggregators(queryStructReq.getAggregators().stream()
+                .filter(a -> metric.getBizName().equals(a.getColumn()))
+                .collect(Collectors.toList()));
+        queryStructReq.setGroups(new ArrayList<>(Collections.singletonList(dateField)));
+        queryStructReq.setOrders(new ArrayList<>());
+        queryStructReq.setLimit(dates.size());
+        DateConf dateConf = new DateConf();
+        dateConf.setDateField(semanticParseInfo.getDateInfo().getDateField());
+        dateConf.setPeriod(semanticParseInfo.getDateInfo().getPeriod());
+        dateConf.setDateMode(DateMode.LIST);
+        dateConf.setDateList(new ArrayList<>(dates));
+        queryStructReq.setDateInfo(dateConf);
         queryStructReq.setConvertToSql(false);
         SemanticLayerService queryService = ContextUtils.getBean(SemanticLayerService.class);
-        SemanticQueryResp queryResp = queryService.queryByReq(queryStructReq, user);
-        MetricInfo metricInfo = new MetricInfo();
-        metricInfo.setStatistics(new HashMap<>());
+        SemanticQueryResp queryResp;
+        try {
+            queryResp = queryService.queryByReq(queryStructReq, user);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
         if (Objects.isNull(queryResp) || CollectionUtils.isEmpty(queryResp.getResultList())) {
-            return metricInfo;
+            return Collections.emptyMap();
         }
+        Map<String, Object> values =
+                getValuesByDate(queryResp.getResultList(), dateField, metric.getBizName());
+        return values == null ? Collections.emptyMap() : values;
+    }
 
-        Map<String, Object> result = queryResp.getResultList().get(0);
-        Optional<QueryColumn> valueColumn = queryResp.getColumns().stream()
-                .filter(c -> c.getBizName().equals(metric.getBizName())).findFirst();
-
-        if (!valueColumn.isPresent()) {
-            return metricInfo;
+    /** the metric value by date, null if a date has several rows like grouped by another field */
+    private static Map<String, Object> getValuesByDate(List<Map<String, Object>> rows,
+            String dateField, String metricField) {
+        if (rows == null) {
+            return null;
         }
-        String valueField = String.format("%s_%s", valueColumn.get().getBizName(),
-                aggOperatorEnum.getOperator());
-        if (result.containsKey(valueColumn.get().getBizName())) {
-            DecimalFormat df = new DecimalFormat("#.####");
-            metricInfo.setValue(df.format(result.get(valueColumn.get().getBizName())));
+        Map<String, Object> values = new HashMap<>();
+        for (Map<String, Object> row : rows) {
+            if (!row.containsKey(dateField) || row.get(dateField) == null) {
+                continue;
+            }
+            String date = row.get(dateField).toString();
+            if (values.containsKey(date)) {
+                return null;
+            }
+            values.put(date, row.get(metricField));
         }
-        String ratio = "";
-        if (Objects.nonNull(result.get(valueField))) {
-            ratio = String.format("%.2f",
-                    (Double.parseDouble(result.get(valueField).toString()) * 100)) + "%";
+        return values;
+    }
+
+    private static String getRatio(Object currentValue, Object previousValue) {
+        Double current = toDouble(currentValue);
+        Double previous = toDouble(previousValue);
+        if (current == null || previous == null || previous == 0) {
+            return "";
         }
-        String statisticsRollName = RatioOverType.DAY_ON_DAY.getShowName();
-        String statisticsOverName = RatioOverType.WEEK_ON_DAY.getShowName();
-        if (DatePeriodEnum.MONTH.equals(semanticParseInfo.getDateInfo().getPeriod())) {
-            statisticsRollName = RatioOverType.MONTH_ON_MONTH.getShowName();
-            statisticsOverName = RatioOverType.YEAR_ON_MONTH.getShowName();
+        return String.format("%.2f", (current - previous) / previous * 100) + "%";
+    }
+
+    private static Double toDouble(Object value) {
+        if (Objects.isNull(value)) {
+            return null;
         }
-        if (DatePeriodEnum.WEEK.equals(semanticParseInfo.getDateInfo().getPeriod())) {
-            statisticsRollName = RatioOverType.WEEK_ON_WEEK.getShowName();
-            statisticsOverName = RatioOverType.MONTH_ON_WEEK.getShowName();
+        try {
+            return Double.parseDouble(value.toString());
+        } catch (NumberFormatException e) {
+            return null;
         }
-        metricInfo.getStatistics()
-                .put(aggOperatorEnum.equals(AggOperatorEnum.RATIO_ROLL) ? statisticsRollName
-                        : statisticsOverName, ratio);
-        metricInfo.setName(metric.getName());
-        return metricInfo;
     }
 
-    private DateConf getRatioDateConf(AggOperatorEnum aggOperatorEnum,
-            SemanticParseInfo semanticParseInfo, QueryResult queryResult) {
-        String dateField = QueryReqBuilder.getDateField(semanticParseInfo.getDateInfo());
-
-        Optional<String> lastDayOp =
-                queryResult.getQueryResults().stream().map(r -> r.get(dateField).toString())
-                        .sorted(Comparator.reverseOrder()).findFirst();
-
-        if (!lastDayOp.isPresent()) {
-            return semanticParseInfo.getDateInfo();
-        }
-        String lastDay = lastDayOp.get();
-        DateConf dateConf = new DateConf();
-        dateConf.setPeriod(semanticParseInfo.getDateInfo().getPeriod());
-        dateConf.setDateMode(DateMode.LIST);
-        List<String> dayList = new ArrayList<>();
-        dayList.add(lastDay);
+    private String getRatioDate(AggOperatorEnum aggOperatorEnum, DatePeriodEnum period,
+            String lastDay) {
         String start = "";
-        if (DatePeriodEnum.DAY.equals(semanticParseInfo.getDateInfo().getPeriod())) {
+        if (DatePeriodEnum.DAY.equals(period)) {
             DateTimeFormatter formatter =
                     DateUtils.getDateFormatter(lastDay, new String[] {DAY_FORMAT, DAY_FORMAT_INT});
             LocalDate end = LocalDate.parse(lastDay, formatter);
@@ -226,7 +264,7 @@ public class MetricRatioCalcProcessor implements ExecuteResultProcessor {
                     ? end.minusDays(1).format(formatter)
                     : end.minusWeeks(1).format(formatter);
         }
-        if (DatePeriodEnum.WEEK.equals(semanticParseInfo.getDateInfo().getPeriod())) {
+        if (DatePeriodEnum.WEEK.equals(period)) {
             DateTimeFormatter formatter = DateUtils.getTimeFormatter(lastDay,
                     new String[] {TIMES_FORMAT, DAY_FORMAT, TIME_FORMAT, DAY_FORMAT_INT});
             LocalDateTime end = LocalDateTime.parse(lastDay, formatter);
@@ -234,7 +272,7 @@ public class MetricRatioCalcProcessor implements ExecuteResultProcessor {
                     ? end.minusWeeks(1).format(formatter)
                     : end.minusMonths(1).with(DayOfWeek.MONDAY).format(formatter);
         }
-        if (DatePeriodEnum.MONTH.equals(semanticParseInfo.getDateInfo().getPeriod())) {
+        if (DatePeriodEnum.MONTH.equals(period)) {
             DateTimeFormatter formatter = DateUtils.getDateFormatter(lastDay,
                     new String[] {MONTH_FORMAT, MONTH_FORMAT_INT});
             YearMonth end = YearMonth.parse(lastDay, formatter);
@@ -242,8 +280,6 @@ public class MetricRatioCalcProcessor implements ExecuteResultProcessor {
                     ? end.minusMonths(1).format(formatter)
                     : end.minusYears(1).format(formatter);
         }
-        dayList.add(start);
-        dateConf.setDateList(dayList);
-        return dateConf;
+        return start;
     }
 }
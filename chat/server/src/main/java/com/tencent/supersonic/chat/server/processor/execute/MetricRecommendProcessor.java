@@ -34,6 +34,11 @@ public class MetricRecommendProcessor implements ExecuteResultProcessor {
                 && parseInfo.getMetrics().size() <= METRIC_RECOMMEND_SIZE;
     }
 
+    @Override
+    public boolean isDeferrable(ExecuteContext executeContext) {
+        return true;
+    }
+
     @Override
     public void process(ExecuteContext executeContext) {
         fillSimilarMetric(executeContext.getParseInfo());
@@ -61,8 +66,13 @@ public class MetricRecommendProcessor implements ExecuteResultProcessor {
                 .collect(Collectors.toList());
         Set<Long> metricIds = parseInfo.getMetrics().stream().map(SchemaElement::getId)
                 .collect(Collectors.toSet());
+        // fill a copy, the other processors may be reading the metrics meanwhile
+        Set<SchemaElement> metrics =
+                parseInfo.getMetrics() instanceof SortedSet<SchemaElement> sortedMetrics
+                        ? new TreeSet<>(sortedMetrics)
+                        : new LinkedHashSet<>(parseInfo.getMetrics());
         int metricOrder = 0;
-        for (SchemaElement metric : parseInfo.getMetrics()) {
+        for (SchemaElement metric : metrics) {
             metric.setOrder(metricOrder++);
         }
         for (Retrieval retrieval : retrievals) {
@@ -80,8 +90,9 @@ public class MetricRecommendProcessor implements ExecuteResultProcessor {
                     schemaElement.setDataSetId(Long.parseLong(dataSetId));
                 }
                 schemaElement.setOrder(++metricOrder);
-                parseInfo.getMetrics().add(schemaElement);
+                metrics.add(schemaElement);
             }
         }
+        parseInfo.setMetrics(metrics);
     }
 }
@@ -9,6 +9,7 @@ import com.tencent.supersonic.chat.api.pojo.response.QueryResult;
 import com.tencent.supersonic.chat.server.service.ChatQueryService;
 import com.tencent.supersonic.common.pojo.User;
 import com.tencent.supersonic.common.pojo.exception.InvalidArgumentException;
+import com.tencent.supersonic.common.util.StageMetrics;
 import com.tencent.supersonic.headless.api.pojo.SemanticParseInfo;
 import com.tencent.supersonic.headless.api.pojo.request.DimensionValueReq;
 import jakarta.servlet.http.HttpServletRequest;
@@ -17,11 +18,14 @@ import jakarta.validation.Valid;
 import org.apache.commons.collections.CollectionUtils;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 /** query controller */
 @RestController
 @RequestMapping({"/api/chat/query", "/openapi/chat/query"})
@@ -51,6 +55,12 @@ public class ChatQueryController {
         return chatQueryService.execute(chatExecuteReq);
     }
 
+    /** latency percentiles of the stages and components of the chat pipeline */
+    @GetMapping("stageMetrics")
+    public List<StageMetrics.TimerSnapshot> stageMetrics() {
+        return StageMetrics.snapshot();
+    }
+
     @PostMapping("getExecuteSummary")
     public Object getExecuteSummary(@RequestBody ChatExecuteReq chatExecuteReq,
             HttpServletRequest request, HttpServletResponse response) {
@@ -59,6 +69,14 @@ public class ChatQueryController {
         return res;
     }
 
+    /** fetches the result again once enrichmentPending is false */
+    @PostMapping("getExecuteResult")
+    public Object getExecuteResult(@RequestBody ChatExecuteReq chatExecuteReq,
+            HttpServletRequest request, HttpServletResponse response) {
+        chatExecuteReq.setUser(UserHolder.findUser(request, response));
+        return chatQueryService.getEnrichedResult(chatExecuteReq);
+    }
+
     @PostMapping("/")
     public Object query(@RequestBody ChatParseReq chatParseReq, HttpServletRequest request,
             HttpServletResponse response) throws Exception {
@@ -14,6 +14,7 @@ import com.tencent.supersonic.chat.server.persistence.dataobject.ChatQueryDO;
 import com.tencent.supersonic.common.pojo.User;
 import com.tencent.supersonic.headless.api.pojo.SemanticParseInfo;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ChatManageService {
@@ -43,6 +44,12 @@ public interface ChatManageService {
 
     ChatQueryDO saveQueryResult(ChatExecuteReq chatExecuteReq, QueryResult queryResult);
 
+    /**
+     * Copies the given fields of the result into the result saved for the query, reading and
+     * writing the saved result under a lock of the query so that concurrent merges are kept.
+     */
+    void mergeQueryResult(Long queryId, QueryResult queryResult, Collection<String> fields);
+
     int updateQuery(ChatQueryDO chatQueryDO);
 
     void deleteQuery(Long queryId);
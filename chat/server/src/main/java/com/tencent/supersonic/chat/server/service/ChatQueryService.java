@@ -21,6 +21,9 @@ public interface ChatQueryService {
 
     QueryResult getTextSummary(ChatExecuteReq chatExecuteReq);
 
+    /** the execution result with the enrichments of the deferred processors once they finish */
+    QueryResult getEnrichedResult(ChatExecuteReq chatExecuteReq);
+
     QueryResult parseAndExecute(ChatParseReq chatParseReq);
 
     Object queryData(ChatQueryDataReq chatQueryDataReq, User user) throws Exception;
@@ -1,7 +1,9 @@
 package com.tencent.supersonic.chat.server.service.impl;
 
 import com.alibaba.fastjson.JSONObject;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.github.pagehelper.PageInfo;
+import com.google.common.util.concurrent.Striped;
 import com.tencent.supersonic.auth.api.authentication.service.UserService;
 import com.tencent.supersonic.chat.api.pojo.enums.MemoryReviewResult;
 import com.tencent.supersonic.chat.api.pojo.enums.MemoryStatus;
@@ -24,13 +26,16 @@ import com.tencent.supersonic.common.context.TenantContext;
 import com.tencent.supersonic.common.pojo.User;
 import com.tencent.supersonic.common.util.JsonUtil;
 import com.tencent.supersonic.headless.api.pojo.SemanticParseInfo;
+import com.tencent.supersonic.headless.api.pojo.response.ParseTimeCostResp;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.locks.Lock;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -49,6 +54,9 @@ public class ChatManageServiceImpl implements ChatManageService {
     @Autowired
     private TenantConfig tenantConfig;
 
+    /** serializes the merges into the saved result of a query */
+    private final Striped<Lock> queryResultLocks = Striped.lock(64);
+
     @Override
     public Long addChat(User user, String chatName, Integer agentId) {
         ChatDO chatDO = new ChatDO();
@@ -212,6 +220,32 @@ public class ChatManageServiceImpl implements ChatManageService {
         return chatQueryDO;
     }
 
+    @Override
+    public void mergeQueryResult(Long queryId, QueryResult queryResult,
+            Collection<String> fields) {
+        ObjectNode mergedNode = JsonUtil.getNode(queryResult);
+        Lock lock = queryResultLocks.get(queryId);
+        lock.lock();
+        try {
+            ChatQueryDO chatQueryDO = chatQueryRepository.getChatQueryDO(queryId);
+            if (Objects.isNull(chatQueryDO)) {
+                return;
+            }
+            ObjectNode savedNode = StringUtils.isBlank(chatQueryDO.getQueryResult())
+                    ? JsonUtil.getNode(new QueryResult())
+                    : (ObjectNode) JsonUtil.readTree(chatQueryDO.getQueryResult());
+            for (String field : fields) {
+                if (mergedNode.has(field)) {
+                    savedNode.set(field, mergedNode.get(field));
+                }
+            }
+            chatQueryDO.setQueryResult(JsonUtil.toString(savedNode));
+            updateQuery(chatQueryDO);
+        } finally {
+            lock.unlock();
+        }
+    }
+
     @Override
     public int updateQuery(ChatQueryDO chatQueryDO) {
         return chatQueryRepository.updateChatQuery(chatQueryDO);
@@ -229,7 +263,12 @@ public class ChatManageServiceImpl implements ChatManageService {
     @Override
     public void updateParseCostTime(ChatParseResp chatParseResp) {
         ChatQueryDO chatQueryDO = chatQueryRepository.getChatQueryDO(chatParseResp.getQueryId());
-        chatQueryDO.setParseTimeCost(JsonUtil.toString(chatParseResp.getParseTimeCost()));
+        // the stage trace goes with the response only, the column keeps the totals
+        ParseTimeCostResp parseTimeCost = new ParseTimeCostResp();
+        parseTimeCost.setParseStartTime(chatParseResp.getParseTimeCost().getParseStartTime());
+        parseTimeCost.setParseTime(chatParseResp.getParseTimeCost().getParseTime());
+        parseTimeCost.setSqlTime(chatParseResp.getParseTimeCost().getSqlTime());
+        chatQueryDO.setParseTimeCost(JsonUtil.toString(parseTimeCost));
         updateQuery(chatQueryDO);
     }
 
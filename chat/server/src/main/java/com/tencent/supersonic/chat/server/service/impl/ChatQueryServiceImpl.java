@@ -1,6 +1,8 @@
 package com.tencent.supersonic.chat.server.service.impl;
 
 import com.alibaba.fastjson2.JSON;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
 import com.tencent.supersonic.auth.api.authentication.service.UserService;
 import com.tencent.supersonic.chat.api.pojo.request.ChatExecuteReq;
@@ -22,6 +24,7 @@ import com.tencent.supersonic.chat.server.service.ChatManageService;
 import com.tencent.supersonic.chat.server.service.ChatQueryService;
 import com.tencent.supersonic.chat.server.util.ComponentFactory;
 import com.tencent.supersonic.chat.server.util.QueryReqConverter;
+import com.tencent.supersonic.common.context.TenantContext;
 import com.tencent.supersonic.common.jsqlparser.FieldExpression;
 import com.tencent.supersonic.common.jsqlparser.SqlAddHelper;
 import com.tencent.supersonic.common.jsqlparser.SqlRemoveHelper;
@@ -31,14 +34,17 @@ import com.tencent.supersonic.common.pojo.User;
 import com.tencent.supersonic.common.pojo.enums.FilterOperatorEnum;
 import com.tencent.supersonic.common.util.DateUtils;
 import com.tencent.supersonic.common.util.JsonUtil;
+import com.tencent.supersonic.common.util.StageMetrics;
 import com.tencent.supersonic.headless.api.pojo.DataSetSchema;
 import com.tencent.supersonic.headless.api.pojo.SchemaElement;
 import com.tencent.supersonic.headless.api.pojo.SemanticParseInfo;
 import com.tencent.supersonic.headless.api.pojo.SqlInfo;
+import com.tencent.supersonic.headless.api.pojo.StageCost;
 import com.tencent.supersonic.headless.api.pojo.request.DimensionValueReq;
 import com.tencent.supersonic.headless.api.pojo.request.QueryFilter;
 import com.tencent.supersonic.headless.api.pojo.request.QueryNLReq;
 import com.tencent.supersonic.headless.api.pojo.request.SemanticQueryReq;
+import com.tencent.supersonic.headless.api.pojo.response.ParseTimeCostResp;
 import com.tencent.supersonic.headless.api.pojo.response.QueryState;
 import com.tencent.supersonic.headless.api.pojo.response.SearchResult;
 import com.tencent.supersonic.headless.api.pojo.response.SemanticQueryResp;
@@ -60,25 +66,40 @@ import net.sf.jsqlparser.expression.operators.relational.ParenthesedExpressionLi
 import net.sf.jsqlparser.schema.Column;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 public class ChatQueryServiceImpl implements ChatQueryService {
 
+    private static final String STAGE_CHAT_PARSING = "CHAT_PARSING";
+    private static final String STAGE_PARSE_PROCESSING = "PARSE_PROCESSING";
+    private static final String STAGE_EXECUTING = "EXECUTING";
+    private static final String STAGE_EXECUTE_PROCESSING = "EXECUTE_PROCESSING";
+    private static final String STAGE_DEFERRED_PROCESSING = "DEFERRED_PROCESSING";
+
     @Autowired
     private ChatManageService chatManageService;
     @Autowired
@@ -90,6 +111,17 @@ public class ChatQueryServiceImpl implements ChatQueryService {
     private AgentService agentService;
     @Autowired
     private UserService userService;
+    @Autowired
+    @Qualifier("executeProcessorExecutor")
+    private ThreadPoolExecutor executeProcessorExecutor;
+
+    @Value("${s2.chat.execute.deferred-processing.enable:false}")
+    private boolean deferredProcessingEnabled;
+
+    /** the enriched results of the deferred processors, by query and parse id */
+    private final Cache<String, QueryResult> enrichedResults =
+            CacheBuilder.newBuilder().maximumSize(1000).expireAfterWrite(10, TimeUnit.MINUTES)
+                    .build();
 
     private final List<ChatQueryParser> chatQueryParsers = ComponentFactory.getChatParsers();
     private final List<ChatQueryExecutor> chatQueryExecutors = ComponentFactory.getChatExecutors();
@@ -120,13 +152,20 @@ public class ChatQueryServiceImpl implements ChatQueryService {
         ParseContext parseContext = buildParseContext(chatParseReq, new ChatParseResp(queryId));
         for (ChatQueryParser parser : chatQueryParsers) {
             if (parser.accept(parseContext)) {
+                long start = System.currentTimeMillis();
                 parser.parse(parseContext);
+                // the parser may replace the time cost by that of the chat layer, add after it
+                addStageCost(parseContext.getResponse().getParseTimeCost(), STAGE_CHAT_PARSING,
+                        parser, start);
             }
         }
 
         for (ParseResultProcessor processor : parseResultProcessors) {
             if (processor.accept(parseContext)) {
+                long start = System.currentTimeMillis();
                 processor.process(parseContext);
+                addStageCost(parseContext.getResponse().getParseTimeCost(),
+                        STAGE_PARSE_PROCESSING, processor, start);
             }
         }
 
@@ -144,9 +183,12 @@ public class ChatQueryServiceImpl implements ChatQueryService {
     public QueryResult execute(ChatExecuteReq chatExecuteReq) {
         QueryResult queryResult = new QueryResult();
         ExecuteContext executeContext = buildExecuteContext(chatExecuteReq);
+        List<StageCost> stageCosts = new ArrayList<>();
         for (ChatQueryExecutor chatQueryExecutor : chatQueryExecutors) {
             if (chatQueryExecutor.accept(executeContext)) {
+                long start = System.currentTimeMillis();
                 queryResult = chatQueryExecutor.execute(executeContext);
+                addStageCost(stageCosts, STAGE_EXECUTING, chatQueryExecutor, start);
                 if (queryResult != null) {
                     break;
                 }
@@ -155,17 +197,193 @@ public class ChatQueryServiceImpl implements ChatQueryService {
 
         executeContext.setResponse(queryResult);
         if (queryResult != null) {
+            queryResult.setStageCosts(stageCosts);
+            List<ExecuteResultProcessor> deferredProcessors = new ArrayList<>();
             for (ExecuteResultProcessor processor : executeResultProcessors) {
                 if (processor.accept(executeContext)) {
+                    if (deferredProcessingEnabled && processor.isDeferrable(executeContext)) {
+                        deferredProcessors.add(processor);
+                        continue;
+                    }
+                    long start = System.currentTimeMillis();
                     processor.process(executeContext);
+                    addStageCost(stageCosts, STAGE_EXECUTE_PROCESSING, processor, start);
                 }
             }
+            if (!deferredProcessors.isEmpty() && isProcessorExecutorSaturated(deferredProcessors)) {
+                log.warn("execute processor pool saturated, dropped deferred processors {} for "
+                        + "query {}", getProcessorNames(deferredProcessors),
+                        chatExecuteReq.getQueryId());
+                deferredProcessors.clear();
+            }
+            queryResult.setEnrichmentPending(!deferredProcessors.isEmpty());
             saveQueryResult(chatExecuteReq, queryResult);
+            if (!deferredProcessors.isEmpty()) {
+                processDeferred(executeContext, deferredProcessors);
+            }
         }
 
         return queryResult;
     }
 
+    /**
+     * The pool rejects rather than running the processors on the request thread, so the deferred
+     * processors are dropped when it cannot queue them all and the result is returned unenriched.
+     */
+    private boolean isProcessorExecutorSaturated(List<ExecuteResultProcessor> processors) {
+        return executeProcessorExecutor.getQueue().remainingCapacity() < processors.size();
+    }
+
+    private static List<String> getProcessorNames(List<ExecuteResultProcessor> processors) {
+        return processors.stream().map(p -> p.getClass().getSimpleName())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Runs the deferred processors concurrently on a copy of the result returned, then saves the
+     * enriched copy, which is served by {@link #getEnrichedResult(ChatExecuteReq)}. A processor
+     * rejected by a pool saturated meanwhile is dropped.
+     */
+    private void processDeferred(ExecuteContext executeContext,
+            List<ExecuteResultProcessor> deferredProcessors) {
+        ExecuteContext deferredContext = copyExecuteContext(executeContext);
+        QueryResult enrichedResult = deferredContext.getResponse();
+        List<StageCost> stageCosts = enrichedResult.getStageCosts();
+        // the processors query the metadata and the data of the tenant of the request
+        Long tenantId = TenantContext.getTenantId();
+        CompletableFuture<?>[] futures = deferredProcessors.stream()
+                .map(processor -> runDeferred(processor, () -> {
+                    long start = System.currentTimeMillis();
+                    Long callerTenantId = TenantContext.getTenantId();
+                    TenantContext.setTenantId(tenantId);
+                    try {
+                        processor.process(deferredContext);
+                    } catch (Exception e) {
+                        log.warn("deferred processor {} failed for query {}",
+                                processor.getClass().getSimpleName(),
+                                executeContext.getRequest().getQueryId(), e);
+                    } finally {
+                        if (callerTenantId == null) {
+                            TenantContext.clear();
+                        } else {
+                            TenantContext.setTenantId(callerTenantId);
+                        }
+                    }
+                    addStageCost(stageCosts, STAGE_DEFERRED_PROCESSING, processor, start);
+                }, executeContext)).toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(futures).whenComplete((r, e) -> {
+            enrichedResult.setEnrichmentPending(false);
+            ChatExecuteReq chatExecuteReq = deferredContext.getRequest();
+            enrichedResults.put(getEnrichedResultKey(chatExecuteReq), enrichedResult);
+            // the history record only retains the query result of the first parse
+            if (chatExecuteReq.getParseId() > 1) {
+                return;
+            }
+            Long callerTenantId = TenantContext.getTenantId();
+            TenantContext.setTenantId(tenantId);
+            try {
+                chatManageService.mergeQueryResult(chatExecuteReq.getQueryId(), enrichedResult,
+                        getEnrichedFields(enrichedResult));
+            } catch (Exception ex) {
+                log.warn("failed to save the enriched result of query {}",
+                        chatExecuteReq.getQueryId(), ex);
+            } finally {
+                if (callerTenantId == null) {
+                    TenantContext.clear();
+                } else {
+                    TenantContext.setTenantId(callerTenantId);
+                }
+            }
+        });
+    }
+
+    private CompletableFuture<Void> runDeferred(ExecuteResultProcessor processor, Runnable task,
+            ExecuteContext executeContext) {
+        try {
+            return CompletableFuture.runAsync(task, executeProcessorExecutor);
+        } catch (RejectedExecutionException e) {
+            log.warn("execute processor pool saturated, dropped deferred processor {} for query {}",
+                    processor.getClass().getSimpleName(),
+                    executeContext.getRequest().getQueryId());
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * The fields set by the deferred processors, merged into the saved result so that the text
+     * summary streamed meanwhile is kept unless the deferred interpretation produced one.
+     */
+    private static List<String> getEnrichedFields(QueryResult enrichedResult) {
+        List<String> fields = Lists.newArrayList("aggregateInfo", "recommendedDimensions",
+                "chatContext", "stageCosts", "enrichmentPending");
+        if (StringUtils.isNotBlank(enrichedResult.getTextSummary())) {
+            fields.add("textSummary");
+        }
+        return fields;
+    }
+
+    /**
+     * Copies the result, its rows and the parse info shallowly, so that the deferred processors do
+     * not change the result while it is returned, nor read rows the caller is changing.
+     */
+    private ExecuteContext copyExecuteContext(ExecuteContext executeContext) {
+        SemanticParseInfo parseInfo = new SemanticParseInfo();
+        BeanUtils.copyProperties(executeContext.getParseInfo(), parseInfo);
+        QueryResult queryResult = new QueryResult();
+        BeanUtils.copyProperties(executeContext.getResponse(), queryResult);
+        if (queryResult.getChatContext() == executeContext.getParseInfo()) {
+            queryResult.setChatContext(parseInfo);
+        }
+        if (queryResult.getQueryResults() != null) {
+            List<Map<String, Object>> rows = new ArrayList<>(queryResult.getQueryResults().size());
+            for (Map<String, Object> row : queryResult.getQueryResults()) {
+                rows.add(new LinkedHashMap<>(row));
+            }
+            queryResult.setQueryResults(rows);
+        }
+        queryResult.setStageCosts(
+                Collections.synchronizedList(new ArrayList<>(queryResult.getStageCosts())));
+        ExecuteContext deferredContext = new ExecuteContext(executeContext.getRequest());
+        deferredContext.setAgent(executeContext.getAgent());
+        deferredContext.setParseInfo(parseInfo);
+        deferredContext.setResponse(queryResult);
+        return deferredContext;
+    }
+
+    private static String getEnrichedResultKey(ChatExecuteReq chatExecuteReq) {
+        return chatExecuteReq.getQueryId() + "_" + chatExecuteReq.getParseId();
+    }
+
+    @Override
+    public QueryResult getEnrichedResult(ChatExecuteReq chatExecuteReq) {
+        QueryResult queryResult =
+                enrichedResults.getIfPresent(getEnrichedResultKey(chatExecuteReq));
+        if (queryResult != null || chatExecuteReq.getParseId() > 1) {
+            return queryResult;
+        }
+        ChatQueryDO chatQueryDO = chatManageService.getChatQueryDO(chatExecuteReq.getQueryId());
+        if (chatQueryDO == null || StringUtils.isBlank(chatQueryDO.getQueryResult())) {
+            return null;
+        }
+        return JSON.parseObject(chatQueryDO.getQueryResult(), QueryResult.class);
+    }
+
+    private void addStageCost(List<StageCost> stageCosts, String stage, Object component,
+            long start) {
+        long cost = System.currentTimeMillis() - start;
+        String name = component.getClass().getSimpleName();
+        stageCosts.add(new StageCost(stage, name, cost));
+        StageMetrics.record(stage, name, cost);
+    }
+
+    private void addStageCost(ParseTimeCostResp parseTimeCost, String stage, Object component,
+            long start) {
+        long cost = System.currentTimeMillis() - start;
+        String name = component.getClass().getSimpleName();
+        parseTimeCost.addStageCost(stage, name, cost);
+        StageMetrics.record(stage, name, cost);
+    }
+
     @Override
     public QueryResult getTextSummary(ChatExecuteReq chatExecuteReq) {
         String text = DataInterpretProcessor.getTextSummary(chatExecuteReq.getQueryId());
@@ -0,0 +1,182 @@
+package com.tencent.supersonic.chat.server.processor.execute;
+
+import com.tencent.supersonic.chat.api.pojo.response.QueryResult;
+import com.tencent.supersonic.common.pojo.DateConf;
+import com.tencent.supersonic.common.pojo.DateConf.DateMode;
+import com.tencent.supersonic.common.pojo.QueryColumn;
+import com.tencent.supersonic.common.pojo.User;
+import com.tencent.supersonic.common.pojo.enums.DatePeriodEnum;
+import com.tencent.supersonic.common.pojo.enums.QueryType;
+import com.tencent.supersonic.common.pojo.enums.RatioOverType;
+import com.tencent.supersonic.common.util.ContextUtils;
+import com.tencent.supersonic.headless.api.pojo.AggregateInfo;
+import com.tencent.supersonic.headless.api.pojo.MetricInfo;
+import com.tencent.supersonic.headless.api.pojo.SchemaElement;
+import com.tencent.supersonic.headless.api.pojo.SemanticParseInfo;
+import com.tencent.supersonic.headless.api.pojo.request.QueryStructReq;
+import com.tencent.supersonic.headless.api.pojo.request.SemanticQueryReq;
+import com.tencent.supersonic.headless.api.pojo.response.SemanticQueryResp;
+import com.tencent.supersonic.headless.server.facade.service.SemanticLayerService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class MetricRatioCalcProcessorTest {
+
+    private static final String DATE_FIELD = "imp_date";
+    private static final String METRIC = "pv";
+
+    private final User user = User.get(1L, "admin");
+    private final MetricRatioCalcProcessor processor = new MetricRatioCalcProcessor();
+    private SemanticLayerService queryService;
+    private MockedStatic<ContextUtils> contextUtils;
+
+    @BeforeEach
+    void setUp() {
+        queryService = Mockito.mock(SemanticLayerService.class);
+        contextUtils = Mockito.mockStatic(ContextUtils.class);
+        contextUtils.when(() -> ContextUtils.getBean(SemanticLayerService.class))
+                .thenReturn(queryService);
+    }
+
+    @AfterEach
+    void tearDown() {
+        contextUtils.close();
+    }
+
+    @Test
+    void testComparisonDatesInRows() throws Exception {
+        QueryResult queryResult = buildQueryResult(row("2024-06-10", 120L),
+                row("2024-06-09", 100L), row("2024-06-03", 80L));
+
+        MetricInfo metricInfo = getMetricInfo(DatePeriodEnum.DAY, queryResult);
+
+        Mockito.verify(queryService, Mockito.never()).queryByReq(Mockito.any(), Mockito.any());
+        Assertions.assertEquals("120", metricInfo.getValue());
+        Assertions.assertEquals("20.00%",
+                metricInfo.getStatistics().get(RatioOverType.DAY_ON_DAY.getShowName()));
+        Assertions.assertEquals("50.00%",
+                metricInfo.getStatistics().get(RatioOverType.WEEK_ON_DAY.getShowName()));
+    }
+
+    @Test
+    void testSeveralRowsPerDateQueries() throws Exception {
+        // grouped by another field, so a date's rows are not the metric total of that date
+        QueryResult queryResult = buildQueryResult(row("2024-06-10", 60L),
+                row("2024-06-10", 60L), row("2024-06-09", 50L), row("2024-06-03", 40L));
+        mockQueryResult(row("2024-06-10", 120L), row("2024-06-09", 100L),
+                row("2024-06-03", 80L));
+
+        MetricInfo metricInfo = getMetricInfo(DatePeriodEnum.DAY, queryResult);
+
+        Assertions.assertEquals(Arrays.asList("2024-06-10", "2024-06-09", "2024-06-03"),
+                captureDateList());
+        Assertions.assertEquals("120", metricInfo.getValue());
+        Assertions.assertEquals("20.00%",
+                metricInfo.getStatistics().get(RatioOverType.DAY_ON_DAY.getShowName()));
+        Assertions.assertEquals("50.00%",
+                metricInfo.getStatistics().get(RatioOverType.WEEK_ON_DAY.getShowName()));
+    }
+
+    @Test
+    void testMissingOrZeroPreviousValue() throws Exception {
+        mockQueryResult(row("2024-06-10", 120L), row("2024-06-03", 0L));
+
+        MetricInfo metricInfo =
+                getMetricInfo(DatePeriodEnum.DAY, buildQueryResult(row("2024-06-10", 120L)));
+
+        Assertions.assertEquals("120", metricInfo.getValue());
+        Assertions.assertEquals("",
+                metricInfo.getStatistics().get(RatioOverType.DAY_ON_DAY.getShowName()));
+        Assertions.assertEquals("",
+                metricInfo.getStatistics().get(RatioOverType.WEEK_ON_DAY.getShowName()));
+    }
+
+    @Test
+    void testRatioDateOfDay() throws Exception {
+        mockQueryResult();
+        getMetricInfo(DatePeriodEnum.DAY, buildQueryResult(row("2024-03-01", 1L)));
+        Assertions.assertEquals(Arrays.asList("2024-03-01", "2024-02-29", "2024-02-23"),
+                captureDateList());
+    }
+
+    @Test
+    void testRatioDateOfWeek() throws Exception {
+        mockQueryResult();
+        getMetricInfo(DatePeriodEnum.WEEK, buildQueryResult(row("2024-06-10 00:00:00", 1L)));
+        // the month-over comparison is the monday of the week a month before
+        Assertions.assertEquals(
+                Arrays.asList("2024-06-10 00:00:00", "2024-06-03 00:00:00", "2024-05-06 00:00:00"),
+                captureDateList());
+    }
+
+    @Test
+    void testRatioDateOfMonth() throws Exception {
+        mockQueryResult();
+        getMetricInfo(DatePeriodEnum.MONTH, buildQueryResult(row("2024-01", 1L)));
+        Assertions.assertEquals(Arrays.asList("2024-01", "2023-12", "2023-01"),
+                captureDateList());
+    }
+
+    private MetricInfo getMetricInfo(DatePeriodEnum period, QueryResult queryResult) {
+        AggregateInfo aggregateInfo =
+                processor.getAggregateInfo(user, buildParseInfo(period), queryResult);
+        Assertions.assertEquals(1, aggregateInfo.getMetricInfos().size());
+        return aggregateInfo.getMetricInfos().get(0);
+    }
+
+    @SafeVarargs
+    private void mockQueryResult(Map<String, Object>... rows) throws Exception {
+        SemanticQueryResp queryResp = new SemanticQueryResp();
+        queryResp.setResultList(new ArrayList<>(Arrays.asList(rows)));
+        Mockito.when(queryService.queryByReq(Mockito.any(), Mockito.any())).thenReturn(queryResp);
+    }
+
+    private List<String> captureDateList() throws Exception {
+        ArgumentCaptor<SemanticQueryReq> captor = ArgumentCaptor.forClass(SemanticQueryReq.class);
+        Mockito.verify(queryService).queryByReq(captor.capture(), Mockito.eq(user));
+        QueryStructReq queryStructReq = (QueryStructReq) captor.getValue();
+        Assertions.assertEquals(DateMode.LIST, queryStructReq.getDateInfo().getDateMode());
+        return queryStructReq.getDateInfo().getDateList();
+    }
+
+    private SemanticParseInfo buildParseInfo(DatePeriodEnum period) {
+        SemanticParseInfo parseInfo = new SemanticParseInfo();
+        parseInfo.setQueryType(QueryType.AGGREGATE);
+        parseInfo.setDataSet(SchemaElement.builder().dataSetId(1L).name("visits").build());
+        parseInfo.getMetrics()
+                .add(SchemaElement.builder().name("visits").bizName(METRIC).build());
+        DateConf dateConf = new DateConf();
+        dateConf.setDateField(DATE_FIELD);
+        dateConf.setPeriod(period);
+        dateConf.setDateMode(DateMode.BETWEEN);
+        parseInfo.setDateInfo(dateConf);
+        return parseInfo;
+    }
+
+    @SafeVarargs
+    private QueryResult buildQueryResult(Map<String, Object>... rows) {
+        QueryResult queryResult = new QueryResult();
+        queryResult.setQueryColumns(Arrays.asList(new QueryColumn(DATE_FIELD, "DATE"),
+                new QueryColumn(METRIC, "BIGINT")));
+        queryResult.setQueryResults(new ArrayList<>(Arrays.asList(rows)));
+        return queryResult;
+    }
+
+    private Map<String, Object> row(String date, Long value) {
+        Map<String, Object> row = new HashMap<>();
+        row.put(DATE_FIELD, date);
+        row.put(METRIC, value);
+        return row;
+    }
+}
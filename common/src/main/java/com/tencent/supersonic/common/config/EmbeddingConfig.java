@@ -29,6 +29,18 @@ public class EmbeddingConfig {
     @Value("${s2.embedding.metric.analyzeQuery.nResult:5}")
     private int metricAnalyzeQueryResultNum;
 
+    @Value("${s2.embedding.memory.hnsw.enable:true}")
+    private boolean memoryHnswEnable;
+
+    @Value("${s2.embedding.memory.hnsw.m:16}")
+    private int memoryHnswM;
+
+    @Value("${s2.embedding.memory.hnsw.ef-construction:100}")
+    private int memoryHnswEfConstruction;
+
+    @Value("${s2.embedding.memory.hnsw.ef-search:64}")
+    private int memoryHnswEfSearch;
+
     public String getMemoryCollectionName(Integer agentId) {
         return memoryCollectionPrefix + agentId;
     }
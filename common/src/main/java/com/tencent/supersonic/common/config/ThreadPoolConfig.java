@@ -1,6 +1,7 @@
 package com.tencent.supersonic.common.config;
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.stereotype.Component;
 
@@ -41,4 +42,26 @@ public class ThreadPoolConfig {
                 new ThreadFactoryBuilder().setNameFormat("supersonic-chat-pool-").build(),
                 new ThreadPoolExecutor.CallerRunsPolicy());
     }
+
+    @Bean("dictRefreshExecutor")
+    public ThreadPoolExecutor getDictRefreshExecutor(
+            @Value("${s2.dict.refresh.parallelism:8}") int parallelism) {
+        return new ThreadPoolExecutor(parallelism, parallelism, 60 * 3, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat("supersonic-dict-refresh-pool-").build(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Rejects when saturated instead of running on the caller, as the deferred processors must not
+     * delay the request thread; the caller drops and logs the rejected processors.
+     */
+    @Bean("executeProcessorExecutor")
+    public ThreadPoolExecutor getExecuteProcessorExecutor() {
+        return new ThreadPoolExecutor(4, 8, 60 * 3, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(512),
+                new ThreadFactoryBuilder().setNameFormat("supersonic-execute-processor-pool-")
+                        .build(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
 }
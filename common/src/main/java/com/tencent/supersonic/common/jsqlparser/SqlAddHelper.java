@@ -13,7 +13,9 @@ import org.springframework.util.CollectionUtils;
 
 import java.util.*;
 
-/** Sql Parser add Helper */
+/**
+ * Sql Parser add Helper, the overloads taking a parsed statement are described in {@link SqlAst}
+ */
 @Slf4j
 public class SqlAddHelper {
 
@@ -23,6 +25,14 @@ public class SqlAddHelper {
         if (selectStatement == null) {
             return null;
         }
+        addFieldsToSelect(selectStatement, fields);
+        return selectStatement.toString();
+    }
+
+    public static boolean addFieldsToSelect(Select selectStatement, List<String> fields) {
+        if (selectStatement == null) {
+            return false;
+        }
         if (selectStatement instanceof PlainSelect) {
             PlainSelect plainSelect = (PlainSelect) selectStatement;
             fields.stream().filter(Objects::nonNull).forEach(field -> {
@@ -42,7 +52,7 @@ public class SqlAddHelper {
                 });
             }
         }
-        return selectStatement.toString();
+        return true;
     }
 
     public static String addFunctionToSelect(String sql, List<Expression> expressionList) {
@@ -50,7 +60,17 @@ public class SqlAddHelper {
         if (selectStatement == null) {
             return null;
         }
+        if (!addFunctionToSelect(selectStatement, expressionList)) {
+            return sql;
+        }
+        return selectStatement.toString();
+    }
 
+    public static boolean addFunctionToSelect(Select selectStatement,
+            List<Expression> expressionList) {
+        if (selectStatement == null) {
+            return false;
+        }
         List<PlainSelect> plainSelectList = new ArrayList<>();
         if (selectStatement instanceof PlainSelect) {
             PlainSelect plainSelect = (PlainSelect) selectStatement.getPlainSelect();
@@ -67,7 +87,7 @@ public class SqlAddHelper {
         }
 
         if (CollectionUtils.isEmpty(plainSelectList)) {
-            return sql;
+            return false;
         }
         for (PlainSelect plainSelect : plainSelectList) {
             List<SelectItem<?>> selectItems = plainSelect.getSelectItems();
@@ -91,7 +111,7 @@ public class SqlAddHelper {
                 }
             }
         }
-        return selectStatement.toString();
+        return true;
     }
 
     public static String addWhere(String sql, String column, Object value) {
@@ -121,16 +141,22 @@ public class SqlAddHelper {
 
     public static String addWhere(String sql, Expression expression) {
         Select selectStatement = SqlSelectHelper.getSelect(sql);
+        if (!addWhere(selectStatement, expression)) {
+            return sql;
+        }
+        return selectStatement.toString();
+    }
 
+    public static boolean addWhere(Select selectStatement, Expression expression) {
         if (!(selectStatement instanceof PlainSelect)) {
-            return sql;
+            return false;
         }
         PlainSelect plainSelect = (PlainSelect) selectStatement;
 
         Expression where = plainSelect.getWhere();
 
         addWhere(plainSelect, where, expression);
-        return selectStatement.toString();
+        return true;
     }
 
     private static void addWhere(PlainSelect plainSelect, Expression where, Expression expression) {
@@ -167,9 +193,16 @@ public class SqlAddHelper {
 
     public static String addAggregateToField(String sql, Map<String, String> fieldNameToAggregate) {
         Select selectStatement = SqlSelectHelper.getSelect(sql);
+        if (!addAggregateToField(selectStatement, fieldNameToAggregate)) {
+            return sql;
+        }
+        return selectStatement.toString();
+    }
 
+    public static boolean addAggregateToField(Select selectStatement,
+            Map<String, String> fieldNameToAggregate) {
         if (!(selectStatement instanceof PlainSelect)) {
-            return sql;
+            return false;
         }
         selectStatement.accept(new SelectVisitorAdapter() {
             @Override
@@ -180,7 +213,7 @@ public class SqlAddHelper {
                 addAggregateToWhereItems(plainSelect.getWhere(), fieldNameToAggregate);
             }
         });
-        return selectStatement.toString();
+        return true;
     }
 
     public static String addGroupBy(String sql, Set<String> groupByFields) {
@@ -188,14 +221,23 @@ public class SqlAddHelper {
             return sql;
         }
         Select selectStatement = SqlSelectHelper.getSelect(sql);
+        if (!addGroupBy(selectStatement, groupByFields)) {
+            return sql;
+        }
+        return selectStatement.toString();
+    }
 
+    public static boolean addGroupBy(Select selectStatement, Set<String> groupByFields) {
+        if (CollectionUtils.isEmpty(groupByFields)) {
+            return false;
+        }
         if (!(selectStatement instanceof PlainSelect)) {
-            return sql;
+            return false;
         }
 
         PlainSelect plainSelect = (PlainSelect) selectStatement;
         GroupByElement groupByElement = new GroupByElement();
-        List<String> originalGroupByFields = SqlSelectHelper.getGroupByFields(sql);
+        List<String> originalGroupByFields = SqlSelectHelper.getGroupByFields(selectStatement);
         if (!CollectionUtils.isEmpty(originalGroupByFields)) {
             groupByFields.addAll(originalGroupByFields);
         }
@@ -203,7 +245,7 @@ public class SqlAddHelper {
             groupByElement.addGroupByExpression(new Column(groupByField));
         }
         plainSelect.setGroupByElement(groupByElement);
-        return selectStatement.toString();
+        return true;
     }
 
     private static void addAggregateToSelectItems(List<SelectItem<?>> selectItems,
@@ -311,9 +353,15 @@ public class SqlAddHelper {
 
     public static String addHaving(String sql, Map<String, String> fieldNames) {
         Select selectStatement = SqlSelectHelper.getSelect(sql);
+        if (!addHaving(selectStatement, fieldNames)) {
+            return sql;
+        }
+        return selectStatement.toString();
+    }
 
+    public static boolean addHaving(Select selectStatement, Map<String, String> fieldNames) {
         if (!(selectStatement instanceof PlainSelect)) {
-            return sql;
+            return false;
         }
 
         PlainSelect plainSelect = (PlainSelect) selectStatement;
@@ -334,7 +382,8 @@ public class SqlAddHelper {
                 }
             }
         }
-        return SqlRemoveHelper.removeNumberFilter(selectStatement.toString());
+        SqlRemoveHelper.removeNumberFilter(selectStatement);
+        return true;
     }
 
     public static String addHaving(String sql, List<Expression> expressionList) {
@@ -363,9 +412,15 @@ public class SqlAddHelper {
 
     public static String addParenthesisToWhere(String sql) {
         Select selectStatement = SqlSelectHelper.getSelect(sql);
+        if (!addParenthesisToWhere(selectStatement)) {
+            return sql;
+        }
+        return selectStatement.toString();
+    }
 
+    public static boolean addParenthesisToWhere(Select selectStatement) {
         if (!(selectStatement instanceof PlainSelect)) {
-            return sql;
+            return false;
         }
         PlainSelect plainSelect = (PlainSelect) selectStatement;
         Expression where = plainSelect.getWhere();
@@ -373,6 +428,6 @@ public class SqlAddHelper {
             Parenthesis parenthesis = new Parenthesis(where);
             plainSelect.setWhere(parenthesis);
         }
-        return selectStatement.toString();
+        return true;
     }
 }
@@ -0,0 +1,63 @@
+package com.tencent.supersonic.common.jsqlparser;
+
+import net.sf.jsqlparser.statement.select.Select;
+
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * A sql parsed once for a series of edits. The edits are the helpers taking a parsed statement,
+ * such as {@link SqlAddHelper#addWhere(Select, net.sf.jsqlparser.expression.Expression)}, applied
+ * in place to the same statement, and the statement is deparsed once at the end. The result is the
+ * same as chaining the helpers taking the sql, without parsing and deparsing the sql between them.
+ * The sql is parsed on the first edit, so that a handle without edits costs nothing.
+ *
+ * <p>
+ * The helpers taking a parsed statement return false when they leave the statement as it is, where
+ * the helpers taking the sql return the sql unchanged.
+ */
+public class SqlAst {
+
+    private final String sql;
+    private Select selectStatement;
+    private boolean parsed;
+    private boolean modified;
+
+    private SqlAst(String sql) {
+        this.sql = sql;
+    }
+
+    /** the statement is owned by the handle, it is not shared with other callers */
+    public static SqlAst parse(String sql) {
+        return new SqlAst(sql);
+    }
+
+    /** the statement, null if the sql is not a select */
+    public Select getSelect() {
+        if (!parsed) {
+            selectStatement = SqlSelectHelper.getSelect(sql);
+            parsed = true;
+        }
+        return selectStatement;
+    }
+
+    /**
+     * applies an edit to the statement, the edit returns false if it left the statement as it is
+     */
+    public SqlAst apply(Predicate<Select> edit) {
+        Select select = getSelect();
+        if (Objects.nonNull(select) && edit.test(select)) {
+            modified = true;
+        }
+        return this;
+    }
+
+    public boolean isModified() {
+        return modified;
+    }
+
+    /** the sql of the statement, the original sql if no edit has changed it */
+    public String toSql() {
+        return modified ? selectStatement.toString() : sql;
+    }
+}
@@ -13,7 +13,8 @@ import java.util.Objects;
 public class SqlDateSelectHelper {
 
     public static DateVisitor.DateBoundInfo getDateBoundInfo(String sql, String dateField) {
-        List<PlainSelect> plainSelectList = SqlSelectHelper.getPlainSelect(sql);
+        List<PlainSelect> plainSelectList =
+                SqlSelectHelper.getPlainSelect(SqlSelectHelper.getReadOnlySelect(sql));
         if (plainSelectList.size() != 1) {
             return null;
         }
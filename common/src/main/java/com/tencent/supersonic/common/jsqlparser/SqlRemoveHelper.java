@@ -32,7 +32,7 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
- * Sql Parser remove Helper
+ * Sql Parser remove Helper, the overloads taking a parsed statement are described in {@link SqlAst}
  */
 @Slf4j
 public class SqlRemoveHelper {
@@ -77,9 +77,16 @@ public class SqlRemoveHelper {
 
     public static String removeSameFieldFromSelect(String sql) {
         Select selectStatement = SqlSelectHelper.getSelect(sql);
-        if (isInvalidSelect(selectStatement)) {
+        if (!removeSameFieldFromSelect(selectStatement)) {
             return sql;
         }
+        return selectStatement.toString();
+    }
+
+    public static boolean removeSameFieldFromSelect(Select selectStatement) {
+        if (isInvalidSelect(selectStatement)) {
+            return false;
+        }
         List<SelectItem<?>> selectItems = ((PlainSelect) selectStatement).getSelectItems();
         Set<String> fields = new HashSet<>();
         selectItems.removeIf(selectItem -> {
@@ -91,21 +98,30 @@ public class SqlRemoveHelper {
             return false;
         });
         ((PlainSelect) selectStatement).setSelectItems(selectItems);
-        return selectStatement.toString();
+        return true;
     }
 
     public static String removeWhereCondition(String sql, Set<String> removeFieldNames) {
         Select selectStatement = SqlSelectHelper.getSelect(sql);
-        if (!(selectStatement instanceof PlainSelect)) {
+        if (!removeWhereCondition(selectStatement, removeFieldNames)) {
             return sql;
         }
+        return selectStatement.toString();
+    }
+
+    public static boolean removeWhereCondition(Select selectStatement,
+            Set<String> removeFieldNames) {
+        if (!(selectStatement instanceof PlainSelect)) {
+            return false;
+        }
         selectStatement.accept(new SelectVisitorAdapter() {
             @Override
             public void visit(PlainSelect plainSelect) {
                 removeWhereCondition(plainSelect.getWhere(), removeFieldNames);
             }
         });
-        return removeNumberFilter(selectStatement.toString());
+        removeNumberFilter(selectStatement);
+        return true;
     }
 
     private static void removeWhereCondition(Expression whereExpression,
@@ -118,9 +134,16 @@ public class SqlRemoveHelper {
 
     public static String removeNumberFilter(String sql) {
         Select selectStatement = SqlSelectHelper.getSelect(sql);
-        if (isInvalidSelect(selectStatement)) {
+        if (!removeNumberFilter(selectStatement)) {
             return sql;
         }
+        return selectStatement.toString();
+    }
+
+    public static boolean removeNumberFilter(Select selectStatement) {
+        if (isInvalidSelect(selectStatement)) {
+            return false;
+        }
         Expression where = ((PlainSelect) selectStatement).getWhere();
         Expression having = ((PlainSelect) selectStatement).getHaving();
         try {
@@ -131,7 +154,7 @@ public class SqlRemoveHelper {
         } catch (Exception e) {
             log.info("replaceFunction has an exception:{}", e.toString());
         }
-        return selectStatement.toString();
+        return true;
     }
 
     private static void removeWhereExpression(Expression whereExpression,
@@ -266,17 +289,25 @@ public class SqlRemoveHelper {
                 removeWhereCondition(plainSelect.getHaving(), removeFieldNames);
             }
         });
-        return removeNumberFilter(selectStatement.toString());
+        removeNumberFilter(selectStatement);
+        return selectStatement.toString();
     }
 
     public static String removeGroupBy(String sql, Set<String> fields) {
         Select selectStatement = SqlSelectHelper.getSelect(sql);
-        if (isInvalidSelect(selectStatement)) {
+        if (!removeGroupBy(selectStatement, fields)) {
             return sql;
         }
+        return selectStatement.toString();
+    }
+
+    public static boolean removeGroupBy(Select selectStatement, Set<String> fields) {
+        if (isInvalidSelect(selectStatement)) {
+            return false;
+        }
         GroupByElement groupByElement = ((PlainSelect) selectStatement).getGroupBy();
         if (groupByElement == null) {
-            return sql;
+            return false;
         }
         ExpressionList groupByExpressionList = groupByElement.getGroupByExpressionList();
         groupByExpressionList.getExpressions().removeIf(expression -> {
@@ -289,14 +320,21 @@ public class SqlRemoveHelper {
         if (CollectionUtils.isEmpty(groupByExpressionList.getExpressions())) {
             ((PlainSelect) selectStatement).setGroupByElement(null);
         }
-        return selectStatement.toString();
+        return true;
     }
 
     public static String removeSelect(String sql, Set<String> fields) {
         Select selectStatement = SqlSelectHelper.getSelect(sql);
-        if (isInvalidSelect(selectStatement)) {
+        if (!removeSelect(selectStatement, fields)) {
             return sql;
         }
+        return selectStatement.toString();
+    }
+
+    public static boolean removeSelect(Select selectStatement, Set<String> fields) {
+        if (isInvalidSelect(selectStatement)) {
+            return false;
+        }
         List<SelectItem<?>> selectItems = ((PlainSelect) selectStatement).getSelectItems();
         Iterator<SelectItem<?>> iterator = selectItems.iterator();
         while (iterator.hasNext()) {
@@ -313,7 +351,7 @@ public class SqlRemoveHelper {
         if (selectItems.isEmpty()) {
             selectItems.add(new SelectItem(new AllColumns()));
         }
-        return selectStatement.toString();
+        return true;
     }
 
     public static Expression filteredExpression(Expression where, SqlEditEnum sqlEditEnum)
@@ -31,7 +31,8 @@ import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
 /**
- * Sql Parser replace Helper
+ * Sql Parser replace Helper, the overloads taking a parsed statement are described in
+ * {@link SqlAst}
  */
 @Slf4j
 public class SqlReplaceHelper {
@@ -83,9 +84,17 @@ public class SqlReplaceHelper {
     public static String replaceValue(String sql,
             Map<String, Map<String, String>> filedNameToValueMap, boolean exactReplace) {
         Select selectStatement = SqlSelectHelper.getSelect(sql);
-        if (!(selectStatement instanceof PlainSelect)) {
+        if (!replaceValue(selectStatement, filedNameToValueMap, exactReplace)) {
             return sql;
         }
+        return selectStatement.toString();
+    }
+
+    public static boolean replaceValue(Select selectStatement,
+            Map<String, Map<String, String>> filedNameToValueMap, boolean exactReplace) {
+        if (!(selectStatement instanceof PlainSelect)) {
+            return false;
+        }
         List<PlainSelect> plainSelects = SqlSelectHelper.getPlainSelect(selectStatement);
         for (PlainSelect plainSelect : plainSelects) {
             Expression where = plainSelect.getWhere();
@@ -95,15 +104,23 @@ public class SqlReplaceHelper {
                 where.accept(visitor);
             }
         }
-        return selectStatement.toString();
+        return true;
     }
 
     public static String replaceFieldNameByValue(String sql,
             Map<String, Set<String>> fieldValueToFieldNames) {
         Select selectStatement = SqlSelectHelper.getSelect(sql);
-        if (!(selectStatement instanceof PlainSelect)) {
+        if (!replaceFieldNameByValue(selectStatement, fieldValueToFieldNames)) {
             return sql;
         }
+        return selectStatement.toString();
+    }
+
+    public static boolean replaceFieldNameByValue(Select selectStatement,
+            Map<String, Set<String>> fieldValueToFieldNames) {
+        if (!(selectStatement instanceof PlainSelect)) {
+            return false;
+        }
         List<PlainSelect> plainSelectList = new ArrayList<>();
         plainSelectList.add((PlainSelect) selectStatement);
         List<PlainSelect> plainSelects = SqlSelectHelper.getPlainSelects(plainSelectList);
@@ -114,7 +131,7 @@ public class SqlReplaceHelper {
                 where.accept(visitor);
             }
         }
-        return selectStatement.toString();
+        return true;
     }
 
     public static void getFromSelect(FromItem fromItem, List<PlainSelect> plainSelectList) {
@@ -146,9 +163,21 @@ public class SqlReplaceHelper {
     public static String replaceFields(String sql, Map<String, String> fieldNameMap,
             boolean exactReplace) {
         Select selectStatement = SqlSelectHelper.getSelect(sql);
+        if (!replaceFields(selectStatement, fieldNameMap, exactReplace)) {
+            return sql;
+        }
+        return selectStatement.toString();
+    }
+
+    public static boolean replaceFields(Select selectStatement, Map<String, String> fieldNameMap,
+            boolean exactReplace) {
+        if (Objects.isNull(selectStatement)) {
+            return false;
+        }
         // alias field should not be replaced
-        Set<String> aliases = SqlSelectHelper.getAliasFields(sql);
-        aliases.forEach(alias -> fieldNameMap.put(alias, alias));
+        SqlSelectHelper.getPlainSelects(SqlSelectHelper.getPlainSelect(selectStatement))
+                .forEach(plainSelect -> SqlSelectHelper.getAliasFields(plainSelect)
+                        .forEach(alias -> fieldNameMap.put(alias, alias)));
 
         Set<Select> plainSelectList = SqlSelectHelper.getAllSelect(selectStatement);
         for (Select plainSelect : plainSelectList) {
@@ -161,7 +190,7 @@ public class SqlReplaceHelper {
                         (SetOperationList) plainSelect);
             }
         }
-        return selectStatement.toString();
+        return true;
     }
 
     private static void replaceFieldsInPlainOneSelect(Map<String, String> fieldNameMap,
@@ -264,16 +293,24 @@ public class SqlReplaceHelper {
     public static String replaceFunction(String sql, Map<String, String> functionMap,
             Map<String, UnaryOperator> functionCall) {
         Select selectStatement = SqlSelectHelper.getSelect(sql);
-        if (!(selectStatement instanceof PlainSelect)) {
+        if (!replaceFunction(selectStatement, functionMap, functionCall)) {
             return sql;
         }
+        return selectStatement.toString();
+    }
+
+    public static boolean replaceFunction(Select selectStatement, Map<String, String> functionMap,
+            Map<String, UnaryOperator> functionCall) {
+        if (!(selectStatement instanceof PlainSelect)) {
+            return false;
+        }
         List<PlainSelect> plainSelectList = new ArrayList<>();
         plainSelectList.add((PlainSelect) selectStatement);
         List<PlainSelect> plainSelects = SqlSelectHelper.getPlainSelects(plainSelectList);
         for (PlainSelect plainSelect : plainSelects) {
             replaceFunction(functionMap, functionCall, plainSelect);
         }
-        return selectStatement.toString();
+        return true;
     }
 
     private static void replaceFunction(Map<String, String> functionMap,
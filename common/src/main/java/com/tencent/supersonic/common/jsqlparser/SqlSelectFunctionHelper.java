@@ -44,7 +44,8 @@ public class SqlSelectFunctionHelper {
     }
 
     public static Set<String> getFunctions(String sql) {
-        Set<Select> allSelect = SqlSelectHelper.getAllSelect(sql);
+        Set<Select> allSelect =
+                SqlSelectHelper.getAllSelect(SqlSelectHelper.getReadOnlySelect(sql));
         Set<String> result = new HashSet<>();
         for (Select select : allSelect) {
             if (!(select instanceof PlainSelect)) {
@@ -110,7 +111,8 @@ public class SqlSelectFunctionHelper {
     }
 
     public static boolean hasAsterisk(String sql) {
-        List<PlainSelect> plainSelectList = SqlSelectHelper.getPlainSelect(sql);
+        List<PlainSelect> plainSelectList =
+                SqlSelectHelper.getPlainSelect(SqlSelectHelper.getReadOnlySelect(sql));
         if (CollectionUtils.isEmpty(plainSelectList)) {
             return false;
         }
@@ -1,5 +1,7 @@
 package com.tencent.supersonic.common.jsqlparser;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.tencent.supersonic.common.util.StringUtil;
@@ -50,6 +52,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -59,8 +62,17 @@ import java.util.stream.Collectors;
 @Slf4j
 public class SqlSelectHelper {
 
+    private static final int READ_ONLY_CACHE_SIZE = 1000;
+
+    /**
+     * statements parsed for the helpers that only read them, keyed by the sql. An entry is shared
+     * by all the readers of the same sql, so that it must never be changed nor handed out.
+     */
+    private static final Cache<String, Optional<Select>> READ_ONLY_SELECTS =
+            CacheBuilder.newBuilder().maximumSize(READ_ONLY_CACHE_SIZE).build();
+
     public static List<FieldExpression> getFilterExpression(String sql) {
-        List<PlainSelect> plainSelectList = getPlainSelect(sql);
+        List<PlainSelect> plainSelectList = getPlainSelect(getReadOnlySelect(sql));
         Set<FieldExpression> result = new HashSet<>();
         for (PlainSelect plainSelect : plainSelectList) {
             if (Objects.isNull(plainSelect)) {
@@ -82,7 +94,7 @@ public class SqlSelectHelper {
     }
 
     public static List<String> getWhereFields(String sql) {
-        List<PlainSelect> plainSelectList = getPlainSelect(sql);
+        List<PlainSelect> plainSelectList = getPlainSelect(getReadOnlySelect(sql));
         if (CollectionUtils.isEmpty(plainSelectList)) {
             return new ArrayList<>();
         }
@@ -101,7 +113,7 @@ public class SqlSelectHelper {
     }
 
     public static List<String> gePureSelectFields(String sql) {
-        List<PlainSelect> plainSelectList = getPlainSelect(sql);
+        List<PlainSelect> plainSelectList = getPlainSelect(getReadOnlySelect(sql));
         Set<String> result = new HashSet<>();
         plainSelectList.stream().forEach(plainSelect -> {
             List<SelectItem<?>> selectItems = plainSelect.getSelectItems();
@@ -117,7 +129,7 @@ public class SqlSelectHelper {
     }
 
     public static List<String> getSelectFields(String sql) {
-        List<PlainSelect> plainSelectList = getPlainSelect(sql);
+        List<PlainSelect> plainSelectList = getPlainSelect(getReadOnlySelect(sql));
         if (CollectionUtils.isEmpty(plainSelectList)) {
             return new ArrayList<>();
         }
@@ -145,7 +157,7 @@ public class SqlSelectHelper {
     }
 
     public static Set<String> getAliasFields(String sql) {
-        List<PlainSelect> plainSelects = getPlainSelects(getPlainSelect(sql));
+        List<PlainSelect> plainSelects = getPlainSelects(getPlainSelect(getReadOnlySelect(sql)));
         Set<String> aliasFields = new HashSet<>();
         plainSelects.forEach(select -> {
             aliasFields.addAll(getAliasFields(select));
@@ -181,7 +193,7 @@ public class SqlSelectHelper {
     }
 
     public static Boolean hasSubSelect(String sql) {
-        Select selectStatement = getSelect(sql);
+        Select selectStatement = getReadOnlySelect(sql);
         if (selectStatement == null) {
             return false;
         }
@@ -242,6 +254,23 @@ public class SqlSelectHelper {
         return (Select) statement;
     }
 
+    /**
+     * Returns the statement of the sql for a helper that only reads it, parsing the sql at most
+     * once while it stays in the cache. The helpers that change the statement or return a part of
+     * it must parse it by {@link #getSelect(String)} instead.
+     */
+    static Select getReadOnlySelect(String sql) {
+        if (StringUtils.isBlank(sql)) {
+            return getSelect(sql);
+        }
+        Optional<Select> selectStatement = READ_ONLY_SELECTS.getIfPresent(sql);
+        if (Objects.isNull(selectStatement)) {
+            selectStatement = Optional.ofNullable(getSelect(sql));
+            READ_ONLY_SELECTS.put(sql, selectStatement);
+        }
+        return selectStatement.orElse(null);
+    }
+
     public static List<PlainSelect> getPlainSelects(List<PlainSelect> plainSelectList) {
         List<PlainSelect> plainSelects = new ArrayList<>();
         for (PlainSelect plainSelect : plainSelectList) {
@@ -282,7 +311,7 @@ public class SqlSelectHelper {
     }
 
     public static List<String> getAllSelectFields(String sql) {
-        List<PlainSelect> plainSelects = getPlainSelects(getPlainSelect(sql));
+        List<PlainSelect> plainSelects = getPlainSelects(getPlainSelect(getReadOnlySelect(sql)));
         Set<String> results = new HashSet<>();
         Set<String> aliases = new HashSet<>();
         for (PlainSelect plainSelect : plainSelects) {
@@ -356,7 +385,12 @@ public class SqlSelectHelper {
     }
 
     public static List<Expression> getHavingExpression(String sql) {
-        List<PlainSelect> plainSelectList = getPlainSelect(sql);
+        return getHavingExpression(getSelect(sql));
+    }
+
+    /** the expressions are nodes of the statement, not copies */
+    public static List<Expression> getHavingExpression(Select selectStatement) {
+        List<PlainSelect> plainSelectList = getPlainSelect(selectStatement);
         List<Expression> expressionList = new ArrayList<>();
         for (PlainSelect plainSelect : plainSelectList) {
             Expression having = plainSelect.getHaving();
@@ -376,7 +410,7 @@ public class SqlSelectHelper {
     }
 
     public static List<FieldExpression> getWhereExpressions(String sql) {
-        List<PlainSelect> plainSelectList = getPlainSelect(sql);
+        List<PlainSelect> plainSelectList = getPlainSelect(getReadOnlySelect(sql));
         Set<FieldExpression> result = new HashSet<>();
         for (PlainSelect plainSelect : plainSelectList) {
             if (Objects.isNull(plainSelect)) {
@@ -417,7 +451,7 @@ public class SqlSelectHelper {
     }
 
     public static List<FieldExpression> getHavingExpressions(String sql) {
-        List<PlainSelect> plainSelectList = getPlainSelect(sql);
+        List<PlainSelect> plainSelectList = getPlainSelect(getReadOnlySelect(sql));
         Set<FieldExpression> result = new HashSet<>();
         for (PlainSelect plainSelect : plainSelectList) {
             if (Objects.isNull(plainSelect)) {
@@ -432,7 +466,7 @@ public class SqlSelectHelper {
     }
 
     public static List<String> getOrderByFields(String sql) {
-        List<PlainSelect> plainSelectList = getPlainSelect(sql);
+        List<PlainSelect> plainSelectList = getPlainSelect(getReadOnlySelect(sql));
         Set<String> result = new HashSet<>();
         for (PlainSelect plainSelect : plainSelectList) {
             if (Objects.isNull(plainSelect)) {
@@ -466,7 +500,7 @@ public class SqlSelectHelper {
     }
 
     public static List<FieldExpression> getOrderByExpressions(String sql) {
-        List<PlainSelect> plainSelectList = getPlainSelect(sql);
+        List<PlainSelect> plainSelectList = getPlainSelect(getReadOnlySelect(sql));
         HashSet<FieldExpression> result = new HashSet<>();
         for (PlainSelect plainSelect : plainSelectList) {
             if (Objects.isNull(plainSelect)) {
@@ -478,7 +512,11 @@ public class SqlSelectHelper {
     }
 
     public static List<String> getGroupByFields(String sql) {
-        List<PlainSelect> plainSelectList = getPlainSelect(sql);
+        return getGroupByFields(getReadOnlySelect(sql));
+    }
+
+    public static List<String> getGroupByFields(Select selectStatement) {
+        List<PlainSelect> plainSelectList = getPlainSelect(selectStatement);
         HashSet<String> result = new HashSet<>();
         for (PlainSelect plainSelect : plainSelectList) {
             if (Objects.isNull(plainSelect)) {
@@ -508,7 +546,7 @@ public class SqlSelectHelper {
     }
 
     public static List<String> getAggregateFields(String sql) {
-        List<PlainSelect> plainSelectList = getPlainSelect(sql);
+        List<PlainSelect> plainSelectList = getPlainSelect(getReadOnlySelect(sql));
         Set<String> result = new HashSet<>();
         for (PlainSelect plainSelect : plainSelectList) {
             if (Objects.isNull(plainSelect)) {
@@ -532,7 +570,7 @@ public class SqlSelectHelper {
     }
 
     public static List<String> getAggregateAsFields(String sql) {
-        List<PlainSelect> plainSelectList = getPlainSelect(sql);
+        List<PlainSelect> plainSelectList = getPlainSelect(getReadOnlySelect(sql));
         Set<String> result = new HashSet<>();
         for (PlainSelect plainSelect : plainSelectList) {
             if (Objects.isNull(plainSelect)) {
@@ -561,7 +599,7 @@ public class SqlSelectHelper {
     }
 
     public static boolean hasGroupBy(String sql) {
-        Select selectStatement = getSelect(sql);
+        Select selectStatement = getReadOnlySelect(sql);
 
         if (!(selectStatement instanceof PlainSelect)) {
             return false;
@@ -634,7 +672,7 @@ public class SqlSelectHelper {
     }
 
     public static Boolean hasWith(String sql) {
-        Select selectStatement = getSelect(sql);
+        Select selectStatement = getReadOnlySelect(sql);
         if (selectStatement == null) {
             return false;
         }
@@ -677,7 +715,7 @@ public class SqlSelectHelper {
     }
 
     public static List<String> getWithName(String sql) {
-        Select selectStatement = getSelect(sql);
+        Select selectStatement = getReadOnlySelect(sql);
         if (selectStatement == null) {
             return new ArrayList<>();
         }
@@ -825,7 +863,7 @@ public class SqlSelectHelper {
     }
 
     public static Boolean hasLimit(String querySql) {
-        Select selectStatement = SqlSelectHelper.getSelect(querySql);
+        Select selectStatement = getReadOnlySelect(querySql);
         if (selectStatement instanceof PlainSelect) {
             PlainSelect plainSelect = selectStatement.getPlainSelect();
             Limit limit = plainSelect.getLimit();
@@ -849,7 +887,7 @@ public class SqlSelectHelper {
     }
 
     public static Map<String, Set<String>> getFieldsWithSubQuery(String sql) {
-        List<PlainSelect> plainSelects = getPlainSelects(getPlainSelect(sql));
+        List<PlainSelect> plainSelects = getPlainSelects(getPlainSelect(getReadOnlySelect(sql)));
         Map<String, Set<String>> results = new HashMap<>();
         for (PlainSelect plainSelect : plainSelects) {
             getFieldsWithSubQuery(plainSelect, results);
@@ -76,7 +76,8 @@ public class SqlValidHelper {
     }
 
     public static boolean isComplexSQL(String sql) {
-        List<PlainSelect> plainSelect = SqlSelectHelper.getPlainSelect(sql);
+        List<PlainSelect> plainSelect =
+                SqlSelectHelper.getPlainSelect(SqlSelectHelper.getReadOnlySelect(sql));
         return !CollectionUtils.isEmpty(plainSelect) && plainSelect.size() >= 2;
     }
 }
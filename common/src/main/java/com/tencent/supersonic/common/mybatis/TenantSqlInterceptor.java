@@ -1,5 +1,8 @@
 package com.tencent.supersonic.common.mybatis;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import com.tencent.supersonic.common.config.TenantConfig;
 import com.tencent.supersonic.common.context.TenantContext;
 import com.tencent.supersonic.common.util.ContextUtils;
@@ -39,13 +42,23 @@ import java.lang.reflect.Field;
 import java.sql.Connection;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
 
 /**
  * MyBatis interceptor that automatically injects tenant_id conditions into SQL statements. Supports
  * SELECT, UPDATE, DELETE operations by adding WHERE clause conditions. For INSERT, the tenant_id
  * should be set in the entity before insertion.
+ *
+ * <p>
+ * The SQL of a mapped statement has the same shape whatever the tenant, so the rewritten SQL is
+ * parsed once per statement id and original SQL into a template around a placeholder tenant value,
+ * and later executions only bind the tenant id into it.
  */
 @Intercepts({@Signature(type = StatementHandler.class, method = "prepare",
         args = {Connection.class, Integer.class})})
@@ -56,6 +69,16 @@ public class TenantSqlInterceptor implements Interceptor {
 
     private static final String TENANT_ID_COLUMN = "tenant_id";
 
+    /** stands for the tenant id in the cached templates, unlikely to appear in a mapper SQL */
+    private static final long TENANT_PLACEHOLDER = 7310585231970413L;
+    private static final String TENANT_PLACEHOLDER_TEXT = String.valueOf(TENANT_PLACEHOLDER);
+    private static final Pattern TENANT_PLACEHOLDER_PATTERN =
+            Pattern.compile("\\b" + TENANT_PLACEHOLDER_TEXT + "\\b");
+
+    private static final Cache<String, RewriteTemplate> REWRITE_CACHE =
+            CacheBuilder.newBuilder().maximumSize(5000).recordStats().build();
+    private static final AtomicLong UNCACHED_PARSE_COUNT = new AtomicLong();
+
     /**
      * Default tables to exclude from tenant filtering (tables without tenant_id column). This
      * serves as a fallback when TenantConfig is not available.
@@ -88,7 +111,8 @@ public class TenantSqlInterceptor implements Interceptor {
         String originalSql = boundSql.getSql();
 
         // Process SQL based on command type
-        String modifiedSql = processSql(originalSql, sqlCommandType, tenantId);
+        String modifiedSql =
+                rewrite(mappedStatement.getId(), originalSql, sqlCommandType, tenantId);
 
         if (modifiedSql != null && !modifiedSql.equals(originalSql)) {
             // Update the SQL in BoundSql
@@ -99,7 +123,41 @@ public class TenantSqlInterceptor implements Interceptor {
         return invocation.proceed();
     }
 
-    private String processSql(String sql, SqlCommandType sqlCommandType, Long tenantId) {
+    String rewrite(String statementId, String sql, SqlCommandType sqlCommandType,
+            Long tenantId) {
+        if (sqlCommandType == SqlCommandType.INSERT) {
+            // INSERT statements should have tenant_id set in the entity
+            return sql;
+        }
+        if (sql.contains(TENANT_PLACEHOLDER_TEXT)) {
+            // the placeholder could not be told apart from the SQL itself
+            UNCACHED_PARSE_COUNT.incrementAndGet();
+            return processSql(sql, sqlCommandType, new LongValue(tenantId));
+        }
+        try {
+            RewriteTemplate template = REWRITE_CACHE.get(statementId + "\n" + sql,
+                    () -> RewriteTemplate.of(sql, processSql(sql, sqlCommandType,
+                            new LongValue(TENANT_PLACEHOLDER))));
+            return template.bind(tenantId);
+        } catch (ExecutionException e) {
+            log.warn("Failed to build tenant rewrite template: {}", e.getMessage());
+            return processSql(sql, sqlCommandType, new LongValue(tenantId));
+        }
+    }
+
+    /** hit and parse counts of the rewrite templates */
+    public static Map<String, Object> getRewriteStats() {
+        CacheStats stats = REWRITE_CACHE.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", REWRITE_CACHE.size());
+        result.put("hitCount", stats.hitCount());
+        result.put("parseCount", stats.missCount() + UNCACHED_PARSE_COUNT.get());
+        result.put("uncachedParseCount", UNCACHED_PARSE_COUNT.get());
+        result.put("hitRate", stats.hitRate());
+        return result;
+    }
+
+    private String processSql(String sql, SqlCommandType sqlCommandType, Expression tenantId) {
         try {
             Statement statement = CCJSqlParserUtil.parse(sql);
 
@@ -119,10 +177,6 @@ public class TenantSqlInterceptor implements Interceptor {
                         processDelete((Delete) statement, tenantId);
                     }
                     break;
-                case INSERT:
-                    // INSERT statements should have tenant_id set in the entity
-                    // We don't modify INSERT statements here
-                    return sql;
                 default:
                     return sql;
             }
@@ -134,7 +188,7 @@ public class TenantSqlInterceptor implements Interceptor {
         }
     }
 
-    private void processSelect(Select select, Long tenantId) {
+    private void processSelect(Select select, Expression tenantId) {
         if (select instanceof PlainSelect) {
             processPlainSelect((PlainSelect) select, tenantId);
         } else if (select instanceof SetOperationList setOperationList) {
@@ -144,7 +198,7 @@ public class TenantSqlInterceptor implements Interceptor {
         }
     }
 
-    private void processPlainSelect(PlainSelect plainSelect, Long tenantId) {
+    private void processPlainSelect(PlainSelect plainSelect, Expression tenantId) {
         FromItem fromItem = plainSelect.getFromItem();
 
         if (fromItem instanceof Table table) {
@@ -175,7 +229,7 @@ public class TenantSqlInterceptor implements Interceptor {
         }
     }
 
-    private void processUpdate(Update update, Long tenantId) {
+    private void processUpdate(Update update, Expression tenantId) {
         Table table = update.getTable();
         if (!shouldExcludeTable(table.getName())) {
             Expression where = update.getWhere();
@@ -184,7 +238,7 @@ public class TenantSqlInterceptor implements Interceptor {
         }
     }
 
-    private void processDelete(Delete delete, Long tenantId) {
+    private void processDelete(Delete delete, Expression tenantId) {
         Table table = delete.getTable();
         if (!shouldExcludeTable(table.getName())) {
             Expression where = delete.getWhere();
@@ -193,7 +247,7 @@ public class TenantSqlInterceptor implements Interceptor {
         }
     }
 
-    private Expression createTenantCondition(Table table, Long tenantId) {
+    private Expression createTenantCondition(Table table, Expression tenantId) {
         Column column = new Column();
         if (table.getAlias() != null) {
             column.setTable(new Table(table.getAlias().getName()));
@@ -204,7 +258,7 @@ public class TenantSqlInterceptor implements Interceptor {
 
         EqualsTo equalsTo = new EqualsTo();
         equalsTo.setLeftExpression(column);
-        equalsTo.setRightExpression(new LongValue(tenantId));
+        equalsTo.setRightExpression(tenantId);
 
         return equalsTo;
     }
@@ -272,6 +326,33 @@ public class TenantSqlInterceptor implements Interceptor {
         }
     }
 
+    /**
+     * A rewritten SQL split around the placeholder tenant value, or the original SQL when the
+     * statement is left as it is.
+     */
+    private static final class RewriteTemplate {
+
+        private final String[] parts;
+
+        private RewriteTemplate(String[] parts) {
+            this.parts = parts;
+        }
+
+        static RewriteTemplate of(String originalSql, String rewrittenSql) {
+            if (rewrittenSql == null || rewrittenSql.equals(originalSql)) {
+                return new RewriteTemplate(new String[] {originalSql});
+            }
+            return new RewriteTemplate(TENANT_PLACEHOLDER_PATTERN.split(rewrittenSql, -1));
+        }
+
+        String bind(Long tenantId) {
+            if (parts.length == 1) {
+                return parts[0];
+            }
+            return String.join(String.valueOf(tenantId), parts);
+        }
+    }
+
     @Override
     public Object plugin(Object target) {
         return Plugin.wrap(target, this);
@@ -0,0 +1,9 @@
+package com.tencent.supersonic.common.pojo.exception;
+
+/** thrown when a query is cancelled by its caller or runs past its deadline */
+public class QueryCancelledException extends RuntimeException {
+
+    public QueryCancelledException(String message) {
+        super(message);
+    }
+}
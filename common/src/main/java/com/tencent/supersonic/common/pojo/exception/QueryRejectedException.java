@@ -0,0 +1,9 @@
+package com.tencent.supersonic.common.pojo.exception;
+
+/** thrown when a database is too busy or unavailable to admit a query */
+public class QueryRejectedException extends RuntimeException {
+
+    public QueryRejectedException(String message) {
+        super(message);
+    }
+}
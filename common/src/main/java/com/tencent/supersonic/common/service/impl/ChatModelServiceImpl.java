@@ -9,6 +9,7 @@ import com.tencent.supersonic.common.pojo.ChatModelConfig;
 import com.tencent.supersonic.common.pojo.User;
 import com.tencent.supersonic.common.service.ChatModelService;
 import com.tencent.supersonic.common.util.JsonUtil;
+import dev.langchain4j.provider.ModelProvider;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.BeanUtils;
@@ -64,6 +65,7 @@ public class ChatModelServiceImpl extends ServiceImpl<ChatModelMapper, ChatModel
 
     @Override
     public ChatModel updateChatModel(ChatModel chatModel, User user) {
+        ChatModel oldChatModel = convert(getById(chatModel.getId()));
         ChatModelDO chatModelDO = convert(chatModel);
         chatModelDO.setUpdatedBy(user.getName());
         chatModelDO.setUpdatedAt(new Date());
@@ -75,6 +77,9 @@ public class ChatModelServiceImpl extends ServiceImpl<ChatModelMapper, ChatModel
             chatModelDO.setViewer(JsonUtil.toString(chatModel.getViewers()));
         }
         updateById(chatModelDO);
+        if (oldChatModel != null) {
+            ModelProvider.evict(oldChatModel.getConfig());
+        }
         return chatModel;
     }
 
@@ -86,6 +91,7 @@ public class ChatModelServiceImpl extends ServiceImpl<ChatModelMapper, ChatModel
         }
 
         removeById(id);
+        ModelProvider.evict(chatModel.getConfig());
     }
 
     private ChatModel convert(ChatModelDO chatModelDO) {
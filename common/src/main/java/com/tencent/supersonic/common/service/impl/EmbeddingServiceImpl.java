@@ -2,7 +2,10 @@ package com.tencent.supersonic.common.service.impl;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.tencent.supersonic.common.config.EmbeddingModelParameterConfig;
+import com.tencent.supersonic.common.pojo.EmbeddingModelConfig;
 import com.tencent.supersonic.common.service.EmbeddingService;
+import com.tencent.supersonic.common.util.ContextUtils;
 import dev.langchain4j.data.embedding.Embedding;
 import dev.langchain4j.data.segment.TextSegment;
 import dev.langchain4j.model.embedding.EmbeddingModel;
@@ -25,11 +28,14 @@ import org.apache.commons.collections.MapUtils;
 import org.apache.commons.collections4.CollectionUtils;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -40,6 +46,10 @@ public class EmbeddingServiceImpl implements EmbeddingService {
     private final Cache<String, Boolean> cache = CacheBuilder.newBuilder().maximumSize(10000)
             .expireAfterWrite(10, TimeUnit.HOURS).build();
 
+    /** Embeddings of recently retrieved texts, keyed by the embedding model and the text. */
+    private final Cache<String, Embedding> queryEmbeddingCache = CacheBuilder.newBuilder()
+            .maximumSize(10000).expireAfterAccess(1, TimeUnit.HOURS).build();
+
     @Override
     public void addQuery(String collectionName, List<TextSegment> queries) {
         EmbeddingStore embeddingStore =
@@ -113,14 +123,53 @@ public class EmbeddingServiceImpl implements EmbeddingService {
             RetrieveQuery retrieveQuery, int num) {
         EmbeddingStore embeddingStore =
                 EmbeddingStoreFactoryProvider.getFactory().create(collectionName);
-        EmbeddingModel embeddingModel = ModelProvider.getEmbeddingModel();
-        Map<String, Object> filterCondition = retrieveQuery.getFilterCondition();
-        return retrieveQuery
-                .getQueryTextsList().stream().map(queryText -> retrieveSingleQuery(queryText,
-                        embeddingModel, embeddingStore, filterCondition, num))
+        EmbeddingModelConfig modelConfig =
+                ContextUtils.getBean(EmbeddingModelParameterConfig.class).convert();
+        List<String> queryTexts = retrieveQuery.getQueryTextsList();
+        Map<String, Embedding> embeddings = embedAll(modelConfig, queryTexts);
+        Filter filter = createCombinedFilter(retrieveQuery.getFilterCondition());
+        return queryTexts.stream().map(queryText -> retrieveSingleQuery(queryText,
+                embeddings.get(queryText), embeddingStore, filter, num))
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Embeds the distinct texts with one model call, taking the texts embedded recently by the same
+     * model from the cache.
+     */
+    private Map<String, Embedding> embedAll(EmbeddingModelConfig modelConfig, List<String> texts) {
+        String modelKey = getModelKey(modelConfig);
+        Map<String, Embedding> embeddings = new HashMap<>();
+        Set<String> missing = new LinkedHashSet<>();
+        for (String text : texts) {
+            Embedding embedding = queryEmbeddingCache.getIfPresent(modelKey + text);
+            if (Objects.nonNull(embedding)) {
+                embeddings.put(text, embedding);
+            } else {
+                missing.add(text);
+            }
+        }
+        if (missing.isEmpty()) {
+            return embeddings;
+        }
+        List<String> missingTexts = new ArrayList<>(missing);
+        EmbeddingModel embeddingModel = ModelProvider.getEmbeddingModel(modelConfig);
+        List<Embedding> embedded = embeddingModel
+                .embedAll(missingTexts.stream().map(TextSegment::from).collect(Collectors.toList()))
+                .content();
+        for (int i = 0; i < missingTexts.size(); i++) {
+            embeddings.put(missingTexts.get(i), embedded.get(i));
+            queryEmbeddingCache.put(modelKey + missingTexts.get(i), embedded.get(i));
+        }
+        return embeddings;
+    }
+
+    private String getModelKey(EmbeddingModelConfig modelConfig) {
+        return String.join("|", modelConfig.getProvider(), modelConfig.getBaseUrl(),
+                modelConfig.getModelName(), modelConfig.getModelPath(),
+                modelConfig.getVocabularyPath()) + "|";
+    }
+
     @Override
     public void removeAll() {
         BaseEmbeddingStoreFactory factory =
@@ -133,10 +182,8 @@ public class EmbeddingServiceImpl implements EmbeddingService {
         cache.invalidateAll();
     }
 
-    private RetrieveQueryResult retrieveSingleQuery(String queryText, EmbeddingModel embeddingModel,
-            EmbeddingStore embeddingStore, Map<String, Object> filterCondition, int num) {
-        Embedding embeddedText = embeddingModel.embed(queryText).content();
-        Filter filter = createCombinedFilter(filterCondition);
+    private RetrieveQueryResult retrieveSingleQuery(String queryText, Embedding embeddedText,
+            EmbeddingStore embeddingStore, Filter filter, int num) {
         EmbeddingSearchRequest request = EmbeddingSearchRequest.builder()
                 .queryEmbedding(embeddedText).filter(filter).maxResults(num).build();
         EmbeddingSearchResult<TextSegment> result = embeddingStore.search(request);
@@ -0,0 +1,108 @@
+package com.tencent.supersonic.common.util;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * StageMetrics keeps the latency of the stages of the chat pipeline and of the components run in
+ * them, such as a schema mapper, a semantic parser or an execute processor. A timer counts the
+ * calls, the total and the max since start, and keeps the latest samples for the percentiles. A
+ * timer is identified like a Micrometer timer, the name {@link #NAME} tagged with the stage and the
+ * component, so that the snapshot can be bound to a meter registry as it is.
+ */
+public class StageMetrics {
+
+    public static final String NAME = "s2.chat.stage";
+
+    /** the component of the timer of a whole stage */
+    public static final String TOTAL = "total";
+
+    private static final int SAMPLE_SIZE = 1024;
+
+    private static final Map<String, Timer> TIMERS = new ConcurrentHashMap<>();
+
+    public static void record(String stage, String component, long costMs) {
+        TIMERS.computeIfAbsent(stage + "/" + component, k -> new Timer(stage, component))
+                .record(costMs);
+    }
+
+    public static List<TimerSnapshot> snapshot() {
+        List<TimerSnapshot> snapshots = new ArrayList<>();
+        TIMERS.values().forEach(timer -> snapshots.add(timer.snapshot()));
+        snapshots.sort(Comparator.comparing(TimerSnapshot::getStage)
+                .thenComparing(TimerSnapshot::getComponent));
+        return snapshots;
+    }
+
+    public static void clear() {
+        TIMERS.clear();
+    }
+
+    private static class Timer {
+
+        private final String stage;
+        private final String component;
+        private final long[] samples = new long[SAMPLE_SIZE];
+        private long count;
+        private long totalMs;
+        private long maxMs;
+
+        Timer(String stage, String component) {
+            this.stage = stage;
+            this.component = component;
+        }
+
+        synchronized void record(long costMs) {
+            samples[(int) (count % SAMPLE_SIZE)] = costMs;
+            count++;
+            totalMs += costMs;
+            maxMs = Math.max(maxMs, costMs);
+        }
+
+        synchronized TimerSnapshot snapshot() {
+            TimerSnapshot snapshot = new TimerSnapshot();
+            snapshot.setName(NAME);
+            snapshot.setStage(stage);
+            snapshot.setComponent(component);
+            snapshot.setCount(count);
+            snapshot.setTotalMs(totalMs);
+            snapshot.setMaxMs(maxMs);
+            snapshot.setMeanMs(count == 0 ? 0 : (double) totalMs / count);
+            long[] sorted = Arrays.copyOf(samples, (int) Math.min(count, SAMPLE_SIZE));
+            Arrays.sort(sorted);
+            snapshot.setP50Ms(percentile(sorted, 0.5));
+            snapshot.setP90Ms(percentile(sorted, 0.9));
+            snapshot.setP99Ms(percentile(sorted, 0.99));
+            return snapshot;
+        }
+
+        private static long percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+    }
+
+    /** the percentiles are over the latest samples of the timer */
+    @Data
+    public static class TimerSnapshot {
+        private String name;
+        private String stage;
+        private String component;
+        private long count;
+        private long totalMs;
+        private long maxMs;
+        private double meanMs;
+        private long p50Ms;
+        private long p90Ms;
+        private long p99Ms;
+    }
+}
@@ -6,6 +6,8 @@ import com.tencent.supersonic.common.util.ContextUtils;
 import dev.langchain4j.data.segment.TextSegment;
 import dev.langchain4j.store.embedding.BaseEmbeddingStoreFactory;
 import dev.langchain4j.store.embedding.EmbeddingStore;
+import dev.langchain4j.store.embedding.inmemory.EmbeddingSegmentFiles;
+import dev.langchain4j.store.embedding.inmemory.HnswEmbeddingStore;
 import dev.langchain4j.store.embedding.inmemory.InMemoryEmbeddingStore;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.MapUtils;
@@ -23,6 +25,7 @@ import java.util.concurrent.CopyOnWriteArraySet;
 public class InMemoryEmbeddingStoreFactory extends BaseEmbeddingStoreFactory {
 
     public static final String PERSISTENT_FILE_PRE = "InMemory.";
+    public static final String SEGMENT_DIR_SUFFIX = ".segments";
     private EmbeddingStoreProperties embeddingStore;
 
     public InMemoryEmbeddingStoreFactory(EmbeddingStoreConfig storeConfig) {
@@ -42,13 +45,68 @@ public class InMemoryEmbeddingStoreFactory extends BaseEmbeddingStoreFactory {
 
     @Override
     public synchronized EmbeddingStore createEmbeddingStore(String collectionName) {
+        EmbeddingConfig embeddingConfig = ContextUtils.getBean(EmbeddingConfig.class);
+        if (embeddingConfig.isMemoryHnswEnable()) {
+            HnswEmbeddingStore<TextSegment> hnswEmbeddingStore = new HnswEmbeddingStore<>(
+                    HnswEmbeddingStore.DEFAULT_PARTITION_KEY, embeddingConfig.getMemoryHnswM(),
+                    embeddingConfig.getMemoryHnswEfConstruction(),
+                    embeddingConfig.getMemoryHnswEfSearch());
+            boolean loaded = reloadFromSegments(collectionName, hnswEmbeddingStore);
+            if (!loaded) {
+                // migrate a collection persisted as json before
+                InMemoryEmbeddingStore<TextSegment> embeddingStore =
+                        reloadFromPersistFile(collectionName);
+                if (Objects.nonNull(embeddingStore)) {
+                    HnswEmbeddingStore.copy(embeddingStore, hnswEmbeddingStore);
+                }
+            }
+            hnswEmbeddingStore.enableChangeTracking(!loaded);
+            return hnswEmbeddingStore;
+        }
         InMemoryEmbeddingStore<TextSegment> embeddingStore = reloadFromPersistFile(collectionName);
         if (Objects.isNull(embeddingStore)) {
             embeddingStore = new InMemoryEmbeddingStore();
+            // a collection persisted while hnsw was enabled
+            reloadFromSegments(collectionName, embeddingStore);
         }
         return embeddingStore;
     }
 
+    private boolean reloadFromSegments(String collectionName,
+            HnswEmbeddingStore<TextSegment> embeddingStore) {
+        Path segmentPath = getSegmentPath(collectionName);
+        if (Objects.isNull(segmentPath) || !isReloadable(collectionName)) {
+            return false;
+        }
+        try {
+            return EmbeddingSegmentFiles.load(segmentPath, embeddingStore);
+        } catch (Exception e) {
+            log.error("load segments error, segmentPath:" + segmentPath, e);
+            embeddingStore.removeAll();
+            return false;
+        }
+    }
+
+    private void reloadFromSegments(String collectionName,
+            InMemoryEmbeddingStore<TextSegment> embeddingStore) {
+        Path segmentPath = getSegmentPath(collectionName);
+        if (Objects.isNull(segmentPath) || !isReloadable(collectionName)) {
+            return;
+        }
+        try {
+            EmbeddingSegmentFiles.load(segmentPath, embeddingStore);
+        } catch (Exception e) {
+            log.error("load segments error, segmentPath:" + segmentPath, e);
+            embeddingStore.removeAll();
+        }
+    }
+
+    private boolean isReloadable(String collectionName) {
+        EmbeddingConfig embeddingConfig = ContextUtils.getBean(EmbeddingConfig.class);
+        return !collectionName.equals(embeddingConfig.getMetaCollectionName())
+                && !collectionName.equals(embeddingConfig.getText2sqlCollectionName());
+    }
+
     private InMemoryEmbeddingStore<TextSegment> reloadFromPersistFile(String collectionName) {
         Path filePath = getPersistPath(collectionName);
         if (Objects.isNull(filePath)) {
@@ -56,10 +114,7 @@ public class InMemoryEmbeddingStoreFactory extends BaseEmbeddingStoreFactory {
         }
         InMemoryEmbeddingStore<TextSegment> embeddingStore = null;
         try {
-            EmbeddingConfig embeddingConfig = ContextUtils.getBean(EmbeddingConfig.class);
-            if (Files.exists(filePath)
-                    && !collectionName.equals(embeddingConfig.getMetaCollectionName())
-                    && !collectionName.equals(embeddingConfig.getText2sqlCollectionName())) {
+            if (Files.exists(filePath) && isReloadable(collectionName)) {
                 embeddingStore = InMemoryEmbeddingStore.fromFile(filePath);
                 embeddingStore.entries = new CopyOnWriteArraySet<>(embeddingStore.entries);
                 log.info("embeddingStore reload from file:{}", filePath);
@@ -89,6 +144,16 @@ public class InMemoryEmbeddingStoreFactory extends BaseEmbeddingStoreFactory {
                     InMemoryEmbeddingStore<TextSegment> inMemoryEmbeddingStore =
                             (InMemoryEmbeddingStore) entry.getValue();
                     inMemoryEmbeddingStore.serializeToFile(filePath);
+                    // the json file replaces the segments written while hnsw was enabled
+                    EmbeddingSegmentFiles.delete(getSegmentPath(entry.getKey()));
+                }
+                if (entry.getValue() instanceof HnswEmbeddingStore) {
+                    HnswEmbeddingStore<TextSegment> hnswEmbeddingStore =
+                            (HnswEmbeddingStore) entry.getValue();
+                    EmbeddingSegmentFiles.persist(getSegmentPath(entry.getKey()),
+                            hnswEmbeddingStore);
+                    // the segments replace the json file written by earlier versions
+                    Files.deleteIfExists(filePath);
                 }
             } catch (Exception e) {
                 log.error("persistFile error, persistFile:" + filePath, e);
@@ -96,6 +161,14 @@ public class InMemoryEmbeddingStoreFactory extends BaseEmbeddingStoreFactory {
         }
     }
 
+    private Path getSegmentPath(String collectionName) {
+        Path persistPath = getPersistPath(collectionName);
+        if (Objects.isNull(persistPath)) {
+            return null;
+        }
+        return persistPath.resolveSibling(persistPath.getFileName() + SEGMENT_DIR_SUFFIX);
+    }
+
     private Path getPersistPath(String collectionName) {
         String persistFile = PERSISTENT_FILE_PRE + collectionName;
         String persistPath = embeddingStore.getPersistPath();
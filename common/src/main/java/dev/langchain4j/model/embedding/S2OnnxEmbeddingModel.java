@@ -1,5 +1,6 @@
 package dev.langchain4j.model.embedding;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import dev.langchain4j.model.embedding.onnx.AbstractInProcessEmbeddingModel;
 import dev.langchain4j.model.embedding.onnx.OnnxBertBiEncoder;
 import dev.langchain4j.model.embedding.onnx.PoolingMode;
@@ -12,6 +13,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 /**
@@ -24,12 +26,17 @@ import java.util.concurrent.Executors;
  * dev.langchain4j.model.embedding.OnnxEmbeddingModel.
  */
 public class S2OnnxEmbeddingModel extends AbstractInProcessEmbeddingModel {
+    // shared by all the instances like the cached model, an executor per instance was never shut
+    // down
+    private static final ExecutorService EXECUTOR =
+            Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                    .setNameFormat("s2-onnx-embedding-%d").setDaemon(true).build());
     private static volatile OnnxBertBiEncoder cachedModel;
     private static volatile String cachedModelPath;
     private static volatile String cachedVocabularyPath;
 
     public S2OnnxEmbeddingModel(String pathToModel, String vocabularyPath) {
-        super(Executors.newSingleThreadExecutor());
+        super(EXECUTOR);
         if (shouldReloadModel(pathToModel, vocabularyPath)) {
             synchronized (S2OnnxEmbeddingModel.class) {
                 if (shouldReloadModel(pathToModel, vocabularyPath)) {
@@ -1,9 +1,13 @@
 package dev.langchain4j.provider;
 
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.tencent.supersonic.common.config.EmbeddingModelParameterConfig;
 import com.tencent.supersonic.common.pojo.ChatModelConfig;
 import com.tencent.supersonic.common.pojo.EmbeddingModelConfig;
 import com.tencent.supersonic.common.util.ContextUtils;
+import com.tencent.supersonic.common.util.JsonUtil;
 import dev.langchain4j.model.chat.ChatLanguageModel;
 import dev.langchain4j.model.chat.StreamingChatLanguageModel;
 import dev.langchain4j.model.embedding.EmbeddingModel;
@@ -12,6 +16,7 @@ import org.apache.commons.lang3.StringUtils;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Supplier;
 
 public class ModelProvider {
 
@@ -21,6 +26,23 @@ public class ModelProvider {
 
     private static final Map<String, ModelFactory> factories = new HashMap<>();
 
+    private static final int MODEL_CACHE_SIZE = 100;
+
+    /*
+     * the models built by the factories, keyed by the normalized config. A model is thread safe and
+     * holds its own http client, so that reusing it reuses the pooled keep-alive connections
+     * instead of a handshake per request. The model builders of this langchain4j version take no
+     * http client, so the connections are pooled per config rather than shared by all the models.
+     * A changed config gets a new key, and the service of the chat models evicts the model of an
+     * updated or deleted config.
+     */
+    private static final Cache<String, ChatLanguageModel> chatModels =
+            CacheBuilder.newBuilder().maximumSize(MODEL_CACHE_SIZE).build();
+    private static final Cache<String, StreamingChatLanguageModel> chatStreamingModels =
+            CacheBuilder.newBuilder().maximumSize(MODEL_CACHE_SIZE).build();
+    private static final Cache<String, EmbeddingModel> embeddingModels =
+            CacheBuilder.newBuilder().maximumSize(MODEL_CACHE_SIZE).build();
+
     public static void add(String provider, ModelFactory modelFactory) {
         factories.put(provider, modelFactory);
     }
@@ -36,7 +58,9 @@ public class ModelProvider {
         }
         ModelFactory modelFactory = factories.get(modelConfig.getProvider().toUpperCase());
         if (modelFactory != null) {
-            return modelFactory.createChatModel(modelConfig);
+            ChatModelConfig config = modelConfig;
+            return getOrCreate(chatModels, getKey(config),
+                    () -> modelFactory.createChatModel(config));
         }
 
         throw new RuntimeException(
@@ -50,7 +74,9 @@ public class ModelProvider {
         }
         ModelFactory modelFactory = factories.get(modelConfig.getProvider().toUpperCase());
         if (modelFactory != null) {
-            return modelFactory.createChatStreamingModel(modelConfig);
+            ChatModelConfig config = modelConfig;
+            return getOrCreate(chatStreamingModels, getKey(config),
+                    () -> modelFactory.createChatStreamingModel(config));
         }
 
         throw new RuntimeException(
@@ -69,10 +95,40 @@ public class ModelProvider {
         }
         ModelFactory modelFactory = factories.get(embeddingModel.getProvider().toUpperCase());
         if (modelFactory != null) {
-            return modelFactory.createEmbeddingModel(embeddingModel);
+            EmbeddingModelConfig config = embeddingModel;
+            return getOrCreate(embeddingModels, getKey(config),
+                    () -> modelFactory.createEmbeddingModel(config));
         }
 
         throw new RuntimeException(
                 "Unsupported EmbeddingModel provider: " + embeddingModel.getProvider());
     }
+
+    /** drops the models built for the config, called when the config is changed or removed */
+    public static void evict(ChatModelConfig modelConfig) {
+        if (modelConfig == null || StringUtils.isBlank(modelConfig.getProvider())) {
+            return;
+        }
+        String key = getKey(modelConfig);
+        chatModels.invalidate(key);
+        chatStreamingModels.invalidate(key);
+    }
+
+    public static void evict(EmbeddingModelConfig embeddingModel) {
+        if (embeddingModel == null || StringUtils.isBlank(embeddingModel.getProvider())) {
+            return;
+        }
+        embeddingModels.invalidate(getKey(embeddingModel));
+    }
+
+    private static <T> T getOrCreate(Cache<String, T> cache, String key, Supplier<T> creator) {
+        return cache.asMap().computeIfAbsent(key, k -> creator.get());
+    }
+
+    /** the provider is matched case-insensitively, the other fields of the config as they are */
+    private static String getKey(Object modelConfig) {
+        ObjectNode node = JsonUtil.getNode(modelConfig);
+        node.put("provider", node.path("provider").asText().toUpperCase());
+        return node.toString();
+    }
 }
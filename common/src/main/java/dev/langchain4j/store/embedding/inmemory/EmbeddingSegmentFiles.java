@@ -0,0 +1,371 @@
+package dev.langchain4j.store.embedding.inmemory;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Binary, append-only persistence for {@link HnswEmbeddingStore}.
+ *
+ * <p>
+ * A collection is a directory of segment files named by an increasing sequence number. Each segment
+ * holds a header, one float block with the vectors of the added entries, a dictionary with their
+ * ids, texts and metadata, and the ids removed since the previous segment. A persist only appends a
+ * segment with the changes since the last one; once {@link #MAX_SEGMENTS} segments exist they are
+ * compacted into a snapshot. A snapshot segment is marked in its header and loading starts at the
+ * last one, so the segments it replaces are ignored even if deleting them failed. Each file is
+ * renamed into place once complete, and a segment holds at most
+ * {@link #MAX_SEGMENT_VECTOR_BYTES} of vectors, larger writes are split into several segments.
+ * Segments are read through {@link FileChannel#map}, copying the vector block out of the mapped
+ * region in bulk instead of parsing it.
+ */
+@Slf4j
+public class EmbeddingSegmentFiles {
+
+    static final int MAX_SEGMENTS = 8;
+    static final long MAX_SEGMENT_VECTOR_BYTES = 1L << 30;
+    private static final int MAGIC = 0x53324542;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int FLAG_SNAPSHOT = 1;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".bin";
+
+    private static final byte TYPE_STRING = 'S';
+    private static final byte TYPE_UUID = 'U';
+    private static final byte TYPE_INTEGER = 'I';
+    private static final byte TYPE_LONG = 'L';
+    private static final byte TYPE_FLOAT = 'F';
+    private static final byte TYPE_DOUBLE = 'D';
+
+    private EmbeddingSegmentFiles() {}
+
+    /**
+     * Loads all segments of the directory into the store.
+     *
+     * @return false if the directory has no segments
+     */
+    public static boolean load(Path directory, HnswEmbeddingStore<TextSegment> store)
+            throws IOException {
+        Map<String, HnswEmbeddingStore.Entry<TextSegment>> live = readLive(directory);
+        if (live == null) {
+            return false;
+        }
+        store.load(live.values());
+        return true;
+    }
+
+    /**
+     * Loads all segments of the directory into a brute force store, so that a collection persisted
+     * with HNSW enabled is not lost when it is disabled again.
+     *
+     * @return false if the directory has no segments
+     */
+    public static boolean load(Path directory, InMemoryEmbeddingStore<TextSegment> store)
+            throws IOException {
+        Map<String, HnswEmbeddingStore.Entry<TextSegment>> live = readLive(directory);
+        if (live == null) {
+            return false;
+        }
+        live.values().forEach(entry -> store.add(entry.id, entry.embedding, entry.embedded));
+        return true;
+    }
+
+    /**
+     * Appends the changes of the store since the last persist, or writes a full snapshot if the
+     * store asks for one or too many segments have accumulated.
+     */
+    public static void persist(Path directory, HnswEmbeddingStore<TextSegment> store)
+            throws IOException {
+        HnswEmbeddingStore.ChangeSet<TextSegment> changes = store.drainChanges();
+        try {
+            Files.createDirectories(directory);
+            List<Path> segments = listSegments(directory);
+            long sequence =
+                    segments.isEmpty() ? 1 : sequenceOf(segments.get(segments.size() - 1)) + 1;
+            if (changes.snapshotRequired || segments.size() >= MAX_SEGMENTS) {
+                writeSegments(directory, sequence, store.entries(), Collections.emptySet(), true);
+                for (Path segment : segments) {
+                    Files.deleteIfExists(segment);
+                }
+                return;
+            }
+            if (!changes.isEmpty()) {
+                writeSegments(directory, sequence, changes.added, changes.removed, false);
+            }
+        } catch (IOException | RuntimeException e) {
+            // the drained changes are lost, rewrite everything next time
+            store.requireSnapshot();
+            throw e;
+        }
+    }
+
+    /** Deletes the segments of a collection, e.g. once it was persisted in another format. */
+    public static void delete(Path directory) throws IOException {
+        for (Path segment : listSegments(directory)) {
+            Files.deleteIfExists(segment);
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    private static Map<String, HnswEmbeddingStore.Entry<TextSegment>> readLive(Path directory)
+            throws IOException {
+        List<Path> segments = listSegments(directory);
+        if (segments.isEmpty()) {
+            return null;
+        }
+        int start = 0;
+        for (int i = segments.size() - 1; i > 0; i--) {
+            if (isSnapshot(segments.get(i))) {
+                start = i;
+                break;
+            }
+        }
+        Map<String, HnswEmbeddingStore.Entry<TextSegment>> live = new LinkedHashMap<>();
+        for (Path segment : segments.subList(start, segments.size())) {
+            readSegment(segment, live);
+        }
+        log.info("embeddingStore loaded {} entries from {} segments in {}", live.size(),
+                segments.size() - start, directory);
+        return live;
+    }
+
+    static List<Path> listSegments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return Collections.emptyList();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static long sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(
+                name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Writes the entries into as many segments as needed to stay below
+     * {@link #MAX_SEGMENT_VECTOR_BYTES} each. The snapshot segment is written last, so that until
+     * it exists the new segments only add to the ones it replaces.
+     */
+    private static void writeSegments(Path directory, long sequence,
+            List<HnswEmbeddingStore.Entry<TextSegment>> added, Collection<String> removed,
+            boolean snapshot) throws IOException {
+        int dimension = added.isEmpty() ? 0 : added.get(0).embedding.dimension();
+        List<HnswEmbeddingStore.Entry<TextSegment>> entries = new ArrayList<>(added.size());
+        for (HnswEmbeddingStore.Entry<TextSegment> entry : added) {
+            if (entry.embedding.dimension() == dimension) {
+                entries.add(entry);
+            } else {
+                log.warn("skip embedding {} with dimension {}, expected {}", entry.id,
+                        entry.embedding.dimension(), dimension);
+            }
+        }
+        long vectorBytes = (long) Math.max(1, dimension) * Float.BYTES;
+        int chunkSize = (int) Math.max(1, MAX_SEGMENT_VECTOR_BYTES / vectorBytes);
+        int chunks = Math.max(1, (entries.size() + chunkSize - 1) / chunkSize);
+        for (int chunk = chunks - 1; chunk >= 0; chunk--) {
+            List<HnswEmbeddingStore.Entry<TextSegment>> chunkEntries = entries.subList(
+                    Math.min(entries.size(), chunk * chunkSize),
+                    Math.min(entries.size(), (chunk + 1) * chunkSize));
+            boolean first = chunk == 0;
+            writeSegment(directory, sequence + chunk, dimension, chunkEntries,
+                    first ? removed : Collections.emptySet(), first && snapshot);
+        }
+    }
+
+    private static void writeSegment(Path directory, long sequence, int dimension,
+            List<HnswEmbeddingStore.Entry<TextSegment>> entries, Collection<String> removed,
+            boolean snapshot) throws IOException {
+        String name = String.format("%s%012d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX);
+        Path target = directory.resolve(name);
+        Path temp = directory.resolve(name + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(dimension);
+            out.writeInt(entries.size());
+            out.writeInt(removed.size());
+            out.writeInt(snapshot ? FLAG_SNAPSHOT : 0);
+            out.write(new byte[HEADER_SIZE - 6 * Integer.BYTES]);
+            for (HnswEmbeddingStore.Entry<TextSegment> entry : entries) {
+                for (float value : entry.embedding.vector()) {
+                    out.writeFloat(value);
+                }
+            }
+            for (HnswEmbeddingStore.Entry<TextSegment> entry : entries) {
+                writeString(out, entry.id);
+                TextSegment segment = entry.embedded;
+                writeString(out, segment == null ? null : segment.text());
+                writeMetadata(out,
+                        segment == null ? Collections.emptyMap() : segment.metadata().toMap());
+            }
+            for (String id : removed) {
+                writeString(out, id);
+            }
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static boolean isSnapshot(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // read the whole header
+            }
+            header.flip();
+            return header.remaining() == HEADER_SIZE && header.getInt(0) == MAGIC
+                    && (header.getInt(5 * Integer.BYTES) & FLAG_SNAPSHOT) != 0;
+        }
+    }
+
+    private static void readSegment(Path segment,
+            Map<String, HnswEmbeddingStore.Entry<TextSegment>> live) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("embedding segment larger than 2 GB: " + segment);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("not an embedding segment: " + segment);
+            }
+            int dimension = buffer.getInt();
+            int addCount = buffer.getInt();
+            int removeCount = buffer.getInt();
+            long vectorBytes = (long) addCount * dimension * Float.BYTES;
+            if (HEADER_SIZE + vectorBytes > buffer.capacity()) {
+                throw new IOException("truncated embedding segment: " + segment);
+            }
+            buffer.position(HEADER_SIZE);
+            FloatBuffer vectorBlock = buffer.slice().asFloatBuffer();
+            float[][] vectors = new float[addCount][dimension];
+            for (float[] vector : vectors) {
+                vectorBlock.get(vector);
+            }
+            buffer.position(HEADER_SIZE + (int) vectorBytes);
+            for (int i = 0; i < addCount; i++) {
+                String id = readString(buffer);
+                String text = readString(buffer);
+                Metadata metadata = new Metadata(readMetadata(buffer));
+                TextSegment textSegment = text == null ? null : TextSegment.from(text, metadata);
+                live.remove(id);
+                live.put(id, new HnswEmbeddingStore.Entry<>(id, Embedding.from(vectors[i]),
+                        textSegment));
+            }
+            for (int i = 0; i < removeCount; i++) {
+                live.remove(readString(buffer));
+            }
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeMetadata(DataOutputStream out, Map<String, Object> metadata)
+            throws IOException {
+        out.writeInt(metadata.size());
+        for (Map.Entry<String, Object> entry : metadata.entrySet()) {
+            writeString(out, entry.getKey());
+            Object value = entry.getValue();
+            if (value instanceof UUID) {
+                out.writeByte(TYPE_UUID);
+                writeString(out, value.toString());
+            } else if (value instanceof Integer) {
+                out.writeByte(TYPE_INTEGER);
+                out.writeInt((Integer) value);
+            } else if (value instanceof Long) {
+                out.writeByte(TYPE_LONG);
+                out.writeLong((Long) value);
+            } else if (value instanceof Float) {
+                out.writeByte(TYPE_FLOAT);
+                out.writeFloat((Float) value);
+            } else if (value instanceof Double) {
+                out.writeByte(TYPE_DOUBLE);
+                out.writeDouble((Double) value);
+            } else {
+                out.writeByte(TYPE_STRING);
+                writeString(out, String.valueOf(value));
+            }
+        }
+    }
+
+    private static Map<String, Object> readMetadata(ByteBuffer buffer) throws IOException {
+        int size = buffer.getInt();
+        Map<String, Object> metadata = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            String key = readString(buffer);
+            byte type = buffer.get();
+            switch (type) {
+                case TYPE_UUID:
+                    metadata.put(key, UUID.fromString(readString(buffer)));
+                    break;
+                case TYPE_INTEGER:
+                    metadata.put(key, buffer.getInt());
+                    break;
+                case TYPE_LONG:
+                    metadata.put(key, buffer.getLong());
+                    break;
+                case TYPE_FLOAT:
+                    metadata.put(key, buffer.getFloat());
+                    break;
+                case TYPE_DOUBLE:
+                    metadata.put(key, buffer.getDouble());
+                    break;
+                case TYPE_STRING:
+                    metadata.put(key, readString(buffer));
+                    break;
+                default:
+                    throw new IOException("unknown metadata type: " + type);
+            }
+        }
+        return metadata;
+    }
+}
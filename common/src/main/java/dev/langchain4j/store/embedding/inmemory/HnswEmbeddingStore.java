@@ -0,0 +1,614 @@
+package dev.langchain4j.store.embedding.inmemory;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.CosineSimilarity;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.EmbeddingSearchResult;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import dev.langchain4j.store.embedding.RelevanceScore;
+import dev.langchain4j.store.embedding.filter.Filter;
+import dev.langchain4j.store.embedding.filter.comparison.IsEqualTo;
+import dev.langchain4j.store.embedding.filter.comparison.IsIn;
+import dev.langchain4j.store.embedding.filter.logical.And;
+import dev.langchain4j.store.embedding.filter.logical.Or;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static dev.langchain4j.internal.Utils.randomUUID;
+import static dev.langchain4j.internal.ValidationUtils.ensureNotBlank;
+import static dev.langchain4j.internal.ValidationUtils.ensureNotEmpty;
+import static dev.langchain4j.internal.ValidationUtils.ensureNotNull;
+import static java.util.Comparator.comparingDouble;
+
+/**
+ * An in-memory {@link EmbeddingStore} backed by HNSW graphs instead of a brute force scan.
+ *
+ * <p>
+ * Entries are partitioned by the value of one metadata key ({@code modelId} by default) and each
+ * partition has its own graph. Searches whose filter pins that key, such as the model filters used
+ * by the meta embedding mapper, only visit the matching partitions. Adds and removes are
+ * incremental and lock a single partition; searches run concurrently under a read lock.
+ *
+ * <p>
+ * Removed entries stay in the graph until more than half of a partition is removed, at which point
+ * the partition is rebuilt from its live entries. The graphs of entries restored from disk are
+ * built on a background thread without holding the partition lock; until then the partition is
+ * searched by brute force, so loading a large store neither blocks nor slows the first searches.
+ */
+@Slf4j
+public class HnswEmbeddingStore<Embedded> implements EmbeddingStore<Embedded> {
+
+    public static final String DEFAULT_PARTITION_KEY = "modelId";
+    private static final String NO_PARTITION = "";
+    private static final int MIN_REBUILD_SIZE = 64;
+    /** builds the graphs of loaded partitions one at a time, shared by all stores */
+    private static final ExecutorService INDEX_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "hnsw-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final String partitionKey;
+    private final int maxConnections;
+    private final int efConstruction;
+    private final int efSearch;
+    private final Map<String, Partition<Embedded>> partitions = new ConcurrentHashMap<>();
+    private final Map<String, Partition<Embedded>> idToPartition = new ConcurrentHashMap<>();
+
+    private final Object changeLock = new Object();
+    private boolean changeTracking;
+    private boolean snapshotRequired;
+    private Map<String, Entry<Embedded>> addedEntries = new LinkedHashMap<>();
+    private Set<String> removedIds = new LinkedHashSet<>();
+
+    public HnswEmbeddingStore() {
+        this(DEFAULT_PARTITION_KEY, 16, 100, 64);
+    }
+
+    /**
+     * @param partitionKey metadata key whose value selects the partition of an entry
+     * @param maxConnections links per node on the upper levels, twice as many on the bottom level
+     * @param efConstruction candidate list size used while linking a new node
+     * @param efSearch candidate list size used while searching, higher is slower but more accurate
+     */
+    public HnswEmbeddingStore(String partitionKey, int maxConnections, int efConstruction,
+            int efSearch) {
+        this.partitionKey = ensureNotBlank(partitionKey, "partitionKey");
+        this.maxConnections = maxConnections;
+        this.efConstruction = efConstruction;
+        this.efSearch = efSearch;
+    }
+
+    @Override
+    public String add(Embedding embedding) {
+        String id = randomUUID();
+        add(id, embedding);
+        return id;
+    }
+
+    @Override
+    public void add(String id, Embedding embedding) {
+        add(id, embedding, null);
+    }
+
+    @Override
+    public String add(Embedding embedding, Embedded embedded) {
+        String id = randomUUID();
+        add(id, embedding, embedded);
+        return id;
+    }
+
+    public void add(String id, Embedding embedding, Embedded embedded) {
+        ensureNotBlank(id, "id");
+        ensureNotNull(embedding, "embedding");
+        removeAll(List.of(id));
+        Partition<Embedded> partition =
+                partitions.computeIfAbsent(partitionOf(embedded), key -> new Partition<>());
+        Entry<Embedded> entry = new Entry<>(id, embedding, embedded);
+        partition.lock.writeLock().lock();
+        try {
+            if (partition.pending) {
+                // joins the graph once the background build picks it up
+                partition.unindexed.add(entry);
+            } else {
+                partition.add(entry, this);
+            }
+            idToPartition.put(id, partition);
+        } finally {
+            partition.lock.writeLock().unlock();
+        }
+        trackAdd(entry);
+    }
+
+    @Override
+    public List<String> addAll(List<Embedding> embeddings) {
+        return embeddings.stream().map(this::add).collect(Collectors.toList());
+    }
+
+    @Override
+    public List<String> addAll(List<Embedding> embeddings, List<Embedded> embedded) {
+        if (embeddings.size() != embedded.size()) {
+            throw new IllegalArgumentException(
+                    "The list of embeddings and embedded must have the same size");
+        }
+        return IntStream.range(0, embeddings.size())
+                .mapToObj(i -> add(embeddings.get(i), embedded.get(i)))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void removeAll(Collection<String> ids) {
+        ensureNotEmpty(ids, "ids");
+        for (String id : ids) {
+            Partition<Embedded> partition = idToPartition.remove(id);
+            if (partition == null) {
+                continue;
+            }
+            partition.lock.writeLock().lock();
+            try {
+                partition.remove(id, this);
+            } finally {
+                partition.lock.writeLock().unlock();
+            }
+            trackRemove(id);
+        }
+    }
+
+    @Override
+    public void removeAll(Filter filter) {
+        ensureNotNull(filter, "filter");
+        for (Partition<Embedded> partition : partitionsFor(filter)) {
+            List<String> ids;
+            partition.lock.readLock().lock();
+            try {
+                ids = partition.liveEntries().stream()
+                        .filter(entry -> matches(filter, entry.embedded)).map(entry -> entry.id)
+                        .collect(Collectors.toList());
+            } finally {
+                partition.lock.readLock().unlock();
+            }
+            if (!ids.isEmpty()) {
+                removeAll(ids);
+            }
+        }
+    }
+
+    @Override
+    public void removeAll() {
+        partitions.clear();
+        idToPartition.clear();
+        synchronized (changeLock) {
+            addedEntries.clear();
+            removedIds.clear();
+            snapshotRequired = changeTracking;
+        }
+    }
+
+    @Override
+    public EmbeddingSearchResult<Embedded> search(EmbeddingSearchRequest request) {
+        float[] query = normalize(request.queryEmbedding().vector());
+        Filter filter = request.filter();
+        int maxResults = request.maxResults();
+        Comparator<EmbeddingMatch<Embedded>> comparator = comparingDouble(EmbeddingMatch::score);
+        PriorityQueue<EmbeddingMatch<Embedded>> matches = new PriorityQueue<>(comparator);
+
+        for (Partition<Embedded> partition : partitionsFor(filter)) {
+            partition.lock.readLock().lock();
+            try {
+                if (partition.pending) {
+                    for (Entry<Embedded> entry : partition.unindexed) {
+                        if (entry.embedding.dimension() == query.length
+                                && (filter == null || accepts(filter, entry.embedded))) {
+                            addMatch(matches, entry, request, maxResults);
+                        }
+                    }
+                    continue;
+                }
+                if (partition.index == null || partition.index.dimension() != query.length) {
+                    continue;
+                }
+                List<HnswIndex.Candidate> candidates = partition.index.search(query, maxResults,
+                        Math.max(efSearch, maxResults), filter == null ? null
+                                : node -> accepts(filter, partition.entries.get(node).embedded));
+                for (HnswIndex.Candidate candidate : candidates) {
+                    // rescore the few hits exactly so that scores match the brute force store
+                    addMatch(matches, partition.entries.get(candidate.node), request, maxResults);
+                }
+            } finally {
+                partition.lock.readLock().unlock();
+            }
+        }
+        List<EmbeddingMatch<Embedded>> result = new ArrayList<>(matches);
+        result.sort(comparator.reversed());
+        return new EmbeddingSearchResult<>(result);
+    }
+
+    public int size() {
+        return idToPartition.size();
+    }
+
+    public static <Embedded> void copy(InMemoryEmbeddingStore<Embedded> source,
+            HnswEmbeddingStore<Embedded> target) {
+        Map<String, Entry<Embedded>> entries = new LinkedHashMap<>();
+        for (InMemoryEmbeddingStore.Entry<Embedded> entry : source.entries) {
+            entries.put(entry.id, new Entry<>(entry.id, entry.embedding, entry.embedded));
+        }
+        target.load(entries.values());
+    }
+
+    /**
+     * Starts recording adds and removes so that {@link #drainChanges()} can return what changed
+     * since the last call.
+     *
+     * @param snapshotRequired whether the next drain should ask for a full snapshot, e.g. because
+     *        the current content has never been written
+     */
+    public void enableChangeTracking(boolean snapshotRequired) {
+        synchronized (changeLock) {
+            this.changeTracking = true;
+            this.snapshotRequired = snapshotRequired;
+        }
+    }
+
+    /** Makes the next drain ask for a full snapshot, e.g. after a failed write. */
+    public void requireSnapshot() {
+        synchronized (changeLock) {
+            snapshotRequired = true;
+        }
+    }
+
+    ChangeSet<Embedded> drainChanges() {
+        synchronized (changeLock) {
+            ChangeSet<Embedded> changes = new ChangeSet<>(new ArrayList<>(addedEntries.values()),
+                    removedIds, snapshotRequired);
+            addedEntries = new LinkedHashMap<>();
+            removedIds = new LinkedHashSet<>();
+            snapshotRequired = false;
+            return changes;
+        }
+    }
+
+    /**
+     * Adds entries with unique ids to an empty store. The graphs are built in the background, the
+     * entries are searched by brute force until then.
+     */
+    void load(Collection<Entry<Embedded>> entries) {
+        Set<Partition<Embedded>> loaded = new LinkedHashSet<>();
+        for (Entry<Embedded> entry : entries) {
+            Partition<Embedded> partition = partitions.computeIfAbsent(partitionOf(entry.embedded),
+                    key -> new Partition<>());
+            partition.lock.writeLock().lock();
+            try {
+                if (partition.pending || partition.index == null) {
+                    partition.unindexed.add(entry);
+                    partition.pending = true;
+                    loaded.add(partition);
+                } else {
+                    partition.add(entry, this);
+                }
+                idToPartition.put(entry.id, partition);
+            } finally {
+                partition.lock.writeLock().unlock();
+            }
+        }
+        loaded.forEach(this::scheduleIndex);
+    }
+
+    /** Whether some loaded entries are not linked into the graphs yet. */
+    boolean hasPendingEntries() {
+        return partitions.values().stream().anyMatch(partition -> partition.pending);
+    }
+
+    List<Entry<Embedded>> entries() {
+        List<Entry<Embedded>> entries = new ArrayList<>(size());
+        for (Partition<Embedded> partition : partitions.values()) {
+            partition.lock.readLock().lock();
+            try {
+                entries.addAll(partition.liveEntries());
+            } finally {
+                partition.lock.readLock().unlock();
+            }
+        }
+        return entries;
+    }
+
+    private void scheduleIndex(Partition<Embedded> partition) {
+        if (!partition.indexing.compareAndSet(false, true)) {
+            return;
+        }
+        INDEX_EXECUTOR.execute(() -> {
+            try {
+                partition.indexPending(this);
+            } catch (RuntimeException e) {
+                // the partition stays searchable by brute force
+                log.error("build hnsw index error", e);
+            } finally {
+                partition.indexing.set(false);
+            }
+        });
+    }
+
+    private void addMatch(PriorityQueue<EmbeddingMatch<Embedded>> matches, Entry<Embedded> entry,
+            EmbeddingSearchRequest request, int maxResults) {
+        double score = RelevanceScore.fromCosineSimilarity(
+                CosineSimilarity.between(entry.embedding, request.queryEmbedding()));
+        if (score < request.minScore()) {
+            return;
+        }
+        matches.add(new EmbeddingMatch<>(score, entry.id, entry.embedding, entry.embedded));
+        if (matches.size() > maxResults) {
+            matches.poll();
+        }
+    }
+
+    private void trackAdd(Entry<Embedded> entry) {
+        synchronized (changeLock) {
+            if (changeTracking) {
+                removedIds.remove(entry.id);
+                addedEntries.put(entry.id, entry);
+            }
+        }
+    }
+
+    private void trackRemove(String id) {
+        synchronized (changeLock) {
+            if (changeTracking) {
+                addedEntries.remove(id);
+                removedIds.add(id);
+            }
+        }
+    }
+
+    private HnswIndex newIndex(int dimension) {
+        return new HnswIndex(dimension, maxConnections, efConstruction, 42L);
+    }
+
+    private String partitionOf(Object embedded) {
+        if (embedded instanceof TextSegment) {
+            Metadata metadata = ((TextSegment) embedded).metadata();
+            Object value = metadata == null ? null : metadata.toMap().get(partitionKey);
+            return value == null ? NO_PARTITION : String.valueOf(value);
+        }
+        return NO_PARTITION;
+    }
+
+    private Collection<Partition<Embedded>> partitionsFor(Filter filter) {
+        Set<String> keys = partitionKeys(filter);
+        if (keys == null) {
+            return partitions.values();
+        }
+        return keys.stream().map(partitions::get).filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the partition values a filter can match, or null if the filter does not restrict the
+     * partition key.
+     */
+    private Set<String> partitionKeys(Filter filter) {
+        if (filter instanceof IsEqualTo) {
+            IsEqualTo isEqualTo = (IsEqualTo) filter;
+            return partitionKey.equals(isEqualTo.key())
+                    ? Set.of(String.valueOf(isEqualTo.comparisonValue()))
+                    : null;
+        }
+        if (filter instanceof IsIn) {
+            IsIn isIn = (IsIn) filter;
+            return partitionKey.equals(isIn.key()) ? isIn.comparisonValues().stream()
+                    .map(String::valueOf).collect(Collectors.toSet()) : null;
+        }
+        if (filter instanceof Or) {
+            Set<String> left = partitionKeys(((Or) filter).left());
+            Set<String> right = partitionKeys(((Or) filter).right());
+            if (left == null || right == null) {
+                return null;
+            }
+            Set<String> union = new HashSet<>(left);
+            union.addAll(right);
+            return union;
+        }
+        if (filter instanceof And) {
+            Set<String> left = partitionKeys(((And) filter).left());
+            Set<String> right = partitionKeys(((And) filter).right());
+            if (left == null || right == null) {
+                return left == null ? right : left;
+            }
+            Set<String> intersection = new HashSet<>(left);
+            intersection.retainAll(right);
+            return intersection;
+        }
+        return null;
+    }
+
+    private static boolean matches(Filter filter, Object embedded) {
+        if (embedded instanceof TextSegment) {
+            return filter.test(((TextSegment) embedded).metadata());
+        }
+        return false;
+    }
+
+    /** Same as the brute force store: only text segments carry metadata to filter on. */
+    private static boolean accepts(Filter filter, Object embedded) {
+        return !(embedded instanceof TextSegment) || matches(filter, embedded);
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        float[] normalized = new float[vector.length];
+        if (norm == 0) {
+            return normalized;
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = vector[i] * scale;
+        }
+        return normalized;
+    }
+
+    private static class Partition<Embedded> {
+
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private List<Entry<Embedded>> entries = new ArrayList<>();
+        private Map<String, Integer> idToNode = new ConcurrentHashMap<>();
+        /** loaded entries that are searched by brute force until the graph is built */
+        private final List<Entry<Embedded>> unindexed = new ArrayList<>();
+        private volatile boolean pending;
+        private final AtomicBoolean indexing = new AtomicBoolean();
+        private HnswIndex index;
+
+        /**
+         * Builds the graph of the loaded entries without holding the lock, then links the entries
+         * added meanwhile and drops the removed ones while briefly holding the write lock.
+         */
+        private void indexPending(HnswEmbeddingStore<Embedded> store) {
+            List<Entry<Embedded>> snapshot;
+            lock.readLock().lock();
+            try {
+                if (!pending) {
+                    return;
+                }
+                snapshot = new ArrayList<>(unindexed);
+            } finally {
+                lock.readLock().unlock();
+            }
+            HnswIndex built = null;
+            List<Entry<Embedded>> builtEntries = new ArrayList<>(snapshot.size());
+            Map<Entry<Embedded>, Integer> builtNodes = new IdentityHashMap<>();
+            for (Entry<Embedded> entry : snapshot) {
+                float[] vector = normalize(entry.embedding.vector());
+                if (built == null) {
+                    built = store.newIndex(vector.length);
+                }
+                builtNodes.put(entry, built.add(vector));
+                builtEntries.add(entry);
+            }
+            lock.writeLock().lock();
+            try {
+                Set<Entry<Embedded>> current = Collections.newSetFromMap(new IdentityHashMap<>());
+                current.addAll(unindexed);
+                Map<String, Integer> builtIdToNode = new ConcurrentHashMap<>();
+                builtNodes.forEach((entry, node) -> {
+                    if (current.contains(entry)) {
+                        builtIdToNode.put(entry.id, node);
+                    }
+                });
+                index = built;
+                entries = builtEntries;
+                idToNode = builtIdToNode;
+                builtNodes.forEach((entry, node) -> {
+                    if (!current.contains(entry)) {
+                        index.remove(node);
+                    }
+                });
+                for (Entry<Embedded> entry : unindexed) {
+                    if (!builtNodes.containsKey(entry)) {
+                        add(entry, store);
+                    }
+                }
+                unindexed.clear();
+                pending = false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void add(Entry<Embedded> entry, HnswEmbeddingStore<Embedded> store) {
+            float[] vector = normalize(entry.embedding.vector());
+            if (index == null) {
+                index = store.newIndex(vector.length);
+            }
+            int node = index.add(vector);
+            entries.add(entry);
+            idToNode.put(entry.id, node);
+        }
+
+        private void remove(String id, HnswEmbeddingStore<Embedded> store) {
+            if (pending) {
+                unindexed.removeIf(entry -> entry.id.equals(id));
+                return;
+            }
+            Integer node = idToNode.remove(id);
+            if (node == null) {
+                return;
+            }
+            index.remove(node);
+            if (index.size() >= MIN_REBUILD_SIZE && index.removedCount() > index.liveCount()) {
+                rebuild(store);
+            }
+        }
+
+        private void rebuild(HnswEmbeddingStore<Embedded> store) {
+            List<Entry<Embedded>> live = liveEntries();
+            entries.clear();
+            idToNode.clear();
+            index = null;
+            live.forEach(entry -> add(entry, store));
+        }
+
+        private List<Entry<Embedded>> liveEntries() {
+            List<Entry<Embedded>> live = new ArrayList<>(unindexed);
+            if (index != null) {
+                IntStream.range(0, entries.size()).filter(node -> !index.isRemoved(node))
+                        .mapToObj(entries::get).forEach(live::add);
+            }
+            return live;
+        }
+    }
+
+    static class Entry<Embedded> {
+
+        final String id;
+        final Embedding embedding;
+        final Embedded embedded;
+
+        Entry(String id, Embedding embedding, Embedded embedded) {
+            this.id = id;
+            this.embedding = embedding;
+            this.embedded = embedded;
+        }
+    }
+
+    static class ChangeSet<Embedded> {
+
+        final List<Entry<Embedded>> added;
+        final Set<String> removed;
+        final boolean snapshotRequired;
+
+        ChangeSet(List<Entry<Embedded>> added, Set<String> removed, boolean snapshotRequired) {
+            this.added = added;
+            this.removed = removed;
+            this.snapshotRequired = snapshotRequired;
+        }
+
+        boolean isEmpty() {
+            return added.isEmpty() && removed.isEmpty();
+        }
+    }
+}
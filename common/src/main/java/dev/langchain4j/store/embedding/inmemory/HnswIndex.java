@@ -0,0 +1,303 @@
+package dev.langchain4j.store.embedding.inmemory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.function.IntPredicate;
+
+/**
+ * Hierarchical navigable small world graph over unit vectors, using the dot product as similarity.
+ * Vectors are kept in one contiguous {@code float[]}, nodes are addressed by their insertion
+ * position, and removed nodes stay in the graph for navigation but are never returned.
+ *
+ * <p>
+ * Not thread safe, callers guard it with a read/write lock.
+ */
+class HnswIndex {
+
+    private static final int[] NO_LINKS = new int[0];
+
+    private final int dimension;
+    private final int maxConnections;
+    private final int maxConnectionsLevel0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final Random random;
+
+    private float[] vectors;
+    private int[][][] links;
+    private final BitSet removed = new BitSet();
+    private int size;
+    private int removedCount;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    HnswIndex(int dimension, int maxConnections, int efConstruction, long seed) {
+        this.dimension = dimension;
+        this.maxConnections = maxConnections;
+        this.maxConnectionsLevel0 = maxConnections * 2;
+        this.efConstruction = Math.max(efConstruction, maxConnections);
+        this.levelMultiplier = 1 / Math.log(Math.max(maxConnections, 2));
+        this.random = new Random(seed);
+        this.vectors = new float[16 * dimension];
+        this.links = new int[16][][];
+    }
+
+    int dimension() {
+        return dimension;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int liveCount() {
+        return size - removedCount;
+    }
+
+    int removedCount() {
+        return removedCount;
+    }
+
+    boolean isRemoved(int node) {
+        return removed.get(node);
+    }
+
+    /** Adds a unit vector and returns its node id. */
+    int add(float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException(
+                    String.format("embedding dimension %d does not match index dimension %d",
+                            vector.length, dimension));
+        }
+        int node = size;
+        ensureCapacity(node + 1);
+        System.arraycopy(vector, 0, vectors, node * dimension, dimension);
+        int level = randomLevel();
+        links[node] = new int[level + 1][];
+        Arrays.fill(links[node], NO_LINKS);
+        size++;
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return node;
+        }
+        int current = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            current = greedyClosest(vector, current, l);
+        }
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            List<Candidate> candidates = searchLayer(vector, current, efConstruction, l, null);
+            int[] neighbors = selectNeighbors(candidates, maxConnections(l));
+            links[node][l] = neighbors;
+            for (int neighbor : neighbors) {
+                connect(neighbor, node, l);
+            }
+            current = candidates.get(0).node;
+        }
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = node;
+        }
+        return node;
+    }
+
+    void remove(int node) {
+        if (node < size && !removed.get(node)) {
+            removed.set(node);
+            removedCount++;
+        }
+    }
+
+    /**
+     * Returns up to {@code k} live nodes accepted by {@code filter}, most similar first. The search
+     * keeps expanding while fewer than {@code ef} accepted nodes were found, so a selective filter
+     * degrades towards a full scan instead of losing results.
+     */
+    List<Candidate> search(float[] query, int k, int ef, IntPredicate filter) {
+        if (entryPoint < 0 || liveCount() == 0) {
+            return new ArrayList<>();
+        }
+        int current = entryPoint;
+        for (int l = maxLevel; l > 0; l--) {
+            current = greedyClosest(query, current, l);
+        }
+        IntPredicate accept = node -> !removed.get(node) && (filter == null || filter.test(node));
+        List<Candidate> result = searchLayer(query, current, Math.max(ef, k), 0, accept);
+        return result.size() > k ? new ArrayList<>(result.subList(0, k)) : result;
+    }
+
+    private int maxConnections(int level) {
+        return level == 0 ? maxConnectionsLevel0 : maxConnections;
+    }
+
+    private int randomLevel() {
+        double r = 1 - random.nextDouble();
+        return (int) (-Math.log(r) * levelMultiplier);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > links.length) {
+            int newCapacity = Math.max(capacity, links.length * 2);
+            links = Arrays.copyOf(links, newCapacity);
+            vectors = Arrays.copyOf(vectors, newCapacity * dimension);
+        }
+    }
+
+    private int greedyClosest(float[] query, int start, int level) {
+        int current = start;
+        float best = dot(query, current);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int neighbor : links[current][level]) {
+                float similarity = dot(query, neighbor);
+                if (similarity > best) {
+                    best = similarity;
+                    current = neighbor;
+                    changed = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Best-first search on one level. Every reachable node is used for navigation, but only nodes
+     * passing {@code accept} (all nodes if null) are collected.
+     */
+    private List<Candidate> searchLayer(float[] query, int start, int ef, int level,
+            IntPredicate accept) {
+        BitSet visited = new BitSet(size);
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(Candidate.BY_SIMILARITY_DESC);
+        PriorityQueue<Candidate> found = new PriorityQueue<>(Candidate.BY_SIMILARITY_ASC);
+
+        Candidate first = new Candidate(start, dot(query, start));
+        visited.set(start);
+        candidates.add(first);
+        if (accept == null || accept.test(start)) {
+            found.add(first);
+        }
+        while (!candidates.isEmpty()) {
+            Candidate closest = candidates.poll();
+            if (found.size() >= ef && closest.similarity < found.peek().similarity) {
+                break;
+            }
+            for (int neighbor : links[closest.node][level]) {
+                if (visited.get(neighbor)) {
+                    continue;
+                }
+                visited.set(neighbor);
+                float similarity = dot(query, neighbor);
+                if (found.size() < ef || similarity > found.peek().similarity) {
+                    Candidate candidate = new Candidate(neighbor, similarity);
+                    candidates.add(candidate);
+                    if (accept == null || accept.test(neighbor)) {
+                        found.add(candidate);
+                        if (found.size() > ef) {
+                            found.poll();
+                        }
+                    }
+                }
+            }
+        }
+        List<Candidate> result = new ArrayList<>(found);
+        result.sort(Candidate.BY_SIMILARITY_DESC);
+        return result;
+    }
+
+    /**
+     * Neighbor selection heuristic from the HNSW paper: a candidate is kept only if it is closer to
+     * the base node than to any neighbor already kept, which keeps links spread across clusters.
+     */
+    private int[] selectNeighbors(List<Candidate> candidates, int max) {
+        List<Candidate> selected = new ArrayList<>(max);
+        List<Candidate> skipped = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            if (selected.size() >= max) {
+                break;
+            }
+            boolean diverse = true;
+            for (Candidate kept : selected) {
+                if (dot(candidate.node, kept.node) > candidate.similarity) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected.add(candidate);
+            } else {
+                skipped.add(candidate);
+            }
+        }
+        for (int i = 0; i < skipped.size() && selected.size() < max; i++) {
+            selected.add(skipped.get(i));
+        }
+        return selected.stream().mapToInt(candidate -> candidate.node).toArray();
+    }
+
+    private void connect(int node, int neighbor, int level) {
+        int[] current = links[node][level];
+        int max = maxConnections(level);
+        if (current.length < max) {
+            int[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = neighbor;
+            links[node][level] = updated;
+            return;
+        }
+        List<Candidate> candidates = new ArrayList<>(current.length + 1);
+        for (int existing : current) {
+            candidates.add(new Candidate(existing, dot(node, existing)));
+        }
+        candidates.add(new Candidate(neighbor, dot(node, neighbor)));
+        candidates.sort(Candidate.BY_SIMILARITY_DESC);
+        links[node][level] = selectNeighbors(candidates, max);
+    }
+
+    private float dot(int first, int second) {
+        return dot(vectors, first * dimension, vectors, second * dimension);
+    }
+
+    /** Four independent sums let the JIT pipeline the multiplications. */
+    private float dot(float[] a, int aOffset, float[] b, int bOffset) {
+        float sum0 = 0;
+        float sum1 = 0;
+        float sum2 = 0;
+        float sum3 = 0;
+        int i = 0;
+        for (int bound = dimension - 3; i < bound; i += 4) {
+            sum0 += a[aOffset + i] * b[bOffset + i];
+            sum1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+            sum2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+            sum3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+        }
+        for (; i < dimension; i++) {
+            sum0 += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum0 + sum1 + sum2 + sum3;
+    }
+
+    private float dot(float[] query, int node) {
+        return dot(query, 0, vectors, node * dimension);
+    }
+
+    static final class Candidate {
+
+        static final Comparator<Candidate> BY_SIMILARITY_ASC =
+                (a, b) -> Float.compare(a.similarity, b.similarity);
+        static final Comparator<Candidate> BY_SIMILARITY_DESC = BY_SIMILARITY_ASC.reversed();
+
+        final int node;
+        final float similarity;
+
+        Candidate(int node, float similarity) {
+            this.node = node;
+            this.similarity = similarity;
+        }
+    }
+}
@@ -207,7 +207,7 @@ public class InMemoryEmbeddingStore<Embedded> implements EmbeddingStore<Embedded
         return fromFile(Paths.get(filePath));
     }
 
-    private static class Entry<Embedded> {
+    static class Entry<Embedded> {
 
         String id;
         Embedding embedding;
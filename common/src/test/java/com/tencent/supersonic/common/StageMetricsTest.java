@@ -0,0 +1,47 @@
+package com.tencent.supersonic.common;
+
+import com.tencent.supersonic.common.util.StageMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+class StageMetricsTest {
+
+    @AfterEach
+    void tearDown() {
+        StageMetrics.clear();
+    }
+
+    @Test
+    void testPercentiles() {
+        for (int i = 1; i <= 100; i++) {
+            StageMetrics.record("PARSING", "LLMSqlParser", i);
+        }
+        StageMetrics.record("MAPPING", "KeywordMapper", 3);
+
+        List<StageMetrics.TimerSnapshot> snapshots = StageMetrics.snapshot();
+        Assertions.assertEquals(2, snapshots.size());
+        StageMetrics.TimerSnapshot parser = snapshots.get(1);
+        Assertions.assertEquals(StageMetrics.NAME, parser.getName());
+        Assertions.assertEquals("LLMSqlParser", parser.getComponent());
+        Assertions.assertEquals(100, parser.getCount());
+        Assertions.assertEquals(5050, parser.getTotalMs());
+        Assertions.assertEquals(100, parser.getMaxMs());
+        Assertions.assertEquals(50, parser.getP50Ms());
+        Assertions.assertEquals(90, parser.getP90Ms());
+        Assertions.assertEquals(99, parser.getP99Ms());
+    }
+
+    @Test
+    void testPercentilesOverLatestSamples() {
+        for (int i = 0; i < 5000; i++) {
+            StageMetrics.record("EXECUTING", "SqlExecutor", i < 4000 ? 1000 : 10);
+        }
+        StageMetrics.TimerSnapshot executor = StageMetrics.snapshot().get(0);
+        Assertions.assertEquals(5000, executor.getCount());
+        Assertions.assertEquals(1000, executor.getMaxMs());
+        Assertions.assertEquals(10, executor.getP90Ms());
+    }
+}
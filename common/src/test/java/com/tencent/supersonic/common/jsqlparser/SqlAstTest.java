@@ -0,0 +1,72 @@
+package com.tencent.supersonic.common.jsqlparser;
+
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+class SqlAstTest {
+
+    @Test
+    void testSameAsChainedHelpers() throws Exception {
+        String sql = "SELECT 部门, 用户, SUM(访问次数) FROM 超音数 WHERE 数据日期 = '2023-11-17' "
+                + "AND 用户 = 'alice' GROUP BY 部门, 用户 ORDER BY SUM(访问次数) DESC LIMIT 10";
+        Set<String> removeFieldNames = Collections.singleton("用户");
+        Expression expression = CCJSqlParserUtil.parseCondExpression("部门 = 'HR'");
+        Map<String, String> fieldNameMap = new HashMap<>();
+        fieldNameMap.put("部门", "department");
+
+        String chained = SqlRemoveHelper.removeWhereCondition(sql, removeFieldNames);
+        chained = SqlRemoveHelper.removeSelect(chained, removeFieldNames);
+        chained = SqlRemoveHelper.removeGroupBy(chained, removeFieldNames);
+        chained = SqlAddHelper.addParenthesisToWhere(chained);
+        chained = SqlAddHelper.addWhere(chained, expression);
+        chained = SqlReplaceHelper.replaceFields(chained, new HashMap<>(fieldNameMap));
+
+        SqlAst sqlAst = SqlAst.parse(sql)
+                .apply(select -> SqlRemoveHelper.removeWhereCondition(select, removeFieldNames))
+                .apply(select -> SqlRemoveHelper.removeSelect(select, removeFieldNames))
+                .apply(select -> SqlRemoveHelper.removeGroupBy(select, removeFieldNames))
+                .apply(SqlAddHelper::addParenthesisToWhere)
+                .apply(select -> SqlAddHelper.addWhere(select, expression))
+                .apply(select -> SqlReplaceHelper.replaceFields(select, fieldNameMap, false));
+
+        Assertions.assertTrue(sqlAst.isModified());
+        Assertions.assertEquals(chained, sqlAst.toSql());
+    }
+
+    @Test
+    void testUnchangedSql() {
+        String sql = "select 部门 from 超音数  where 部门 = 'HR'";
+        SqlAst sqlAst = SqlAst.parse(sql).apply(
+                select -> SqlRemoveHelper.removeGroupBy(select, Collections.singleton("部门")));
+        Assertions.assertFalse(sqlAst.isModified());
+        Assertions.assertEquals(sql, sqlAst.toSql());
+
+        String deleteSql = "DELETE FROM 超音数 WHERE 部门 = 'HR'";
+        sqlAst = SqlAst.parse(deleteSql).apply(SqlAddHelper::addParenthesisToWhere);
+        Assertions.assertNull(sqlAst.getSelect());
+        Assertions.assertEquals(deleteSql, sqlAst.toSql());
+    }
+
+    @Test
+    void testReadOnlySelectNotChangedByEdits() {
+        String sql = "SELECT 部门, SUM(访问次数) FROM 超音数 WHERE 用户 = 'alice' GROUP BY 部门";
+        List<String> whereFields = SqlSelectHelper.getWhereFields(sql);
+        Assertions.assertEquals(Collections.singletonList("用户"), whereFields);
+
+        SqlAst sqlAst = SqlAst.parse(sql)
+                .apply(select -> SqlRemoveHelper.removeWhereCondition(select, Set.of("用户")));
+        Assertions.assertEquals("SELECT 部门, SUM(访问次数) FROM 超音数 GROUP BY 部门", sqlAst.toSql());
+
+        Assertions.assertEquals(whereFields, SqlSelectHelper.getWhereFields(sql));
+        Assertions.assertEquals(Collections.singletonList("部门"),
+                SqlSelectHelper.getGroupByFields(sql));
+    }
+}
@@ -0,0 +1,53 @@
+package com.tencent.supersonic.common.mybatis;
+
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class TenantSqlInterceptorTest {
+
+    private final TenantSqlInterceptor interceptor = new TenantSqlInterceptor();
+
+    @Test
+    void testTemplateBindsTenant() {
+        String sql = "SELECT id, name FROM s2_metric WHERE model_id = ? AND status = 1";
+        long parseCount = parseCount();
+
+        String rewritten = interceptor.rewrite("MetricDOMapper.selectTemplate", sql,
+                SqlCommandType.SELECT, 1L);
+        Assertions.assertEquals(
+                "SELECT id, name FROM s2_metric WHERE model_id = ? AND status = 1 "
+                        + "AND s2_metric.tenant_id = 1",
+                rewritten);
+        Assertions.assertEquals(
+                "SELECT id, name FROM s2_metric WHERE model_id = ? AND status = 1 "
+                        + "AND s2_metric.tenant_id = 22",
+                interceptor.rewrite("MetricDOMapper.selectTemplate", sql, SqlCommandType.SELECT,
+                        22L));
+        Assertions.assertEquals(parseCount + 1, parseCount());
+    }
+
+    @Test
+    void testJoinAndExcludedTable() {
+        String sql = "SELECT a.id FROM s2_user_role a JOIN s2_role b ON a.role_id = b.id";
+        Assertions.assertEquals(
+                "SELECT a.id FROM s2_user_role a JOIN s2_role b ON a.role_id = b.id "
+                        + "AND b.tenant_id = 3",
+                interceptor.rewrite("UserRoleDOMapper.selectJoin", sql, SqlCommandType.SELECT,
+                        3L));
+    }
+
+    @Test
+    void testUnchangedStatements() {
+        String insert = "INSERT INTO s2_query_stat_info (id, tenant_id) VALUES (?, ?)";
+        Assertions.assertSame(insert, interceptor.rewrite("QueryStatDOMapper.insert", insert,
+                SqlCommandType.INSERT, 1L));
+        String excluded = "SELECT code FROM s2_permission WHERE id = ?";
+        Assertions.assertEquals(excluded, interceptor.rewrite("PermissionDOMapper.select",
+                excluded, SqlCommandType.SELECT, 1L));
+    }
+
+    private static long parseCount() {
+        return (Long) TenantSqlInterceptor.getRewriteStats().get("parseCount");
+    }
+}
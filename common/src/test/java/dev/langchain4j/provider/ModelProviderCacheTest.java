@@ -0,0 +1,43 @@
+package dev.langchain4j.provider;
+
+import com.tencent.supersonic.common.pojo.ChatModelConfig;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import static org.mockito.ArgumentMatchers.any;
+
+class ModelProviderCacheTest {
+
+    private static final String PROVIDER = "TEST_CACHE";
+
+    @Test
+    void testChatModelReusedPerConfig() {
+        ModelFactory modelFactory = Mockito.mock(ModelFactory.class);
+        Mockito.when(modelFactory.createChatModel(any()))
+                .thenAnswer(invocation -> Mockito.mock(ChatLanguageModel.class));
+        ModelProvider.add(PROVIDER, modelFactory);
+
+        ChatModelConfig config = newConfig("model-a");
+        ChatLanguageModel model = ModelProvider.getChatModel(config);
+        Assertions.assertSame(model, ModelProvider.getChatModel(config));
+        // a copy of the config with another casing of the provider hits the same model
+        ChatModelConfig sameConfig = newConfig("model-a");
+        sameConfig.setProvider(PROVIDER.toLowerCase());
+        Assertions.assertSame(model, ModelProvider.getChatModel(sameConfig));
+        Mockito.verify(modelFactory, Mockito.times(1)).createChatModel(any());
+
+        ChatLanguageModel otherModel = ModelProvider.getChatModel(newConfig("model-b"));
+        Assertions.assertNotSame(model, otherModel);
+
+        ModelProvider.evict(config);
+        Assertions.assertNotSame(model, ModelProvider.getChatModel(config));
+        Mockito.verify(modelFactory, Mockito.times(3)).createChatModel(any());
+    }
+
+    private static ChatModelConfig newConfig(String modelName) {
+        return ChatModelConfig.builder().provider(PROVIDER).baseUrl("http://localhost:8080/v1")
+                .apiKey("demo").modelName(modelName).temperature(0.0).timeOut(60L).build();
+    }
+}
@@ -0,0 +1,138 @@
+package dev.langchain4j.store.embedding.inmemory;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.filter.comparison.IsEqualTo;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+class EmbeddingSegmentFilesTest {
+
+    private static final int DIMENSION = 32;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testAppendAndReload() throws Exception {
+        Random random = new Random(1);
+        HnswEmbeddingStore<TextSegment> store = new HnswEmbeddingStore<>();
+        store.enableChangeTracking(true);
+        for (int i = 0; i < 100; i++) {
+            store.add("id" + i, randomEmbedding(random), segment(i));
+        }
+        EmbeddingSegmentFiles.persist(directory, store);
+
+        store.removeAll(List.of("id0", "id1"));
+        Embedding replaced = randomEmbedding(random);
+        store.add("id2", replaced, TextSegment.from("replaced", Metadata.from("modelId", "9")));
+        store.add("id100", randomEmbedding(random), segment(100));
+        EmbeddingSegmentFiles.persist(directory, store);
+        Assertions.assertEquals(2, EmbeddingSegmentFiles.listSegments(directory).size());
+
+        HnswEmbeddingStore<TextSegment> reloaded = new HnswEmbeddingStore<>();
+        Assertions.assertTrue(EmbeddingSegmentFiles.load(directory, reloaded));
+        Assertions.assertEquals(store.size(), reloaded.size());
+
+        Map<String, TextSegment> entries = reloaded.entries().stream()
+                .collect(Collectors.toMap(entry -> entry.id, entry -> entry.embedded));
+        Assertions.assertFalse(entries.containsKey("id0"));
+        Assertions.assertEquals("replaced", entries.get("id2").text());
+        Assertions.assertEquals(5L, entries.get("id5").metadata().getLong("dataSetId"));
+        Assertions.assertEquals("5", entries.get("id5").metadata().getString("modelId"));
+
+        List<EmbeddingMatch<TextSegment>> matches =
+                reloaded.search(EmbeddingSearchRequest.builder().queryEmbedding(replaced)
+                        .filter(new IsEqualTo("modelId", "9")).maxResults(1).build()).matches();
+        Assertions.assertEquals("id2", matches.get(0).embeddingId());
+        Assertions.assertArrayEquals(replaced.vector(), matches.get(0).embedding().vector());
+    }
+
+    @Test
+    void testCompactSegments() throws Exception {
+        Random random = new Random(2);
+        HnswEmbeddingStore<TextSegment> store = new HnswEmbeddingStore<>();
+        store.enableChangeTracking(false);
+        for (int i = 0; i < EmbeddingSegmentFiles.MAX_SEGMENTS + 1; i++) {
+            store.add("id" + i, randomEmbedding(random), segment(i));
+            EmbeddingSegmentFiles.persist(directory, store);
+        }
+        Assertions.assertEquals(1, EmbeddingSegmentFiles.listSegments(directory).size());
+
+        HnswEmbeddingStore<TextSegment> reloaded = new HnswEmbeddingStore<>();
+        EmbeddingSegmentFiles.load(directory, reloaded);
+        Assertions.assertEquals(EmbeddingSegmentFiles.MAX_SEGMENTS + 1, reloaded.size());
+    }
+
+    @Test
+    void testIgnoreSegmentsReplacedBySnapshot() throws Exception {
+        Random random = new Random(3);
+        HnswEmbeddingStore<TextSegment> store = new HnswEmbeddingStore<>();
+        store.enableChangeTracking(true);
+        for (int i = 0; i < 10; i++) {
+            store.add("id" + i, randomEmbedding(random), segment(i));
+        }
+        EmbeddingSegmentFiles.persist(directory, store);
+        Path first = EmbeddingSegmentFiles.listSegments(directory).get(0);
+        byte[] firstContent = Files.readAllBytes(first);
+        store.removeAll(List.of("id0"));
+        EmbeddingSegmentFiles.persist(directory, store);
+
+        store.requireSnapshot();
+        EmbeddingSegmentFiles.persist(directory, store);
+        // a compaction that stopped before deleting the segments it replaced
+        Files.write(first, firstContent);
+        Assertions.assertEquals(2, EmbeddingSegmentFiles.listSegments(directory).size());
+
+        HnswEmbeddingStore<TextSegment> reloaded = new HnswEmbeddingStore<>();
+        Assertions.assertTrue(EmbeddingSegmentFiles.load(directory, reloaded));
+        Assertions.assertEquals(9, reloaded.size());
+        Assertions.assertTrue(
+                reloaded.entries().stream().noneMatch(entry -> entry.id.equals("id0")));
+    }
+
+    @Test
+    void testLoadIntoBruteForceStore() throws Exception {
+        Random random = new Random(4);
+        HnswEmbeddingStore<TextSegment> store = new HnswEmbeddingStore<>();
+        store.enableChangeTracking(true);
+        Path collection = directory.resolve("collection");
+        for (int i = 0; i < 20; i++) {
+            store.add("id" + i, randomEmbedding(random), segment(i));
+        }
+        EmbeddingSegmentFiles.persist(collection, store);
+
+        InMemoryEmbeddingStore<TextSegment> bruteForce = new InMemoryEmbeddingStore<>();
+        Assertions.assertTrue(EmbeddingSegmentFiles.load(collection, bruteForce));
+        Assertions.assertEquals(20, bruteForce.entries.size());
+
+        EmbeddingSegmentFiles.delete(collection);
+        Assertions.assertFalse(Files.exists(collection));
+        Assertions.assertFalse(
+                EmbeddingSegmentFiles.load(collection, new InMemoryEmbeddingStore<>()));
+    }
+
+    private static TextSegment segment(int i) {
+        return TextSegment.from("text" + i,
+                Metadata.from("modelId", String.valueOf(i % 10)).put("dataSetId", (long) i));
+    }
+
+    private static Embedding randomEmbedding(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return Embedding.from(vector);
+    }
+}
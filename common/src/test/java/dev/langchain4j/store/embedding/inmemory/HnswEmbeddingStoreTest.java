@@ -0,0 +1,161 @@
+package dev.langchain4j.store.embedding.inmemory;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import dev.langchain4j.store.embedding.filter.Filter;
+import dev.langchain4j.store.embedding.filter.comparison.IsEqualTo;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+class HnswEmbeddingStoreTest {
+
+    private static final int DIMENSION = 64;
+
+    @Test
+    void testRecallAgainstBruteForce() {
+        Random random = new Random(7);
+        InMemoryEmbeddingStore<TextSegment> bruteForce = new InMemoryEmbeddingStore<>();
+        HnswEmbeddingStore<TextSegment> hnsw = new HnswEmbeddingStore<>();
+        fill(random, 3000, 1, DIMENSION, bruteForce, hnsw);
+
+        double recall = recall(random, bruteForce, hnsw, 50, 10, null);
+        Assertions.assertTrue(recall >= 0.9, "recall@10 was " + recall);
+    }
+
+    @Test
+    void testSearchOnlyMatchingPartition() {
+        Random random = new Random(11);
+        InMemoryEmbeddingStore<TextSegment> bruteForce = new InMemoryEmbeddingStore<>();
+        HnswEmbeddingStore<TextSegment> hnsw = new HnswEmbeddingStore<>();
+        fill(random, 2000, 5, DIMENSION, bruteForce, hnsw);
+
+        Filter filter = Filter.or(new IsEqualTo("modelId", "1"), new IsEqualTo("modelId", "3"));
+        List<EmbeddingMatch<TextSegment>> matches = hnsw.search(
+                EmbeddingSearchRequest.builder().queryEmbedding(randomEmbedding(random, DIMENSION))
+                        .filter(filter).maxResults(20).build())
+                .matches();
+        Assertions.assertEquals(20, matches.size());
+        Assertions.assertTrue(matches.stream().map(match -> match.embedded().metadata())
+                .allMatch(metadata -> "1".equals(metadata.getString("modelId"))
+                        || "3".equals(metadata.getString("modelId"))));
+        Assertions.assertTrue(recall(random, bruteForce, hnsw, 20, 10, filter) >= 0.9);
+    }
+
+    @Test
+    void testRemove() {
+        HnswEmbeddingStore<TextSegment> hnsw = new HnswEmbeddingStore<>();
+        Random random = new Random(3);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            TextSegment segment = TextSegment.from("text" + i,
+                    Metadata.from("modelId", String.valueOf(i % 2)).put("queryId", "q" + i));
+            ids.add(hnsw.add(randomEmbedding(random, DIMENSION), segment));
+        }
+        hnsw.removeAll(new IsEqualTo("modelId", "0"));
+        Assertions.assertEquals(100, hnsw.size());
+        hnsw.removeAll(ids.subList(0, 150));
+        Assertions.assertEquals(25, hnsw.size());
+
+        List<EmbeddingMatch<TextSegment>> matches = hnsw
+                .search(EmbeddingSearchRequest.builder()
+                        .queryEmbedding(randomEmbedding(random, DIMENSION)).maxResults(100).build())
+                .matches();
+        Assertions.assertEquals(25, matches.size());
+        Set<String> removed = new HashSet<>(ids.subList(0, 150));
+        Assertions.assertTrue(
+                matches.stream().noneMatch(match -> removed.contains(match.embeddingId())));
+    }
+
+    @Test
+    void testAddSameIdReplacesEntry() {
+        HnswEmbeddingStore<TextSegment> hnsw = new HnswEmbeddingStore<>();
+        Embedding embedding = randomEmbedding(new Random(5), DIMENSION);
+        hnsw.add("id", embedding, TextSegment.from("old", Metadata.from("modelId", "1")));
+        hnsw.add("id", embedding, TextSegment.from("new", Metadata.from("modelId", "2")));
+
+        List<EmbeddingMatch<TextSegment>> matches = hnsw.search(EmbeddingSearchRequest.builder()
+                .queryEmbedding(embedding).minScore(0.99d).maxResults(10).build()).matches();
+        Assertions.assertEquals(1, matches.size());
+        Assertions.assertEquals("new", matches.get(0).embedded().text());
+    }
+
+    @Test
+    void testSearchWhileLoadedEntriesAreIndexed() throws Exception {
+        Random random = new Random(13);
+        InMemoryEmbeddingStore<TextSegment> bruteForce = new InMemoryEmbeddingStore<>();
+        HnswEmbeddingStore<TextSegment> source = new HnswEmbeddingStore<>();
+        fill(random, 2000, 2, DIMENSION, bruteForce, source);
+
+        HnswEmbeddingStore<TextSegment> hnsw = new HnswEmbeddingStore<>();
+        hnsw.load(source.entries());
+        hnsw.removeAll(List.of("id0"));
+        bruteForce.removeAll(List.of("id0"));
+        Embedding added = randomEmbedding(random, DIMENSION);
+        hnsw.add("added", added, TextSegment.from("added", Metadata.from("modelId", "1")));
+        bruteForce.add("added", added, TextSegment.from("added", Metadata.from("modelId", "1")));
+        Assertions.assertTrue(recall(random, bruteForce, hnsw, 20, 10, null) >= 0.9);
+
+        long deadline = System.currentTimeMillis() + 30000;
+        while (hnsw.hasPendingEntries() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertFalse(hnsw.hasPendingEntries());
+        Assertions.assertEquals(2000, hnsw.size());
+        Assertions.assertTrue(recall(random, bruteForce, hnsw, 20, 10, null) >= 0.9);
+        Assertions.assertEquals("added", hnsw.search(EmbeddingSearchRequest.builder()
+                .queryEmbedding(added).maxResults(1).build()).matches().get(0).embeddingId());
+        Assertions.assertTrue(hnsw.entries().stream().noneMatch(entry -> entry.id.equals("id0")));
+    }
+
+    private static void fill(Random random, int size, int models, int dimension,
+            InMemoryEmbeddingStore<TextSegment> bruteForce, HnswEmbeddingStore<TextSegment> hnsw) {
+        for (int i = 0; i < size; i++) {
+            String id = "id" + i;
+            Embedding embedding = randomEmbedding(random, dimension);
+            TextSegment segment = TextSegment.from("text" + i,
+                    Metadata.from("modelId", String.valueOf(i % models)));
+            bruteForce.add(id, embedding, segment);
+            hnsw.add(id, embedding, segment);
+        }
+    }
+
+    private static double recall(Random random, EmbeddingStore<TextSegment> expectedStore,
+            EmbeddingStore<TextSegment> actualStore, int queries, int k, Filter filter) {
+        int hits = 0;
+        for (int i = 0; i < queries; i++) {
+            Embedding query = randomEmbedding(random, DIMENSION);
+            Set<String> expected = ids(expectedStore, query, k, filter);
+            Set<String> actual = ids(actualStore, query, k, filter);
+            actual.retainAll(expected);
+            hits += actual.size();
+        }
+        return hits / (double) (queries * k);
+    }
+
+    private static Set<String> ids(EmbeddingStore<TextSegment> store, Embedding query, int k,
+            Filter filter) {
+        return store
+                .search(EmbeddingSearchRequest.builder().queryEmbedding(query).filter(filter)
+                        .maxResults(k).build())
+                .matches().stream().map(EmbeddingMatch::embeddingId).collect(Collectors.toSet());
+    }
+
+    private static Embedding randomEmbedding(Random random, int dimension) {
+        float[] vector = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return Embedding.from(vector);
+    }
+}
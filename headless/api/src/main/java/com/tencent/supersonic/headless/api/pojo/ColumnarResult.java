@@ -0,0 +1,412 @@
+package com.tencent.supersonic.headless.api.pojo;
+
+import java.io.Serializable;
+import java.sql.Types;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Query result stored column by column. Integral and floating point columns are kept in primitive
+ * arrays so that large results do not allocate a map and boxed values per cell; rows are exposed as
+ * lightweight map views that only copy their values when modified.
+ */
+public class ColumnarResult implements Serializable {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int SIZE_SAMPLE_ROWS = 64;
+    private static final int OBJECT_HEADER_BYTES = 16;
+    private static final int REFERENCE_BYTES = 8;
+
+    private final List<String> columnNames;
+    private final Map<String, Integer> columnIndex = new LinkedHashMap<>();
+    private final ColumnVector[] columns;
+    private int rowCount;
+
+    /**
+     * @param columnNames column labels in select order
+     * @param sqlTypes {@link java.sql.Types} of each column, used to choose the storage type
+     */
+    public ColumnarResult(List<String> columnNames, int[] sqlTypes) {
+        this.columnNames = Collections.unmodifiableList(new ArrayList<>(columnNames));
+        this.columns = new ColumnVector[columnNames.size()];
+        for (int i = 0; i < columns.length; i++) {
+            // keep the first column for duplicated labels, the same as a row map would
+            columnIndex.putIfAbsent(columnNames.get(i), i);
+            columns[i] = new ColumnVector(ColumnType.of(sqlTypes[i]));
+        }
+    }
+
+    public void addRow(Object[] values) {
+        for (int i = 0; i < columns.length; i++) {
+            columns[i].append(rowCount, values[i]);
+        }
+        rowCount++;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    public int getColumnIndex(String columnName) {
+        Integer index = columnIndex.get(columnName);
+        return index == null ? -1 : index;
+    }
+
+    public Object getValue(int row, int column) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("row " + row + " of " + rowCount);
+        }
+        return columns[column].get(row);
+    }
+
+    public boolean isNull(int row, int column) {
+        return columns[column].isNull(row);
+    }
+
+    /** Returns the primitive value of an integral column, or 0 for null. */
+    public long getLong(int row, int column) {
+        return columns[column].getLong(row);
+    }
+
+    /** Returns the primitive value of a numeric column, or 0 for null. */
+    public double getDouble(int row, int column) {
+        return columns[column].getDouble(row);
+    }
+
+    /**
+     * Approximate heap footprint in bytes. Primitive columns are counted exactly, object columns
+     * are extrapolated from a sample of their values.
+     */
+    public long estimateSize() {
+        long size = OBJECT_HEADER_BYTES;
+        for (ColumnVector column : columns) {
+            size += column.estimateSize(rowCount);
+        }
+        return size;
+    }
+
+    /** Approximate heap footprint of a single cell value in bytes. */
+    public static long estimateSize(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof CharSequence) {
+            return OBJECT_HEADER_BYTES * 2 + 2L * ((CharSequence) value).length();
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return OBJECT_HEADER_BYTES + 8;
+        }
+        return OBJECT_HEADER_BYTES * 4;
+    }
+
+    /**
+     * Returns a mutable list with one map view per row. Each view reads from the columns until it
+     * is modified, at which point it copies its own values.
+     */
+    public List<Map<String, Object>> toRowList() {
+        List<Map<String, Object>> rows = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            rows.add(new RowView(i));
+        }
+        return rows;
+    }
+
+    private enum ColumnType {
+        INT, LONG, DOUBLE, OBJECT;
+
+        static ColumnType of(int sqlType) {
+            switch (sqlType) {
+                case Types.INTEGER:
+                    return INT;
+                case Types.BIGINT:
+                    return LONG;
+                case Types.DOUBLE:
+                case Types.FLOAT:
+                    return DOUBLE;
+                default:
+                    return OBJECT;
+            }
+        }
+    }
+
+    private static final class ColumnVector implements Serializable {
+
+        private ColumnType type;
+        private int[] ints;
+        private long[] longs;
+        private double[] doubles;
+        private Object[] objects;
+        private final BitSet nulls = new BitSet();
+
+        private ColumnVector(ColumnType type) {
+            this.type = type;
+            switch (type) {
+                case INT:
+                    ints = new int[INITIAL_CAPACITY];
+                    break;
+                case LONG:
+                    longs = new long[INITIAL_CAPACITY];
+                    break;
+                case DOUBLE:
+                    doubles = new double[INITIAL_CAPACITY];
+                    break;
+                default:
+                    objects = new Object[INITIAL_CAPACITY];
+            }
+        }
+
+        private void append(int row, Object value) {
+            if (value == null) {
+                nulls.set(row);
+                ensureCapacity(row);
+                return;
+            }
+            if (!accepts(value)) {
+                // drivers may return a different boxed type than the declared sql type
+                toObjectColumn(row);
+            }
+            ensureCapacity(row);
+            switch (type) {
+                case INT:
+                    ints[row] = (Integer) value;
+                    break;
+                case LONG:
+                    longs[row] = (Long) value;
+                    break;
+                case DOUBLE:
+                    doubles[row] = (Double) value;
+                    break;
+                default:
+                    objects[row] = value;
+            }
+        }
+
+        private boolean accepts(Object value) {
+            switch (type) {
+                case INT:
+                    return value instanceof Integer;
+                case LONG:
+                    return value instanceof Long;
+                case DOUBLE:
+                    return value instanceof Double;
+                default:
+                    return true;
+            }
+        }
+
+        private void toObjectColumn(int size) {
+            Object[] boxed = new Object[Math.max(INITIAL_CAPACITY, size * 2)];
+            for (int i = 0; i < size; i++) {
+                boxed[i] = get(i);
+            }
+            objects = boxed;
+            ints = null;
+            longs = null;
+            doubles = null;
+            type = ColumnType.OBJECT;
+        }
+
+        private void ensureCapacity(int row) {
+            switch (type) {
+                case INT:
+                    if (row >= ints.length) {
+                        ints = Arrays.copyOf(ints, ints.length * 2);
+                    }
+                    break;
+                case LONG:
+                    if (row >= longs.length) {
+                        longs = Arrays.copyOf(longs, longs.length * 2);
+                    }
+                    break;
+                case DOUBLE:
+                    if (row >= doubles.length) {
+                        doubles = Arrays.copyOf(doubles, doubles.length * 2);
+                    }
+                    break;
+                default:
+                    if (row >= objects.length) {
+                        objects = Arrays.copyOf(objects, objects.length * 2);
+                    }
+            }
+        }
+
+        private long estimateSize(int rowCount) {
+            long size = OBJECT_HEADER_BYTES * 2 + nulls.size() / 8;
+            switch (type) {
+                case INT:
+                    return size + (long) ints.length * Integer.BYTES;
+                case LONG:
+                    return size + (long) longs.length * Long.BYTES;
+                case DOUBLE:
+                    return size + (long) doubles.length * Double.BYTES;
+                default:
+                    size += (long) objects.length * REFERENCE_BYTES;
+                    int step = Math.max(1, rowCount / SIZE_SAMPLE_ROWS);
+                    long sampled = 0;
+                    int samples = 0;
+                    for (int row = 0; row < rowCount; row += step) {
+                        sampled += ColumnarResult.estimateSize(objects[row]);
+                        samples++;
+                    }
+                    return samples == 0 ? size : size + sampled * rowCount / samples;
+            }
+        }
+
+        private boolean isNull(int row) {
+            return nulls.get(row);
+        }
+
+        private Object get(int row) {
+            if (nulls.get(row)) {
+                return null;
+            }
+            switch (type) {
+                case INT:
+                    return ints[row];
+                case LONG:
+                    return longs[row];
+                case DOUBLE:
+                    return doubles[row];
+                default:
+                    return objects[row];
+            }
+        }
+
+        private long getLong(int row) {
+            if (nulls.get(row)) {
+                return 0L;
+            }
+            switch (type) {
+                case INT:
+                    return ints[row];
+                case LONG:
+                    return longs[row];
+                case DOUBLE:
+                    return (long) doubles[row];
+                default:
+                    return ((Number) objects[row]).longValue();
+            }
+        }
+
+        private double getDouble(int row) {
+            if (nulls.get(row)) {
+                return 0D;
+            }
+            switch (type) {
+                case INT:
+                    return ints[row];
+                case LONG:
+                    return longs[row];
+                case DOUBLE:
+                    return doubles[row];
+                default:
+                    return ((Number) objects[row]).doubleValue();
+            }
+        }
+    }
+
+    private final class RowView extends AbstractMap<String, Object> implements Serializable {
+
+        private final int row;
+        private Map<String, Object> copied;
+
+        private RowView(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public Object get(Object key) {
+            if (copied != null) {
+                return copied.get(key);
+            }
+            Integer index = columnIndex.get(key);
+            return index == null ? null : columns[index].get(row);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return copied != null ? copied.containsKey(key) : columnIndex.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return copied != null ? copied.size() : columnIndex.size();
+        }
+
+        @Override
+        public Object put(String key, Object value) {
+            return copy().put(key, value);
+        }
+
+        @Override
+        public Object remove(Object key) {
+            return copy().remove(key);
+        }
+
+        @Override
+        public void clear() {
+            copy().clear();
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            if (copied != null) {
+                return copied.entrySet();
+            }
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    Iterator<Entry<String, Integer>> indexes = columnIndex.entrySet().iterator();
+                    return new Iterator<>() {
+                        @Override
+                        public boolean hasNext() {
+                            return indexes.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            Entry<String, Integer> index = indexes.next();
+                            return new SimpleImmutableEntry<>(index.getKey(),
+                                    columns[index.getValue()].get(row));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return columnIndex.size();
+                }
+            };
+        }
+
+        private Map<String, Object> copy() {
+            if (copied == null) {
+                Map<String, Object> values = new LinkedHashMap<>();
+                columnIndex.forEach((name, index) -> values.put(name, columns[index].get(row)));
+                copied = values;
+            }
+            return copied;
+        }
+    }
+}
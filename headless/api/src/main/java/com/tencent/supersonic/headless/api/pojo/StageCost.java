@@ -0,0 +1,18 @@
+package com.tencent.supersonic.headless.api.pojo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/** time cost of a component run in a stage of the chat pipeline, one entry of a request trace */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StageCost implements Serializable {
+
+    private String stage;
+    private String component;
+    private long cost;
+}
@@ -0,0 +1,10 @@
+package com.tencent.supersonic.headless.api.pojo.enums;
+
+/** the lane a query waits in for a connection of its database */
+public enum QueryPriority {
+    /** a user is waiting for the result, e.g. chat and dashboard queries */
+    INTERACTIVE,
+
+    /** background jobs such as dictionary loads and downloads */
+    BATCH
+}
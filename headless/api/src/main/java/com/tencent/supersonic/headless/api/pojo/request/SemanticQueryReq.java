@@ -4,6 +4,7 @@ import com.google.common.collect.Lists;
 import com.tencent.supersonic.headless.api.pojo.Cache;
 import com.tencent.supersonic.headless.api.pojo.Param;
 import com.tencent.supersonic.headless.api.pojo.SqlInfo;
+import com.tencent.supersonic.headless.api.pojo.enums.QueryPriority;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.digest.DigestUtils;
@@ -33,6 +34,15 @@ public abstract class SemanticQueryReq {
 
     protected SqlInfo sqlInfo = new SqlInfo();
 
+    /** identifies the running request for cancellation, generated if absent */
+    protected String requestId;
+
+    /** overrides the default timeout of the query if positive */
+    protected Long timeoutMs;
+
+    /** background jobs set BATCH so that they yield the connections to interactive queries */
+    protected QueryPriority priority = QueryPriority.INTERACTIVE;
+
     public void addModelId(Long modelId) {
         modelIds.add(modelId);
     }
@@ -16,6 +16,8 @@ public class ParseResp implements Serializable {
     private String errorMsg;
     private List<SemanticParseInfo> selectedParses = Lists.newArrayList();
     private ParseTimeCostResp parseTimeCost = new ParseTimeCostResp();
+    /** generation of the dictionary the question was mapped against */
+    private Long dictGeneration;
 
     public enum ParseState {
         COMPLETED, PENDING, FAILED
@@ -1,8 +1,11 @@
 package com.tencent.supersonic.headless.api.pojo.response;
 
+import com.tencent.supersonic.headless.api.pojo.StageCost;
 import lombok.Data;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 
 @Data
 public class ParseTimeCostResp implements Serializable {
@@ -10,8 +13,15 @@ public class ParseTimeCostResp implements Serializable {
     private long parseStartTime;
     private long parseTime;
     private long sqlTime;
+    /** the mappers, parsers, correctors and processors run for the request, in order */
+    private List<StageCost> stageCosts = new ArrayList<>();
 
     public ParseTimeCostResp() {
         this.parseStartTime = System.currentTimeMillis();
     }
+
+    /** adds the cost to the trace of the request */
+    public void addStageCost(String stage, String component, long cost) {
+        stageCosts.add(new StageCost(stage, component, cost));
+    }
 }
@@ -1,16 +1,21 @@
 package com.tencent.supersonic.headless.api.pojo.response;
 
+import com.alibaba.fastjson.annotation.JSONField;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.google.common.collect.Lists;
 import com.tencent.supersonic.common.pojo.QueryAuthorization;
 import com.tencent.supersonic.common.pojo.QueryColumn;
 import com.tencent.supersonic.common.util.StringUtil;
+import com.tencent.supersonic.headless.api.pojo.ColumnarResult;
 import com.tencent.supersonic.headless.api.pojo.QueryResult;
 import com.tencent.supersonic.headless.api.pojo.enums.SemanticType;
 import lombok.Data;
 import lombok.ToString;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Data
@@ -22,6 +27,65 @@ public class SemanticQueryResp extends QueryResult<Map<String, Object>> {
     QueryAuthorization queryAuthorization;
     boolean useCache;
     private String errorMsg;
+    @JsonIgnore
+    @JSONField(serialize = false, deserialize = false)
+    @ToString.Exclude
+    private ColumnarResult columnarResult;
+
+    /**
+     * Keeps the result in columnar form; the row maps of {@link #getResultList()} are only created
+     * when they are first asked for. Creating them is synchronized, so a result shared by several
+     * threads, like a cached one, hands out a single row list.
+     */
+    public synchronized void setColumnarResult(ColumnarResult columnarResult) {
+        this.columnarResult = columnarResult;
+        super.setResultList(null);
+    }
+
+    @Override
+    public synchronized List<Map<String, Object>> getResultList() {
+        if (super.getResultList() == null) {
+            super.setResultList(Objects.nonNull(columnarResult) ? columnarResult.toRowList()
+                    : Lists.newArrayList());
+        }
+        return super.getResultList();
+    }
+
+    @Override
+    public synchronized void setResultList(List<Map<String, Object>> resultList) {
+        this.columnarResult = null;
+        super.setResultList(resultList);
+    }
+
+    /**
+     * Returns a copy whose rows can be modified without affecting this result, for results that
+     * are handed to several callers. A result still in columnar form only shares its immutable
+     * columns.
+     */
+    public synchronized SemanticQueryResp copy() {
+        SemanticQueryResp copy = new SemanticQueryResp();
+        copy.setPageNo(getPageNo());
+        copy.setPageSize(getPageSize());
+        copy.setTotalCount(getTotalCount());
+        copy.setColumns(Objects.nonNull(columns) ? Lists.newArrayList(columns) : null);
+        copy.setSql(sql);
+        copy.setQueryAuthorization(queryAuthorization);
+        copy.setUseCache(useCache);
+        copy.setErrorMsg(errorMsg);
+        if (Objects.nonNull(columnarResult) && super.getResultList() == null) {
+            copy.setColumnarResult(columnarResult);
+        } else if (Objects.nonNull(super.getResultList())) {
+            List<Map<String, Object>> rows = Lists.newArrayListWithCapacity(
+                    super.getResultList().size());
+            for (Map<String, Object> row : super.getResultList()) {
+                rows.add(Objects.isNull(row) ? null : new LinkedHashMap<>(row));
+            }
+            copy.setResultList(rows);
+        } else {
+            copy.setResultList(null);
+        }
+        return copy;
+    }
 
     public List<QueryColumn> getMetricColumns() {
         return columns.stream()
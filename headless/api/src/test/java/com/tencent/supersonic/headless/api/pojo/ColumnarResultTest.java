@@ -0,0 +1,128 @@
+package com.tencent.supersonic.headless.api.pojo;
+
+import com.tencent.supersonic.headless.api.pojo.response.SemanticQueryResp;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+class ColumnarResultTest {
+
+    @Test
+    void testReadRows() {
+        ColumnarResult result = newResult(3);
+        List<Map<String, Object>> rows = result.toRowList();
+
+        Assertions.assertEquals(3, rows.size());
+        Map<String, Object> row = rows.get(1);
+        Assertions.assertEquals(1, row.get("id"));
+        Assertions.assertEquals(10L, row.get("pv"));
+        Assertions.assertEquals(1.5D, row.get("rate"));
+        Assertions.assertEquals("name1", row.get("name"));
+        Assertions.assertNull(row.get("unknown"));
+        Assertions.assertEquals(Arrays.asList("id", "pv", "rate", "name"),
+                new ArrayList<>(row.keySet()));
+    }
+
+    @Test
+    void testNullsAndMixedTypes() {
+        ColumnarResult result = new ColumnarResult(Arrays.asList("pv", "rate"),
+                new int[] {Types.BIGINT, Types.DOUBLE});
+        result.addRow(new Object[] {null, 1.0D});
+        // a driver returning another boxed type than the declared one
+        result.addRow(new Object[] {7, null});
+
+        Assertions.assertTrue(result.isNull(0, 0));
+        Assertions.assertNull(result.getValue(0, 0));
+        Assertions.assertEquals(0L, result.getLong(0, 0));
+        Assertions.assertEquals(7, result.getValue(1, 0));
+        Assertions.assertNull(result.getValue(1, 1));
+    }
+
+    @Test
+    void testMutateRowThenReadAgain() {
+        ColumnarResult result = newResult(2);
+        List<Map<String, Object>> rows = result.toRowList();
+        Map<String, Object> row = rows.get(0);
+
+        Assertions.assertEquals("name0", row.put("name", "mapped"));
+        row.put("extra", 1);
+        row.remove("rate");
+
+        Assertions.assertEquals("mapped", row.get("name"));
+        Assertions.assertEquals(1, row.get("extra"));
+        Assertions.assertFalse(row.containsKey("rate"));
+        Assertions.assertEquals(4, row.size());
+        // the columns and the other rows are unchanged
+        Assertions.assertEquals("name0", result.getValue(0, 3));
+        Assertions.assertEquals("name0", result.toRowList().get(0).get("name"));
+        Assertions.assertEquals("name1", rows.get(1).get("name"));
+    }
+
+    @Test
+    void testCopyIsIndependent() {
+        SemanticQueryResp queryResp = new SemanticQueryResp();
+        queryResp.setColumnarResult(newResult(2));
+        queryResp.getResultList().get(0).put("name", "mapped");
+
+        SemanticQueryResp copy = queryResp.copy();
+        copy.getResultList().get(0).put("name", "copied");
+
+        Assertions.assertEquals("mapped", queryResp.getResultList().get(0).get("name"));
+        Assertions.assertEquals("copied", copy.getResultList().get(0).get("name"));
+        Assertions.assertEquals(2, copy.getResultList().size());
+
+        SemanticQueryResp columnar = new SemanticQueryResp();
+        columnar.setColumnarResult(newResult(2));
+        SemanticQueryResp columnarCopy = columnar.copy();
+        columnarCopy.getResultList().get(1).put("name", "copied");
+        Assertions.assertEquals("name1", columnar.getResultList().get(1).get("name"));
+    }
+
+    @Test
+    void testConcurrentFirstAccess() throws Exception {
+        int threads = 8;
+        SemanticQueryResp queryResp = new SemanticQueryResp();
+        queryResp.setColumnarResult(newResult(1000));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<List<Map<String, Object>>>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return queryResp.getResultList();
+                }));
+            }
+            start.countDown();
+            List<Map<String, Object>> first = futures.get(0).get(10, TimeUnit.SECONDS);
+            for (Future<List<Map<String, Object>>> future : futures) {
+                Assertions.assertSame(first, future.get(10, TimeUnit.SECONDS));
+            }
+            Assertions.assertEquals(1000, first.size());
+            Assertions.assertEquals(new LinkedHashMap<>(newResult(1000).toRowList().get(999)),
+                    new LinkedHashMap<>(first.get(999)));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private ColumnarResult newResult(int rowCount) {
+        ColumnarResult result = new ColumnarResult(Arrays.asList("id", "pv", "rate", "name"),
+                new int[] {Types.INTEGER, Types.BIGINT, Types.DOUBLE, Types.VARCHAR});
+        for (int i = 0; i < rowCount; i++) {
+            result.addRow(new Object[] {i, i * 10L, i + 0.5D, "name" + i});
+        }
+        return result;
+    }
+}
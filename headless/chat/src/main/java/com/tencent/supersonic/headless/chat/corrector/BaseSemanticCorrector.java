@@ -1,6 +1,7 @@
 package com.tencent.supersonic.headless.chat.corrector;
 
 import com.tencent.supersonic.common.jsqlparser.SqlAddHelper;
+import com.tencent.supersonic.common.jsqlparser.SqlAst;
 import com.tencent.supersonic.common.jsqlparser.SqlRemoveHelper;
 import com.tencent.supersonic.common.pojo.enums.AggregateTypeEnum;
 import com.tencent.supersonic.headless.api.pojo.DataSetSchema;
@@ -90,7 +91,9 @@ public abstract class BaseSemanticCorrector implements SemanticCorrector {
         if (CollectionUtils.isEmpty(metricToAggregate)) {
             return;
         }
-        String aggregateSql = SqlAddHelper.addAggregateToField(correctS2SQL, metricToAggregate);
+        String aggregateSql = SqlAst.parse(correctS2SQL)
+                .apply(select -> SqlAddHelper.addAggregateToField(select, metricToAggregate))
+                .toSql();
         semanticParseInfo.getSqlInfo().setCorrectedS2SQL(aggregateSql);
     }
 
@@ -127,9 +130,11 @@ public abstract class BaseSemanticCorrector implements SemanticCorrector {
                 getFieldNameMapFromDB(chatQueryContext, semanticParseInfo.getDataSetId());
         removeFieldNames.removeIf(fieldNameMap::containsKey);
         if (!CollectionUtils.isEmpty(removeFieldNames)) {
-            correctS2SQL = SqlRemoveHelper.removeWhereCondition(correctS2SQL, removeFieldNames);
-            correctS2SQL = SqlRemoveHelper.removeSelect(correctS2SQL, removeFieldNames);
-            correctS2SQL = SqlRemoveHelper.removeGroupBy(correctS2SQL, removeFieldNames);
+            correctS2SQL = SqlAst.parse(correctS2SQL)
+                    .apply(select -> SqlRemoveHelper.removeWhereCondition(select, removeFieldNames))
+                    .apply(select -> SqlRemoveHelper.removeSelect(select, removeFieldNames))
+                    .apply(select -> SqlRemoveHelper.removeGroupBy(select, removeFieldNames))
+                    .toSql();
         }
         semanticParseInfo.getSqlInfo().setCorrectedS2SQL(correctS2SQL);
     }
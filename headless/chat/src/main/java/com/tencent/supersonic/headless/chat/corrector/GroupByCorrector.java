@@ -1,6 +1,7 @@
 package com.tencent.supersonic.headless.chat.corrector;
 
 import com.tencent.supersonic.common.jsqlparser.SqlAddHelper;
+import com.tencent.supersonic.common.jsqlparser.SqlAst;
 import com.tencent.supersonic.common.jsqlparser.SqlSelectHelper;
 import com.tencent.supersonic.common.jsqlparser.SqlValidHelper;
 import com.tencent.supersonic.common.pojo.enums.QueryType;
@@ -85,7 +86,7 @@ public class GroupByCorrector extends BaseSemanticCorrector {
                     }
                     return true;
                 }).collect(Collectors.toSet());
-        semanticParseInfo.getSqlInfo()
-                .setCorrectedS2SQL(SqlAddHelper.addGroupBy(correctS2SQL, groupByFields));
+        semanticParseInfo.getSqlInfo().setCorrectedS2SQL(SqlAst.parse(correctS2SQL)
+                .apply(select -> SqlAddHelper.addGroupBy(select, groupByFields)).toSql());
     }
 }
@@ -1,6 +1,7 @@
 package com.tencent.supersonic.headless.chat.corrector;
 
 import com.tencent.supersonic.common.jsqlparser.SqlAddHelper;
+import com.tencent.supersonic.common.jsqlparser.SqlAst;
 import com.tencent.supersonic.common.jsqlparser.SqlSelectFunctionHelper;
 import com.tencent.supersonic.common.jsqlparser.SqlSelectHelper;
 import com.tencent.supersonic.headless.api.pojo.SchemaElement;
@@ -38,8 +39,8 @@ public class HavingCorrector extends BaseSemanticCorrector {
         if (CollectionUtils.isEmpty(metrics)) {
             return;
         }
-        String havingSql =
-                SqlAddHelper.addHaving(semanticParseInfo.getSqlInfo().getCorrectedS2SQL(), metrics);
+        String havingSql = SqlAst.parse(semanticParseInfo.getSqlInfo().getCorrectedS2SQL())
+                .apply(select -> SqlAddHelper.addHaving(select, metrics)).toSql();
         semanticParseInfo.getSqlInfo().setCorrectedS2SQL(havingSql);
     }
 
@@ -48,10 +49,13 @@ public class HavingCorrector extends BaseSemanticCorrector {
         if (!SqlSelectFunctionHelper.hasAggregateFunction(correctS2SQL)) {
             return;
         }
-        List<Expression> havingExpressionList = SqlSelectHelper.getHavingExpression(correctS2SQL);
+        SqlAst sqlAst = SqlAst.parse(correctS2SQL);
+        List<Expression> havingExpressionList =
+                SqlSelectHelper.getHavingExpression(sqlAst.getSelect());
         if (!CollectionUtils.isEmpty(havingExpressionList)) {
-            String replaceSql =
-                    SqlAddHelper.addFunctionToSelect(correctS2SQL, havingExpressionList);
+            String replaceSql = sqlAst
+                    .apply(select -> SqlAddHelper.addFunctionToSelect(select, havingExpressionList))
+                    .toSql();
             semanticParseInfo.getSqlInfo().setCorrectedS2SQL(replaceSql);
         }
     }
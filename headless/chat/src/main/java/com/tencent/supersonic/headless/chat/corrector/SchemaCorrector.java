@@ -27,13 +27,19 @@ public class SchemaCorrector extends BaseSemanticCorrector {
 
         removeDateFields(chatQueryContext, semanticParseInfo);
 
-        correctAggFunction(semanticParseInfo);
+        // the rewrites below are applied to one parsed statement, deparsed once at the end
+        SqlInfo sqlInfo = semanticParseInfo.getSqlInfo();
+        SqlAst sqlAst = SqlAst.parse(sqlInfo.getCorrectedS2SQL());
+
+        correctAggFunction(sqlAst);
 
-        updateFieldNameByLinkingValue(semanticParseInfo);
+        updateFieldNameByLinkingValue(semanticParseInfo, sqlAst);
 
-        updateFieldValueByLinkingValue(semanticParseInfo);
+        updateFieldValueByLinkingValue(semanticParseInfo, sqlAst);
 
-        correctFieldName(chatQueryContext, semanticParseInfo);
+        correctFieldName(chatQueryContext, semanticParseInfo, sqlAst);
+
+        sqlInfo.setCorrectedS2SQL(sqlAst.toSql());
     }
 
     private void removeDateFields(ChatQueryContext chatQueryContext,
@@ -44,23 +50,19 @@ public class SchemaCorrector extends BaseSemanticCorrector {
         removeDateIfExist(chatQueryContext, semanticParseInfo);
     }
 
-    private void correctAggFunction(SemanticParseInfo semanticParseInfo) {
+    private void correctAggFunction(SqlAst sqlAst) {
         Map<String, String> aggregateEnum = AggregateEnum.getAggregateEnum();
-        SqlInfo sqlInfo = semanticParseInfo.getSqlInfo();
-        String sql = SqlReplaceHelper.replaceFunction(sqlInfo.getCorrectedS2SQL(), aggregateEnum);
-        sqlInfo.setCorrectedS2SQL(sql);
+        sqlAst.apply(select -> SqlReplaceHelper.replaceFunction(select, aggregateEnum, null));
     }
 
     private void correctFieldName(ChatQueryContext chatQueryContext,
-            SemanticParseInfo semanticParseInfo) {
+            SemanticParseInfo semanticParseInfo, SqlAst sqlAst) {
         Map<String, String> fieldNameMap =
                 getFieldNameMap(chatQueryContext, semanticParseInfo.getDataSetId());
-        SqlInfo sqlInfo = semanticParseInfo.getSqlInfo();
-        String sql = SqlReplaceHelper.replaceFields(sqlInfo.getCorrectedS2SQL(), fieldNameMap);
-        sqlInfo.setCorrectedS2SQL(sql);
+        sqlAst.apply(select -> SqlReplaceHelper.replaceFields(select, fieldNameMap, false));
     }
 
-    private void updateFieldNameByLinkingValue(SemanticParseInfo semanticParseInfo) {
+    private void updateFieldNameByLinkingValue(SemanticParseInfo semanticParseInfo, SqlAst sqlAst) {
         List<LLMReq.ElementValue> linking = getLinkingValues(semanticParseInfo);
         if (CollectionUtils.isEmpty(linking)) {
             return;
@@ -70,11 +72,8 @@ public class SchemaCorrector extends BaseSemanticCorrector {
                 linking.stream().collect(Collectors.groupingBy(LLMReq.ElementValue::getFieldValue,
                         Collectors.mapping(LLMReq.ElementValue::getFieldName, Collectors.toSet())));
 
-        SqlInfo sqlInfo = semanticParseInfo.getSqlInfo();
-
-        String sql = SqlReplaceHelper.replaceFieldNameByValue(sqlInfo.getCorrectedS2SQL(),
-                fieldValueToFieldNames);
-        sqlInfo.setCorrectedS2SQL(sql);
+        sqlAst.apply(
+                select -> SqlReplaceHelper.replaceFieldNameByValue(select, fieldValueToFieldNames));
     }
 
     private List<LLMReq.ElementValue> getLinkingValues(SemanticParseInfo semanticParseInfo) {
@@ -90,7 +89,8 @@ public class SchemaCorrector extends BaseSemanticCorrector {
         return parseResult.getLlmReq().getSchema().getValues();
     }
 
-    private void updateFieldValueByLinkingValue(SemanticParseInfo semanticParseInfo) {
+    private void updateFieldValueByLinkingValue(SemanticParseInfo semanticParseInfo,
+            SqlAst sqlAst) {
         List<LLMReq.ElementValue> linking = getLinkingValues(semanticParseInfo);
         if (CollectionUtils.isEmpty(linking)) {
             return;
@@ -102,10 +102,7 @@ public class SchemaCorrector extends BaseSemanticCorrector {
                                 Collectors.toMap(oldValue -> oldValue, newValue -> newValue,
                                         (existingValue, newValue) -> newValue))));
 
-        SqlInfo sqlInfo = semanticParseInfo.getSqlInfo();
-        String sql = SqlReplaceHelper.replaceValue(sqlInfo.getCorrectedS2SQL(), filedNameToValueMap,
-                false);
-        sqlInfo.setCorrectedS2SQL(sql);
+        sqlAst.apply(select -> SqlReplaceHelper.replaceValue(select, filedNameToValueMap, false));
     }
 
     public void removeUnmappedFilterValue(ChatQueryContext chatQueryContext,
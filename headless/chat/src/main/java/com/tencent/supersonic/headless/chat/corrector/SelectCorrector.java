@@ -2,6 +2,7 @@ package com.tencent.supersonic.headless.chat.corrector;
 
 import com.tencent.supersonic.common.jsqlparser.FieldExpression;
 import com.tencent.supersonic.common.jsqlparser.SqlAddHelper;
+import com.tencent.supersonic.common.jsqlparser.SqlAst;
 import com.tencent.supersonic.common.jsqlparser.SqlSelectHelper;
 import com.tencent.supersonic.common.jsqlparser.SqlValidHelper;
 import com.tencent.supersonic.headless.api.pojo.SemanticParseInfo;
@@ -59,8 +60,9 @@ public class SelectCorrector extends BaseSemanticCorrector {
             }
         }
         if (needAddFields.size() > 0) {
-            String addFieldsToSelectSql =
-                    SqlAddHelper.addFieldsToSelect(correctS2SQL, new ArrayList<>(needAddFields));
+            List<String> addFields = new ArrayList<>(needAddFields);
+            String addFieldsToSelectSql = SqlAst.parse(correctS2SQL)
+                    .apply(select -> SqlAddHelper.addFieldsToSelect(select, addFields)).toSql();
             semanticParseInfo.getSqlInfo().setCorrectedS2SQL(addFieldsToSelectSql);
             return addFieldsToSelectSql;
         } else {
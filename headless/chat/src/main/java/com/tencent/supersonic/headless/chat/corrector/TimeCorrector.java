@@ -2,6 +2,7 @@ package com.tencent.supersonic.headless.chat.corrector;
 
 import com.tencent.supersonic.common.jsqlparser.DateVisitor.DateBoundInfo;
 import com.tencent.supersonic.common.jsqlparser.SqlAddHelper;
+import com.tencent.supersonic.common.jsqlparser.SqlAst;
 import com.tencent.supersonic.common.jsqlparser.SqlDateSelectHelper;
 import com.tencent.supersonic.common.jsqlparser.SqlSelectHelper;
 import com.tencent.supersonic.common.pojo.enums.QueryType;
@@ -60,12 +61,13 @@ public class TimeCorrector extends BaseSemanticCorrector {
             Pair<String, String> dateRange =
                     S2SqlDateHelper.calculateDateRange(timeConfig, timeFormat);
             if (isValidDateRange(dateRange)) {
-                correctS2SQL = SqlAddHelper.addParenthesisToWhere(correctS2SQL);
                 String startDateLeft = dateRange.getLeft();
                 String endDateRight = dateRange.getRight();
                 String condExpr = String.format(" ( %s >= '%s'  and %s <= '%s' )",
                         partitionDimension, startDateLeft, partitionDimension, endDateRight);
-                correctS2SQL = addConditionToSQL(correctS2SQL, condExpr);
+                SqlAst sqlAst =
+                        SqlAst.parse(correctS2SQL).apply(SqlAddHelper::addParenthesisToWhere);
+                correctS2SQL = addConditionToSQL(sqlAst, condExpr).toSql();
             }
         }
         semanticParseInfo.getSqlInfo().setCorrectedS2SQL(correctS2SQL);
@@ -81,7 +83,7 @@ public class TimeCorrector extends BaseSemanticCorrector {
                 && StringUtils.isNotBlank(dateBoundInfo.getUpperDate())) {
             String upperDate = dateBoundInfo.getUpperDate();
             String condExpr = dateBoundInfo.getColumName() + " >= '" + upperDate + "'";
-            correctS2SQL = addConditionToSQL(correctS2SQL, condExpr);
+            correctS2SQL = addConditionToSQL(SqlAst.parse(correctS2SQL), condExpr).toSql();
             semanticParseInfo.getSqlInfo().setCorrectedS2SQL(correctS2SQL);
         }
     }
@@ -91,13 +93,13 @@ public class TimeCorrector extends BaseSemanticCorrector {
                 && StringUtils.isNotBlank(startEndDate.getRight());
     }
 
-    private String addConditionToSQL(String sql, String condition) {
+    private SqlAst addConditionToSQL(SqlAst sqlAst, String condition) {
         try {
             Expression expression = CCJSqlParserUtil.parseCondExpression(condition);
-            return SqlAddHelper.addWhere(sql, expression);
+            return sqlAst.apply(select -> SqlAddHelper.addWhere(select, expression));
         } catch (JSQLParserException e) {
             log.error("addConditionToSQL", e);
-            return sql;
+            return sqlAst;
         }
     }
 }
@@ -1,6 +1,7 @@
 package com.tencent.supersonic.headless.chat.corrector;
 
 import com.tencent.supersonic.common.jsqlparser.SqlAddHelper;
+import com.tencent.supersonic.common.jsqlparser.SqlAst;
 import com.tencent.supersonic.common.jsqlparser.SqlReplaceHelper;
 import com.tencent.supersonic.headless.api.pojo.SchemaElement;
 import com.tencent.supersonic.headless.api.pojo.SemanticParseInfo;
@@ -27,21 +28,27 @@ public class WhereCorrector extends BaseSemanticCorrector {
 
     @Override
     public void doCorrect(ChatQueryContext chatQueryContext, SemanticParseInfo semanticParseInfo) {
-        addQueryFilter(chatQueryContext, semanticParseInfo);
-        updateFieldValueByTechName(chatQueryContext, semanticParseInfo);
+        SqlAst sqlAst = SqlAst.parse(semanticParseInfo.getSqlInfo().getCorrectedS2SQL());
+        addQueryFilter(chatQueryContext, sqlAst);
+        updateFieldValueByTechName(chatQueryContext, semanticParseInfo, sqlAst);
+        semanticParseInfo.getSqlInfo().setCorrectedS2SQL(sqlAst.toSql());
     }
 
     protected void addQueryFilter(ChatQueryContext chatQueryContext,
             SemanticParseInfo semanticParseInfo) {
+        SqlAst sqlAst = SqlAst.parse(semanticParseInfo.getSqlInfo().getCorrectedS2SQL());
+        addQueryFilter(chatQueryContext, sqlAst);
+        semanticParseInfo.getSqlInfo().setCorrectedS2SQL(sqlAst.toSql());
+    }
+
+    private void addQueryFilter(ChatQueryContext chatQueryContext, SqlAst sqlAst) {
         String queryFilter = getQueryFilter(chatQueryContext.getRequest().getQueryFilters());
-        String correctS2SQL = semanticParseInfo.getSqlInfo().getCorrectedS2SQL();
 
         if (StringUtils.isNotEmpty(queryFilter)) {
             log.info("add queryFilter to correctS2SQL :{}", queryFilter);
             try {
                 Expression expression = CCJSqlParserUtil.parseCondExpression(queryFilter);
-                correctS2SQL = SqlAddHelper.addWhere(correctS2SQL, expression);
-                semanticParseInfo.getSqlInfo().setCorrectedS2SQL(correctS2SQL);
+                sqlAst.apply(select -> SqlAddHelper.addWhere(select, expression));
             } catch (JSQLParserException e) {
                 log.error("parseCondExpression", e);
             }
@@ -56,7 +63,7 @@ public class WhereCorrector extends BaseSemanticCorrector {
     }
 
     private void updateFieldValueByTechName(ChatQueryContext chatQueryContext,
-            SemanticParseInfo semanticParseInfo) {
+            SemanticParseInfo semanticParseInfo, SqlAst sqlAst) {
         SemanticSchema semanticSchema = chatQueryContext.getSemanticSchema();
         Long dataSetId = semanticParseInfo.getDataSetId();
         List<SchemaElement> dimensions = semanticSchema.getDimensions(dataSetId);
@@ -66,10 +73,8 @@ public class WhereCorrector extends BaseSemanticCorrector {
         }
         Map<String, Map<String, String>> aliasAndBizNameToTechName =
                 getAliasAndBizNameToTechName(dimensions);
-        String correctedS2SQL = semanticParseInfo.getSqlInfo().getCorrectedS2SQL();
-        String replaceSql =
-                SqlReplaceHelper.replaceValue(correctedS2SQL, aliasAndBizNameToTechName);
-        semanticParseInfo.getSqlInfo().setCorrectedS2SQL(replaceSql);
+        sqlAst.apply(
+                select -> SqlReplaceHelper.replaceValue(select, aliasAndBizNameToTechName, true));
     }
 
     private Map<String, Map<String, String>> getAliasAndBizNameToTechName(
@@ -0,0 +1,391 @@
+package com.tencent.supersonic.headless.chat.knowledge;
+
+import com.tencent.supersonic.common.pojo.enums.DictWordType;
+import com.tencent.supersonic.headless.chat.knowledge.helper.NatureHelper;
+import lombok.Getter;
+import org.springframework.util.CollectionUtils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Finds the longest tail of a question that the search tries complete to a dictionary word, in one
+ * scan of the question instead of a trie walk from every offset.
+ *
+ * <p>
+ * The prefix words form an Aho-Corasick automaton: after scanning the question its state is the
+ * longest tail that starts a word, and the failure links lead to the shorter ones. The suffix trie
+ * holds reversed words, so the question is walked backwards once. Every node keeps a bitset of the
+ * models and terms of the words below it, so that the data sets a search is restricted to are
+ * checked without collecting and filtering the words.
+ */
+public class DictMatcher {
+
+    @Getter
+    private final long version;
+    private final Automaton prefixes;
+    private final Automaton suffixes;
+
+    private DictMatcher(long version, Automaton prefixes, Automaton suffixes) {
+        this.version = version;
+        this.prefixes = prefixes;
+        this.suffixes = suffixes;
+    }
+
+    /**
+     * @param prefixWords the words and natures of the prefix trie
+     * @param suffixWords the reversed words and natures of the suffix trie
+     */
+    public static DictMatcher build(Collection<Map.Entry<String, List<String>>> prefixWords,
+            Collection<Map.Entry<String, List<String>>> suffixWords, long version) {
+        return new DictMatcher(version, Automaton.build(prefixWords, false, true),
+                Automaton.build(suffixWords, true, false));
+    }
+
+    /**
+     * Returns the smallest offset at which the rest of the text is the start of a prefix word or
+     * the end of a suffix word that belongs to the detected data sets, that is the offset for which
+     * {@link SearchService#prefixSearch} or {@link SearchService#suffixSearch} of the rest of the
+     * text returns results.
+     *
+     * @param detectable the offsets a search may start at
+     * @return -1 if there is no such offset
+     */
+    public int findLongestTail(String text, boolean[] detectable,
+            Map<Long, List<Long>> modelIdToDataSetIds, Set<Long> detectDataSetIds) {
+        Map<Long, List<Long>> dataSetIds =
+                Objects.nonNull(modelIdToDataSetIds) ? modelIdToDataSetIds : Collections.emptyMap();
+        int prefixOffset = prefixes.findLongestPrefixTail(text, detectable,
+                prefixes.mask(dataSetIds, detectDataSetIds));
+        int suffixOffset = suffixes.findLongestSuffixTail(text, detectable,
+                suffixes.mask(dataSetIds, detectDataSetIds));
+        if (prefixOffset < 0 || suffixOffset < 0) {
+            return Math.max(prefixOffset, suffixOffset);
+        }
+        return Math.min(prefixOffset, suffixOffset);
+    }
+
+    private static final class Automaton {
+
+        private static final int ROOT = 0;
+        private static final int EMPTY_MASK = 0;
+        /** nature key of terms without an id, they only match unrestricted searches */
+        private static final long TERM_WITHOUT_ID = -1;
+
+        private int size = 1;
+        private int[] depth = new int[1024];
+        private int[] fail;
+        private int[] maskIds = new int[1024];
+        private long[] edgeKeys = new long[2048];
+        private int[] edgeTargets = new int[2048];
+        private int edgeCount;
+        /** nature key (id * 2, plus 1 for terms) to its bit in the masks */
+        private final Map<Long, Integer> natureKeys = new HashMap<>();
+        private final List<long[]> masks = new ArrayList<>();
+
+        // only needed while building
+        private int[] parents = new int[1024];
+        private int[] firstChildren = new int[1024];
+        private int[] nextSiblings = new int[1024];
+        private char[] labels = new char[1024];
+        private Map<MaskKey, Integer> maskIndex = new HashMap<>();
+        private Map<Long, Integer> unions = new HashMap<>();
+
+        private static Automaton build(Collection<Map.Entry<String, List<String>>> words,
+                boolean suffix, boolean withFailureLinks) {
+            Automaton automaton = new Automaton();
+            automaton.intern(new long[0]);
+            Arrays.fill(automaton.firstChildren, -1);
+            for (Map.Entry<String, List<String>> word : words) {
+                automaton.add(word.getKey(), word.getValue(), suffix);
+            }
+            for (int node = automaton.size - 1; node > ROOT; node--) {
+                int parent = automaton.parents[node];
+                automaton.maskIds[parent] =
+                        automaton.union(automaton.maskIds[parent], automaton.maskIds[node]);
+            }
+            if (withFailureLinks) {
+                automaton.linkFailures();
+            }
+            automaton.parents = null;
+            automaton.firstChildren = null;
+            automaton.nextSiblings = null;
+            automaton.labels = null;
+            automaton.maskIndex = null;
+            automaton.unions = null;
+            return automaton;
+        }
+
+        private void add(String word, List<String> natures, boolean suffix) {
+            if (Objects.isNull(word) || word.isEmpty() || CollectionUtils.isEmpty(natures)) {
+                return;
+            }
+            long[] wordMask = new long[0];
+            for (String nature : natures) {
+                if (Objects.isNull(nature)) {
+                    continue;
+                }
+                if (suffix) {
+                    nature = nature.replaceAll(DictWordType.SUFFIX.getType(), "");
+                }
+                Long key = getNatureKey(nature);
+                if (Objects.nonNull(key)) {
+                    int bit = natureKeys.computeIfAbsent(key, k -> natureKeys.size());
+                    wordMask = setBit(wordMask, bit);
+                }
+            }
+            // words none of whose natures can be searched never match
+            if (wordMask.length == 0) {
+                return;
+            }
+            int node = ROOT;
+            for (int i = 0; i < word.length(); i++) {
+                char c = word.charAt(i);
+                int child = getChild(node, c);
+                if (child < 0) {
+                    child = addNode(node, c);
+                }
+                node = child;
+            }
+            maskIds[node] = union(maskIds[node], intern(wordMask));
+        }
+
+        /**
+         * The data set filter of a search depends on the model or term id of a nature only, see
+         * {@link SearchService#prefixSearch}. Natures of other dictionaries never pass it.
+         */
+        private static Long getNatureKey(String nature) {
+            Long id = NatureHelper.getDataSetId(nature);
+            if (NatureHelper.isTerm(nature)) {
+                return Objects.nonNull(id) ? id * 2 + 1 : TERM_WITHOUT_ID;
+            }
+            return Objects.nonNull(id) ? id * 2 : null;
+        }
+
+        /** the bits of the natures that pass the data set filter of a search */
+        private long[] mask(Map<Long, List<Long>> modelIdToDataSetIds, Set<Long> detectDataSetIds) {
+            boolean unrestricted = CollectionUtils.isEmpty(detectDataSetIds);
+            Set<Long> modelIdOrDataSetIds =
+                    SearchService.findModelIdOrDataSetIds(modelIdToDataSetIds, detectDataSetIds);
+            long[] mask = new long[(natureKeys.size() + 63) / 64];
+            for (Map.Entry<Long, Integer> entry : natureKeys.entrySet()) {
+                long key = entry.getKey();
+                boolean accepted;
+                if (key == TERM_WITHOUT_ID) {
+                    accepted = unrestricted;
+                } else if ((key & 1) == 1) {
+                    accepted = unrestricted || detectDataSetIds.contains(key / 2);
+                } else {
+                    Long modelId = key / 2;
+                    List<Long> dataSetIds = modelIdToDataSetIds.get(modelId);
+                    accepted = (unrestricted || modelIdOrDataSetIds.contains(modelId))
+                            && !CollectionUtils.isEmpty(dataSetIds) && (unrestricted
+                                    || dataSetIds.stream().anyMatch(detectDataSetIds::contains));
+                }
+                if (accepted) {
+                    mask[entry.getValue() / 64] |= 1L << (entry.getValue() % 64);
+                }
+            }
+            return mask;
+        }
+
+        private int findLongestPrefixTail(String text, boolean[] detectable, long[] mask) {
+            int state = ROOT;
+            for (int i = 0; i < text.length(); i++) {
+                char c = Character.toLowerCase(text.charAt(i));
+                int next = getChild(state, c);
+                while (next < 0 && state != ROOT) {
+                    state = fail[state];
+                    next = getChild(state, c);
+                }
+                state = Math.max(next, ROOT);
+            }
+            // the failure links visit the tails that start a word from the longest to the shortest
+            for (; state != ROOT; state = fail[state]) {
+                int offset = text.length() - depth[state];
+                if (detectable[offset] && intersects(maskIds[state], mask)) {
+                    return offset;
+                }
+            }
+            return -1;
+        }
+
+        private int findLongestSuffixTail(String text, boolean[] detectable, long[] mask) {
+            int node = ROOT;
+            int offset = -1;
+            for (int i = text.length() - 1; i >= 0; i--) {
+                node = getChild(node, Character.toLowerCase(text.charAt(i)));
+                if (node < 0) {
+                    break;
+                }
+                if (detectable[i] && intersects(maskIds[node], mask)) {
+                    offset = i;
+                }
+            }
+            return offset;
+        }
+
+        private void linkFailures() {
+            fail = new int[size];
+            Queue<Integer> queue = new ArrayDeque<>();
+            for (int child = firstChildren[ROOT]; child >= 0; child = nextSiblings[child]) {
+                fail[child] = ROOT;
+                queue.add(child);
+            }
+            while (!queue.isEmpty()) {
+                int node = queue.poll();
+                for (int child = firstChildren[node]; child >= 0; child = nextSiblings[child]) {
+                    char c = labels[child];
+                    int state = fail[node];
+                    int next = getChild(state, c);
+                    while (next < 0 && state != ROOT) {
+                        state = fail[state];
+                        next = getChild(state, c);
+                    }
+                    fail[child] = Math.max(next, ROOT);
+                    queue.add(child);
+                }
+            }
+        }
+
+        private int addNode(int parent, char c) {
+            if (size == depth.length) {
+                int capacity = size * 2;
+                depth = Arrays.copyOf(depth, capacity);
+                maskIds = Arrays.copyOf(maskIds, capacity);
+                parents = Arrays.copyOf(parents, capacity);
+                labels = Arrays.copyOf(labels, capacity);
+                nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+                firstChildren = Arrays.copyOf(firstChildren, capacity);
+                Arrays.fill(firstChildren, size, capacity, -1);
+            }
+            int node = size++;
+            depth[node] = depth[parent] + 1;
+            maskIds[node] = EMPTY_MASK;
+            parents[node] = parent;
+            labels[node] = c;
+            nextSiblings[node] = firstChildren[parent];
+            firstChildren[parent] = node;
+            putEdge(parent, c, node);
+            return node;
+        }
+
+        private int getChild(int node, char c) {
+            long key = edgeKey(node, c);
+            int mask = edgeKeys.length - 1;
+            for (int slot = slot(key, mask);; slot = (slot + 1) & mask) {
+                if (edgeKeys[slot] == 0) {
+                    return -1;
+                }
+                if (edgeKeys[slot] == key) {
+                    return edgeTargets[slot];
+                }
+            }
+        }
+
+        private void putEdge(int node, char c, int target) {
+            if (2 * (edgeCount + 1) > edgeKeys.length) {
+                long[] keys = edgeKeys;
+                int[] targets = edgeTargets;
+                edgeKeys = new long[keys.length * 2];
+                edgeTargets = new int[keys.length * 2];
+                for (int i = 0; i < keys.length; i++) {
+                    if (keys[i] != 0) {
+                        insertEdge(keys[i], targets[i]);
+                    }
+                }
+            }
+            insertEdge(edgeKey(node, c), target);
+            edgeCount++;
+        }
+
+        private void insertEdge(long key, int target) {
+            int mask = edgeKeys.length - 1;
+            int slot = slot(key, mask);
+            while (edgeKeys[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            edgeKeys[slot] = key;
+            edgeTargets[slot] = target;
+        }
+
+        /** never 0, which marks a free slot */
+        private static long edgeKey(int node, char c) {
+            return ((long) node << 16 | c) + 1;
+        }
+
+        private static int slot(long key, int mask) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & mask;
+        }
+
+        private boolean intersects(int maskId, long[] mask) {
+            long[] bits = masks.get(maskId);
+            for (int i = Math.min(bits.length, mask.length) - 1; i >= 0; i--) {
+                if ((bits[i] & mask[i]) != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private int union(int a, int b) {
+            if (a == b || b == EMPTY_MASK) {
+                return a;
+            }
+            if (a == EMPTY_MASK) {
+                return b;
+            }
+            long pair = (long) Math.min(a, b) << 32 | Math.max(a, b);
+            Integer union = unions.get(pair);
+            if (Objects.isNull(union)) {
+                long[] x = masks.get(a);
+                long[] y = masks.get(b);
+                long[] bits = Arrays.copyOf(x, Math.max(x.length, y.length));
+                for (int i = 0; i < y.length; i++) {
+                    bits[i] |= y[i];
+                }
+                union = intern(bits);
+                unions.put(pair, union);
+            }
+            return union;
+        }
+
+        private int intern(long[] bits) {
+            return maskIndex.computeIfAbsent(new MaskKey(bits), k -> {
+                masks.add(bits);
+                return masks.size() - 1;
+            });
+        }
+
+        private static long[] setBit(long[] bits, int bit) {
+            if (bit / 64 >= bits.length) {
+                bits = Arrays.copyOf(bits, bit / 64 + 1);
+            }
+            bits[bit / 64] |= 1L << (bit % 64);
+            return bits;
+        }
+    }
+
+    private record MaskKey(long[] bits) {
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof MaskKey other && Arrays.equals(bits, other.bits);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(bits);
+        }
+    }
+}
@@ -8,7 +8,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -60,21 +62,59 @@ public class KnowledgeBaseService {
         SearchService.loadSuffix(suffixes);
     }
 
+    /**
+     * Applies the words added and removed since {@code oldWords} instead of reloading the whole
+     * dictionary, returns the number of changed words.
+     */
+    public int updateDeltaKnowledge(Collection<DictWord> oldWords, Collection<DictWord> newWords) {
+        Set<DictWord> oldSet = new LinkedHashSet<>(oldWords);
+        Set<DictWord> newSet = new LinkedHashSet<>(newWords);
+        List<DictWord> removed = oldSet.stream().filter(word -> !newSet.contains(word))
+                .map(KnowledgeBaseService::withNature).collect(Collectors.toList());
+        List<DictWord> added =
+                newSet.stream().filter(word -> !oldSet.contains(word)).collect(Collectors.toList());
+        if (removed.isEmpty() && added.isEmpty()) {
+            return 0;
+        }
+        HanlpHelper.updateCustomDictionary(removed, added);
+        log.debug("removed words:{}, added words:{}", removed.size(), added.size());
+        return removed.size() + added.size();
+    }
+
+    private static DictWord withNature(DictWord dictWord) {
+        if (dictWord.getNature() != null) {
+            return dictWord;
+        }
+        String nature = dictWord.getNatureWithFrequency().split(" ")[0];
+        return DictWord.builder().word(dictWord.getWord()).nature(nature)
+                .natureWithFrequency(dictWord.getNatureWithFrequency()).alias(dictWord.getAlias())
+                .build();
+    }
+
     public void reloadAllData(List<DictWord> natures) {
-        // 1. reload custom knowledge
+        // 2. update online knowledge, with the aliases found while loading the files
+        Runnable updateOnline = () -> {
+            if (CollectionUtils.isNotEmpty(dimValueAliasMap)) {
+                for (Long dimId : dimValueAliasMap.keySet()) {
+                    natures.addAll(dimValueAliasMap.get(dimId));
+                }
+            }
+            updateOnlineKnowledge(natures);
+        };
+        // 1. reload custom knowledge, the online knowledge is added before it is published
         try {
-            HanlpHelper.reloadCustomDictionary();
+            if (HanlpHelper.reloadCustomDictionary(updateOnline)) {
+                return;
+            }
         } catch (Exception e) {
             log.error("reloadCustomDictionary error", e);
         }
+        updateOnline.run();
+    }
 
-        // 2. update online knowledge
-        if (CollectionUtils.isNotEmpty(dimValueAliasMap)) {
-            for (Long dimId : dimValueAliasMap.keySet()) {
-                natures.addAll(dimValueAliasMap.get(dimId));
-            }
-        }
-        updateOnlineKnowledge(natures);
+    /** the generation of the dictionary that questions are mapped against */
+    public long getDictGeneration() {
+        return HanlpHelper.getGeneration();
     }
 
     private void updateOnlineKnowledge(List<DictWord> natures) {
@@ -99,6 +139,11 @@ public class KnowledgeBaseService {
         return SearchService.prefixSearch(key, limit, modelIdToDataSetIds, detectDataSetIds);
     }
 
+    /** the matcher of the search tries, null while it is rebuilt after a change */
+    public DictMatcher getDictMatcher() {
+        return SearchService.getDictMatcher();
+    }
+
     public List<HanlpMapResult> suffixSearch(String key, int limit,
             Map<Long, List<Long>> modelIdToDataSetIds, Set<Long> detectDataSetIds) {
         return suffixSearchByModel(key, limit, modelIdToDataSetIds, detectDataSetIds);
@@ -23,6 +23,7 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.LinkedHashSet;
@@ -436,4 +437,57 @@ public class MultiCustomDictionary extends DynamicCustomDictionary {
             return true;
         }
     }
+
+    /**
+     * Removes one nature of a word and returns the remaining ones, null if the word is unknown. A
+     * word of the double array trie can not be deleted, after its last nature it keeps a plain one
+     * that is ignored by the mapping.
+     */
+    public synchronized Nature[] removeNature(String word, String nature) {
+        CoreDictionary.Attribute attribute = get(word);
+        if (attribute == null) {
+            return null;
+        }
+        List<Integer> remaining = new ArrayList<>();
+        for (int i = 0; i < attribute.nature.length; i++) {
+            if (!attribute.nature[i].toString().equals(nature)) {
+                remaining.add(i);
+            }
+        }
+        CoreDictionary.Attribute remainingAttribute =
+                new CoreDictionary.Attribute(remaining.size());
+        Nature[] natures = new Nature[remaining.size()];
+        for (int i = 0; i < remaining.size(); i++) {
+            int index = remaining.get(i);
+            natures[i] = attribute.nature[index];
+            remainingAttribute.nature[i] = attribute.nature[index];
+            remainingAttribute.frequency[i] = attribute.frequency[index];
+            if (attribute.originals != null && attribute.originals.length > index) {
+                remainingAttribute.originals[i] = attribute.originals[index];
+            }
+            remainingAttribute.totalFrequency += attribute.frequency[index];
+        }
+        if (this.trie != null && this.trie.containsKey(word)) {
+            if (natures.length == 0) {
+                this.trie.remove(word);
+            } else {
+                this.trie.put(word, remainingAttribute);
+            }
+        }
+        if (this.dat.containsKey(word)) {
+            this.dat.set(word, natures.length == 0 ? new CoreDictionary.Attribute(Nature.nz, 1)
+                    : remainingAttribute);
+        }
+        return natures;
+    }
+
+    /** the key a word is stored under, see {@link #insert(String, String)} */
+    public static String normalizeWord(String word) {
+        if (HanLP.Config.Normalization) {
+            word = CharTable.convert(word);
+        }
+        boolean isLetters = isLetters(word);
+        word = getWordBySpace(word);
+        return isLetters ? word.toLowerCase() : word;
+    }
 }
@@ -9,6 +9,7 @@ import com.tencent.supersonic.common.pojo.enums.DictWordType;
 import com.tencent.supersonic.headless.api.pojo.request.DimensionValueReq;
 import com.tencent.supersonic.headless.chat.knowledge.helper.NatureHelper;
 import com.tencent.supersonic.headless.chat.utils.EditDistanceUtils;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.util.CollectionUtils;
@@ -24,19 +25,44 @@ import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @Slf4j
 public class SearchService {
 
     public static final int SEARCH_SIZE = 200;
-    private static BinTrie<List<String>> trie;
-    private static BinTrie<List<String>> suffixTrie;
+    /** the published tries, replaced as a whole when a reload is published */
+    private static volatile Tries tries = new Tries(new BinTrie<>(), new BinTrie<>(), 0);
+    /** the tries a reload on the current thread builds into, see {@link #beginReload()} */
+    private static final ThreadLocal<Tries> stagingTries = new ThreadLocal<>();
+    /** bumped on every change of the tries, a matcher of an older version is stale */
+    private static final AtomicLong version = new AtomicLong();
+    private static final AtomicBoolean matcherBuilding = new AtomicBoolean();
+    private static final ExecutorService matcherBuilder = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "dict-matcher-builder");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static volatile DictMatcher dictMatcher;
 
-    static {
-        trie = new BinTrie<>();
-        suffixTrie = new BinTrie<>();
+    /** The prefix and suffix tries of one dictionary generation. */
+    @Getter
+    public static class Tries {
+        private final BinTrie<List<String>> trie;
+        private final BinTrie<List<String>> suffixTrie;
+        private final long generation;
+
+        private Tries(BinTrie<List<String>> trie, BinTrie<List<String>> suffixTrie,
+                long generation) {
+            this.trie = trie;
+            this.suffixTrie = suffixTrie;
+            this.generation = generation;
+        }
     }
 
     /**
@@ -47,7 +73,7 @@ public class SearchService {
      */
     public static List<HanlpMapResult> prefixSearch(String key, int limit,
             Map<Long, List<Long>> modelIdToDataSetIds, Set<Long> detectDataSetIds) {
-        return prefixSearch(key, limit, trie, modelIdToDataSetIds, detectDataSetIds);
+        return prefixSearch(key, limit, tries.getTrie(), modelIdToDataSetIds, detectDataSetIds);
     }
 
     public static List<HanlpMapResult> prefixSearch(String key, int limit,
@@ -74,7 +100,8 @@ public class SearchService {
      */
     public static List<HanlpMapResult> suffixSearch(String key, int limit,
             Map<Long, List<Long>> modelIdToDataSetIds, Set<Long> detectDataSetIds) {
-        return suffixSearch(key, limit, suffixTrie, modelIdToDataSetIds, detectDataSetIds);
+        return suffixSearch(key, limit, tries.getSuffixTrie(), modelIdToDataSetIds,
+                detectDataSetIds);
     }
 
     public static List<HanlpMapResult> suffixSearch(String key, int limit,
@@ -148,14 +175,93 @@ public class SearchService {
         return entrySet;
     }
 
-    public static void clear() {
+    /**
+     * Returns the matcher of the current tries. After a change it is rebuilt in the background and
+     * null is returned meanwhile, the callers then search the tries offset by offset.
+     */
+    public static DictMatcher getDictMatcher() {
+        DictMatcher matcher = dictMatcher;
+        if (Objects.nonNull(matcher) && matcher.getVersion() == version.get()) {
+            return matcher;
+        }
+        if (matcherBuilding.compareAndSet(false, true)) {
+            matcherBuilder.execute(() -> {
+                try {
+                    buildDictMatcher();
+                } catch (Exception e) {
+                    log.warn("build dict matcher error", e);
+                } finally {
+                    matcherBuilding.set(false);
+                }
+            });
+        }
+        return null;
+    }
+
+    static DictMatcher buildDictMatcher() {
+        long start = System.currentTimeMillis();
+        long buildVersion = version.get();
+        Tries current = tries;
+        DictMatcher matcher = DictMatcher.build(current.getTrie().entrySet(),
+                current.getSuffixTrie().entrySet(), buildVersion);
+        dictMatcher = matcher;
+        log.info("build dict matcher of version {} cost {} ms", buildVersion,
+                System.currentTimeMillis() - start);
+        return matcher;
+    }
+
+    /** the generation of the published tries, bumped by every published reload */
+    public static long getGeneration() {
+        return tries.getGeneration();
+    }
+
+    public static synchronized void clear() {
         log.debug("clear all trie");
-        trie = new BinTrie<>();
-        suffixTrie = new BinTrie<>();
+        tries = new Tries(new BinTrie<>(), new BinTrie<>(), tries.getGeneration() + 1);
+        version.incrementAndGet();
+    }
+
+    /**
+     * Starts a reload on the current thread. Until {@link #publish(Tries)} or {@link #endReload()}
+     * the changes made by this thread go to empty tries off to the side, while the other threads
+     * keep searching the published ones.
+     */
+    public static Tries beginReload() {
+        Tries staged = new Tries(new BinTrie<>(), new BinTrie<>(), 0);
+        stagingTries.set(staged);
+        return staged;
+    }
+
+    /** replaces the published tries by the ones built since {@link #beginReload()} */
+    public static synchronized long publish(Tries staged) {
+        long generation = tries.getGeneration() + 1;
+        tries = new Tries(staged.getTrie(), staged.getSuffixTrie(), generation);
+        version.incrementAndGet();
+        endReload();
+        return generation;
+    }
+
+    /** the changes of the current thread go to the published tries again */
+    public static void endReload() {
+        stagingTries.remove();
+    }
+
+    private static Tries target() {
+        Tries staged = stagingTries.get();
+        return Objects.nonNull(staged) ? staged : tries;
+    }
+
+    /** changes of the published tries invalidate the matcher, the staged ones are not searched */
+    private static void changed(Tries target) {
+        if (target != stagingTries.get()) {
+            version.incrementAndGet();
+        }
     }
 
     public static void put(String key, CoreDictionary.Attribute attribute) {
-        trie.put(key, getValue(attribute.nature));
+        Tries target = target();
+        target.getTrie().put(key, getValue(attribute.nature));
+        changed(target);
     }
 
     public static void loadSuffix(List<DictWord> suffixes) {
@@ -180,7 +286,45 @@ public class SearchService {
 
     public static void putSuffix(String key, CoreDictionary.Attribute attribute) {
         Nature[] nature = attribute.nature;
-        suffixTrie.put(key, getValue(nature));
+        Tries target = target();
+        target.getSuffixTrie().put(key, getValue(nature));
+        changed(target);
+    }
+
+    /** adds the nature of a suffix word to the ones it already has */
+    public static void addSuffix(DictWord suffix) {
+        CoreDictionary.Attribute attribute =
+                CoreDictionary.Attribute.create(suffix.getNatureWithFrequency());
+        Tries target = target();
+        List<String> natures = new ArrayList<>();
+        List<String> existing = target.getSuffixTrie().get(suffix.getWord());
+        if (Objects.nonNull(existing)) {
+            natures.addAll(existing);
+        }
+        for (String nature : getValue(attribute.nature)) {
+            if (!natures.contains(nature)) {
+                natures.add(nature);
+            }
+        }
+        target.getSuffixTrie().put(suffix.getWord(), natures);
+        changed(target);
+    }
+
+    /** removes the nature of a suffix word, the word is removed with its last nature */
+    public static void removeSuffix(DictWord suffix) {
+        Tries target = target();
+        List<String> existing = target.getSuffixTrie().get(suffix.getWord());
+        if (Objects.isNull(existing)) {
+            return;
+        }
+        List<String> natures = existing.stream()
+                .filter(nature -> !nature.equals(suffix.getNature())).collect(Collectors.toList());
+        if (natures.isEmpty()) {
+            target.getSuffixTrie().remove(suffix.getWord());
+        } else {
+            target.getSuffixTrie().put(suffix.getWord(), natures);
+        }
+        changed(target);
     }
 
     private static List<String> getValue(Nature[] nature) {
@@ -188,14 +332,16 @@ public class SearchService {
     }
 
     public static void remove(DictWord dictWord, Nature[] natures) {
-        trie.remove(dictWord.getWord());
+        Tries target = target();
+        target.getTrie().remove(dictWord.getWord());
         if (Objects.nonNull(natures) && natures.length > 0) {
-            trie.put(dictWord.getWord(), getValue(natures));
+            target.getTrie().put(dictWord.getWord(), getValue(natures));
         }
         if (dictWord.getNature().contains(DictWordType.METRIC.getType())
                 || dictWord.getNature().contains(DictWordType.DIMENSION.getType())) {
-            suffixTrie.remove(dictWord.getWord());
+            target.getSuffixTrie().remove(dictWord.getWord());
         }
+        changed(target);
     }
 
     public static List<String> getDimensionValue(DimensionValueReq dimensionValueReq) {
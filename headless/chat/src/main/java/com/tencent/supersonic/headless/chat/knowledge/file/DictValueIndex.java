@@ -0,0 +1,361 @@
+package com.tencent.supersonic.headless.chat.knowledge.file;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Binary index of a dimension value file, kept next to it as {@code <file>.idx}. The header holds
+ * the line count and the length and modification time of the indexed file, followed by the sorted
+ * characters and character pairs of the values with the lines containing them, and the offset of
+ * every line. A page of lines is read with two seeks, a key is looked up by a binary search over
+ * the grams and an intersection of their lines, so the file is never scanned as a whole.
+ */
+@Slf4j
+public class DictValueIndex {
+
+    public static final String INDEX_SUFFIX = ".idx";
+    private static final int MAGIC = 0x44564958;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 4 + 4;
+
+    private final Path dataPath;
+    private final Path indexPath;
+    private final long dataLength;
+    private final long dataModified;
+    @Getter
+    private final int lineCount;
+    private final long[] grams;
+    private final int[] postingStarts;
+    private final long offsetsPosition;
+    private final long postingsPosition;
+
+    private DictValueIndex(Path dataPath, Path indexPath, long dataLength, long dataModified,
+            int lineCount, long[] grams, int[] postingStarts) {
+        this.dataPath = dataPath;
+        this.indexPath = indexPath;
+        this.dataLength = dataLength;
+        this.dataModified = dataModified;
+        this.lineCount = lineCount;
+        this.grams = grams;
+        this.postingStarts = postingStarts;
+        this.offsetsPosition = HEADER_SIZE + 8L * grams.length + 4L * (grams.length + 1);
+        this.postingsPosition = offsetsPosition + 8L * (lineCount + 1);
+    }
+
+    public static Path getIndexPath(Path dataPath) {
+        return dataPath.resolveSibling(dataPath.getFileName() + INDEX_SUFFIX);
+    }
+
+    /** loads the index of a file, it is built first if it is missing or older than the file */
+    public static DictValueIndex open(Path dataPath) throws IOException {
+        Path indexPath = getIndexPath(dataPath);
+        if (Files.exists(indexPath)) {
+            DictValueIndex index = load(dataPath, indexPath);
+            if (index != null && index.isCurrent()) {
+                return index;
+            }
+        }
+        return build(dataPath);
+    }
+
+    /** whether the indexed file is unchanged since the index was built */
+    public boolean isCurrent() {
+        try {
+            return Files.exists(dataPath) && Files.size(dataPath) == dataLength
+                    && Files.getLastModifiedTime(dataPath).toMillis() == dataModified;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /** the lines from {@code from} to {@code to}, 0 based and exclusive */
+    public List<String> readLines(int from, int to) throws IOException {
+        List<String> lines = new ArrayList<>();
+        from = Math.max(from, 0);
+        to = Math.min(to, lineCount);
+        if (from >= to) {
+            return lines;
+        }
+        try (FileChannel index = FileChannel.open(indexPath, StandardOpenOption.READ);
+                FileChannel data = FileChannel.open(dataPath, StandardOpenOption.READ)) {
+            long[] offsets = readLongs(index, offsetsPosition + 8L * from, to - from + 1);
+            ByteBuffer buffer = read(data, offsets[0], (int) (offsets[to - from] - offsets[0]));
+            byte[] bytes = buffer.array();
+            for (int i = 0; i < to - from; i++) {
+                int start = (int) (offsets[i] - offsets[0]);
+                int end = (int) (offsets[i + 1] - offsets[0]);
+                lines.add(decodeLine(bytes, start, end));
+            }
+        }
+        return lines;
+    }
+
+    /** the lines whose value contains the key, 0 based and in file order */
+    public int[] find(String key) throws IOException {
+        if (StringUtils.isEmpty(key)) {
+            int[] all = new int[lineCount];
+            Arrays.setAll(all, i -> i);
+            return all;
+        }
+        try (FileChannel index = FileChannel.open(indexPath, StandardOpenOption.READ);
+                FileChannel data = FileChannel.open(dataPath, StandardOpenOption.READ)) {
+            List<int[]> postings = new ArrayList<>();
+            for (long gram : getGrams(key)) {
+                int i = Arrays.binarySearch(grams, gram);
+                if (i < 0) {
+                    return new int[0];
+                }
+                postings.add(new int[] {postingStarts[i], postingStarts[i + 1]});
+            }
+            postings.sort(Comparator.comparingInt(range -> range[1] - range[0]));
+            int[] candidates = null;
+            for (int[] range : postings) {
+                int[] lines =
+                        readInts(index, postingsPosition + 4L * range[0], range[1] - range[0]);
+                candidates = candidates == null ? lines : intersect(candidates, lines);
+                if (candidates.length == 0) {
+                    return candidates;
+                }
+            }
+            if (key.length() <= 2) {
+                return candidates;
+            }
+            // the pairs of a longer key may occur apart from each other, so check the values
+            int size = 0;
+            for (int line : candidates) {
+                long[] offsets = readLongs(index, offsetsPosition + 8L * line, 2);
+                ByteBuffer buffer = read(data, offsets[0], (int) (offsets[1] - offsets[0]));
+                String value = parseValue(decodeLine(buffer.array(), 0, buffer.limit()));
+                if (value != null && value.contains(key)) {
+                    candidates[size++] = line;
+                }
+            }
+            return Arrays.copyOf(candidates, size);
+        }
+    }
+
+    /** builds the index of a file, replacing the previous one */
+    public static DictValueIndex build(Path dataPath) throws IOException {
+        long start = System.currentTimeMillis();
+        long dataLength = Files.size(dataPath);
+        long dataModified = Files.getLastModifiedTime(dataPath).toMillis();
+        byte[] bytes = Files.readAllBytes(dataPath);
+
+        List<Long> offsets = new ArrayList<>();
+        Map<Long, IntList> postings = new HashMap<>();
+        int pos = 0;
+        while (pos < bytes.length) {
+            int end = pos;
+            while (end < bytes.length && bytes[end] != '\n' && bytes[end] != '\r') {
+                end++;
+            }
+            int line = offsets.size();
+            offsets.add((long) pos);
+            String value = parseValue(new String(bytes, pos, end - pos, StandardCharsets.UTF_8));
+            if (value != null) {
+                for (long gram : getValueGrams(value)) {
+                    postings.computeIfAbsent(gram, k -> new IntList()).add(line);
+                }
+            }
+            if (end < bytes.length && bytes[end] == '\r' && end + 1 < bytes.length
+                    && bytes[end + 1] == '\n') {
+                end++;
+            }
+            pos = end + 1;
+        }
+        offsets.add((long) bytes.length);
+
+        long[] grams = postings.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+        int[] postingStarts = new int[grams.length + 1];
+        for (int i = 0; i < grams.length; i++) {
+            postingStarts[i + 1] = postingStarts[i] + postings.get(grams[i]).size;
+        }
+
+        Path indexPath = getIndexPath(dataPath);
+        Path tmpPath = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+        try (DataOutputStream out =
+                new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpPath)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(dataLength);
+            out.writeLong(dataModified);
+            out.writeInt(offsets.size() - 1);
+            out.writeInt(grams.length);
+            for (long gram : grams) {
+                out.writeLong(gram);
+            }
+            for (int postingStart : postingStarts) {
+                out.writeInt(postingStart);
+            }
+            for (long offset : offsets) {
+                out.writeLong(offset);
+            }
+            for (long gram : grams) {
+                IntList lines = postings.get(gram);
+                for (int i = 0; i < lines.size; i++) {
+                    out.writeInt(lines.values[i]);
+                }
+            }
+        }
+        Files.move(tmpPath, indexPath, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        log.info("build dict value index:{}, lines:{}, grams:{}, cost:{} ms", indexPath,
+                offsets.size() - 1, grams.length, System.currentTimeMillis() - start);
+        return new DictValueIndex(dataPath, indexPath, dataLength, dataModified, offsets.size() - 1,
+                grams, postingStarts);
+    }
+
+    private static DictValueIndex load(Path dataPath, Path indexPath) {
+        try (DataInputStream in =
+                new DataInputStream(new BufferedInputStream(Files.newInputStream(indexPath)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            long dataLength = in.readLong();
+            long dataModified = in.readLong();
+            int lineCount = in.readInt();
+            long[] grams = new long[in.readInt()];
+            for (int i = 0; i < grams.length; i++) {
+                grams[i] = in.readLong();
+            }
+            int[] postingStarts = new int[grams.length + 1];
+            for (int i = 0; i < postingStarts.length; i++) {
+                postingStarts[i] = in.readInt();
+            }
+            return new DictValueIndex(dataPath, indexPath, dataLength, dataModified, lineCount,
+                    grams, postingStarts);
+        } catch (IOException e) {
+            log.warn("load dict value index:{} error", indexPath, e);
+            return null;
+        }
+    }
+
+    /** the value of a line, the same as shown on the dimension value page */
+    private static String parseValue(String line) {
+        if (StringUtils.isEmpty(line)) {
+            return null;
+        }
+        String[] items = StringUtils.stripStart(line, null).split("\\s+");
+        if (items.length < 3) {
+            return null;
+        }
+        return items[0].replace("#", " ");
+    }
+
+    /** the characters and character pairs of a value */
+    private static TreeSet<Long> getValueGrams(String value) {
+        TreeSet<Long> result = new TreeSet<>();
+        for (int i = 0; i < value.length(); i++) {
+            result.add(unigram(value.charAt(i)));
+            if (i + 1 < value.length()) {
+                result.add(bigram(value.charAt(i), value.charAt(i + 1)));
+            }
+        }
+        return result;
+    }
+
+    /** the grams that every value containing the key has */
+    private static TreeSet<Long> getGrams(String key) {
+        TreeSet<Long> result = new TreeSet<>();
+        if (key.length() == 1) {
+            result.add(unigram(key.charAt(0)));
+        }
+        for (int i = 0; i + 1 < key.length(); i++) {
+            result.add(bigram(key.charAt(i), key.charAt(i + 1)));
+        }
+        return result;
+    }
+
+    private static long unigram(char c) {
+        return c;
+    }
+
+    private static long bigram(char first, char second) {
+        return 0x10000L + (((long) first << 16) | second);
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int size = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length;) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[size++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private static String decodeLine(byte[] bytes, int start, int end) {
+        while (end > start && (bytes[end - 1] == '\n' || bytes[end - 1] == '\r')) {
+            end--;
+        }
+        return new String(bytes, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    private static long[] readLongs(FileChannel channel, long position, int count)
+            throws IOException {
+        ByteBuffer buffer = read(channel, position, 8 * count);
+        long[] values = new long[count];
+        buffer.asLongBuffer().get(values);
+        return values;
+    }
+
+    private static int[] readInts(FileChannel channel, long position, int count)
+            throws IOException {
+        ByteBuffer buffer = read(channel, position, 4 * count);
+        int[] values = new int[count];
+        buffer.asIntBuffer().get(values);
+        return values;
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("unexpected end of " + channel);
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
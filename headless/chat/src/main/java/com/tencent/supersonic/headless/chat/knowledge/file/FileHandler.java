@@ -33,6 +33,14 @@ public interface FileHandler {
      */
     void writeFile(List<String> data, String fileName, Boolean append);
 
+    /**
+     * read the lines of a specific file, config dir: dict.directory.latest
+     *
+     * @param fileName
+     * @return the lines, empty if the file does not exist
+     */
+    List<String> readFile(String fileName);
+
     /**
      * get the knowledge file root directory
      *
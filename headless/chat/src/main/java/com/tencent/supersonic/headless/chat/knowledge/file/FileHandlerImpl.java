@@ -20,9 +20,10 @@ import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 @Slf4j
 @Component
@@ -32,6 +33,8 @@ public class FileHandlerImpl implements FileHandler {
 
     private final LocalFileConfig localFileConfig;
 
+    private final Map<String, DictValueIndex> dictValueIndexes = new ConcurrentHashMap<>();
+
     public FileHandlerImpl(LocalFileConfig localFileConfig) {
         this.localFileConfig = localFileConfig;
     }
@@ -79,54 +82,57 @@ public class FileHandlerImpl implements FileHandler {
 
     @Override
     public PageInfo<DictValueResp> queryDictValue(String fileName, DictValueReq dictValueReq) {
+        String filePath = localFileConfig.getDictDirectoryLatest() + FILE_SPILT + fileName;
+        DictValueIndex index = getDictValueIndex(filePath);
+        if (Objects.isNull(index)) {
+            PageInfo<DictValueResp> dictValueRespPageInfo = new PageInfo<>();
+            dictValueRespPageInfo.setPageSize(dictValueReq.getPageSize());
+            dictValueRespPageInfo.setPageNum(dictValueReq.getCurrent());
+            dictValueRespPageInfo.setList(new ArrayList<>());
+            return dictValueRespPageInfo;
+        }
         if (StringUtils.isEmpty(dictValueReq.getKeyValue())) {
-            return getDictValueRespPagWithoutKey(fileName, dictValueReq);
+            return getDictValueRespPagWithoutKey(index, dictValueReq);
         }
-        return getDictValueRespPagWithKey(fileName, dictValueReq);
+        return getDictValueRespPagWithKey(index, dictValueReq);
     }
 
-    private PageInfo<DictValueResp> getDictValueRespPagWithKey(String fileName,
+    private PageInfo<DictValueResp> getDictValueRespPagWithKey(DictValueIndex index,
             DictValueReq dictValueReq) {
         PageInfo<DictValueResp> dictValueRespPageInfo = new PageInfo<>();
         dictValueRespPageInfo.setPageSize(dictValueReq.getPageSize());
         dictValueRespPageInfo.setPageNum(dictValueReq.getCurrent());
-        String filePath = localFileConfig.getDictDirectoryLatest() + FILE_SPILT + fileName;
-        Long fileLineNum = getFileLineNum(filePath);
-        Integer startLine = 1;
-        List<DictValueResp> dictValueRespList =
-                getFileData(filePath, startLine, fileLineNum.intValue()).stream().filter(
-                        dictValue -> dictValue.getValue().contains(dictValueReq.getKeyValue()))
-                        .collect(Collectors.toList());
-        if (CollectionUtils.isEmpty(dictValueRespList)) {
+        int[] lineIndexes = findLines(index, dictValueReq.getKeyValue());
+        Integer startIndex =
+                Math.max((dictValueReq.getCurrent() - 1) * dictValueReq.getPageSize(), 0);
+        if (lineIndexes.length == 0 || startIndex >= lineIndexes.length) {
+            dictValueRespPageInfo.setTotal(lineIndexes.length);
             dictValueRespPageInfo.setList(new ArrayList<>());
             return dictValueRespPageInfo;
         }
 
-        Integer startIndex =
-                Math.max((dictValueReq.getCurrent() - 1) * dictValueReq.getPageSize(), 0);
-        Integer endIndex =
-                Integer.valueOf(Math.min(dictValueReq.getCurrent() * dictValueReq.getPageSize(),
-                        dictValueRespList.size()) + "");
-        List<DictValueResp> list = dictValueRespList.subList(startIndex, endIndex);
-        dictValueRespPageInfo.setPageSize(dictValueReq.getPageSize());
-        dictValueRespPageInfo.setPageNum(dictValueReq.getCurrent());
-        dictValueRespPageInfo.setTotal(dictValueRespList.size());
+        Integer endIndex = Math.min(dictValueReq.getCurrent() * dictValueReq.getPageSize(),
+                lineIndexes.length);
+        List<DictValueResp> list = new ArrayList<>();
+        for (int i = startIndex; i < endIndex; i++) {
+            list.addAll(getFileData(index, lineIndexes[i], lineIndexes[i] + 1));
+        }
+        dictValueRespPageInfo.setTotal(lineIndexes.length);
         dictValueRespPageInfo.setList(list);
-        dictValueRespPageInfo.setHasNextPage(endIndex >= dictValueRespList.size() ? false : true);
-        dictValueRespPageInfo.setHasPreviousPage(startLine <= 0 ? false : true);
+        dictValueRespPageInfo.setHasNextPage(endIndex < lineIndexes.length);
+        dictValueRespPageInfo.setHasPreviousPage(startIndex > 0);
         return dictValueRespPageInfo;
     }
 
-    private PageInfo<DictValueResp> getDictValueRespPagWithoutKey(String fileName,
+    private PageInfo<DictValueResp> getDictValueRespPagWithoutKey(DictValueIndex index,
             DictValueReq dictValueReq) {
         PageInfo<DictValueResp> dictValueRespPageInfo = new PageInfo<>();
-        String filePath = localFileConfig.getDictDirectoryLatest() + FILE_SPILT + fileName;
-        Long fileLineNum = getFileLineNum(filePath);
+        long fileLineNum = index.getLineCount();
         Integer startLine =
                 Math.max(1, (dictValueReq.getCurrent() - 1) * dictValueReq.getPageSize() + 1);
         Integer endLine = Integer.valueOf(
                 Math.min(dictValueReq.getCurrent() * dictValueReq.getPageSize(), fileLineNum) + "");
-        List<DictValueResp> dictValueRespList = getFileData(filePath, startLine, endLine);
+        List<DictValueResp> dictValueRespList = getFileData(index, startLine - 1, endLine);
 
         dictValueRespPageInfo.setPageSize(dictValueReq.getPageSize());
         dictValueRespPageInfo.setPageNum(dictValueReq.getCurrent());
@@ -137,39 +143,64 @@ public class FileHandlerImpl implements FileHandler {
         return dictValueRespPageInfo;
     }
 
-    @Override
-    public String queryDictFilePath(String fileName) {
-        String path = localFileConfig.getDictDirectoryLatest() + FILE_SPILT + fileName;
-        if (existPath(path)) {
-            return path;
+    /** the index of a dictionary file, built if the file changed since, null without the file */
+    private DictValueIndex getDictValueIndex(String filePath) {
+        Path path = Paths.get(filePath);
+        if (!Files.exists(path)) {
+            log.warn("[getDictValueIndex] File does not exist: {}", getAbsolutePath(filePath));
+            return null;
+        }
+        DictValueIndex index = dictValueIndexes.get(filePath);
+        if (Objects.nonNull(index) && index.isCurrent()) {
+            return index;
+        }
+        synchronized (dictValueIndexes) {
+            index = dictValueIndexes.get(filePath);
+            if (Objects.nonNull(index) && index.isCurrent()) {
+                return index;
+            }
+            try {
+                index = DictValueIndex.open(path);
+                dictValueIndexes.put(filePath, index);
+                return index;
+            } catch (IOException e) {
+                log.warn("[getDictValueIndex] e:", e);
+                return null;
+            }
+        }
+    }
+
+    private int[] findLines(DictValueIndex index, String keyValue) {
+        try {
+            return index.find(keyValue);
+        } catch (IOException e) {
+            log.warn("[findLines] e:", e);
+            return new int[0];
         }
-        log.info("dict file:{} is not exist", path);
-        return null;
     }
 
     /**
-     *
-     * @param filePath
-     * @param startLine 1开始
-     * @param endLine
-     * @return
+     * @param from 0开始
+     * @param to 不包含
      */
-    private List<DictValueResp> getFileData(String filePath, Integer startLine, Integer endLine) {
-        List<DictValueResp> fileData = new ArrayList<>();
-        Path path = Paths.get(filePath);
-        if (!Files.exists(path)) {
-            log.warn("[getFileData] File does not exist: {}", getAbsolutePath(filePath));
-            return fileData;
+    private List<DictValueResp> getFileData(DictValueIndex index, int from, int to) {
+        try {
+            return index.readLines(from, to).stream().map(lineStr -> convert2Resp(lineStr))
+                    .filter(line -> Objects.nonNull(line)).collect(Collectors.toList());
+        } catch (IOException e) {
+            log.warn("[getFileData] e:", e);
+            return new ArrayList<>();
         }
+    }
 
-        try (Stream<String> lines = Files.lines(path)) {
-            fileData = lines.skip(startLine - 1).limit(endLine - startLine + 1)
-                    .map(lineStr -> convert2Resp(lineStr)).filter(line -> Objects.nonNull(line))
-                    .collect(Collectors.toList());
-        } catch (IOException e) {
-            log.warn("[getFileData] e:{}", e);
+    @Override
+    public String queryDictFilePath(String fileName) {
+        String path = localFileConfig.getDictDirectoryLatest() + FILE_SPILT + fileName;
+        if (existPath(path)) {
+            return path;
         }
-        return fileData;
+        log.info("dict file:{} is not exist", path);
+        return null;
     }
 
     private DictValueResp convert2Resp(String lineStr) {
@@ -186,22 +217,6 @@ public class FileHandlerImpl implements FileHandler {
         return dictValueResp;
     }
 
-    private Long getFileLineNum(String filePath) {
-        Path path = Paths.get(filePath);
-        if (!Files.exists(path)) {
-            log.warn("[getFileData] File does not exist: {}", getAbsolutePath(filePath));
-            return 0L;
-        }
-
-        try (Stream<String> lines = Files.lines(path)) {
-            Long lineCount = lines.count();
-            return lineCount;
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        return 0L;
-    }
-
     @Override
     public Boolean existPath(String pathStr) {
         Path path = Paths.get(pathStr);
@@ -238,6 +253,26 @@ public class FileHandlerImpl implements FileHandler {
             log.info("File:{} written successfully!", getAbsolutePath(filePath));
         } catch (IOException e) {
             log.info("Failed to write file:{}, e:", getAbsolutePath(filePath), e);
+            return;
+        }
+        try {
+            dictValueIndexes.put(filePath, DictValueIndex.build(Paths.get(filePath)));
+        } catch (IOException e) {
+            log.warn("Failed to index file:{}, e:", getAbsolutePath(filePath), e);
+        }
+    }
+
+    @Override
+    public List<String> readFile(String fileName) {
+        Path path = Paths.get(localFileConfig.getDictDirectoryLatest() + FILE_SPILT + fileName);
+        if (!Files.exists(path)) {
+            return new ArrayList<>();
+        }
+        try {
+            return Files.readAllLines(path, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            log.warn("Failed to read file:{}, e:", path.toAbsolutePath(), e);
+            return new ArrayList<>();
         }
     }
 
@@ -253,7 +288,14 @@ public class FileHandlerImpl implements FileHandler {
     @Override
     public Boolean deleteDictFile(String fileName) {
         backupFile(fileName);
-        deleteFile(localFileConfig.getDictDirectoryLatest() + FILE_SPILT + fileName);
+        String filePath = localFileConfig.getDictDirectoryLatest() + FILE_SPILT + fileName;
+        deleteFile(filePath);
+        dictValueIndexes.remove(filePath);
+        try {
+            Files.deleteIfExists(DictValueIndex.getIndexPath(Paths.get(filePath)));
+        } catch (IOException e) {
+            log.warn("Failed to delete index of file:{}, e:", getAbsolutePath(filePath), e);
+        }
         return true;
     }
 
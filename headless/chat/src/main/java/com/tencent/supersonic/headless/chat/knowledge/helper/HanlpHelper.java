@@ -18,7 +18,6 @@ import com.tencent.supersonic.headless.chat.knowledge.MapResult;
 import com.tencent.supersonic.headless.chat.knowledge.MultiCustomDictionary;
 import com.tencent.supersonic.headless.chat.knowledge.SearchService;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.BeanUtils;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.ResourceUtils;
@@ -35,8 +34,12 @@ public class HanlpHelper {
 
     public static final String FILE_SPILT = File.separator;
     public static final String SPACE_SPILT = "#";
-    private static volatile DynamicCustomDictionary CustomDictionary;
+    private static volatile MultiCustomDictionary CustomDictionary;
     private static volatile Segment segment;
+    /** serializes reloads with the incremental changes of the dictionary */
+    private static final Object DICTIONARY_LOCK = new Object();
+    /** the dictionary a reload on the current thread builds, published when it is complete */
+    private static final ThreadLocal<MultiCustomDictionary> stagingDictionary = new ThreadLocal<>();
 
     static {
         // reset hanlp config
@@ -51,20 +54,22 @@ public class HanlpHelper {
         if (segment == null) {
             synchronized (HanlpHelper.class) {
                 if (segment == null) {
-                    segment = HanLP.newSegment().enableIndexMode(true).enableIndexMode(4)
-                            .enableCustomDictionary(true).enableCustomDictionaryForcing(true)
-                            .enableOffset(true).enableJapaneseNameRecognize(false)
-                            .enableNameRecognize(false).enableAllNamedEntityRecognize(false)
-                            .enableJapaneseNameRecognize(false)
-                            .enableNumberQuantifierRecognize(false).enablePlaceRecognize(false)
-                            .enableOrganizationRecognize(false)
-                            .enableCustomDictionary(getDynamicCustomDictionary());
+                    segment = newSegment(getDynamicCustomDictionary());
                 }
             }
         }
         return segment;
     }
 
+    private static Segment newSegment(DynamicCustomDictionary customDictionary) {
+        return HanLP.newSegment().enableIndexMode(true).enableIndexMode(4)
+                .enableCustomDictionary(true).enableCustomDictionaryForcing(true).enableOffset(true)
+                .enableJapaneseNameRecognize(false).enableNameRecognize(false)
+                .enableAllNamedEntityRecognize(false).enableJapaneseNameRecognize(false)
+                .enableNumberQuantifierRecognize(false).enablePlaceRecognize(false)
+                .enableOrganizationRecognize(false).enableCustomDictionary(customDictionary);
+    }
+
     public static DynamicCustomDictionary getDynamicCustomDictionary() {
         if (CustomDictionary == null) {
             synchronized (HanlpHelper.class) {
@@ -78,6 +83,17 @@ public class HanlpHelper {
 
     /** reload custom dictionary */
     public static boolean reloadCustomDictionary() throws IOException {
+        return reloadCustomDictionary(() -> {
+        });
+    }
+
+    /**
+     * Reloads the custom dictionary from the files. The dictionary, its segment and the search
+     * tries are built off to the side, {@code afterLoad} adds words to them on the same thread, and
+     * then they are published together, so the questions parsed meanwhile keep using the previous
+     * generation instead of an empty or half-built one.
+     */
+    public static boolean reloadCustomDictionary(Runnable afterLoad) throws IOException {
 
         final long startTime = System.currentTimeMillis();
 
@@ -85,24 +101,56 @@ public class HanlpHelper {
                 || HanLP.Config.CustomDictionaryPath.length == 0) {
             return false;
         }
-        if (HanLP.Config.IOAdapter instanceof HadoopFileIOAdapter) {
-            // 1.delete hdfs file
-            HdfsFileHelper.deleteCacheFile(HanLP.Config.CustomDictionaryPath);
-            // 2.query txt files，update CustomDictionaryPath
-            HdfsFileHelper.resetCustomPath(getDynamicCustomDictionary());
-        } else {
-            FileHelper.deleteCacheFile(HanLP.Config.CustomDictionaryPath);
-            FileHelper.resetCustomPath(getDynamicCustomDictionary());
+        synchronized (DICTIONARY_LOCK) {
+            if (HanLP.Config.IOAdapter instanceof HadoopFileIOAdapter) {
+                // 1.delete hdfs file
+                HdfsFileHelper.deleteCacheFile(HanLP.Config.CustomDictionaryPath);
+                // 2.query txt files，update CustomDictionaryPath
+                HdfsFileHelper.resetCustomPath(getDynamicCustomDictionary());
+            } else {
+                FileHelper.deleteCacheFile(HanLP.Config.CustomDictionaryPath);
+                FileHelper.resetCustomPath(getDynamicCustomDictionary());
+            }
+            // 3.build the tries and the dictionary off to the side
+            SearchService.Tries stagedTries = SearchService.beginReload();
+            try {
+                MultiCustomDictionary dictionary =
+                        new MultiCustomDictionary(getDynamicCustomDictionary().path);
+                if (dictionary.dat.size() == 0) {
+                    log.warn("Custom dictionary reload failed, keep generation {}",
+                            SearchService.getGeneration());
+                    return false;
+                }
+                stagingDictionary.set(dictionary);
+                afterLoad.run();
+                Segment newSegment = newSegment(dictionary);
+                // 4.publish them together
+                CustomDictionary = dictionary;
+                segment = newSegment;
+                long generation = SearchService.publish(stagedTries);
+                log.info("Custom dictionary generation {} has been reloaded in {} milliseconds",
+                        generation, System.currentTimeMillis() - startTime);
+                return true;
+            } finally {
+                stagingDictionary.remove();
+                SearchService.endReload();
+            }
         }
-        // 3.clear trie
-        SearchService.clear();
+    }
+
+    /** the generation of the published dictionary, bumped by every reload */
+    public static long getGeneration() {
+        return SearchService.getGeneration();
+    }
 
-        boolean reload = getDynamicCustomDictionary().reload();
-        if (reload) {
-            log.info("Custom dictionary has been reloaded in {} milliseconds",
-                    System.currentTimeMillis() - startTime);
+    /** the dictionary a reload on this thread builds, else the published one */
+    private static MultiCustomDictionary getTargetDictionary() {
+        MultiCustomDictionary staged = stagingDictionary.get();
+        if (staged != null) {
+            return staged;
         }
-        return reload;
+        getDynamicCustomDictionary();
+        return CustomDictionary;
     }
 
     private static void resetHanlpConfig() throws FileNotFoundException {
@@ -181,35 +229,57 @@ public class HanlpHelper {
 
     public static boolean addToCustomDictionary(DictWord dictWord) {
         log.debug("dictWord:{}", dictWord);
-        return getDynamicCustomDictionary().insert(dictWord.getWord(),
-                dictWord.getNatureWithFrequency());
+        synchronized (DICTIONARY_LOCK) {
+            return getTargetDictionary().insert(dictWord.getWord(),
+                    dictWord.getNatureWithFrequency());
+        }
     }
 
     public static void removeFromCustomDictionary(DictWord dictWord) {
+        synchronized (DICTIONARY_LOCK) {
+            doRemoveFromCustomDictionary(dictWord, getTargetDictionary());
+        }
+    }
+
+    private static void doRemoveFromCustomDictionary(DictWord dictWord,
+            MultiCustomDictionary customDictionary) {
         log.debug("dictWord:{}", dictWord);
-        CoreDictionary.Attribute attribute = getDynamicCustomDictionary().get(dictWord.getWord());
-        if (attribute == null) {
+        String word = MultiCustomDictionary.normalizeWord(dictWord.getWord());
+        Nature[] natures = customDictionary.removeNature(word, dictWord.getNature());
+        if (natures == null) {
             return;
         }
-        log.info("get attribute:{}", attribute);
-        getDynamicCustomDictionary().remove(dictWord.getWord());
-        StringBuilder sb = new StringBuilder();
-        List<Nature> natureList = new ArrayList<>();
-        for (int i = 0; i < attribute.nature.length; i++) {
-            if (!attribute.nature[i].toString().equals(dictWord.getNature())) {
-                sb.append(attribute.nature[i].toString() + " ");
-                sb.append(attribute.frequency[i] + " ");
-                natureList.add((attribute.nature[i]));
+        log.info("word:{} remaining natures:{}", word, Arrays.toString(natures));
+        DictWord removed = DictWord.builder().word(word).nature(dictWord.getNature()).build();
+        SearchService.remove(removed, natures);
+    }
+
+    /**
+     * Applies the difference between two versions of the words, removals first, so the cost follows
+     * the size of the change and not of the whole dictionary.
+     */
+    public static void updateCustomDictionary(List<DictWord> removed, List<DictWord> added) {
+        synchronized (DICTIONARY_LOCK) {
+            MultiCustomDictionary customDictionary = getTargetDictionary();
+            for (DictWord dictWord : removed) {
+                if (isSuffix(dictWord)) {
+                    SearchService.removeSuffix(dictWord);
+                } else {
+                    doRemoveFromCustomDictionary(dictWord, customDictionary);
+                }
+            }
+            for (DictWord dictWord : added) {
+                if (isSuffix(dictWord)) {
+                    SearchService.addSuffix(dictWord);
+                } else {
+                    customDictionary.insert(dictWord.getWord(), dictWord.getNatureWithFrequency());
+                }
             }
         }
-        String natureWithFrequency = sb.toString();
-        int len = natureWithFrequency.length();
-        log.info("filtered natureWithFrequency:{}", natureWithFrequency);
-        if (StringUtils.isNotBlank(natureWithFrequency)) {
-            getDynamicCustomDictionary().add(dictWord.getWord(),
-                    natureWithFrequency.substring(0, len - 1));
-        }
-        SearchService.remove(dictWord, natureList.toArray(new Nature[0]));
+    }
+
+    private static boolean isSuffix(DictWord dictWord) {
+        return dictWord.getNatureWithFrequency().contains(DictWordType.SUFFIX.getType());
     }
 
     public static <T extends MapResult> void transLetterOriginal(List<T> mapResults) {
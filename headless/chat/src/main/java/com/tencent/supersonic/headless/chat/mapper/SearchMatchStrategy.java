@@ -3,6 +3,7 @@ package com.tencent.supersonic.headless.chat.mapper;
 import com.google.common.collect.Lists;
 import com.tencent.supersonic.headless.api.pojo.response.S2Term;
 import com.tencent.supersonic.headless.chat.ChatQueryContext;
+import com.tencent.supersonic.headless.chat.knowledge.DictMatcher;
 import com.tencent.supersonic.headless.chat.knowledge.HanlpMapResult;
 import com.tencent.supersonic.headless.chat.knowledge.KnowledgeBaseService;
 import com.tencent.supersonic.headless.chat.knowledge.SearchService;
@@ -30,6 +31,11 @@ public class SearchMatchStrategy extends BaseMatchStrategy<HanlpMapResult> {
     @Autowired
     private MapperHelper mapperHelper;
 
+    /**
+     * Looks for dictionary words completing the tail of the question. With the dictionary matcher
+     * only the longest tail that has completions is searched, which is the one retrieval suggests
+     * completions for.
+     */
     @Override
     public Map<MatchText, List<HanlpMapResult>> match(ChatQueryContext chatQueryContext,
             List<S2Term> originals, Set<Long> detectDataSetIds) {
@@ -50,24 +56,45 @@ public class SearchMatchStrategy extends BaseMatchStrategy<HanlpMapResult> {
                 index++;
             }
         }
+        DictMatcher dictMatcher = knowledgeBaseService.getDictMatcher();
+        if (Objects.isNull(dictMatcher)) {
+            return matchByOffset(chatQueryContext, text, detectIndexList, detectDataSetIds);
+        }
+        boolean[] detectable = new boolean[text.length()];
+        detectIndexList.forEach(detectIndex -> detectable[detectIndex] = true);
+        int detectIndex = dictMatcher.findLongestTail(text, detectable,
+                chatQueryContext.getModelIdToDataSetIds(), detectDataSetIds);
         Map<MatchText, List<HanlpMapResult>> regTextMap = new ConcurrentHashMap<>();
-        detectIndexList.stream().parallel().forEach(detectIndex -> {
-            String regText = text.substring(0, detectIndex);
-            String detectSegment = text.substring(detectIndex);
+        if (detectIndex >= 0) {
+            search(chatQueryContext, text, detectIndex, detectDataSetIds, regTextMap);
+        }
+        return regTextMap;
+    }
 
-            if (StringUtils.isNotEmpty(detectSegment)) {
-                List<HanlpMapResult> hanlpMapResults =
-                        knowledgeBaseService.prefixSearch(detectSegment, SearchService.SEARCH_SIZE,
-                                chatQueryContext.getModelIdToDataSetIds(), detectDataSetIds);
-                List<HanlpMapResult> suffixHanlpMapResults =
-                        knowledgeBaseService.suffixSearch(detectSegment, SEARCH_SIZE,
-                                chatQueryContext.getModelIdToDataSetIds(), detectDataSetIds);
-                hanlpMapResults.addAll(suffixHanlpMapResults);
-                MatchText matchText =
-                        MatchText.builder().regText(regText).detectSegment(detectSegment).build();
-                regTextMap.put(matchText, hanlpMapResults);
-            }
-        });
+    private Map<MatchText, List<HanlpMapResult>> matchByOffset(ChatQueryContext chatQueryContext,
+            String text, List<Integer> detectIndexList, Set<Long> detectDataSetIds) {
+        Map<MatchText, List<HanlpMapResult>> regTextMap = new ConcurrentHashMap<>();
+        detectIndexList.stream().parallel().forEach(detectIndex -> search(chatQueryContext, text,
+                detectIndex, detectDataSetIds, regTextMap));
         return regTextMap;
     }
+
+    private void search(ChatQueryContext chatQueryContext, String text, int detectIndex,
+            Set<Long> detectDataSetIds, Map<MatchText, List<HanlpMapResult>> regTextMap) {
+        String regText = text.substring(0, detectIndex);
+        String detectSegment = text.substring(detectIndex);
+
+        if (StringUtils.isNotEmpty(detectSegment)) {
+            List<HanlpMapResult> hanlpMapResults =
+                    knowledgeBaseService.prefixSearch(detectSegment, SearchService.SEARCH_SIZE,
+                            chatQueryContext.getModelIdToDataSetIds(), detectDataSetIds);
+            List<HanlpMapResult> suffixHanlpMapResults =
+                    knowledgeBaseService.suffixSearch(detectSegment, SEARCH_SIZE,
+                            chatQueryContext.getModelIdToDataSetIds(), detectDataSetIds);
+            hanlpMapResults.addAll(suffixHanlpMapResults);
+            MatchText matchText =
+                    MatchText.builder().regText(regText).detectSegment(detectSegment).build();
+            regTextMap.put(matchText, hanlpMapResults);
+        }
+    }
 }
@@ -3,6 +3,7 @@ package com.tencent.supersonic.headless.chat.parser.llm;
 import com.tencent.supersonic.common.pojo.ChatApp;
 import com.tencent.supersonic.common.pojo.ChatModelConfig;
 import com.tencent.supersonic.common.util.ContextUtils;
+import com.tencent.supersonic.common.util.StageMetrics;
 import com.tencent.supersonic.headless.chat.ChatQueryContext;
 import com.tencent.supersonic.headless.chat.parser.SemanticParser;
 import com.tencent.supersonic.headless.chat.query.llm.s2sql.LLMReq;
@@ -23,6 +24,9 @@ import java.util.Objects;
 @Slf4j
 public class LLMSqlParser implements SemanticParser {
 
+    /** the stage of the calls to the model, run within the parsing stage */
+    public static final String LLM_STAGE = "LLM";
+
     @Override
     public void parse(ChatQueryContext queryCtx) {
         try {
@@ -46,6 +50,23 @@ public class LLMSqlParser implements SemanticParser {
         }
     }
 
+    /** runs the text-to-SQL call, recording its time cost also when the call fails */
+    private LLMResp runText2SQL(ChatQueryContext queryCtx, LLMRequestService requestService,
+            LLMReq llmReq) {
+        long start = System.currentTimeMillis();
+        try {
+            return requestService.runText2SQL(llmReq);
+        } finally {
+            long cost = System.currentTimeMillis() - start;
+            String component = String.valueOf(llmReq.getSqlGenType());
+            if (Objects.nonNull(queryCtx.getParseResp())) {
+                queryCtx.getParseResp().getParseTimeCost().addStageCost(LLM_STAGE, component,
+                        cost);
+            }
+            StageMetrics.record(LLM_STAGE, component, cost);
+        }
+    }
+
     private void tryParse(ChatQueryContext queryCtx, Long dataSetId) {
         LLMRequestService requestService = ContextUtils.getBean(LLMRequestService.class);
         LLMResponseService responseService = ContextUtils.getBean(LLMResponseService.class);
@@ -59,7 +80,7 @@ public class LLMSqlParser implements SemanticParser {
         while (currentRetry <= maxRetries) {
             log.info("currentRetryRound:{}, start runText2SQL", currentRetry);
             try {
-                LLMResp llmResp = requestService.runText2SQL(llmReq);
+                LLMResp llmResp = runText2SQL(queryCtx, requestService, llmReq);
                 if (Objects.nonNull(llmResp)) {
                     // deduplicate the S2SQL result list and build parserInfo
                     sqlRespMap = responseService.getDeduplicationSqlResp(currentRetry, llmResp);
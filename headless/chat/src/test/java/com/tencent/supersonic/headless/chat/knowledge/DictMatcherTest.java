@@ -0,0 +1,150 @@
+package com.tencent.supersonic.headless.chat.knowledge;
+
+import com.hankcs.hanlp.dictionary.CoreDictionary;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+class DictMatcherTest {
+
+    private static final String ALPHABET = "abcde销售额部门";
+    private static final Map<Long, List<Long>> MODEL_TO_DATASETS =
+            Map.of(1L, List.of(10L), 2L, List.of(10L, 11L), 3L, List.of(12L));
+    private static final List<Set<Long>> DETECT_DATASETS = List.of(Collections.emptySet(),
+            Set.of(10L), Set.of(11L), Set.of(12L), Set.of(10L, 12L), Set.of(13L));
+
+    @BeforeEach
+    void setUp() {
+        SearchService.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SearchService.clear();
+    }
+
+    @Test
+    void testFindLongestTail() {
+        SearchService.put("销售额", CoreDictionary.Attribute.create("_1_2_metric 100"));
+        SearchService.put("部门", CoreDictionary.Attribute.create("_3_4_dimension 100"));
+        SearchService.put("abc", CoreDictionary.Attribute.create("_1_5 100"));
+        DictMatcher matcher = SearchService.buildDictMatcher();
+
+        String text = "xx部门的销";
+        Assertions.assertEquals(5, matcher.findLongestTail(text, detectable(text, null),
+                MODEL_TO_DATASETS, Collections.emptySet()));
+        // the metric belongs to data set 10 only
+        Assertions.assertEquals(-1, matcher.findLongestTail(text, detectable(text, null),
+                MODEL_TO_DATASETS, Set.of(12L)));
+        // a tail is only searched from a detectable offset
+        text = "zab";
+        Assertions.assertEquals(1, matcher.findLongestTail(text, detectable(text, null),
+                MODEL_TO_DATASETS, Set.of(10L)));
+        Assertions.assertEquals(-1, matcher.findLongestTail(text, detectable(text, Set.of(0, 2)),
+                MODEL_TO_DATASETS, Set.of(10L)));
+    }
+
+    @Test
+    void testAgreesWithTrieSearch() {
+        Random random = new Random(3);
+        fillDictionary(random, 300);
+        DictMatcher matcher = SearchService.buildDictMatcher();
+        for (int i = 0; i < 2000; i++) {
+            String text = randomWord(random, 1 + random.nextInt(12));
+            Set<Long> detectDataSetIds =
+                    DETECT_DATASETS.get(random.nextInt(DETECT_DATASETS.size()));
+            boolean[] detectable = new boolean[text.length()];
+            for (int j = 0; j < detectable.length; j++) {
+                detectable[j] = random.nextInt(5) > 0;
+            }
+            Assertions.assertEquals(findLongestTailBySearch(text, detectable, detectDataSetIds),
+                    matcher.findLongestTail(text, detectable, MODEL_TO_DATASETS, detectDataSetIds),
+                    text + " " + detectDataSetIds + " " + Arrays.toString(detectable));
+        }
+    }
+
+    @Test
+    void testStaleAfterChange() {
+        SearchService.put("abc", CoreDictionary.Attribute.create("_1_5 100"));
+        DictMatcher matcher = SearchService.buildDictMatcher();
+        Assertions.assertSame(matcher, SearchService.getDictMatcher());
+        SearchService.put("abd", CoreDictionary.Attribute.create("_1_5 100"));
+        Assertions.assertNotSame(matcher, SearchService.getDictMatcher());
+    }
+
+    /** what SearchMatchStrategy did before the matcher, a prefix and suffix search per offset */
+    private static int findLongestTailBySearch(String text, boolean[] detectable,
+            Set<Long> detectDataSetIds) {
+        for (int i = 0; i < text.length(); i++) {
+            if (!detectable[i]) {
+                continue;
+            }
+            String segment = text.substring(i);
+            if (!SearchService.prefixSearch(segment, SearchService.SEARCH_SIZE, MODEL_TO_DATASETS,
+                    detectDataSetIds).isEmpty()
+                    || !SearchService.suffixSearch(segment, 3, MODEL_TO_DATASETS, detectDataSetIds)
+                            .isEmpty()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void fillDictionary(Random random, int size) {
+        List<DictWord> suffixes = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            String word = randomWord(random, 1 + random.nextInt(5));
+            long model = 1 + random.nextInt(4);
+            String nature;
+            switch (random.nextInt(4)) {
+                case 0:
+                    nature = String.format("_%d_%d_metric", model, i);
+                    break;
+                case 1:
+                    nature = String.format("_%d_%d_dimension", model, i);
+                    break;
+                case 2:
+                    nature = String.format("_%d_%d_term", 10 + random.nextInt(4), i);
+                    break;
+                default:
+                    nature = String.format("_%d_%d", model, i);
+                    break;
+            }
+            SearchService.put(word, CoreDictionary.Attribute.create(nature + " 100"));
+            if (nature.endsWith("metric") || nature.endsWith("dimension")) {
+                DictWord suffix = new DictWord();
+                suffix.setWord(StringUtils.reverse(word));
+                suffix.setNatureWithFrequency(
+                        nature.replaceFirst("_(metric|dimension)$", "_suffix_$1") + " 100");
+                suffixes.add(suffix);
+            }
+        }
+        SearchService.loadSuffix(suffixes);
+    }
+
+    private static String randomWord(Random random, int length) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return sb.toString();
+    }
+
+    private static boolean[] detectable(String text, Set<Integer> offsets) {
+        boolean[] detectable = new boolean[text.length()];
+        for (int i = 0; i < text.length(); i++) {
+            detectable[i] = offsets == null || offsets.contains(i);
+        }
+        return detectable;
+    }
+}
@@ -0,0 +1,90 @@
+package com.tencent.supersonic.headless.chat.knowledge;
+
+import com.hankcs.hanlp.dictionary.CoreDictionary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+class SearchServiceTest {
+
+    private static final Map<Long, List<Long>> MODEL_TO_DATASETS = Map.of(1L, List.of(10L));
+
+    @BeforeEach
+    void setUp() {
+        SearchService.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SearchService.endReload();
+        SearchService.clear();
+    }
+
+    @Test
+    void testReloadIsPublishedAtOnce() throws Exception {
+        SearchService.put("销售额", CoreDictionary.Attribute.create("_1_2_metric 100"));
+        long generation = SearchService.getGeneration();
+
+        SearchService.Tries staged = SearchService.beginReload();
+        SearchService.put("部门", CoreDictionary.Attribute.create("_1_3_dimension 100"));
+        // the other threads keep searching the published tries meanwhile
+        Assertions.assertEquals(List.of("销售额"),
+                CompletableFuture.supplyAsync(() -> prefixSearch("销")).get());
+        Assertions
+                .assertTrue(CompletableFuture.supplyAsync(() -> prefixSearch("部")).get().isEmpty());
+
+        Assertions.assertEquals(generation + 1, SearchService.publish(staged));
+        Assertions.assertEquals(generation + 1, SearchService.getGeneration());
+        Assertions.assertEquals(List.of("部门"), prefixSearch("部"));
+        Assertions.assertTrue(prefixSearch("销").isEmpty());
+    }
+
+    @Test
+    void testAbandonedReloadKeepsGeneration() {
+        SearchService.put("销售额", CoreDictionary.Attribute.create("_1_2_metric 100"));
+        long generation = SearchService.getGeneration();
+
+        SearchService.beginReload();
+        SearchService.put("部门", CoreDictionary.Attribute.create("_1_3_dimension 100"));
+        SearchService.endReload();
+
+        Assertions.assertEquals(generation, SearchService.getGeneration());
+        Assertions.assertEquals(List.of("销售额"), prefixSearch("销"));
+        Assertions.assertTrue(prefixSearch("部").isEmpty());
+    }
+
+    @Test
+    void testSuffixNaturesAreMerged() {
+        SearchService.addSuffix(suffix("额售销", "_1_2_suffix_metric"));
+        SearchService.addSuffix(suffix("额售销", "_1_3_suffix_metric"));
+        Assertions.assertEquals(List.of("_10_2_metric", "_10_3_metric"), suffixNatures("销售额"));
+
+        SearchService.removeSuffix(suffix("额售销", "_1_2_suffix_metric"));
+        Assertions.assertEquals(List.of("_10_3_metric"), suffixNatures("销售额"));
+        SearchService.removeSuffix(suffix("额售销", "_1_3_suffix_metric"));
+        Assertions.assertTrue(suffixNatures("销售额").isEmpty());
+    }
+
+    private static DictWord suffix(String word, String nature) {
+        return DictWord.builder().word(word).nature(nature).natureWithFrequency(nature + " 100")
+                .build();
+    }
+
+    private static List<String> suffixNatures(String key) {
+        return SearchService
+                .suffixSearch(key, SearchService.SEARCH_SIZE, MODEL_TO_DATASETS,
+                        Collections.emptySet())
+                .stream().flatMap(result -> result.getNatures().stream()).toList();
+    }
+
+    private static List<String> prefixSearch(String key) {
+        return SearchService.prefixSearch(key, SearchService.SEARCH_SIZE, MODEL_TO_DATASETS,
+                Collections.emptySet()).stream().map(HanlpMapResult::getName).toList();
+    }
+}
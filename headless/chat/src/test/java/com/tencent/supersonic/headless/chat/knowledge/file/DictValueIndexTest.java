@@ -0,0 +1,79 @@
+package com.tencent.supersonic.headless.chat.knowledge.file;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+class DictValueIndexTest {
+
+    private static final String ALPHABET = "abc#北京上海";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testReadLines() throws Exception {
+        Path file = dir.resolve("dic_value_1_DIMENSION_2.txt");
+        Files.write(file, List.of("北京 _1_2 100", "上海 _1_2 90", "", "new#york _1_2 80"),
+                StandardCharsets.UTF_8);
+        DictValueIndex index = DictValueIndex.open(file);
+
+        Assertions.assertEquals(4, index.getLineCount());
+        Assertions.assertEquals(List.of("上海 _1_2 90", ""), index.readLines(1, 3));
+        Assertions.assertEquals(List.of("new#york _1_2 80"), index.readLines(3, 10));
+        Assertions.assertArrayEquals(new int[] {3}, index.find("w y"));
+        Assertions.assertArrayEquals(new int[] {0}, index.find("京"));
+        Assertions.assertArrayEquals(new int[0], index.find("京上"));
+    }
+
+    @Test
+    void testFindAgreesWithScan() throws Exception {
+        Random random = new Random(7);
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            lines.add(randomWord(random, 1 + random.nextInt(8)) + " _1_2 " + random.nextInt(100));
+        }
+        Path file = dir.resolve("values.txt");
+        Files.write(file, lines, StandardCharsets.UTF_8);
+        DictValueIndex index = DictValueIndex.open(file);
+
+        for (int i = 0; i < 500; i++) {
+            String key = randomWord(random, 1 + random.nextInt(4)).replace("#", " ");
+            int[] expected = IntStream.range(0, lines.size())
+                    .filter(line -> lines.get(line).split(" ")[0].replace("#", " ").contains(key))
+                    .toArray();
+            Assertions.assertArrayEquals(expected, index.find(key), key);
+        }
+    }
+
+    @Test
+    void testRebuiltAfterChange() throws Exception {
+        Path file = dir.resolve("values.txt");
+        Files.write(file, List.of("北京 _1_2 100"), StandardCharsets.UTF_8);
+        Assertions.assertTrue(DictValueIndex.open(file).isCurrent());
+        Assertions.assertTrue(Files.exists(DictValueIndex.getIndexPath(file)));
+
+        Files.write(file, List.of("北京 _1_2 100", "上海 _1_2 90"), StandardCharsets.UTF_8);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 1000));
+        DictValueIndex index = DictValueIndex.open(file);
+        Assertions.assertEquals(2, index.getLineCount());
+        Assertions.assertArrayEquals(new int[] {1}, index.find("上海"));
+    }
+
+    private static String randomWord(Random random, int length) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return sb.toString();
+    }
+}
@@ -1,5 +1,7 @@
 package com.tencent.supersonic.headless.core.cache;
 
+import java.util.function.Predicate;
+
 public interface CacheManager {
 
     Boolean put(String key, Object value);
@@ -9,4 +11,11 @@ public interface CacheManager {
     String generateCacheKey(String prefix, String body);
 
     Boolean removeCache(String key);
+
+    /**
+     * Removes the entries whose key was generated with a prefix accepted by the filter.
+     *
+     * @return the number of removed entries
+     */
+    int removeCacheByPrefix(Predicate<String> prefixFilter);
 }
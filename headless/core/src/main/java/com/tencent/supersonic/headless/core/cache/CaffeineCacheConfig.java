@@ -21,12 +21,19 @@ public class CaffeineCacheConfig {
     @Value("${s2.caffeine.max.size:5000}")
     private Integer caffeineMaximumSize;
 
+    @Value("${s2.caffeine.max.bytes:268435456}")
+    private Long caffeineMaximumBytes;
+
+    /**
+     * Query results are bounded by their estimated size, a detail result weighs more than a KPI.
+     */
     @Bean(name = "caffeineCache")
     public Cache<String, Object> caffeineCache() {
         return Caffeine.newBuilder()
                 .expireAfterWrite(cacheCommonConfig.getCacheCommonExpireAfterWrite(),
                         TimeUnit.MINUTES)
-                .initialCapacity(caffeineInitialCapacity).maximumSize(caffeineMaximumSize).build();
+                .initialCapacity(caffeineInitialCapacity).maximumWeight(caffeineMaximumBytes)
+                .weigher(new QueryResultWeigher()).build();
     }
 
     @Bean(name = "searchCaffeineCache")
@@ -8,6 +8,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
 @Component
 @Slf4j
 public class CaffeineCacheManager implements CacheManager {
@@ -38,9 +41,7 @@ public class CaffeineCacheManager implements CacheManager {
         if (StringUtils.isEmpty(prefix)) {
             prefix = "-1";
         }
-        return Joiner.on(":").join(cacheCommonConfig.getCacheCommonApp(),
-                cacheCommonConfig.getCacheCommonEnv(), cacheCommonConfig.getCacheCommonVersion(),
-                prefix, body);
+        return Joiner.on(":").join(keyHead(), prefix, body);
     }
 
     @Override
@@ -48,4 +49,29 @@ public class CaffeineCacheManager implements CacheManager {
         caffeineCache.asMap().remove(key);
         return true;
     }
+
+    @Override
+    public int removeCacheByPrefix(Predicate<String> prefixFilter) {
+        String head = keyHead() + ":";
+        AtomicInteger removed = new AtomicInteger();
+        caffeineCache.asMap().keySet().removeIf(key -> {
+            if (!key.startsWith(head)) {
+                return false;
+            }
+            // the body is a digest without separators, the prefix is everything before it
+            int end = key.lastIndexOf(':');
+            if (end < head.length() || !prefixFilter.test(key.substring(head.length(), end))) {
+                return false;
+            }
+            removed.incrementAndGet();
+            return true;
+        });
+        log.debug("[removeCacheByPrefix caffeineCache] removed:{}", removed.get());
+        return removed.get();
+    }
+
+    private String keyHead() {
+        return Joiner.on(":").join(cacheCommonConfig.getCacheCommonApp(),
+                cacheCommonConfig.getCacheCommonEnv(), cacheCommonConfig.getCacheCommonVersion());
+    }
 }
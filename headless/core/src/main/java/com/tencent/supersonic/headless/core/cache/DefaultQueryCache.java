@@ -1,20 +1,39 @@
 package com.tencent.supersonic.headless.core.cache;
 
+import com.tencent.supersonic.common.pojo.exception.QueryCancelledException;
 import com.tencent.supersonic.common.util.ContextUtils;
 import com.tencent.supersonic.headless.api.pojo.request.SemanticQueryReq;
+import com.tencent.supersonic.headless.api.pojo.response.SemanticQueryResp;
+import com.tencent.supersonic.headless.core.pojo.CancellationToken;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Component;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 @Component
 @Slf4j
 public class DefaultQueryCache implements QueryCache {
 
+    private static final String UNKNOWN_MODELS = "-1";
+    /** how often a request waiting for an in-flight query checks its own cancellation */
+    private static final long JOIN_CHECK_INTERVAL_MS = 1000;
+
+    private final Map<String, InFlightQuery> inFlightQueries = new ConcurrentHashMap<>();
+
     public Object query(SemanticQueryReq semanticQueryReq, String cacheKey) {
         CacheManager cacheManager = ContextUtils.getBean(CacheManager.class);
         if (isCache(semanticQueryReq)) {
@@ -23,7 +42,8 @@ public class DefaultQueryCache implements QueryCache {
                 log.debug("query from cache, key:{},result:{}", cacheKey,
                         StringUtils.normalizeSpace(result.toString()));
             }
-            return result;
+            // callers modify the result, e.g. when mapping dimension values
+            return copyOf(result);
         }
         return null;
     }
@@ -43,6 +63,71 @@ public class DefaultQueryCache implements QueryCache {
         return false;
     }
 
+    public Object load(SemanticQueryReq semanticQueryReq, String cacheKey,
+            CancellationToken cancellationToken, Callable<Object> loader) throws Exception {
+        if (!isCache(semanticQueryReq)) {
+            // the request does not accept cached results, so it does not join others either
+            Object result = loader.call();
+            putNow(ContextUtils.getBean(CacheManager.class), cacheKey, copyOf(result));
+            return result;
+        }
+        InFlightQuery inFlightQuery = new InFlightQuery(semanticQueryReq.getModelIds());
+        InFlightQuery leader = inFlightQueries.putIfAbsent(cacheKey, inFlightQuery);
+        if (Objects.nonNull(leader)) {
+            log.debug("join in-flight query, key:{}", cacheKey);
+            try {
+                return copyOf(join(leader.result, cancellationToken));
+            } catch (QueryCancelledException e) {
+                // give up if this request was cancelled itself
+                if (Objects.nonNull(cancellationToken)) {
+                    cancellationToken.checkActive();
+                }
+                // the leader's caller gave up, which says nothing about this request
+                log.debug("in-flight query cancelled, run it again, key:{}", cacheKey);
+                Object result = loader.call();
+                putNow(ContextUtils.getBean(CacheManager.class), cacheKey, copyOf(result));
+                return result;
+            }
+        }
+        try {
+            Object result = loader.call();
+            // the caller modifies the result, so share an untouched copy with the cache and
+            // the requests waiting for it
+            Object shared = copyOf(result);
+            CacheManager cacheManager = ContextUtils.getBean(CacheManager.class);
+            if (putNow(cacheManager, cacheKey, shared) && inFlightQuery.stale) {
+                // a model changed while the query was running
+                cacheManager.removeCache(cacheKey);
+            }
+            inFlightQuery.result.complete(shared);
+            return result;
+        } catch (Throwable e) {
+            inFlightQuery.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightQueries.remove(cacheKey, inFlightQuery);
+        }
+    }
+
+    public void invalidate(Collection<Long> modelIds) {
+        Set<Long> changed = new HashSet<>(modelIds);
+        // mark in-flight queries first, so that they either see the mark or get removed below
+        inFlightQueries.values().removeIf(inFlightQuery -> {
+            if (inFlightQuery.modelIds.isEmpty()
+                    || inFlightQuery.modelIds.stream().anyMatch(changed::contains)) {
+                inFlightQuery.stale = true;
+                return true;
+            }
+            return false;
+        });
+        CacheManager cacheManager = ContextUtils.getBean(CacheManager.class);
+        int removed = cacheManager.removeCacheByPrefix(
+                prefix -> UNKNOWN_MODELS.equals(prefix) || Arrays.stream(prefix.split(","))
+                        .anyMatch(modelId -> StringUtils.isNumeric(modelId)
+                                && changed.contains(Long.valueOf(modelId))));
+        log.info("invalidate query cache of models:{}, removed:{}", changed, removed);
+    }
+
     public String getCacheKey(SemanticQueryReq semanticQueryReq) {
         CacheManager cacheManager = ContextUtils.getBean(CacheManager.class);
         String commandMd5 = semanticQueryReq.generateCommandMd5();
@@ -55,6 +140,69 @@ public class DefaultQueryCache implements QueryCache {
                 modelIds.stream().map(Object::toString).collect(Collectors.toList()));
     }
 
+    public boolean isCacheable(Object value) {
+        CacheCommonConfig cacheCommonConfig = ContextUtils.getBean(CacheCommonConfig.class);
+        if (!cacheCommonConfig.getCacheEnable() || Objects.isNull(value)) {
+            return false;
+        }
+        // a failed query is no answer to keep for the whole ttl
+        return !(value instanceof SemanticQueryResp)
+                || StringUtils.isBlank(((SemanticQueryResp) value).getErrorMsg());
+    }
+
+    private boolean putNow(CacheManager cacheManager, String cacheKey, Object value) {
+        if (!isCacheable(value)) {
+            return false;
+        }
+        try {
+            cacheManager.put(cacheKey, value);
+            log.debug("put to cache, key: {}", cacheKey);
+            return true;
+        } catch (Exception e) {
+            log.warn("exception:", e);
+            return false;
+        }
+    }
+
+    /**
+     * Waits for the result of an in-flight query, but no longer than the deadline of the waiting
+     * request and only until it is cancelled.
+     */
+    private Object join(CompletableFuture<Object> result, CancellationToken cancellationToken)
+            throws Exception {
+        try {
+            if (Objects.isNull(cancellationToken)) {
+                return result.get();
+            }
+            while (true) {
+                cancellationToken.checkActive();
+                long waitMs = JOIN_CHECK_INTERVAL_MS;
+                if (cancellationToken.getDeadline() > 0) {
+                    waitMs = Math.min(waitMs, Math.max(1,
+                            cancellationToken.getDeadline() - System.currentTimeMillis()));
+                }
+                try {
+                    return result.get(waitMs, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    // check the token again
+                }
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    private Object copyOf(Object value) {
+        return value instanceof SemanticQueryResp ? ((SemanticQueryResp) value).copy() : value;
+    }
+
     private boolean isCache(SemanticQueryReq semanticQueryReq) {
         CacheCommonConfig cacheCommonConfig = ContextUtils.getBean(CacheCommonConfig.class);
         if (!cacheCommonConfig.getCacheEnable()) {
@@ -65,4 +213,15 @@ public class DefaultQueryCache implements QueryCache {
         }
         return false;
     }
+
+    private static class InFlightQuery {
+
+        private final List<Long> modelIds;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        private volatile boolean stale;
+
+        private InFlightQuery(List<Long> modelIds) {
+            this.modelIds = modelIds;
+        }
+    }
 }
@@ -1,6 +1,10 @@
 package com.tencent.supersonic.headless.core.cache;
 
 import com.tencent.supersonic.headless.api.pojo.request.SemanticQueryReq;
+import com.tencent.supersonic.headless.core.pojo.CancellationToken;
+
+import java.util.Collection;
+import java.util.concurrent.Callable;
 
 public interface QueryCache {
 
@@ -9,4 +13,18 @@ public interface QueryCache {
     Boolean put(String cacheKey, Object value);
 
     String getCacheKey(SemanticQueryReq semanticQueryReq);
+
+    /**
+     * Runs the loader on a cache miss and caches its result. Concurrent requests with the same key
+     * share the execution that is already in flight instead of running the query again, waiting
+     * for it no longer than their own cancellation token allows.
+     */
+    Object load(SemanticQueryReq semanticQueryReq, String cacheKey,
+            CancellationToken cancellationToken, Callable<Object> loader) throws Exception;
+
+    /** Whether the result would be kept in the cache. */
+    boolean isCacheable(Object value);
+
+    /** Drops the cached and in-flight results of queries on any of the models. */
+    void invalidate(Collection<Long> modelIds);
 }
@@ -0,0 +1,52 @@
+package com.tencent.supersonic.headless.core.cache;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+import com.tencent.supersonic.headless.api.pojo.ColumnarResult;
+import com.tencent.supersonic.headless.api.pojo.response.SemanticQueryResp;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Weighs cached query results by their estimated size in bytes, so that the cache is bounded by
+ * memory rather than by the number of entries. Row based results are extrapolated from a sample of
+ * their rows.
+ */
+public class QueryResultWeigher implements Weigher<String, Object> {
+
+    private static final int SAMPLE_ROWS = 64;
+    private static final int ENTRY_BYTES = 256;
+    private static final int MAP_ENTRY_BYTES = 48;
+
+    @Override
+    public int weigh(String key, Object value) {
+        long weight = ENTRY_BYTES + 2L * key.length();
+        if (value instanceof SemanticQueryResp) {
+            weight += weighQueryResp((SemanticQueryResp) value);
+        }
+        return (int) Math.min(weight, Integer.MAX_VALUE);
+    }
+
+    private long weighQueryResp(SemanticQueryResp queryResp) {
+        long weight = ColumnarResult.estimateSize(queryResp.getSql());
+        ColumnarResult columnarResult = queryResp.getColumnarResult();
+        if (Objects.nonNull(columnarResult)) {
+            return weight + columnarResult.estimateSize();
+        }
+        List<Map<String, Object>> rows = queryResp.getResultList();
+        if (rows.isEmpty()) {
+            return weight;
+        }
+        int step = Math.max(1, rows.size() / SAMPLE_ROWS);
+        long sampled = 0;
+        int samples = 0;
+        for (int i = 0; i < rows.size(); i += step) {
+            for (Map.Entry<String, Object> entry : rows.get(i).entrySet()) {
+                sampled += MAP_ENTRY_BYTES + ColumnarResult.estimateSize(entry.getValue());
+            }
+            samples++;
+        }
+        return weight + sampled * rows.size() / samples;
+    }
+}
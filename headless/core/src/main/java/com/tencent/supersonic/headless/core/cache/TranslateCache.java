@@ -0,0 +1,134 @@
+package com.tencent.supersonic.headless.core.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tencent.supersonic.common.pojo.DateConf;
+import com.tencent.supersonic.common.util.JsonUtil;
+import com.tencent.supersonic.headless.api.pojo.response.QueryState;
+import com.tencent.supersonic.headless.core.pojo.OntologyQuery;
+import com.tencent.supersonic.headless.core.pojo.QueryStatement;
+import com.tencent.supersonic.headless.core.pojo.SqlQuery;
+import com.tencent.supersonic.headless.core.pojo.StructQuery;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the physical SQL translated from a semantic query so that repeated queries against an
+ * unchanged schema skip parsing and optimizing. Row permissions are applied to the request before
+ * translation, so they are part of the S2SQL/struct query that makes up the key; the user is part
+ * of the key as well so that a translation is never shared across users. Cached results are copied
+ * in and out, as the statement's ontology and sql queries are modified after translation.
+ */
+@Component
+@Slf4j
+public class TranslateCache {
+
+    private final Cache<String, TranslatedSql> translateCache;
+
+    @Value("${s2.translate.cache.enable:true}")
+    private boolean translateCacheEnable;
+
+    public TranslateCache(@Value("${s2.translate.cache.max.size:5000}") Integer maxSize,
+            @Value("${s2.translate.cache.expire.after.access:60}") Integer expireAfterAccess) {
+        this.translateCache = Caffeine.newBuilder().maximumSize(maxSize)
+                .expireAfterAccess(expireAfterAccess, TimeUnit.MINUTES).build();
+    }
+
+    public String getCacheKey(QueryStatement queryStatement) {
+        if (!translateCacheEnable || Objects.isNull(queryStatement.getSchemaVersion())) {
+            return null;
+        }
+        StringBuilder command = new StringBuilder();
+        command.append("schemaVersion:").append(queryStatement.getSchemaVersion());
+        if (Objects.nonNull(queryStatement.getUser())) {
+            command.append(",user:").append(queryStatement.getUser().getName());
+        }
+        // relative date conditions are resolved against today during translation
+        if (hasRelativeDate(queryStatement.getStructQuery())) {
+            command.append(",date:").append(LocalDate.now());
+        }
+        command.append(",dataSetId:").append(queryStatement.getDataSetId());
+        command.append(",isS2SQL:").append(queryStatement.getIsS2SQL());
+        command.append(",limit:").append(queryStatement.getLimit());
+        command.append(",enableOptimize:").append(queryStatement.getEnableOptimize());
+        SqlQuery sqlQuery = queryStatement.getSqlQuery();
+        if (Objects.nonNull(sqlQuery)) {
+            command.append(",table:").append(sqlQuery.getTable());
+            command.append(",sql:").append(StringUtils.normalizeSpace(sqlQuery.getSql()));
+        }
+        if (Objects.nonNull(queryStatement.getStructQuery())) {
+            command.append(",struct:").append(JsonUtil.toString(queryStatement.getStructQuery()));
+        }
+        return DigestUtils.md5Hex(command.toString());
+    }
+
+    private boolean hasRelativeDate(StructQuery structQuery) {
+        if (Objects.isNull(structQuery) || Objects.isNull(structQuery.getDateInfo())) {
+            return false;
+        }
+        DateConf.DateMode dateMode = structQuery.getDateInfo().getDateMode();
+        return DateConf.DateMode.RECENT.equals(dateMode)
+                || DateConf.DateMode.AVAILABLE.equals(dateMode);
+    }
+
+    /**
+     * Fills the translated result into the statement if the key is cached.
+     *
+     * @return whether the cache was hit
+     */
+    public boolean fill(String cacheKey, QueryStatement queryStatement) {
+        if (StringUtils.isBlank(cacheKey)) {
+            return false;
+        }
+        TranslatedSql translatedSql = translateCache.getIfPresent(cacheKey);
+        if (Objects.isNull(translatedSql)) {
+            return false;
+        }
+        queryStatement.setSql(translatedSql.getSql());
+        queryStatement.setErrMsg(translatedSql.getErrMsg());
+        queryStatement.setStatus(translatedSql.getStatus());
+        if (Objects.nonNull(translatedSql.getOntologyQuery())) {
+            queryStatement.setOntologyQuery(translatedSql.getOntologyQuery().copy());
+        }
+        // accelerators match the outer sql rewritten by the parsers
+        if (Objects.nonNull(translatedSql.getSqlQuery())) {
+            queryStatement.setSqlQuery(translatedSql.getSqlQuery().copy());
+        }
+        log.debug("translate from cache, key:{}", cacheKey);
+        return true;
+    }
+
+    public void put(String cacheKey, QueryStatement queryStatement) {
+        if (StringUtils.isBlank(cacheKey) || StringUtils.isBlank(queryStatement.getSql())) {
+            return;
+        }
+        TranslatedSql translatedSql = new TranslatedSql();
+        translatedSql.setSql(queryStatement.getSql());
+        translatedSql.setErrMsg(queryStatement.getErrMsg());
+        translatedSql.setStatus(queryStatement.getStatus());
+        if (Objects.nonNull(queryStatement.getOntologyQuery())) {
+            translatedSql.setOntologyQuery(queryStatement.getOntologyQuery().copy());
+        }
+        if (Objects.nonNull(queryStatement.getSqlQuery())) {
+            translatedSql.setSqlQuery(queryStatement.getSqlQuery().copy());
+        }
+        translateCache.put(cacheKey, translatedSql);
+    }
+
+    @Data
+    private static class TranslatedSql {
+        private String sql;
+        private String errMsg;
+        private QueryState status;
+        private OntologyQuery ontologyQuery;
+        private SqlQuery sqlQuery;
+    }
+}
@@ -20,6 +20,10 @@ public class ExecutorConfig {
     @Value("${s2.accelerator.duckDb.enable:false}")
     private Boolean duckEnable = false;
 
+    /** database file shared by all pooled connections, in-memory if blank */
+    @Value("${s2.accelerator.duckDb.file:/data1/duck/supersonic.duckdb}")
+    private String duckDbFile;
+
     @Value("${s2.accelerator.duckDb.temp:/data1/duck/tmp/}")
     private String duckDbTemp;
 
@@ -34,4 +38,28 @@ public class ExecutorConfig {
 
     @Value("${s2.accelerator.duckDb.threads:32}")
     private Integer threads;
+
+    @Value("${s2.accelerator.rollup.enable:false}")
+    private Boolean rollupEnable = false;
+
+    /** days of query statistics used to find hot metric/dimension combinations */
+    @Value("${s2.accelerator.rollup.statDays:7}")
+    private Integer rollupStatDays;
+
+    @Value("${s2.accelerator.rollup.minHits:20}")
+    private Integer rollupMinHits;
+
+    @Value("${s2.accelerator.rollup.maxTables:20}")
+    private Integer rollupMaxTables;
+
+    /** partitions kept in each rollup, counted back from yesterday as today is still open */
+    @Value("${s2.accelerator.rollup.days:30}")
+    private Integer rollupDays;
+
+    /** latest partitions reloaded on every refresh because they may still change */
+    @Value("${s2.accelerator.rollup.recentDays:2}")
+    private Integer rollupRecentDays;
+
+    @Value("${s2.accelerator.rollup.maxPartitionRows:1000000}")
+    private Integer rollupMaxPartitionRows;
 }
@@ -36,6 +36,10 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.springframework.util.CollectionUtils;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
@@ -116,7 +120,7 @@ public abstract class AbstractAccelerator implements QueryAccelerator {
         RelNode checkRel = project(checkBuilder, queryFieldList).build();
         relOptPlanner.setRoot(checkRel);
         RelNode optRel = relOptPlanner.findBestExp();
-        System.out.println(optRel.explain());
+        log.debug("materialization check plan: {}", optRel.explain());
         return !extractTableNames(optRel).contains(MATERIALIZATION_SYS_SOURCE);
     }
 
@@ -136,6 +140,7 @@ public abstract class AbstractAccelerator implements QueryAccelerator {
     protected RelOptPlanner getRelOptPlanner() {
         HepProgramBuilder hepProgramBuilder = new HepProgramBuilder();
         hepProgramBuilder.addRuleInstance(MaterializedViewRules.PROJECT_FILTER);
+        hepProgramBuilder.addRuleInstance(MaterializedViewRules.FILTER);
         RelOptPlanner relOptPlanner = new HepPlanner(hepProgramBuilder.build());
         return relOptPlanner;
     }
@@ -199,17 +204,52 @@ public abstract class AbstractAccelerator implements QueryAccelerator {
 
     protected RexNode getRexNode(RelBuilder relBuilder, Materialization materialization,
             String viewField) {
-        RexNode rexNode = null;
-        for (String partition : materialization.getPartitions()) {
-            TimeRange timeRange = TimeRange.builder().start(partition).end(partition).build();
-            if (rexNode == null) {
-                rexNode = getRexNodeByTimeRange(relBuilder, timeRange, viewField);
+        return getRexNode(relBuilder, getPartitionRanges(materialization), viewField);
+    }
+
+    /**
+     * Merges consecutive daily partitions into one range, so that a date range of a query can be
+     * proved to be covered by them. Partitions are kept as single points if their time format is
+     * unknown.
+     */
+    protected List<ImmutablePair<String, String>> getPartitionRanges(
+            Materialization materialization) {
+        List<ImmutablePair<String, String>> ranges = new ArrayList<>();
+        List<String> partitions =
+                materialization.getPartitions().stream().sorted().collect(Collectors.toList());
+        DateTimeFormatter formatter = null;
+        if (StringUtils.isNotBlank(materialization.getPartitionTimeFormat())) {
+            formatter = DateTimeFormatter.ofPattern(materialization.getPartitionTimeFormat());
+        }
+        String start = null;
+        String end = null;
+        for (String partition : partitions) {
+            if (start != null && isNextDay(formatter, end, partition)) {
+                end = partition;
                 continue;
             }
-            rexNode = relBuilder.call(SqlStdOperatorTable.OR, rexNode,
-                    getRexNodeByTimeRange(relBuilder, timeRange, viewField));
+            if (start != null) {
+                ranges.add(ImmutablePair.of(start, end));
+            }
+            start = partition;
+            end = partition;
+        }
+        if (start != null) {
+            ranges.add(ImmutablePair.of(start, end));
+        }
+        return ranges;
+    }
+
+    private static boolean isNextDay(DateTimeFormatter formatter, String day, String next) {
+        if (formatter == null) {
+            return false;
+        }
+        try {
+            return LocalDate.parse(day, formatter).plusDays(1)
+                    .equals(LocalDate.parse(next, formatter));
+        } catch (DateTimeParseException e) {
+            return false;
         }
-        return rexNode;
     }
 
     protected RexNode getRexNode(RelBuilder relBuilder,
@@ -0,0 +1,203 @@
+package com.tencent.supersonic.headless.core.executor;
+
+import com.tencent.supersonic.common.pojo.exception.QueryRejectedException;
+import com.tencent.supersonic.headless.api.pojo.enums.QueryPriority;
+import com.tencent.supersonic.headless.core.pojo.DataSourceStats;
+import lombok.Getter;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admission control in front of the connection pool of one database. No more queries run at once
+ * than the pool has connections, the others wait in a bounded queue and are rejected right away
+ * once it is full, so that a burst fails fast instead of piling up on the pool. Interactive queries
+ * are admitted ahead of batch ones, and batch queries never take the connections reserved for
+ * interactive ones.
+ */
+public class DataSourceAdmission {
+
+    private final String name;
+    @Getter
+    private final int maxActive;
+    @Getter
+    private final int maxBatchActive;
+    @Getter
+    private final int queueSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Deque<Waiter> interactiveWaiters = new ArrayDeque<>();
+    private final Deque<Waiter> batchWaiters = new ArrayDeque<>();
+    private int active;
+    private int batchActive;
+    private long admittedCount;
+    private long rejectedCount;
+    private long timeoutCount;
+    private long queuedCount;
+    private long queuedMillis;
+
+    /**
+     * @param reserved connections kept for interactive queries, batch queries get at least one
+     */
+    public DataSourceAdmission(String name, int maxActive, int reserved, int queueSize) {
+        this.name = name;
+        this.maxActive = Math.max(1, maxActive);
+        this.maxBatchActive = Math.max(1, this.maxActive - Math.max(0, reserved));
+        this.queueSize = Math.max(0, queueSize);
+    }
+
+    /**
+     * Waits up to the timeout for a turn to run a query.
+     *
+     * @return the permit to close once the query is done
+     * @throws QueryRejectedException if the queue is full or the timeout elapsed
+     */
+    public Permit acquire(QueryPriority priority, long timeoutMs) {
+        boolean batch = QueryPriority.BATCH.equals(priority);
+        lock.lock();
+        try {
+            if (canRun(batch) && interactiveWaiters.isEmpty()
+                    && (!batch || batchWaiters.isEmpty())) {
+                return admit(batch);
+            }
+            int waiting = interactiveWaiters.size() + batchWaiters.size();
+            if (waiting >= queueSize) {
+                rejectedCount++;
+                throw new QueryRejectedException(String.format(
+                        "database %s is busy, %d queries running and %d waiting, try again later",
+                        name, active, waiting));
+            }
+            Waiter waiter = new Waiter(lock.newCondition());
+            Deque<Waiter> waiters = batch ? batchWaiters : interactiveWaiters;
+            waiters.addLast(waiter);
+            long start = System.currentTimeMillis();
+            long nanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, timeoutMs));
+            try {
+                while (!waiter.admitted) {
+                    if (nanos <= 0) {
+                        waiters.remove(waiter);
+                        timeoutCount++;
+                        throw new QueryRejectedException(String.format(
+                                "database %s is busy, no connection within %d ms, try again later",
+                                name, timeoutMs));
+                    }
+                    nanos = waiter.condition.awaitNanos(nanos);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (waiter.admitted) {
+                    release(batch);
+                } else {
+                    waiters.remove(waiter);
+                }
+                throw new QueryRejectedException(
+                        String.format("interrupted while waiting for database %s", name));
+            }
+            queuedCount++;
+            queuedMillis += System.currentTimeMillis() - start;
+            return new Permit(batch);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean hasSameLimits(DataSourceAdmission other) {
+        return maxActive == other.maxActive && maxBatchActive == other.maxBatchActive
+                && queueSize == other.queueSize;
+    }
+
+    public void fillStats(DataSourceStats stats) {
+        lock.lock();
+        try {
+            stats.setMaxActive(maxActive);
+            stats.setMaxBatchActive(maxBatchActive);
+            stats.setQueueSize(queueSize);
+            stats.setRunning(active);
+            stats.setRunningBatch(batchActive);
+            stats.setWaitingInteractive(interactiveWaiters.size());
+            stats.setWaitingBatch(batchWaiters.size());
+            stats.setAdmittedCount(admittedCount);
+            stats.setRejectedCount(rejectedCount);
+            stats.setTimeoutCount(timeoutCount);
+            stats.setAvgQueueMillis(queuedCount == 0 ? 0 : queuedMillis / queuedCount);
+            stats.setSaturation((double) (active + interactiveWaiters.size() + batchWaiters.size())
+                    / maxActive);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean canRun(boolean batch) {
+        return active < maxActive && (!batch || batchActive < maxBatchActive);
+    }
+
+    private Permit admit(boolean batch) {
+        active++;
+        if (batch) {
+            batchActive++;
+        }
+        admittedCount++;
+        return new Permit(batch);
+    }
+
+    private void release(boolean batch) {
+        lock.lock();
+        try {
+            active--;
+            if (batch) {
+                batchActive--;
+            }
+            handOver();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** hands the free connections to the waiters, interactive ones first */
+    private void handOver() {
+        while (canRun(false) && !interactiveWaiters.isEmpty()) {
+            admit(false);
+            interactiveWaiters.pollFirst().signal();
+        }
+        while (canRun(true) && !batchWaiters.isEmpty()) {
+            admit(true);
+            batchWaiters.pollFirst().signal();
+        }
+    }
+
+    /** the turn of one query, closing it lets the next waiter run */
+    public class Permit implements AutoCloseable {
+
+        private final boolean batch;
+        private boolean closed;
+
+        private Permit(boolean batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                release(batch);
+            }
+        }
+    }
+
+    private static class Waiter {
+
+        private final Condition condition;
+        private boolean admitted;
+
+        private Waiter(Condition condition) {
+            this.condition = condition;
+        }
+
+        private void signal() {
+            admitted = true;
+            condition.signal();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.tencent.supersonic.headless.core.executor;
+
+import com.tencent.supersonic.common.pojo.exception.QueryRejectedException;
+import com.tencent.supersonic.headless.core.pojo.DataSourceStats;
+
+/**
+ * Connection health of one database. After a failed connection attempt queries are rejected right
+ * away until an exponentially growing backoff has passed, instead of sleeping on the request thread
+ * between retries. The first query after the backoff probes the database again.
+ */
+public class DataSourceHealth {
+
+    private static final long BASE_BACKOFF_MILLIS = 2000;
+
+    private final String name;
+    private final long maxBackoffMillis;
+    private int failures;
+    private long retryAt;
+    private String lastError;
+
+    public DataSourceHealth(String name, long maxBackoffMillis) {
+        this.name = name;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    /** throws if the database is backing off from a connection failure */
+    public synchronized void checkAvailable() {
+        long waitMillis = retryAt - System.currentTimeMillis();
+        if (failures > 0 && waitMillis > 0) {
+            throw new QueryRejectedException(String.format(
+                    "database %s is unavailable after %d failed connection attempts, retry in %d s: %s",
+                    name, failures, (waitMillis + 999) / 1000, lastError));
+        }
+    }
+
+    public synchronized void onSuccess() {
+        failures = 0;
+        retryAt = 0;
+        lastError = null;
+    }
+
+    public synchronized void onFailure(Throwable e) {
+        failures++;
+        long backoff = BASE_BACKOFF_MILLIS << Math.min(failures - 1, 16);
+        retryAt = System.currentTimeMillis() + Math.min(backoff, maxBackoffMillis);
+        lastError = e.getMessage();
+    }
+
+    public synchronized void fillStats(DataSourceStats stats) {
+        stats.setHealthy(failures == 0);
+        stats.setConnectFailures(failures);
+        stats.setRetryAt(failures > 0 ? retryAt : null);
+        stats.setLastError(lastError);
+    }
+}
@@ -0,0 +1,355 @@
+package com.tencent.supersonic.headless.core.executor;
+
+import com.tencent.supersonic.common.jsqlparser.SqlSelectHelper;
+import com.tencent.supersonic.common.util.ContextUtils;
+import com.tencent.supersonic.headless.api.pojo.enums.AggOption;
+import com.tencent.supersonic.headless.api.pojo.response.SemanticQueryResp;
+import com.tencent.supersonic.headless.core.config.ExecutorConfig;
+import com.tencent.supersonic.headless.core.pojo.DuckDbSource;
+import com.tencent.supersonic.headless.core.pojo.Materialization;
+import com.tencent.supersonic.headless.core.pojo.QueryStatement;
+import com.tencent.supersonic.headless.core.utils.JdbcDuckDbUtils;
+import lombok.extern.slf4j.Slf4j;
+import net.sf.jsqlparser.expression.BinaryExpression;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.ExpressionVisitorAdapter;
+import net.sf.jsqlparser.expression.Function;
+import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
+import net.sf.jsqlparser.expression.operators.relational.Between;
+import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
+import net.sf.jsqlparser.expression.operators.relational.GreaterThan;
+import net.sf.jsqlparser.expression.operators.relational.GreaterThanEquals;
+import net.sf.jsqlparser.expression.operators.relational.MinorThan;
+import net.sf.jsqlparser.expression.operators.relational.MinorThanEquals;
+import net.sf.jsqlparser.expression.operators.relational.ParenthesedExpressionList;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.statement.select.AllColumns;
+import net.sf.jsqlparser.statement.select.OrderByElement;
+import net.sf.jsqlparser.statement.select.PlainSelect;
+import net.sf.jsqlparser.statement.select.SelectItem;
+import org.apache.calcite.plan.RelOptPlanner;
+import org.apache.calcite.prepare.CalciteCatalogReader;
+import org.apache.calcite.tools.RelBuilder;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Answers aggregate queries from rollup tables kept in duckDb. A rollup holds the metrics of a data
+ * set pre-aggregated by a fixed set of dimensions and the partition dimension, one partition per
+ * day. A query is rewritten to a rollup if it only groups and filters by the dimensions of the
+ * rollup, aggregates its metrics with the function they were rolled up with, and its date range is
+ * covered by the loaded partitions.
+ */
+@Slf4j
+public class DuckDbAccelerator extends AbstractAccelerator {
+
+    private static final Set<String> ROLLUP_AGGREGATES = Set.of("SUM", "MAX", "MIN");
+
+    private final ThreadLocal<Materialization> matched = new ThreadLocal<>();
+
+    private volatile Map<Long, List<Materialization>> materializations = Collections.emptyMap();
+
+    @Override
+    public boolean reload() {
+        if (!isEnabled()) {
+            return false;
+        }
+        try {
+            materializations =
+                    JdbcDuckDbUtils.listMaterializations(ContextUtils.getBean(DuckDbSource.class))
+                            .stream().filter(m -> !m.getPartitions().isEmpty())
+                            .collect(Collectors.groupingBy(Materialization::getDataSetId));
+            log.info("reload rollups of data sets {}", materializations.keySet());
+            return true;
+        } catch (Exception e) {
+            log.error("reload rollups error", e);
+            return false;
+        }
+    }
+
+    @Override
+    public boolean check(QueryStatement queryStatement) {
+        matched.remove();
+        if (materializations.isEmpty() || Objects.isNull(queryStatement.getSqlQuery())
+                || Objects.isNull(queryStatement.getOntologyQuery())
+                || !AggOption.AGGREGATION.equals(queryStatement.getOntologyQuery().getAggOption())
+                || !isEnabled()) {
+            return false;
+        }
+        List<Materialization> candidates = materializations
+                .getOrDefault(queryStatement.getDataSetId(), Collections.emptyList());
+        if (candidates.isEmpty()) {
+            return false;
+        }
+        Materialization materialization = match(queryStatement.getSqlQuery().getSql(), candidates);
+        if (Objects.isNull(materialization)) {
+            return false;
+        }
+        matched.set(materialization);
+        return true;
+    }
+
+    @Override
+    public SemanticQueryResp query(QueryStatement queryStatement) {
+        Materialization materialization = matched.get();
+        matched.remove();
+        if (Objects.isNull(materialization)) {
+            return null;
+        }
+        String sql = String.format("WITH %s AS (SELECT * FROM %s) %s",
+                queryStatement.getSqlQuery().getTable(), materialization.getName(),
+                queryStatement.getSqlQuery().getSql().replace('`', '"'));
+        SemanticQueryResp queryResp = new SemanticQueryResp();
+        try {
+            ContextUtils.getBean(DuckDbSource.class).query(sql, queryResp);
+            queryResp.setSql(StringUtils.normalizeSpace(sql));
+            return queryResp;
+        } catch (Exception e) {
+            log.warn("query rollup {} error, fall back to the data source",
+                    materialization.getName(), e);
+            return null;
+        }
+    }
+
+    /** returns the rollup with the fewest dimensions that answers the sql, null if none */
+    protected Materialization match(String sql, List<Materialization> candidates) {
+        if (StringUtils.isBlank(sql) || SqlSelectHelper.hasWith(sql)
+                || SqlSelectHelper.hasSubSelect(sql)) {
+            return null;
+        }
+        List<PlainSelect> plainSelects = SqlSelectHelper.getPlainSelect(sql);
+        if (plainSelects.size() != 1 || Objects.isNull(plainSelects.get(0))) {
+            return null;
+        }
+        FieldCollector fieldCollector = new FieldCollector(plainSelects.get(0));
+        if (!fieldCollector.isSupported()) {
+            return null;
+        }
+        CalciteCatalogReader calciteCatalogReader = getCalciteCatalogReader();
+        RelOptPlanner relOptPlanner = getRelOptPlanner();
+        RelBuilder relBuilder = builderMaterializationPlan(calciteCatalogReader, relOptPlanner);
+        return candidates.stream()
+                .sorted(Comparator.comparingInt(m -> m.getColumns().size() - m.getMetrics().size()))
+                .filter(m -> isCovered(relOptPlanner, relBuilder, calciteCatalogReader, m,
+                        fieldCollector, plainSelects.get(0)))
+                .findFirst().orElse(null);
+    }
+
+    private boolean isCovered(RelOptPlanner relOptPlanner, RelBuilder relBuilder,
+            CalciteCatalogReader calciteCatalogReader, Materialization materialization,
+            FieldCollector fieldCollector, PlainSelect plainSelect) {
+        Set<String> dimensions = new HashSet<>(materialization.getColumns());
+        dimensions.removeAll(materialization.getMetrics().keySet());
+        if (!dimensions.containsAll(fieldCollector.fields)) {
+            return false;
+        }
+        for (Map.Entry<String, Set<String>> aggregate : fieldCollector.aggregates.entrySet()) {
+            String rollupAgg = materialization.getMetrics().get(aggregate.getKey());
+            if (Objects.isNull(rollupAgg) || !Collections.singleton(rollupAgg.toUpperCase())
+                    .equals(aggregate.getValue())) {
+                return false;
+            }
+        }
+        ImmutablePair<String, String> dateRange =
+                getDateRange(plainSelect.getWhere(), materialization.getPartitionName());
+        if (Objects.isNull(dateRange)) {
+            return false;
+        }
+        List<String> fields = new ArrayList<>(fieldCollector.fields);
+        fields.addAll(fieldCollector.aggregates.keySet());
+        fields.remove(materialization.getPartitionName());
+        try {
+            return check(relOptPlanner, relBuilder, calciteCatalogReader, materialization, fields,
+                    Collections.singletonList(dateRange));
+        } catch (Exception e) {
+            log.warn("check rollup {} error", materialization.getName(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Collects the bounds of the partition dimension from the top level conjunction of the where
+     * clause, conditions under an OR can not narrow the range of the query.
+     */
+    protected ImmutablePair<String, String> getDateRange(Expression where, String partitionName) {
+        List<Expression> conditions = new ArrayList<>();
+        flattenAnd(where, conditions);
+        String lower = null;
+        String upper = null;
+        for (Expression condition : conditions) {
+            String[] bounds = getBounds(condition, partitionName);
+            if (Objects.isNull(bounds)) {
+                continue;
+            }
+            if (Objects.nonNull(bounds[0]) && (lower == null || bounds[0].compareTo(lower) > 0)) {
+                lower = bounds[0];
+            }
+            if (Objects.nonNull(bounds[1]) && (upper == null || bounds[1].compareTo(upper) < 0)) {
+                upper = bounds[1];
+            }
+        }
+        if (lower == null || upper == null || lower.compareTo(upper) > 0) {
+            return null;
+        }
+        return ImmutablePair.of(lower, upper);
+    }
+
+    private static void flattenAnd(Expression expression, List<Expression> conditions) {
+        if (expression instanceof ParenthesedExpressionList
+                && ((ParenthesedExpressionList<?>) expression).size() == 1) {
+            flattenAnd(((ParenthesedExpressionList<?>) expression).get(0), conditions);
+        } else if (expression instanceof AndExpression) {
+            flattenAnd(((AndExpression) expression).getLeftExpression(), conditions);
+            flattenAnd(((AndExpression) expression).getRightExpression(), conditions);
+        } else if (Objects.nonNull(expression)) {
+            conditions.add(expression);
+        }
+    }
+
+    private static String[] getBounds(Expression condition, String partitionName) {
+        if (condition instanceof Between) {
+            Between between = (Between) condition;
+            if (between.isNot() || !isColumn(between.getLeftExpression(), partitionName)) {
+                return null;
+            }
+            return new String[] {SqlSelectHelper.getColumValue(between.getBetweenExpressionStart()),
+                            SqlSelectHelper.getColumValue(between.getBetweenExpressionEnd())};
+        }
+        if (condition instanceof EqualsTo) {
+            EqualsTo equalsTo = (EqualsTo) condition;
+            if (!isColumn(equalsTo.getLeftExpression(), partitionName)) {
+                return null;
+            }
+            String value = SqlSelectHelper.getColumValue(equalsTo.getRightExpression());
+            return new String[] {value, value};
+        }
+        if (condition instanceof GreaterThan || condition instanceof GreaterThanEquals) {
+            BinaryExpression expr = (BinaryExpression) condition;
+            if (!isColumn(expr.getLeftExpression(), partitionName)) {
+                return null;
+            }
+            return new String[] {SqlSelectHelper.getColumValue(expr.getRightExpression()), null};
+        }
+        if (condition instanceof MinorThan || condition instanceof MinorThanEquals) {
+            BinaryExpression expr = (BinaryExpression) condition;
+            if (!isColumn(expr.getLeftExpression(), partitionName)) {
+                return null;
+            }
+            return new String[] {null, SqlSelectHelper.getColumValue(expr.getRightExpression())};
+        }
+        return null;
+    }
+
+    private static boolean isColumn(Expression expression, String name) {
+        return expression instanceof Column
+                && name.equalsIgnoreCase(getColumnName((Column) expression));
+    }
+
+    private static String getColumnName(Column column) {
+        return StringUtils.strip(column.getColumnName(), "`\"");
+    }
+
+    private boolean isEnabled() {
+        ExecutorConfig executorConfig = ContextUtils.getBean(ExecutorConfig.class);
+        return Boolean.TRUE.equals(executorConfig.getDuckEnable())
+                && Boolean.TRUE.equals(executorConfig.getRollupEnable());
+    }
+
+    /**
+     * Collects the plain fields and the aggregated metrics of a select, and whether it only uses
+     * aggregates a rollup can answer.
+     */
+    static class FieldCollector extends ExpressionVisitorAdapter {
+
+        private final Set<String> fields = new HashSet<>();
+        private final Map<String, Set<String>> aggregates = new HashMap<>();
+        private final Set<String> aliases = new HashSet<>();
+        private boolean supported = true;
+        private boolean aliasAllowed = false;
+
+        FieldCollector(PlainSelect plainSelect) {
+            for (SelectItem<?> selectItem : plainSelect.getSelectItems()) {
+                if (Objects.nonNull(selectItem.getAlias())) {
+                    aliases.add(StringUtils.strip(selectItem.getAlias().getName(), "`\""));
+                }
+                selectItem.getExpression().accept(this);
+            }
+            if (Objects.nonNull(plainSelect.getWhere())) {
+                plainSelect.getWhere().accept(this);
+            }
+            aliasAllowed = true;
+            if (Objects.nonNull(plainSelect.getGroupBy())) {
+                plainSelect.getGroupBy().getGroupByExpressionList().accept(this);
+            }
+            if (Objects.nonNull(plainSelect.getHaving())) {
+                plainSelect.getHaving().accept(this);
+            }
+            if (Objects.nonNull(plainSelect.getOrderByElements())) {
+                for (OrderByElement orderByElement : plainSelect.getOrderByElements()) {
+                    orderByElement.getExpression().accept(this);
+                }
+            }
+        }
+
+        boolean isSupported() {
+            return supported && !aggregates.isEmpty();
+        }
+
+        Set<String> getFields() {
+            return fields;
+        }
+
+        Map<String, Set<String>> getAggregates() {
+            return aggregates;
+        }
+
+        @Override
+        public void visit(Column column) {
+            String name = getColumnName(column);
+            if (aliasAllowed && aliases.contains(name)) {
+                return;
+            }
+            fields.add(name);
+        }
+
+        @Override
+        public void visit(AllColumns allColumns) {
+            supported = false;
+        }
+
+        @Override
+        public void visit(Function function) {
+            String name = function.getName().toUpperCase();
+            if (!isAggregate(name)) {
+                super.visit(function);
+                return;
+            }
+            if (!ROLLUP_AGGREGATES.contains(name) || function.isDistinct()
+                    || function.isAllColumns() || Objects.isNull(function.getParameters())
+                    || function.getParameters().size() != 1
+                    || !(function.getParameters().get(0) instanceof Column)) {
+                supported = false;
+                return;
+            }
+            String metric = getColumnName((Column) function.getParameters().get(0));
+            aggregates.computeIfAbsent(metric, k -> new HashSet<>()).add(name);
+        }
+
+        private static boolean isAggregate(String name) {
+            return ROLLUP_AGGREGATES.contains(name) || "COUNT".equals(name) || "AVG".equals(name)
+                    || name.endsWith("_AGG") || name.startsWith("APPROX_")
+                    || name.startsWith("STDDEV") || name.startsWith("VAR");
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package com.tencent.supersonic.headless.core.executor;
 
+import com.tencent.supersonic.common.pojo.exception.QueryCancelledException;
+import com.tencent.supersonic.common.pojo.exception.QueryRejectedException;
 import com.tencent.supersonic.common.util.ContextUtils;
 import com.tencent.supersonic.headless.api.pojo.response.DatabaseResp;
 import com.tencent.supersonic.headless.api.pojo.response.SemanticQueryResp;
+import com.tencent.supersonic.headless.core.pojo.CancellationToken;
 import com.tencent.supersonic.headless.core.pojo.QueryStatement;
 import com.tencent.supersonic.headless.core.utils.ComponentFactory;
 import com.tencent.supersonic.headless.core.utils.SqlUtils;
@@ -40,14 +43,26 @@ public class JdbcExecutor implements QueryExecutor {
         log.info("executing SQL: {}", sql);
         DatabaseResp database = queryStatement.getOntology().getDatabase();
         SemanticQueryResp queryResultWithColumns = new SemanticQueryResp();
+        CancellationToken cancellationToken = queryStatement.getCancellationToken();
+        if (Objects.nonNull(cancellationToken)) {
+            cancellationToken.checkActive();
+        }
         try {
             SqlUtils sqlUtil = sqlUtils.init(database);
-            sqlUtil.queryInternal(queryStatement.getSql(), queryResultWithColumns);
+            sqlUtil.queryInternal(queryStatement.getSql(), queryResultWithColumns,
+                    cancellationToken);
             queryResultWithColumns.setSql(sql);
+        } catch (QueryRejectedException | QueryCancelledException e) {
+            // not a result of the query, must neither be cached nor shown as an empty answer
+            throw e;
         } catch (Exception e) {
             log.error("queryInternal with error ", e);
             queryResultWithColumns.setErrorMsg(e.getMessage());
         }
+        // a cancelled or timed out query may have returned partial rows, never hand them out
+        if (Objects.nonNull(cancellationToken)) {
+            cancellationToken.checkActive();
+        }
         return queryResultWithColumns;
     }
 }
@@ -0,0 +1,110 @@
+package com.tencent.supersonic.headless.core.pojo;
+
+import com.tencent.supersonic.common.pojo.exception.QueryCancelledException;
+import com.tencent.supersonic.headless.api.pojo.enums.QueryPriority;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Deadline, priority and cancellation of one query. The statements the query runs on the data
+ * source are registered here, so that cancelling the query cancels them on the database as well.
+ */
+@Slf4j
+public class CancellationToken {
+
+    @Getter
+    private final String queryId;
+    @Getter
+    private final String user;
+    /** epoch millis after which the query is abandoned, 0 if it has no deadline */
+    @Getter
+    private final long deadline;
+    /** the lane the query waits in for a connection */
+    @Getter
+    private final QueryPriority priority;
+    private final Set<Statement> statements = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger references = new AtomicInteger(1);
+    private volatile boolean cancelled;
+
+    public CancellationToken(String queryId, String user, long timeoutMs) {
+        this(queryId, user, timeoutMs, QueryPriority.INTERACTIVE);
+    }
+
+    public CancellationToken(String queryId, String user, long timeoutMs, QueryPriority priority) {
+        this.queryId = queryId;
+        this.user = user;
+        this.deadline = timeoutMs > 0 ? System.currentTimeMillis() + timeoutMs : 0;
+        this.priority = Objects.nonNull(priority) ? priority : QueryPriority.INTERACTIVE;
+    }
+
+    public void cancel() {
+        cancelled = true;
+        for (Statement statement : statements) {
+            cancel(statement);
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public boolean isExpired() {
+        return deadline > 0 && System.currentTimeMillis() >= deadline;
+    }
+
+    /** throws if the query was cancelled or ran past its deadline */
+    public void checkActive() {
+        if (cancelled) {
+            throw new QueryCancelledException(String.format("query %s cancelled", queryId));
+        }
+        if (isExpired()) {
+            throw new QueryCancelledException(String.format("query %s timed out", queryId));
+        }
+    }
+
+    /** seconds left until the deadline for Statement#setQueryTimeout, 0 if there is none */
+    public int getRemainingSeconds() {
+        if (deadline == 0) {
+            return 0;
+        }
+        checkActive();
+        return (int) Math.max(1, (deadline - System.currentTimeMillis() + 999) / 1000);
+    }
+
+    public void register(Statement statement) {
+        statements.add(statement);
+        // cancelled while the statement was being created
+        if (cancelled) {
+            cancel(statement);
+        }
+    }
+
+    public void unregister(Statement statement) {
+        statements.remove(statement);
+    }
+
+    /** shares the token with another request using the same query id */
+    public boolean retain() {
+        return references.getAndUpdate(count -> count > 0 ? count + 1 : count) > 0;
+    }
+
+    /** @return whether no request uses the token anymore */
+    public boolean release() {
+        return references.decrementAndGet() <= 0;
+    }
+
+    private void cancel(Statement statement) {
+        try {
+            statement.cancel();
+        } catch (SQLException | RuntimeException e) {
+            log.warn("cancel statement of query {} error", queryId, e);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.tencent.supersonic.headless.core.pojo;
+
+import lombok.Data;
+
+/** saturation of the connection pool of one database */
+@Data
+public class DataSourceStats {
+
+    private String name;
+
+    /** whether the pool is created, it is on the first query */
+    private boolean initialized;
+
+    private int maxActive;
+
+    private int maxBatchActive;
+
+    private int queueSize;
+
+    /** queries holding a turn, interactive and batch */
+    private int running;
+
+    private int runningBatch;
+
+    private int waitingInteractive;
+
+    private int waitingBatch;
+
+    private long admittedCount;
+
+    private long rejectedCount;
+
+    private long timeoutCount;
+
+    /** average wait of the queries that had to queue */
+    private long avgQueueMillis;
+
+    /** running and waiting queries per connection, above 1 means queries queue up */
+    private double saturation;
+
+    /** connections in use as reported by the pool */
+    private int poolActiveCount;
+
+    private int poolIdleCount;
+
+    private int poolWaitThreadCount;
+
+    private boolean healthy = true;
+
+    private int connectFailures;
+
+    private Long retryAt;
+
+    private String lastError;
+}
@@ -8,9 +8,11 @@ import com.tencent.supersonic.headless.core.config.ExecutorConfig;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
+import java.io.File;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.util.ArrayList;
@@ -44,7 +46,15 @@ public class DuckDbSource {
         config.setDriverClassName("org.duckdb.DuckDBDriver");
         config.setMaximumPoolSize(executorConfig.getDuckDbMaximumPoolSize());
         config.setMaxLifetime(executorConfig.getDuckDbMaxLifetime());
-        config.setJdbcUrl("jdbc:duckdb:");
+        // pooled connections only share data through a database file
+        String duckDbFile = executorConfig.getDuckDbFile();
+        if (StringUtils.isNotBlank(duckDbFile)) {
+            File parent = new File(duckDbFile).getAbsoluteFile().getParentFile();
+            if (!parent.exists() && !parent.mkdirs()) {
+                log.warn("failed to create duckDb directory {}", parent);
+            }
+        }
+        config.setJdbcUrl("jdbc:duckdb:" + StringUtils.trimToEmpty(duckDbFile));
         return config;
     }
 
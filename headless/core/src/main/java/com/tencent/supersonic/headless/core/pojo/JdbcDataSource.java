@@ -2,20 +2,35 @@ package com.tencent.supersonic.headless.core.pojo;
 
 import com.alibaba.druid.pool.DruidDataSource;
 import com.tencent.supersonic.headless.api.pojo.enums.DataType;
+import com.tencent.supersonic.headless.api.pojo.enums.QueryPriority;
 import com.tencent.supersonic.headless.api.pojo.response.DatabaseResp;
+import com.tencent.supersonic.headless.core.executor.DataSourceAdmission;
+import com.tencent.supersonic.headless.core.executor.DataSourceHealth;
 import com.tencent.supersonic.headless.core.utils.JdbcDataSourceUtils;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Connection pools of the databases queried by the semantic layer. The pool size, the admission
+ * queue and its timeout can be set per database by id or by type, e.g.
+ * {@code source.pools.3.max-active} or {@code source.pools.mysql.queue-size}, falling back to the
+ * {@code source.*} defaults.
+ */
 @Slf4j
 @Component
 public class JdbcDataSource {
@@ -23,6 +38,11 @@ public class JdbcDataSource {
     private static final Object lockLock = new Object();
     private static volatile Map<String, DruidDataSource> dataSourceMap = new ConcurrentHashMap<>();
     private static volatile Map<String, Lock> dataSourceLockMap = new ConcurrentHashMap<>();
+    private static final Map<String, DataSourceAdmission> admissionMap = new ConcurrentHashMap<>();
+    private static final Map<String, DataSourceHealth> healthMap = new ConcurrentHashMap<>();
+
+    @Autowired(required = false)
+    private Environment environment;
 
     @Value("${source.lock-time:30}")
     @Getter
@@ -92,6 +112,125 @@ public class JdbcDataSource {
     @Getter
     protected String validationQuery;
 
+    /** queries waiting for a connection beyond which further ones are rejected */
+    @Value("${source.queue-size:20}")
+    @Getter
+    protected int queueSize;
+
+    @Value("${source.queue-timeout-ms:10000}")
+    @Getter
+    protected long queueTimeoutMs;
+
+    /** connections batch queries may not take, so that interactive ones never queue behind them */
+    @Value("${source.interactive-reserved:1}")
+    @Getter
+    protected int interactiveReserved;
+
+    @Value("${source.max-connect-backoff-ms:60000}")
+    @Getter
+    protected long maxConnectBackoffMs;
+
+    /**
+     * Waits for a turn to query the database in the lane of the token, at most until the deadline
+     * of the token.
+     *
+     * @throws com.tencent.supersonic.common.pojo.exception.QueryRejectedException if the database
+     *         is busy or backing off from a connection failure
+     */
+    public DataSourceAdmission.Permit admit(DatabaseResp database,
+            CancellationToken cancellationToken) {
+        checkAvailable(database);
+        QueryPriority priority = QueryPriority.INTERACTIVE;
+        long timeoutMs = getPoolProperty(database, "queue-timeout-ms", queueTimeoutMs);
+        if (Objects.nonNull(cancellationToken)) {
+            priority = cancellationToken.getPriority();
+            if (cancellationToken.getDeadline() > 0) {
+                timeoutMs = Math.min(timeoutMs,
+                        cancellationToken.getDeadline() - System.currentTimeMillis());
+            }
+        }
+        return admissionMap.computeIfAbsent(getDataSourceKey(database), k -> newAdmission(database))
+                .acquire(priority, timeoutMs);
+    }
+
+    /** throws if the database is backing off from a connection failure */
+    public void checkAvailable(DatabaseResp database) {
+        DataSourceHealth health = healthMap.get(getDataSourceKey(database));
+        if (Objects.nonNull(health)) {
+            health.checkAvailable();
+        }
+    }
+
+    public void onConnectionSuccess(DatabaseResp database) {
+        DataSourceHealth health = healthMap.get(getDataSourceKey(database));
+        if (Objects.nonNull(health)) {
+            health.onSuccess();
+        }
+    }
+
+    /** backs off from the database and drops its pool, which is created anew on the next try */
+    public void onConnectionFailure(DatabaseResp database, Throwable e) {
+        log.warn("connect to database {} error, url:{}", database.getName(), database.getUrl(), e);
+        healthMap.computeIfAbsent(getDataSourceKey(database), k -> newHealth(database))
+                .onFailure(e);
+        removeDatasource(database);
+    }
+
+    public DataSourceStats getStats(DatabaseResp database) {
+        String key = getDataSourceKey(database);
+        DataSourceStats stats = new DataSourceStats();
+        stats.setName(database.getName());
+        admissionMap.computeIfAbsent(key, k -> newAdmission(database)).fillStats(stats);
+        DataSourceHealth health = healthMap.get(key);
+        if (Objects.nonNull(health)) {
+            health.fillStats(stats);
+        }
+        DruidDataSource druidDataSource = dataSourceMap.get(key);
+        if (Objects.nonNull(druidDataSource) && !druidDataSource.isClosed()) {
+            stats.setInitialized(true);
+            stats.setPoolActiveCount(druidDataSource.getActiveCount());
+            stats.setPoolIdleCount(druidDataSource.getPoolingCount());
+            stats.setPoolWaitThreadCount(druidDataSource.getWaitThreadCount());
+        }
+        return stats;
+    }
+
+    public int getMaxActive(DatabaseResp database) {
+        return (int) getPoolProperty(database, "max-active", maxActive);
+    }
+
+    private DataSourceAdmission newAdmission(DatabaseResp database) {
+        return new DataSourceAdmission(database.getName(), getMaxActive(database),
+                (int) getPoolProperty(database, "interactive-reserved", interactiveReserved),
+                (int) getPoolProperty(database, "queue-size", queueSize));
+    }
+
+    private DataSourceHealth newHealth(DatabaseResp database) {
+        return new DataSourceHealth(database.getName(), maxConnectBackoffMs);
+    }
+
+    /** looks the property up for the database id, then its type, then falls back to the default */
+    private long getPoolProperty(DatabaseResp database, String property, long defaultValue) {
+        if (Objects.isNull(environment)) {
+            return defaultValue;
+        }
+        List<String> scopes = new ArrayList<>();
+        if (Objects.nonNull(database.getId())) {
+            scopes.add(String.valueOf(database.getId()));
+        }
+        if (StringUtils.isNotBlank(database.getType())) {
+            scopes.add(database.getType().toLowerCase());
+        }
+        for (String scope : scopes) {
+            Long value = environment
+                    .getProperty(String.format("source.pools.%s.%s", scope, property), Long.class);
+            if (Objects.nonNull(value)) {
+                return value;
+            }
+        }
+        return defaultValue;
+    }
+
     private Lock getDataSourceLock(String key) {
         if (dataSourceLockMap.containsKey(key)) {
             return dataSourceLockMap.get(key);
@@ -183,9 +322,10 @@ public class JdbcDataSource {
                 druidDataSource.setPassword(password);
             }
 
-            druidDataSource.setInitialSize(initialSize);
-            druidDataSource.setMinIdle(minIdle);
-            druidDataSource.setMaxActive(maxActive);
+            int poolSize = getMaxActive(database);
+            druidDataSource.setInitialSize(Math.min(initialSize, poolSize));
+            druidDataSource.setMinIdle(Math.min(minIdle, poolSize));
+            druidDataSource.setMaxActive(poolSize);
             druidDataSource.setMaxWait(maxWait);
             druidDataSource.setTimeBetweenEvictionRunsMillis(timeBetweenEvictionRunsMillis);
             druidDataSource.setMinEvictableIdleTimeMillis(minEvictableIdleTimeMillis);
@@ -232,6 +372,10 @@ public class JdbcDataSource {
             }
 
             dataSourceMap.put(key, druidDataSource);
+            // the settings of the database may have changed since its admission was created, the
+            // queries holding or waiting for a permit of the old one finish on it
+            admissionMap.merge(key, newAdmission(database),
+                    (admission, created) -> admission.hasSameLimits(created) ? admission : created);
 
         } finally {
             lock.unlock();
@@ -4,6 +4,7 @@ import lombok.Builder;
 import lombok.Data;
 
 import java.util.List;
+import java.util.Map;
 
 @Data
 @Builder
@@ -16,4 +17,7 @@ public class Materialization {
     private List<String> partitions;
     private boolean isPartitioned;
     private String partitionName;
+    private String partitionTimeFormat;
+    /** metric column to the aggregate function its rows were rolled up with */
+    private Map<String, String> metrics;
 }
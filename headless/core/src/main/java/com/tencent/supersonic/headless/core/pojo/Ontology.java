@@ -32,6 +32,31 @@ public class Ontology {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Returns a copy whose maps, and the metric, dimension and join relation lists in them, can be
+     * modified without affecting this ontology, so that a cached instance can be shared across
+     * queries. The models, metrics and dimensions themselves are shared and must be replaced in
+     * the copy rather than modified, as {@code SqlVariableParser} does.
+     */
+    public Ontology copy() {
+        Ontology ontology = new Ontology();
+        ontology.setDatabase(database);
+        ontology.setModelMap(new HashMap<>(modelMap));
+        ontology.setMetricMap(copyValues(metricMap));
+        ontology.setDimensionMap(copyValues(dimensionMap));
+        if (Objects.nonNull(joinRelations)) {
+            ontology.setJoinRelations(new ArrayList<>(joinRelations));
+        }
+        return ontology;
+    }
+
+    private static <T> Map<String, List<T>> copyValues(Map<String, List<T>> map) {
+        Map<String, List<T>> copy = new HashMap<>(map.size());
+        map.forEach((key, value) -> copy.put(key,
+                Objects.isNull(value) ? null : new ArrayList<>(value)));
+        return copy;
+    }
+
     public EngineType getDatabaseType() {
         if (Objects.nonNull(database)) {
             return EngineType.fromString(database.getType().toUpperCase());
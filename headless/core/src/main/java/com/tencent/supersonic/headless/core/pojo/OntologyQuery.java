@@ -9,9 +9,12 @@ import com.tencent.supersonic.headless.api.pojo.response.MetricSchemaResp;
 import com.tencent.supersonic.headless.api.pojo.response.ModelResp;
 import lombok.Data;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -32,6 +35,33 @@ public class OntologyQuery {
     private AggOption aggOption = AggOption.NATIVE;
     private String sql;
 
+    /**
+     * Returns a copy whose maps, sets and order list can be modified without affecting this query,
+     * so that a cached instance can be handed to each statement.
+     */
+    public OntologyQuery copy() {
+        OntologyQuery ontologyQuery = new OntologyQuery();
+        ontologyQuery.setModelMap(new HashMap<>(modelMap));
+        ontologyQuery.setMetricMap(copyValues(metricMap));
+        ontologyQuery.setDimensionMap(copyValues(dimensionMap));
+        ontologyQuery.setFields(new HashSet<>(fields));
+        ontologyQuery.setLimit(limit);
+        if (Objects.nonNull(order)) {
+            ontologyQuery.setOrder(new ArrayList<>(order));
+        }
+        ontologyQuery.setNativeQuery(nativeQuery);
+        ontologyQuery.setAggOption(aggOption);
+        ontologyQuery.setSql(sql);
+        return ontologyQuery;
+    }
+
+    private static <T> Map<String, Set<T>> copyValues(Map<String, Set<T>> map) {
+        Map<String, Set<T>> copy = new HashMap<>(map.size());
+        map.forEach((key, value) -> copy.put(key,
+                Objects.isNull(value) ? null : new HashSet<>(value)));
+        return copy;
+    }
+
     public Set<ModelResp> getModels() {
         return new HashSet<>(modelMap.values());
     }
@@ -26,6 +26,10 @@ public class QueryStatement {
     private Integer limit = 1000;
     private Boolean isTranslated = false;
     private User user;
+    private Long schemaVersion;
+    private String sqlCacheKey;
+    private boolean useSqlCache = false;
+    private CancellationToken cancellationToken;
 
     public boolean isOk() {
         return StringUtils.isBlank(errMsg) && StringUtils.isNotBlank(sql);
@@ -9,4 +9,14 @@ public class SqlQuery {
     private boolean supportWith = true;
     private boolean withAlias = true;
     private String simplifiedSql;
+
+    public SqlQuery copy() {
+        SqlQuery sqlQuery = new SqlQuery();
+        sqlQuery.setSql(sql);
+        sqlQuery.setTable(table);
+        sqlQuery.setSupportWith(supportWith);
+        sqlQuery.setWithAlias(withAlias);
+        sqlQuery.setSimplifiedSql(simplifiedSql);
+        return sqlQuery;
+    }
 }
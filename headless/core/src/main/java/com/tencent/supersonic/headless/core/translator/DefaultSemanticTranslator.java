@@ -4,6 +4,7 @@ import com.tencent.supersonic.common.calcite.SqlMergeWithUtils;
 import com.tencent.supersonic.common.jsqlparser.SqlSelectHelper;
 import com.tencent.supersonic.common.pojo.enums.EngineType;
 import com.tencent.supersonic.headless.api.pojo.response.QueryState;
+import com.tencent.supersonic.headless.core.cache.TranslateCache;
 import com.tencent.supersonic.headless.core.pojo.OntologyQuery;
 import com.tencent.supersonic.headless.core.pojo.QueryStatement;
 import com.tencent.supersonic.headless.core.pojo.SqlQuery;
@@ -24,10 +25,22 @@ import java.util.stream.Collectors;
 @Slf4j
 public class DefaultSemanticTranslator implements SemanticTranslator {
 
+    private final TranslateCache translateCache;
+
+    public DefaultSemanticTranslator(TranslateCache translateCache) {
+        this.translateCache = translateCache;
+    }
+
     public void translate(QueryStatement queryStatement) throws Exception {
         if (queryStatement.isTranslated()) {
             return;
         }
+        String cacheKey = translateCache.getCacheKey(queryStatement);
+        queryStatement.setSqlCacheKey(cacheKey);
+        if (translateCache.fill(cacheKey, queryStatement)) {
+            queryStatement.setUseSqlCache(true);
+            return;
+        }
         for (QueryParser parser : ComponentFactory.getQueryParsers()) {
             if (parser.accept(queryStatement)) {
                 log.debug("QueryConverter accept [{}]", parser.getClass().getName());
@@ -51,6 +64,7 @@ public class DefaultSemanticTranslator implements SemanticTranslator {
                 optimizer.rewrite(queryStatement);
             }
         }
+        translateCache.put(cacheKey, queryStatement);
         log.debug("translated query SQL: [{}]",
                 StringUtils.normalizeSpace(queryStatement.getSql()));
     }
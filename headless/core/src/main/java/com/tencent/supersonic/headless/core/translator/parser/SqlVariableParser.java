@@ -1,15 +1,18 @@
 package com.tencent.supersonic.headless.core.translator.parser;
 
+import com.tencent.supersonic.headless.api.pojo.ModelDetail;
 import com.tencent.supersonic.headless.api.pojo.enums.ModelDefineType;
 import com.tencent.supersonic.headless.api.pojo.response.ModelResp;
 import com.tencent.supersonic.headless.api.pojo.response.SemanticSchemaResp;
 import com.tencent.supersonic.headless.core.pojo.QueryStatement;
 import com.tencent.supersonic.headless.core.utils.SqlVariableParseUtils;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 @Slf4j
@@ -35,9 +38,16 @@ public class SqlVariableParser implements QueryParser {
                         SqlVariableParseUtils.parse(modelResp.getModelDetail().getSqlQuery(),
                                 modelResp.getModelDetail().getSqlVariables(),
                                 queryStatement.getStructQuery().getParams());
-                ModelResp dataModel =
-                        queryStatement.getOntology().getModelMap().get(modelResp.getBizName());
-                dataModel.getModelDetail().setSqlQuery(sqlParsed);
+                Map<String, ModelResp> modelMap = queryStatement.getOntology().getModelMap();
+                ModelResp dataModel = modelMap.get(modelResp.getBizName());
+                // the ontology may be shared through the ontology cache, so copy before modifying
+                ModelResp parsedModel = new ModelResp();
+                BeanUtils.copyProperties(dataModel, parsedModel);
+                ModelDetail parsedModelDetail = new ModelDetail();
+                BeanUtils.copyProperties(dataModel.getModelDetail(), parsedModelDetail);
+                parsedModelDetail.setSqlQuery(sqlParsed);
+                parsedModel.setModelDetail(parsedModelDetail);
+                modelMap.put(modelResp.getBizName(), parsedModel);
             }
         }
     }
@@ -156,46 +156,21 @@ public class JdbcDataSourceUtils {
         return jdbcDataSource.getDataSource(database);
     }
 
+    /**
+     * Borrows a connection from the pool of the database. A failed attempt is not retried inline,
+     * the database backs off instead and the following calls fail fast until it may be probed
+     * again.
+     */
     public Connection getConnection(DatabaseResp database) throws RuntimeException {
-        Connection conn = getConnectionWithRetry(database);
-        if (conn == null) {
-            try {
-                releaseDataSource(database);
-                DataSource dataSource = getDataSource(database);
-                return dataSource.getConnection();
-            } catch (Exception e) {
-                log.error("Get connection error, jdbcUrl:{}, e:{}", database.getUrl(), e);
-                throw new RuntimeException("Get connection error, jdbcUrl:" + database.getUrl()
-                        + " you can try again later or reset datasource");
-            }
-        }
-        return conn;
-    }
-
-    private Connection getConnectionWithRetry(DatabaseResp database) {
-        int rc = 1;
-        for (;;) {
-
-            if (rc > 3) {
-                return null;
-            }
-
-            try {
-                Connection connection = getDataSource(database).getConnection();
-                if (connection != null && connection.isValid(5)) {
-                    return connection;
-                }
-            } catch (Exception e) {
-                log.error("e", e);
-            }
-
-            try {
-                Thread.sleep((long) Math.pow(2, rc) * 1000);
-            } catch (InterruptedException e) {
-                log.error("e", e);
-            }
-
-            rc++;
+        jdbcDataSource.checkAvailable(database);
+        try {
+            Connection connection = getDataSource(database).getConnection();
+            jdbcDataSource.onConnectionSuccess(database);
+            return connection;
+        } catch (Exception e) {
+            jdbcDataSource.onConnectionFailure(database, e);
+            throw new RuntimeException("Get connection error, jdbcUrl:" + database.getUrl()
+                    + " you can try again later or reset datasource");
         }
     }
 
@@ -2,15 +2,37 @@ package com.tencent.supersonic.headless.core.utils;
 
 import com.tencent.supersonic.headless.api.pojo.response.SemanticQueryResp;
 import com.tencent.supersonic.headless.core.pojo.DuckDbSource;
+import com.tencent.supersonic.headless.core.pojo.Materialization;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.jdbc.core.ConnectionCallback;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
 /** tools functions to duckDb query */
 public class JdbcDuckDbUtils {
 
+    public static final String MATERIALIZATION_DB = "rollup";
+    private static final String MATERIALIZATION_META = MATERIALIZATION_DB + ".s2_materialization";
+    private static final int BATCH_SIZE = 1000;
+    private static final int MAX_DECIMAL_PRECISION = 38;
+
     public static void attachMysql(DuckDbSource duckDbSource, String host, Integer port,
             String user, String password, String database) throws Exception {
         try {
@@ -62,4 +84,280 @@ public class JdbcDuckDbUtils {
         duckDbSource.execute(String.format("CREATE OR REPLACE VIEW %s AS %s;", view, sql));
         return true;
     }
+
+    /** Creates or updates the metadata of a rollup table, the table is created on first load. */
+    public static void saveMaterialization(DuckDbSource duckDbSource,
+            Materialization materialization) throws Exception {
+        createMaterializationMeta(duckDbSource);
+        String metrics = materialization.getMetrics().entrySet().stream()
+                .map(e -> e.getKey() + ":" + e.getValue()).collect(Collectors.joining(","));
+        duckDbSource.getDuckDbJdbcTemplate().update(
+                "INSERT OR REPLACE INTO " + MATERIALIZATION_META + " VALUES (?, ?, ?, ?, ?, ?)",
+                materialization.getName(), materialization.getDataSetId(),
+                materialization.getPartitionName(), materialization.getPartitionTimeFormat(),
+                String.join(",", getDimensions(materialization)), metrics);
+    }
+
+    /** Lists the rollup tables with the partitions loaded into them. */
+    public static List<Materialization> listMaterializations(DuckDbSource duckDbSource)
+            throws Exception {
+        createMaterializationMeta(duckDbSource);
+        List<Materialization> materializations = duckDbSource.getDuckDbJdbcTemplate().query(
+                "SELECT name, data_set_id, partition_name, partition_time_format, dimensions, "
+                        + "metrics FROM " + MATERIALIZATION_META,
+                (rs, rowNum) -> {
+                    Map<String, String> metrics = new LinkedHashMap<>();
+                    for (String metric : StringUtils.split(rs.getString("metrics"), ',')) {
+                        String[] metricAgg = metric.split(":");
+                        metrics.put(metricAgg[0], metricAgg[1]);
+                    }
+                    List<String> columns = new ArrayList<>(Arrays.asList(StringUtils
+                            .split(StringUtils.defaultString(rs.getString("dimensions")), ',')));
+                    columns.add(rs.getString("partition_name"));
+                    columns.addAll(metrics.keySet());
+                    return Materialization.builder().name(rs.getString("name"))
+                            .dataSetId(rs.getLong("data_set_id")).columns(columns)
+                            .isPartitioned(true).partitionName(rs.getString("partition_name"))
+                            .partitionTimeFormat(rs.getString("partition_time_format"))
+                            .metrics(metrics).build();
+                });
+        for (Materialization materialization : materializations) {
+            materialization.setPartitions(getPartitions(duckDbSource, materialization));
+        }
+        return materializations;
+    }
+
+    public static void dropMaterialization(DuckDbSource duckDbSource, String name)
+            throws Exception {
+        duckDbSource.execute("DROP TABLE IF EXISTS " + name);
+        duckDbSource.getDuckDbJdbcTemplate()
+                .update("DELETE FROM " + MATERIALIZATION_META + " WHERE name = ?", name);
+    }
+
+    public static List<String> getPartitions(DuckDbSource duckDbSource,
+            Materialization materialization) {
+        try {
+            return duckDbSource.getDuckDbJdbcTemplate()
+                    .queryForList(String.format("SELECT DISTINCT %s FROM %s",
+                            quote(materialization.getPartitionName()), materialization.getName()),
+                            String.class);
+        } catch (Exception e) {
+            // not loaded yet
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Drops the partitions whose day is before {@code start} or not before {@code end}. Partitions
+     * are compared as dates parsed with the partition time format, as their strings do not sort by
+     * date for every format; partitions that can not be parsed are dropped as well.
+     */
+    public static void dropPartitionsOutside(DuckDbSource duckDbSource,
+            Materialization materialization, LocalDate start, LocalDate end) {
+        DateTimeFormatter formatter =
+                DateTimeFormatter.ofPattern(materialization.getPartitionTimeFormat());
+        for (String partition : getPartitions(duckDbSource, materialization)) {
+            LocalDate day = parseDate(partition, formatter);
+            if (Objects.nonNull(day) && !day.isBefore(start) && day.isBefore(end)) {
+                continue;
+            }
+            duckDbSource.getDuckDbJdbcTemplate().update(
+                    String.format("DELETE FROM %s WHERE %s = ?", materialization.getName(),
+                            quote(materialization.getPartitionName())),
+                    partition);
+        }
+    }
+
+    private static LocalDate parseDate(String partition, DateTimeFormatter formatter) {
+        if (Objects.isNull(partition)) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(partition, formatter);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Replaces one partition of a rollup table with the rows of the result set in a single
+     * transaction. The result set has the dimensions, the partition and the metrics of the rollup
+     * in this order.
+     *
+     * @return the number of loaded rows
+     */
+    public static long replacePartition(DuckDbSource duckDbSource, Materialization materialization,
+            String partition, ResultSet resultSet, long maxRows) {
+        return duckDbSource.getDuckDbJdbcTemplate().execute((ConnectionCallback<Long>) conn -> {
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            int[] columnTypes = getColumnTypes(materialization, metaData);
+            createMaterializationTable(conn, materialization, columnTypes, metaData);
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            String partitionColumn = quote(materialization.getPartitionName());
+            String placeholders = String.join(",", Collections.nCopies(columnTypes.length, "?"));
+            try (PreparedStatement delete =
+                    conn.prepareStatement(String.format("DELETE FROM %s WHERE %s = ?",
+                            materialization.getName(), partitionColumn));
+                    PreparedStatement insert =
+                            conn.prepareStatement(String.format("INSERT INTO %s VALUES (%s)",
+                                    materialization.getName(), placeholders))) {
+                delete.setString(1, partition);
+                delete.executeUpdate();
+                int partitionIndex = getDimensions(materialization).size();
+                long rows = 0;
+                while (resultSet.next()) {
+                    if (++rows > maxRows) {
+                        throw new SQLException(String.format("partition %s of %s exceeds %d rows",
+                                partition, materialization.getName(), maxRows));
+                    }
+                    for (int i = 0; i < columnTypes.length; i++) {
+                        if (i == partitionIndex) {
+                            // keep the partition format of the filters
+                            insert.setString(i + 1, partition);
+                        } else {
+                            setValue(insert, i + 1, resultSet, columnTypes[i]);
+                        }
+                    }
+                    insert.addBatch();
+                    if (rows % BATCH_SIZE == 0) {
+                        insert.executeBatch();
+                    }
+                }
+                insert.executeBatch();
+                conn.commit();
+                return rows;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        });
+    }
+
+    private static void createMaterializationMeta(DuckDbSource duckDbSource) throws Exception {
+        createDatabase(duckDbSource, MATERIALIZATION_DB);
+        duckDbSource.execute("CREATE TABLE IF NOT EXISTS " + MATERIALIZATION_META
+                + " (name VARCHAR PRIMARY KEY, data_set_id BIGINT, partition_name VARCHAR, "
+                + "partition_time_format VARCHAR, dimensions VARCHAR, metrics VARCHAR)");
+    }
+
+    private static void createMaterializationTable(Connection conn, Materialization materialization,
+            int[] columnTypes, ResultSetMetaData metaData) throws SQLException {
+        List<String> columns = materialization.getColumns();
+        List<String> definitions = new ArrayList<>();
+        for (int i = 0; i < columns.size(); i++) {
+            definitions.add(
+                    quote(columns.get(i)) + " " + getTypeName(columnTypes[i], metaData, i + 1));
+        }
+        try (Statement statement = conn.createStatement()) {
+            statement.execute(String.format("CREATE TABLE IF NOT EXISTS %s (%s)",
+                    materialization.getName(), String.join(", ", definitions)));
+        }
+    }
+
+    /**
+     * Dimensions and metrics keep an integer, decimal, floating or boolean type from the source so
+     * that filters compare them and aggregations sum them the same way, other columns and the
+     * partition are strings.
+     */
+    private static int[] getColumnTypes(Materialization materialization, ResultSetMetaData metaData)
+            throws SQLException {
+        int dimensionCount = getDimensions(materialization).size();
+        int[] columnTypes = new int[materialization.getColumns().size()];
+        if (metaData.getColumnCount() != columnTypes.length) {
+            throw new SQLException(String.format("expect %d columns for %s but got %d",
+                    columnTypes.length, materialization.getName(), metaData.getColumnCount()));
+        }
+        for (int i = 0; i < columnTypes.length; i++) {
+            if (i == dimensionCount) {
+                columnTypes[i] = Types.VARCHAR;
+                continue;
+            }
+            switch (metaData.getColumnType(i + 1)) {
+                case Types.TINYINT:
+                case Types.SMALLINT:
+                case Types.INTEGER:
+                case Types.BIGINT:
+                    columnTypes[i] = Types.BIGINT;
+                    break;
+                case Types.DECIMAL:
+                case Types.NUMERIC:
+                    // keep the exact values unless the precision does not fit a duckdb decimal
+                    int precision = metaData.getPrecision(i + 1);
+                    columnTypes[i] = precision > 0 && precision <= MAX_DECIMAL_PRECISION
+                            ? Types.DECIMAL
+                            : Types.DOUBLE;
+                    break;
+                case Types.FLOAT:
+                case Types.REAL:
+                case Types.DOUBLE:
+                    columnTypes[i] = Types.DOUBLE;
+                    break;
+                case Types.BIT:
+                case Types.BOOLEAN:
+                    columnTypes[i] = Types.BOOLEAN;
+                    break;
+                default:
+                    columnTypes[i] = Types.VARCHAR;
+            }
+        }
+        return columnTypes;
+    }
+
+    private static String getTypeName(int columnType, ResultSetMetaData metaData, int column)
+            throws SQLException {
+        switch (columnType) {
+            case Types.BIGINT:
+                return "BIGINT";
+            case Types.DECIMAL:
+                int precision = metaData.getPrecision(column);
+                int scale = Math.min(Math.max(metaData.getScale(column), 0), precision);
+                return String.format("DECIMAL(%d,%d)", precision, scale);
+            case Types.DOUBLE:
+                return "DOUBLE";
+            case Types.BOOLEAN:
+                return "BOOLEAN";
+            default:
+                return "VARCHAR";
+        }
+    }
+
+    private static void setValue(PreparedStatement statement, int index, ResultSet resultSet,
+            int columnType) throws SQLException {
+        Object value;
+        switch (columnType) {
+            case Types.BIGINT:
+                value = resultSet.getLong(index);
+                break;
+            case Types.DECIMAL:
+                value = resultSet.getBigDecimal(index);
+                break;
+            case Types.DOUBLE:
+                value = resultSet.getDouble(index);
+                break;
+            case Types.BOOLEAN:
+                value = resultSet.getBoolean(index);
+                break;
+            default:
+                value = resultSet.getString(index);
+        }
+        if (resultSet.wasNull()) {
+            statement.setNull(index, columnType);
+        } else {
+            statement.setObject(index, value);
+        }
+    }
+
+    private static List<String> getDimensions(Materialization materialization) {
+        return materialization.getColumns().stream()
+                .filter(column -> !column.equals(materialization.getPartitionName())
+                        && !materialization.getMetrics().containsKey(column))
+                .collect(Collectors.toList());
+    }
+
+    private static String quote(String column) {
+        return "\"" + column.replace("\"", "\"\"") + "\"";
+    }
 }
@@ -4,26 +4,32 @@ import javax.sql.DataSource;
 
 import com.tencent.supersonic.common.pojo.QueryColumn;
 import com.tencent.supersonic.common.util.DateUtils;
+import com.tencent.supersonic.headless.api.pojo.ColumnarResult;
 import com.tencent.supersonic.headless.api.pojo.enums.DataType;
 import com.tencent.supersonic.headless.api.pojo.response.DatabaseResp;
 import com.tencent.supersonic.headless.api.pojo.response.SemanticQueryResp;
+import com.tencent.supersonic.headless.core.executor.DataSourceAdmission;
+import com.tencent.supersonic.headless.core.pojo.CancellationToken;
+import com.tencent.supersonic.headless.core.pojo.DataSourceStats;
 import com.tencent.supersonic.headless.core.pojo.JdbcDataSource;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.StatementCallback;
 import org.springframework.stereotype.Component;
 
 import java.rmi.ServerException;
-import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
-import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.function.Supplier;
 
 import static com.tencent.supersonic.common.pojo.Constants.AT_SYMBOL;
 
@@ -32,6 +38,12 @@ import static com.tencent.supersonic.common.pojo.Constants.AT_SYMBOL;
 @Component
 public class SqlUtils {
 
+    private static final DateTimeFormatter DATE_FORMATTER =
+            DateTimeFormatter.ofPattern(DateUtils.DEFAULT_DATE_FORMAT);
+
+    private static final DateTimeFormatter TIME_FORMATTER =
+            DateTimeFormatter.ofPattern(DateUtils.DEFAULT_TIME_FORMAT);
+
     @Getter
     private DatabaseResp database;
 
@@ -58,7 +70,7 @@ public class SqlUtils {
     }
 
     public SqlUtils init(DatabaseResp database) {
-        return SqlUtilsBuilder.getBuilder()
+        return SqlUtilsBuilder.getBuilder().withId(database.getId())
                 .withName(database.getId() + AT_SYMBOL + database.getName())
                 .withType(database.getType()).withJdbcUrl(database.getUrl())
                 .withUsername(database.getUsername()).withPassword(database.getPassword())
@@ -68,7 +80,7 @@ public class SqlUtils {
 
     public List<Map<String, Object>> execute(String sql) throws ServerException {
         try {
-            List<Map<String, Object>> list = jdbcTemplate().queryForList(sql);
+            List<Map<String, Object>> list = admitted(null, () -> jdbcTemplate().queryForList(sql));
             log.info("list:{}", list);
             return list;
         } catch (Exception e) {
@@ -78,18 +90,14 @@ public class SqlUtils {
     }
 
     public void execute(String sql, SemanticQueryResp queryResultWithColumns) {
-        getResult(sql, queryResultWithColumns, jdbcTemplate());
+        queryInternal(sql, queryResultWithColumns);
     }
 
+    /**
+     * The template borrows its connection per statement, stale connections are discarded by the
+     * pool's idle validation rather than by a test query before each statement.
+     */
     public JdbcTemplate jdbcTemplate() throws RuntimeException {
-        Connection connection = null;
-        try {
-            connection = jdbcDataSourceUtils.getConnection(database);
-        } catch (Exception e) {
-            log.warn("e:", e);
-        } finally {
-            JdbcDataSourceUtils.releaseConnection(connection);
-        }
         DataSource dataSource = jdbcDataSourceUtils.getDataSource(database);
         JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
         jdbcTemplate.setDatabaseProductName(database.getName());
@@ -98,59 +106,109 @@ public class SqlUtils {
     }
 
     public void queryInternal(String sql, SemanticQueryResp queryResultWithColumns) {
-        getResult(sql, queryResultWithColumns, jdbcTemplate());
+        query(sql, resultExtractor(queryResultWithColumns), null);
+    }
+
+    /**
+     * Runs the sql with the remaining time of the token as statement timeout, cancelling the
+     * statement on the database if the token is cancelled meanwhile.
+     */
+    public void queryInternal(String sql, SemanticQueryResp queryResultWithColumns,
+            CancellationToken cancellationToken) {
+        query(sql, resultExtractor(queryResultWithColumns), cancellationToken);
+    }
+
+    /**
+     * Runs the sql and hands the live result set to the extractor without materializing it, so the
+     * rows can be streamed to the caller batch by batch.
+     */
+    public <T> T queryStream(String sql, ResultSetExtractor<T> extractor,
+            CancellationToken cancellationToken) {
+        return query(sql, extractor, cancellationToken);
+    }
+
+    private <T> T query(String sql, ResultSetExtractor<T> extractor,
+            CancellationToken cancellationToken) {
+        return admitted(cancellationToken, () -> {
+            JdbcTemplate jdbcTemplate = jdbcTemplate();
+            if (Objects.isNull(cancellationToken)) {
+                return jdbcTemplate.query(sql, extractor);
+            }
+            jdbcTemplate.setQueryTimeout(cancellationToken.getRemainingSeconds());
+            return jdbcTemplate.execute((StatementCallback<T>) statement -> {
+                cancellationToken.register(statement);
+                try (ResultSet rs = statement.executeQuery(sql)) {
+                    return extractor.extractData(rs);
+                } finally {
+                    cancellationToken.unregister(statement);
+                }
+            });
+        });
     }
 
-    private SemanticQueryResp getResult(String sql, SemanticQueryResp queryResultWithColumns,
-            JdbcTemplate jdbcTemplate) {
-        jdbcTemplate.query(sql, rs -> {
+    /** runs the query once the database admits it and tracks whether it could connect */
+    private <T> T admitted(CancellationToken cancellationToken, Supplier<T> query) {
+        try (DataSourceAdmission.Permit permit =
+                jdbcDataSource.admit(database, cancellationToken)) {
+            T result = query.get();
+            jdbcDataSource.onConnectionSuccess(database);
+            return result;
+        } catch (CannotGetJdbcConnectionException e) {
+            jdbcDataSource.onConnectionFailure(database, e);
+            throw e;
+        }
+    }
+
+    public DataSourceStats getDataSourceStats() {
+        return jdbcDataSource.getStats(database);
+    }
+
+    private ResultSetExtractor<SemanticQueryResp> resultExtractor(
+            SemanticQueryResp queryResultWithColumns) {
+        return rs -> {
             if (null == rs) {
                 return queryResultWithColumns;
             }
 
             ResultSetMetaData metaData = rs.getMetaData();
             List<QueryColumn> queryColumns = new ArrayList<>();
+            List<String> columnNames = new ArrayList<>();
+            int[] sqlTypes = new int[metaData.getColumnCount()];
             for (int i = 1; i <= metaData.getColumnCount(); i++) {
                 String key = metaData.getColumnLabel(i);
                 queryColumns.add(new QueryColumn(key, metaData.getColumnTypeName(i)));
+                columnNames.add(key);
+                sqlTypes[i - 1] = metaData.getColumnType(i);
             }
             queryResultWithColumns.setColumns(queryColumns);
 
-            List<Map<String, Object>> resultList = getAllData(rs, queryColumns);
-            queryResultWithColumns.setResultList(resultList);
+            ColumnarResult columnarResult = new ColumnarResult(columnNames, sqlTypes);
+            getAllData(rs, columnarResult);
+            queryResultWithColumns.setColumnarResult(columnarResult);
             return queryResultWithColumns;
-        });
-        return queryResultWithColumns;
+        };
     }
 
-    private List<Map<String, Object>> getAllData(ResultSet rs, List<QueryColumn> queryColumns) {
-        List<Map<String, Object>> data = new ArrayList<>();
+    private void getAllData(ResultSet rs, ColumnarResult columnarResult) {
+        int columnCount = columnarResult.getColumnCount();
+        Object[] values = new Object[columnCount];
         try {
             while (rs.next()) {
-                data.add(getLineData(rs, queryColumns));
+                for (int i = 0; i < columnCount; i++) {
+                    values[i] = getValue(rs.getObject(i + 1));
+                }
+                columnarResult.addRow(values);
             }
         } catch (Exception e) {
             log.warn("error in getAllData, e:", e);
         }
-        return data;
-    }
-
-    private Map<String, Object> getLineData(ResultSet rs, List<QueryColumn> queryColumns)
-            throws SQLException {
-        Map<String, Object> map = new LinkedHashMap<>();
-        for (QueryColumn queryColumn : queryColumns) {
-            String colName = queryColumn.getBizName();
-            Object value = rs.getObject(colName);
-            map.put(colName, getValue(value));
-        }
-        return map;
     }
 
     private Object getValue(Object value) {
         if (value instanceof LocalDate localDate) {
-            return localDate.format(DateTimeFormatter.ofPattern(DateUtils.DEFAULT_DATE_FORMAT));
+            return localDate.format(DATE_FORMATTER);
         } else if (value instanceof LocalDateTime localDateTime) {
-            return localDateTime.format(DateTimeFormatter.ofPattern(DateUtils.DEFAULT_TIME_FORMAT));
+            return localDateTime.format(TIME_FORMATTER);
         } else if (value instanceof Date date) {
             return DateUtils.format(date);
         } else if (value instanceof byte[]) {
@@ -163,6 +221,7 @@ public class SqlUtils {
 
         private JdbcDataSource jdbcDataSource;
         private int resultLimit;
+        private Long id;
         private boolean isQueryLogEnable;
         private String name;
         private String type;
@@ -191,6 +250,11 @@ public class SqlUtils {
             return this;
         }
 
+        SqlUtilsBuilder withId(Long id) {
+            this.id = id;
+            return this;
+        }
+
         SqlUtilsBuilder withName(String name) {
             this.name = name;
             return this;
@@ -217,7 +281,7 @@ public class SqlUtils {
         }
 
         public SqlUtils build() {
-            DatabaseResp database = DatabaseResp.builder().name(this.name)
+            DatabaseResp database = DatabaseResp.builder().id(this.id).name(this.name)
                     .type(this.type.toUpperCase()).url(this.jdbcUrl).username(this.username)
                     .password(this.password).build();
 
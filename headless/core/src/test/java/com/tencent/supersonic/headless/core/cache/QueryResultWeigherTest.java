@@ -0,0 +1,52 @@
+package com.tencent.supersonic.headless.core.cache;
+
+import com.tencent.supersonic.headless.api.pojo.ColumnarResult;
+import com.tencent.supersonic.headless.api.pojo.response.SemanticQueryResp;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class QueryResultWeigherTest {
+
+    private final QueryResultWeigher weigher = new QueryResultWeigher();
+
+    @Test
+    void testWeighByResultSize() {
+        int kpi = weigher.weigh("kpi", columnarResp(1));
+        int detail = weigher.weigh("detail", columnarResp(100000));
+        Assertions.assertTrue(detail > kpi * 1000, kpi + " vs " + detail);
+        // two columns of 100k rows, one long and one short string
+        Assertions.assertTrue(detail > 100000 * (8 + 32), String.valueOf(detail));
+    }
+
+    @Test
+    void testWeighRowList() {
+        SemanticQueryResp queryResp = new SemanticQueryResp();
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("pv", (long) i);
+            row.put("department", "dept" + i);
+            rows.add(row);
+        }
+        queryResp.setResultList(rows);
+        Assertions.assertTrue(weigher.weigh("rows", queryResp) > 1000 * 2 * 48);
+        Assertions.assertTrue(weigher.weigh("rows", queryResp) > weigher.weigh("other", "value"));
+    }
+
+    private static SemanticQueryResp columnarResp(int rows) {
+        ColumnarResult columnarResult = new ColumnarResult(List.of("pv", "department"),
+                new int[] {Types.BIGINT, Types.VARCHAR});
+        for (int i = 0; i < rows; i++) {
+            columnarResult.addRow(new Object[] {(long) i, "dept" + i});
+        }
+        SemanticQueryResp queryResp = new SemanticQueryResp();
+        queryResp.setColumnarResult(columnarResult);
+        return queryResp;
+    }
+}
@@ -0,0 +1,88 @@
+package com.tencent.supersonic.headless.core.executor;
+
+import com.tencent.supersonic.common.pojo.exception.QueryRejectedException;
+import com.tencent.supersonic.headless.api.pojo.enums.QueryPriority;
+import com.tencent.supersonic.headless.core.pojo.DataSourceStats;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+class DataSourceAdmissionTest {
+
+    @Test
+    void testRejectWhenQueueIsFull() {
+        DataSourceAdmission admission = new DataSourceAdmission("db", 1, 0, 0);
+        DataSourceAdmission.Permit permit = admission.acquire(QueryPriority.INTERACTIVE, 1000);
+        Assertions.assertThrows(QueryRejectedException.class,
+                () -> admission.acquire(QueryPriority.INTERACTIVE, 1000));
+        permit.close();
+        admission.acquire(QueryPriority.INTERACTIVE, 0).close();
+
+        DataSourceStats stats = new DataSourceStats();
+        admission.fillStats(stats);
+        Assertions.assertEquals(0, stats.getRunning());
+        Assertions.assertEquals(2, stats.getAdmittedCount());
+        Assertions.assertEquals(1, stats.getRejectedCount());
+    }
+
+    @Test
+    void testInteractiveGoesAheadOfBatch() throws Exception {
+        DataSourceAdmission admission = new DataSourceAdmission("db", 2, 1, 10);
+        DataSourceAdmission.Permit first = admission.acquire(QueryPriority.BATCH, 1000);
+        // the second connection is reserved for interactive queries
+        Assertions.assertThrows(QueryRejectedException.class,
+                () -> admission.acquire(QueryPriority.BATCH, 50));
+        DataSourceAdmission.Permit second = admission.acquire(QueryPriority.INTERACTIVE, 0);
+
+        List<QueryPriority> order = new CopyOnWriteArrayList<>();
+        CompletableFuture<Void> batch = CompletableFuture.runAsync(() -> {
+            try (DataSourceAdmission.Permit permit = admission.acquire(QueryPriority.BATCH, 5000)) {
+                order.add(QueryPriority.BATCH);
+            }
+        });
+        waitForWaiters(admission, 1);
+        CompletableFuture<Void> interactive = CompletableFuture.runAsync(() -> {
+            try (DataSourceAdmission.Permit permit =
+                    admission.acquire(QueryPriority.INTERACTIVE, 5000)) {
+                order.add(QueryPriority.INTERACTIVE);
+            }
+        });
+        waitForWaiters(admission, 2);
+
+        // the batch query queued first, but the freed connection goes to the interactive one
+        first.close();
+        interactive.get(5, TimeUnit.SECONDS);
+        batch.get(5, TimeUnit.SECONDS);
+        second.close();
+        Assertions.assertEquals(List.of(QueryPriority.INTERACTIVE, QueryPriority.BATCH), order);
+    }
+
+    @Test
+    void testBackoffAfterConnectFailure() {
+        DataSourceHealth health = new DataSourceHealth("db", 60000);
+        health.checkAvailable();
+        health.onFailure(new RuntimeException("Connection refused"));
+        QueryRejectedException e =
+                Assertions.assertThrows(QueryRejectedException.class, health::checkAvailable);
+        Assertions.assertTrue(e.getMessage().contains("Connection refused"), e.getMessage());
+        health.onSuccess();
+        health.checkAvailable();
+    }
+
+    private static void waitForWaiters(DataSourceAdmission admission, int waiters)
+            throws InterruptedException {
+        DataSourceStats stats = new DataSourceStats();
+        for (int i = 0; i < 500; i++) {
+            admission.fillStats(stats);
+            if (stats.getWaitingInteractive() + stats.getWaitingBatch() >= waiters) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        Assertions.fail("no waiting queries");
+    }
+}
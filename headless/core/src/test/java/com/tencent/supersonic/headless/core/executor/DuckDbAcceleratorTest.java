@@ -0,0 +1,71 @@
+package com.tencent.supersonic.headless.core.executor;
+
+import com.tencent.supersonic.headless.core.pojo.Materialization;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+class DuckDbAcceleratorTest {
+
+    private final DuckDbAccelerator accelerator = new DuckDbAccelerator();
+
+    private final Materialization byCity = Materialization.builder().name("rollup.ds1_city")
+            .dataSetId(1L).columns(List.of("city", "imp_date", "pv", "uv")).isPartitioned(true)
+            .partitionName("imp_date").partitionTimeFormat("yyyy-MM-dd")
+            .partitions(List.of("2024-01-01", "2024-01-02", "2024-01-03", "2024-01-05"))
+            .metrics(Map.of("pv", "SUM", "uv", "MAX")).build();
+
+    private final Materialization byCityAndAge =
+            Materialization.builder().name("rollup.ds1_city_age").dataSetId(1L)
+                    .columns(List.of("city", "age", "imp_date", "pv")).isPartitioned(true)
+                    .partitionName("imp_date").partitionTimeFormat("yyyy-MM-dd")
+                    .partitions(List.of("2024-01-01", "2024-01-02", "2024-01-03"))
+                    .metrics(Map.of("pv", "SUM")).build();
+
+    @Test
+    void testMatchCoveredRange() {
+        String sql = "SELECT city, SUM(pv) AS pv FROM t_1 WHERE imp_date >= '2024-01-01' "
+                + "AND imp_date <= '2024-01-03' AND city = 'sz' GROUP BY city ORDER BY pv DESC";
+        Assertions.assertEquals(byCity, accelerator.match(sql, List.of(byCityAndAge, byCity)));
+        String single = "SELECT `city`, MAX(`uv`) FROM t_1 WHERE `imp_date` = '2024-01-05' "
+                + "GROUP BY `city`";
+        Assertions.assertEquals(byCity, accelerator.match(single, List.of(byCity)));
+        String ageSql = "SELECT age, SUM(pv) FROM t_1 WHERE imp_date BETWEEN '2024-01-02' "
+                + "AND '2024-01-03' GROUP BY age";
+        Assertions.assertEquals(byCityAndAge,
+                accelerator.match(ageSql, List.of(byCity, byCityAndAge)));
+    }
+
+    @Test
+    void testNotMatchUncoveredRange() {
+        // 2024-01-04 is missing
+        String sql = "SELECT city, SUM(pv) FROM t_1 WHERE imp_date >= '2024-01-02' "
+                + "AND imp_date <= '2024-01-05' GROUP BY city";
+        Assertions.assertNull(accelerator.match(sql, List.of(byCity)));
+        String unbounded =
+                "SELECT city, SUM(pv) FROM t_1 WHERE imp_date >= '2024-01-02' GROUP BY city";
+        Assertions.assertNull(accelerator.match(unbounded, List.of(byCity)));
+        String or = "SELECT city, SUM(pv) FROM t_1 WHERE imp_date = '2024-01-02' "
+                + "OR city = 'sz' GROUP BY city";
+        Assertions.assertNull(accelerator.match(or, List.of(byCity)));
+    }
+
+    @Test
+    void testNotMatchUnsupportedFields() {
+        String range = " FROM t_1 WHERE imp_date = '2024-01-02' GROUP BY city";
+        Assertions.assertNull(accelerator.match("SELECT city, COUNT(pv)" + range, List.of(byCity)));
+        Assertions.assertNull(accelerator.match("SELECT city, AVG(pv)" + range, List.of(byCity)));
+        // uv is rolled up with MAX
+        Assertions.assertNull(accelerator.match("SELECT city, SUM(uv)" + range, List.of(byCity)));
+        Assertions.assertNull(
+                accelerator.match("SELECT city, SUM(DISTINCT pv)" + range, List.of(byCity)));
+        Assertions.assertNull(accelerator
+                .match("SELECT age, SUM(pv)" + range.replace("city", "age"), List.of(byCity)));
+        Assertions.assertNull(accelerator.match(
+                "SELECT city, SUM(pv) FROM t_1 "
+                        + "WHERE imp_date = '2024-01-02' AND pv > 10 GROUP BY city",
+                List.of(byCity)));
+    }
+}
@@ -0,0 +1,59 @@
+package com.tencent.supersonic.headless.core.pojo;
+
+import com.tencent.supersonic.common.pojo.exception.QueryCancelledException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+class CancellationTokenTest {
+
+    @Test
+    void testCancelRunningStatement() throws Exception {
+        CancellationToken token = new CancellationToken("q1", "admin", 0);
+        try (Connection connection = DriverManager.getConnection("jdbc:duckdb:");
+                Statement statement = connection.createStatement()) {
+            token.register(statement);
+            CompletableFuture<Void> query = CompletableFuture.runAsync(() -> {
+                try {
+                    statement.executeQuery("SELECT count(*) FROM range(100000000000) t1");
+                } catch (SQLException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            Thread.sleep(500);
+            token.cancel();
+            Assertions.assertThrows(ExecutionException.class,
+                    () -> query.get(30, TimeUnit.SECONDS));
+        }
+        Assertions.assertThrows(QueryCancelledException.class, token::checkActive);
+    }
+
+    @Test
+    void testDeadline() throws Exception {
+        CancellationToken unlimited = new CancellationToken("q2", "admin", 0);
+        Assertions.assertEquals(0, unlimited.getRemainingSeconds());
+        CancellationToken token = new CancellationToken("q3", "admin", 1500);
+        Assertions.assertEquals(2, token.getRemainingSeconds());
+        Thread.sleep(1600);
+        Assertions.assertTrue(token.isExpired());
+        QueryCancelledException e =
+                Assertions.assertThrows(QueryCancelledException.class, token::getRemainingSeconds);
+        Assertions.assertTrue(e.getMessage().contains("timed out"));
+    }
+
+    @Test
+    void testShareAndRelease() {
+        CancellationToken token = new CancellationToken("q4", "admin", 0);
+        Assertions.assertTrue(token.retain());
+        Assertions.assertFalse(token.release());
+        Assertions.assertTrue(token.release());
+        Assertions.assertFalse(token.retain());
+    }
+}
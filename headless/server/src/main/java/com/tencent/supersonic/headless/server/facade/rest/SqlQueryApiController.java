@@ -10,11 +10,13 @@ import com.tencent.supersonic.headless.api.pojo.request.SemanticQueryReq;
 import com.tencent.supersonic.headless.api.pojo.response.SemanticQueryResp;
 import com.tencent.supersonic.headless.server.facade.service.ChatLayerService;
 import com.tencent.supersonic.headless.server.facade.service.SemanticLayerService;
+import com.tencent.supersonic.headless.server.manager.RunningQueryManager;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -36,6 +38,9 @@ public class SqlQueryApiController {
     @Autowired
     private ChatLayerService chatLayerService;
 
+    @Autowired
+    private RunningQueryManager runningQueryManager;
+
     @PostMapping("/sql")
     public Object queryBySql(@RequestBody QuerySqlReq querySqlReq, HttpServletRequest request,
             HttpServletResponse response) throws Exception {
@@ -94,6 +99,14 @@ public class SqlQueryApiController {
         return semanticQueryRespList;
     }
 
+    /** cancels a running query by the requestId of its request, e.g. when its page is closed */
+    @PostMapping("/cancel/{requestId}")
+    public Boolean cancel(@PathVariable("requestId") String requestId, HttpServletRequest request,
+            HttpServletResponse response) {
+        User user = UserHolder.findUser(request, response);
+        return runningQueryManager.cancel(requestId, user);
+    }
+
     @PostMapping("/validate")
     public Object validate(@RequestBody QuerySqlReq querySqlReq, HttpServletRequest request,
             HttpServletResponse response) throws Exception {
@@ -10,6 +10,7 @@ import com.tencent.supersonic.headless.api.pojo.response.ItemResp;
 import com.tencent.supersonic.headless.api.pojo.response.MetricResp;
 import com.tencent.supersonic.headless.api.pojo.response.SemanticQueryResp;
 import com.tencent.supersonic.headless.api.pojo.response.SemanticTranslateResp;
+import org.springframework.jdbc.core.ResultSetExtractor;
 
 import java.util.List;
 
@@ -20,6 +21,16 @@ public interface SemanticLayerService {
 
     SemanticQueryResp queryByReq(SemanticQueryReq queryReq, User user) throws Exception;
 
+    /**
+     * Translates the query and passes the live JDBC result set of the physical sql to the extractor
+     * instead of loading it into a {@link SemanticQueryResp}. Unlike {@link #queryByReq}, the result
+     * cache, the query executors, like the accelerators, and the mapping of dimension values to
+     * their aliases are not applied. The query runs in the BATCH lane of the data source, as it
+     * holds its connection for as long as the reader takes.
+     */
+    <T> T streamByReq(SemanticQueryReq queryReq, User user, ResultSetExtractor<T> extractor)
+            throws Exception;
+
     SemanticQueryResp queryDimensionValue(DimensionValueReq dimensionValueReq, User user);
 
     DataSetSchema getDataSetSchema(Long id);
@@ -13,6 +13,7 @@ import com.tencent.supersonic.headless.api.pojo.response.*;
 import com.tencent.supersonic.headless.chat.ChatQueryContext;
 import com.tencent.supersonic.headless.chat.corrector.GrammarCorrector;
 import com.tencent.supersonic.headless.chat.corrector.SchemaCorrector;
+import com.tencent.supersonic.headless.chat.knowledge.KnowledgeBaseService;
 import com.tencent.supersonic.headless.chat.knowledge.builder.BaseWordBuilder;
 import com.tencent.supersonic.headless.chat.utils.ComponentFactory;
 import com.tencent.supersonic.headless.server.facade.service.ChatLayerService;
@@ -41,6 +42,8 @@ public class S2ChatLayerService implements ChatLayerService {
     private RetrieveService retrieveService;
     @Autowired
     private ChatWorkflowEngine chatWorkflowEngine;
+    @Autowired
+    private KnowledgeBaseService knowledgeBaseService;
 
     @Override
     public MapResp map(QueryNLReq queryNLReq) {
@@ -66,6 +69,7 @@ public class S2ChatLayerService implements ChatLayerService {
     @Override
     public ParseResp parse(QueryNLReq queryNLReq) {
         ParseResp parseResp = new ParseResp(queryNLReq.getQueryText());
+        parseResp.setDictGeneration(knowledgeBaseService.getDictGeneration());
         ChatQueryContext queryCtx = buildChatQueryContext(queryNLReq);
         queryCtx.setParseResp(parseResp);
         if (queryCtx.getMapInfo().isEmpty()) {
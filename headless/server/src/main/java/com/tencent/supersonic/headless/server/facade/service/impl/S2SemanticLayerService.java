@@ -7,9 +7,11 @@ import com.tencent.supersonic.common.pojo.QueryColumn;
 import com.tencent.supersonic.common.pojo.User;
 import com.tencent.supersonic.common.pojo.enums.AuthType;
 import com.tencent.supersonic.common.pojo.enums.TaskStatusEnum;
+import com.tencent.supersonic.common.pojo.exception.InvalidArgumentException;
 import com.tencent.supersonic.headless.api.pojo.DataSetSchema;
 import com.tencent.supersonic.headless.api.pojo.Dimension;
 import com.tencent.supersonic.headless.api.pojo.MetaFilter;
+import com.tencent.supersonic.headless.api.pojo.enums.QueryPriority;
 import com.tencent.supersonic.headless.api.pojo.enums.SemanticType;
 import com.tencent.supersonic.headless.api.pojo.request.*;
 import com.tencent.supersonic.headless.api.pojo.response.*;
@@ -21,14 +23,18 @@ import com.tencent.supersonic.headless.chat.knowledge.helper.HanlpHelper;
 import com.tencent.supersonic.headless.chat.knowledge.helper.NatureHelper;
 import com.tencent.supersonic.headless.core.cache.QueryCache;
 import com.tencent.supersonic.headless.core.executor.QueryExecutor;
+import com.tencent.supersonic.headless.core.pojo.CancellationToken;
 import com.tencent.supersonic.headless.core.pojo.QueryStatement;
 import com.tencent.supersonic.headless.core.pojo.SqlQuery;
 import com.tencent.supersonic.headless.core.pojo.StructQuery;
 import com.tencent.supersonic.headless.core.translator.SemanticTranslator;
 import com.tencent.supersonic.headless.core.translator.TranslatorConfig;
 import com.tencent.supersonic.headless.core.utils.ComponentFactory;
+import com.tencent.supersonic.headless.core.utils.SqlUtils;
 import com.tencent.supersonic.headless.server.annotation.S2DataPermission;
 import com.tencent.supersonic.headless.server.facade.service.SemanticLayerService;
+import com.tencent.supersonic.headless.server.manager.OntologyCacheManager;
+import com.tencent.supersonic.headless.server.manager.RunningQueryManager;
 import com.tencent.supersonic.headless.server.manager.SemanticSchemaManager;
 import com.tencent.supersonic.headless.server.service.*;
 import com.tencent.supersonic.headless.server.utils.MetricDrillDownChecker;
@@ -39,6 +45,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.BeanUtils;
+import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
@@ -51,6 +58,7 @@ public class S2SemanticLayerService implements SemanticLayerService {
     private final StatUtils statUtils;
     private final QueryUtils queryUtils;
     private final SemanticSchemaManager semanticSchemaManager;
+    private final OntologyCacheManager ontologyCacheManager;
     private final DataSetService dataSetService;
     private final SchemaService schemaService;
     private final SemanticTranslator semanticTranslator;
@@ -60,19 +68,23 @@ public class S2SemanticLayerService implements SemanticLayerService {
     private final DomainService domainService;
     private final DimensionService dimensionService;
     private final TranslatorConfig translatorConfig;
+    private final SqlUtils sqlUtils;
+    private final RunningQueryManager runningQueryManager;
     private final QueryCache queryCache = ComponentFactory.getQueryCache();
     private final List<QueryExecutor> queryExecutors = ComponentFactory.getQueryExecutors();
 
     public S2SemanticLayerService(StatUtils statUtils, QueryUtils queryUtils,
-            SemanticSchemaManager semanticSchemaManager, DataSetService dataSetService,
-            SchemaService schemaService, SemanticTranslator semanticTranslator,
-            MetricDrillDownChecker metricDrillDownChecker,
+            SemanticSchemaManager semanticSchemaManager, OntologyCacheManager ontologyCacheManager,
+            DataSetService dataSetService, SchemaService schemaService,
+            SemanticTranslator semanticTranslator, MetricDrillDownChecker metricDrillDownChecker,
             KnowledgeBaseService knowledgeBaseService, MetricService metricService,
             DimensionService dimensionService, DomainService domainService,
-            TranslatorConfig translatorConfig) {
+            TranslatorConfig translatorConfig, SqlUtils sqlUtils,
+            RunningQueryManager runningQueryManager) {
         this.statUtils = statUtils;
         this.queryUtils = queryUtils;
         this.semanticSchemaManager = semanticSchemaManager;
+        this.ontologyCacheManager = ontologyCacheManager;
         this.dataSetService = dataSetService;
         this.schemaService = schemaService;
         this.semanticTranslator = semanticTranslator;
@@ -82,6 +94,8 @@ public class S2SemanticLayerService implements SemanticLayerService {
         this.dimensionService = dimensionService;
         this.domainService = domainService;
         this.translatorConfig = translatorConfig;
+        this.sqlUtils = sqlUtils;
+        this.runningQueryManager = runningQueryManager;
     }
 
     public DataSetSchema getDataSetSchema(Long id) {
@@ -102,6 +116,7 @@ public class S2SemanticLayerService implements SemanticLayerService {
     @SneakyThrows
     public SemanticQueryResp queryByReq(SemanticQueryReq queryReq, User user) {
         TaskStatusEnum state = TaskStatusEnum.SUCCESS;
+        CancellationToken cancellationToken = runningQueryManager.start(queryReq, user);
         log.info("[queryReq:{}]", queryReq);
         try {
             // 1.initStatInfo
@@ -121,33 +136,15 @@ public class S2SemanticLayerService implements SemanticLayerService {
             }
             StatUtils.get().setUseResultCache(false);
 
-            // 3 translate query
-            QueryStatement queryStatement = buildQueryStatement(queryReq, user);
-            semanticTranslator.translate(queryStatement);
-
-            // Check whether the dimensions of the metric drill-down are correct temporarily,
-            // add the abstraction of a validator later.
-            metricDrillDownChecker.checkQuery(queryStatement);
-
-            // 4.execute query
-            SemanticQueryResp queryResp = null;
-            for (QueryExecutor queryExecutor : queryExecutors) {
-                if (queryExecutor.accept(queryStatement)) {
-                    queryResp = queryExecutor.execute(queryStatement);
-                    queryUtils.populateQueryColumns(queryResp, queryStatement.getSemanticSchema());
-                }
-            }
+            // 3.execute query and reset cache, concurrent identical queries share one execution
+            SemanticQueryResp queryResp = (SemanticQueryResp) queryCache.load(queryReq, cacheKey,
+                    cancellationToken, () -> executeQuery(queryReq, user, cancellationToken));
 
-            // 5.reset cache and set stateInfo
-            Boolean setCacheSuccess = queryCache.put(cacheKey, queryResp);
-            if (setCacheSuccess) {
-                // if result is not null, update cache data
-                statUtils.updateResultCacheKey(cacheKey);
-            }
+            // 4.set stateInfo
             if (Objects.isNull(queryResp)) {
                 state = TaskStatusEnum.ERROR;
-            } else {
-                queryResp.appendErrorMsg(queryStatement.getErrMsg());
+            } else if (queryCache.isCacheable(queryResp)) {
+                statUtils.updateResultCacheKey(cacheKey);
             }
 
             return queryResp;
@@ -156,6 +153,70 @@ public class S2SemanticLayerService implements SemanticLayerService {
             state = TaskStatusEnum.ERROR;
             throw e;
         } finally {
+            runningQueryManager.finish(cancellationToken);
+            statUtils.statInfo2DbAsync(state);
+        }
+    }
+
+    private SemanticQueryResp executeQuery(SemanticQueryReq queryReq, User user,
+            CancellationToken cancellationToken) throws Exception {
+        QueryStatement queryStatement = buildQueryStatement(queryReq, user);
+        queryStatement.setCancellationToken(cancellationToken);
+        semanticTranslator.translate(queryStatement);
+        statUtils.updateSqlCacheKey(queryStatement.getSqlCacheKey(),
+                queryStatement.isUseSqlCache());
+
+        // Check whether the dimensions of the metric drill-down are correct temporarily,
+        // add the abstraction of a validator later.
+        metricDrillDownChecker.checkQuery(queryStatement);
+
+        SemanticQueryResp queryResp = null;
+        for (QueryExecutor queryExecutor : queryExecutors) {
+            if (queryExecutor.accept(queryStatement)) {
+                queryResp = queryExecutor.execute(queryStatement);
+                queryUtils.populateQueryColumns(queryResp, queryStatement.getSemanticSchema());
+            }
+        }
+        if (Objects.nonNull(queryResp)) {
+            queryResp.appendErrorMsg(queryStatement.getErrMsg());
+        }
+        return queryResp;
+    }
+
+    @Override
+    @S2DataPermission
+    @SneakyThrows
+    public <T> T streamByReq(SemanticQueryReq queryReq, User user,
+            ResultSetExtractor<T> extractor) {
+        TaskStatusEnum state = TaskStatusEnum.SUCCESS;
+        // a slow reader keeps the connection, so it must not take one of interactive queries
+        queryReq.setPriority(QueryPriority.BATCH);
+        CancellationToken cancellationToken = runningQueryManager.start(queryReq, user);
+        log.info("[streamReq:{}]", queryReq);
+        try {
+            statUtils.initStatInfo(queryReq, user);
+            StatUtils.get().setUseResultCache(false);
+
+            QueryStatement queryStatement = buildQueryStatement(queryReq, user);
+            semanticTranslator.translate(queryStatement);
+            statUtils.updateSqlCacheKey(queryStatement.getSqlCacheKey(),
+                    queryStatement.isUseSqlCache());
+            if (!queryStatement.isOk()) {
+                throw new InvalidArgumentException(queryStatement.getErrMsg());
+            }
+            metricDrillDownChecker.checkQuery(queryStatement);
+
+            log.info("streaming SQL: {}", StringUtils.normalizeSpace(queryStatement.getSql()));
+            return sqlUtils.init(queryStatement.getOntology().getDatabase())
+                    .queryStream(queryStatement.getSql(), extractor, cancellationToken);
+        } catch (Exception e) {
+            log.error("exception in streamByReq:{}, e: ", queryReq, e);
+            state = TaskStatusEnum.ERROR;
+            // report a cancelled or timed out query as such rather than as a driver error
+            cancellationToken.checkActive();
+            throw e;
+        } finally {
+            runningQueryManager.finish(cancellationToken);
             statUtils.statInfo2DbAsync(state);
         }
     }
@@ -306,6 +367,9 @@ public class S2SemanticLayerService implements SemanticLayerService {
         SchemaFilterReq schemaFilterReq = new SchemaFilterReq();
         schemaFilterReq.setDataSetId(queryReq.getDataSetId());
         schemaFilterReq.setModelIds(queryReq.getModelIds());
+        // read the version before fetching the schema so that a concurrent change never gets
+        // cached under the new version
+        long schemaVersion = ontologyCacheManager.getSchemaVersion();
         SemanticSchemaResp semanticSchemaResp = schemaService.fetchSemanticSchema(schemaFilterReq);
 
         QueryStatement queryStatement = new QueryStatement();
@@ -315,7 +379,9 @@ public class S2SemanticLayerService implements SemanticLayerService {
         queryStatement.setDataSetId(queryReq.getDataSetId());
         queryStatement.setDataSetName(queryReq.getDataSetName());
         queryStatement.setSemanticSchema(semanticSchemaResp);
-        queryStatement.setOntology(semanticSchemaManager.buildOntology(semanticSchemaResp));
+        queryStatement.setSchemaVersion(schemaVersion);
+        queryStatement.setOntology(ontologyCacheManager.getOntology(schemaFilterReq, schemaVersion,
+                () -> semanticSchemaManager.buildOntology(semanticSchemaResp)));
         return queryStatement;
     }
 
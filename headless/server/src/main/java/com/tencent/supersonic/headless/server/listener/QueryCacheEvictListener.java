@@ -0,0 +1,48 @@
+package com.tencent.supersonic.headless.server.listener;
+
+import com.tencent.supersonic.common.pojo.DataEvent;
+import com.tencent.supersonic.common.pojo.DataItem;
+import com.tencent.supersonic.common.pojo.enums.TypeEnums;
+import com.tencent.supersonic.headless.core.utils.ComponentFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.CollectionUtils;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Drops the cached query results of the models touched by a change. Queries whose models are not
+ * known up front are dropped on any change. It runs once the change is committed, so that a query
+ * between the event and the commit cannot cache the old result again.
+ */
+@Component
+@Slf4j
+public class QueryCacheEvictListener {
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onApplicationEvent(DataEvent dataEvent) {
+        if (CollectionUtils.isEmpty(dataEvent.getDataItems())) {
+            return;
+        }
+        Set<Long> modelIds = new HashSet<>();
+        for (DataItem dataItem : dataEvent.getDataItems()) {
+            if (TypeEnums.MODEL.equals(dataItem.getType())) {
+                addModelId(modelIds, dataItem.getId());
+            }
+            addModelId(modelIds, dataItem.getModelId());
+        }
+        if (!modelIds.isEmpty()) {
+            ComponentFactory.getQueryCache().invalidate(modelIds);
+        }
+    }
+
+    private void addModelId(Set<Long> modelIds, String modelId) {
+        if (StringUtils.isNumeric(modelId)) {
+            modelIds.add(Long.valueOf(modelId));
+        }
+    }
+}
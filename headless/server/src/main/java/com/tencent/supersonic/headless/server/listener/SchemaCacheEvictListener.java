@@ -0,0 +1,44 @@
+package com.tencent.supersonic.headless.server.listener;
+
+import com.tencent.supersonic.common.pojo.DataEvent;
+import com.tencent.supersonic.common.pojo.enums.TypeEnums;
+import com.tencent.supersonic.headless.server.service.SchemaService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.CollectionUtils;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Evicts the cached semantic schema and compiled ontologies when models, metrics or dimensions
+ * change. It runs synchronously once the change is committed, so that a query between the event
+ * and the commit cannot cache the old schema again, and the next query after it sees the new one.
+ */
+@Component
+@Slf4j
+public class SchemaCacheEvictListener {
+
+    private static final Set<TypeEnums> SCHEMA_TYPES =
+            EnumSet.of(TypeEnums.MODEL, TypeEnums.METRIC, TypeEnums.DIMENSION);
+
+    private final SchemaService schemaService;
+
+    public SchemaCacheEvictListener(SchemaService schemaService) {
+        this.schemaService = schemaService;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onApplicationEvent(DataEvent dataEvent) {
+        if (CollectionUtils.isEmpty(dataEvent.getDataItems())) {
+            return;
+        }
+        boolean schemaChanged = dataEvent.getDataItems().stream()
+                .anyMatch(dataItem -> SCHEMA_TYPES.contains(dataItem.getType()));
+        if (schemaChanged) {
+            schemaService.evictSchemaCache();
+        }
+    }
+}
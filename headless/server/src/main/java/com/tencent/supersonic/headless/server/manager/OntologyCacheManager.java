@@ -0,0 +1,97 @@
+package com.tencent.supersonic.headless.server.manager;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.tencent.supersonic.headless.api.pojo.request.SchemaFilterReq;
+import com.tencent.supersonic.headless.core.pojo.Ontology;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Caches compiled {@link Ontology} instances per data set/model set. Entries are keyed by the
+ * schema version, which is bumped whenever a model, metric, dimension, model relation, data set or
+ * database changes, so an ontology built from an outdated schema is never served again. Entries
+ * also expire a while after they are built, bounding how long a change made outside of these
+ * services, like directly in the database, is missed.
+ */
+@Slf4j
+@Component
+public class OntologyCacheManager {
+
+    private final AtomicLong schemaVersion = new AtomicLong();
+
+    private final Cache<String, Ontology> ontologyCache;
+
+    @Value("${s2.ontology.cache.enable:true}")
+    private boolean ontologyCacheEnable;
+
+    public OntologyCacheManager(@Value("${s2.ontology.cache.max-size:1000}") long maxSize,
+            @Value("${s2.ontology.cache.expire-after-write-minutes:60}") long expireMinutes) {
+        this.ontologyCache = CacheBuilder.newBuilder().maximumSize(maxSize)
+                .expireAfterWrite(expireMinutes, TimeUnit.MINUTES).recordStats().build();
+    }
+
+    public long getSchemaVersion() {
+        return schemaVersion.get();
+    }
+
+    /**
+     * Returns the cached ontology for the given filter, building it with {@code builder} on a miss.
+     * The {@code version} must be read via {@link #getSchemaVersion()} before the semantic schema
+     * that the builder uses is fetched.
+     */
+    public Ontology getOntology(SchemaFilterReq schemaFilterReq, long version,
+            Supplier<Ontology> builder) {
+        if (!ontologyCacheEnable) {
+            return builder.get();
+        }
+        String cacheKey = getCacheKey(schemaFilterReq, version);
+        try {
+            return ontologyCache.get(cacheKey, builder::get).copy();
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    public void invalidate() {
+        long version = schemaVersion.incrementAndGet();
+        ontologyCache.invalidateAll();
+        log.info("ontology cache invalidated, schemaVersion:{}", version);
+    }
+
+    public Map<String, Object> getStats() {
+        CacheStats stats = ontologyCache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("schemaVersion", schemaVersion.get());
+        result.put("size", ontologyCache.size());
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("buildCount", stats.loadCount());
+        result.put("buildFailureCount", stats.loadExceptionCount());
+        result.put("totalBuildTimeMs", TimeUnit.NANOSECONDS.toMillis(stats.totalLoadTime()));
+        result.put("averageBuildTimeMs", stats.averageLoadPenalty() / 1_000_000);
+        return result;
+    }
+
+    private String getCacheKey(SchemaFilterReq schemaFilterReq, long version) {
+        String modelIds = schemaFilterReq.getModelIds() == null ? ""
+                : schemaFilterReq.getModelIds().stream().filter(Objects::nonNull).sorted()
+                        .map(String::valueOf).collect(Collectors.joining(","));
+        return schemaFilterReq.getDataSetId() + "_" + modelIds + "_" + version;
+    }
+}
@@ -0,0 +1,94 @@
+package com.tencent.supersonic.headless.server.manager;
+
+import com.tencent.supersonic.common.pojo.User;
+import com.tencent.supersonic.common.pojo.exception.InvalidPermissionException;
+import com.tencent.supersonic.headless.api.pojo.enums.QueryPriority;
+import com.tencent.supersonic.headless.api.pojo.request.SemanticQueryReq;
+import com.tencent.supersonic.headless.core.pojo.CancellationToken;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks the queries running against the data sources by query id, so that a caller who is no
+ * longer waiting for a result can cancel it. Requests of the same user sharing a query id share one
+ * token, e.g. the sqls of one batch request. Batch queries have their own timeout, as background
+ * jobs may legitimately run much longer than an interactive query.
+ */
+@Slf4j
+@Component
+public class RunningQueryManager {
+
+    private final Map<String, CancellationToken> runningQueries = new ConcurrentHashMap<>();
+
+    @Value("${s2.query.timeout-ms:600000}")
+    private long defaultTimeoutMs;
+
+    /** timeout of BATCH priority queries, 0 for none */
+    @Value("${s2.query.batch-timeout-ms:0}")
+    private long batchTimeoutMs;
+
+    public CancellationToken start(SemanticQueryReq queryReq, User user) {
+        if (StringUtils.isBlank(queryReq.getRequestId())) {
+            queryReq.setRequestId(UUID.randomUUID().toString());
+        }
+        long timeoutMs = Objects.nonNull(queryReq.getTimeoutMs()) && queryReq.getTimeoutMs() > 0
+                ? queryReq.getTimeoutMs()
+                : QueryPriority.BATCH.equals(queryReq.getPriority()) ? batchTimeoutMs
+                        : defaultTimeoutMs;
+        String userName = Objects.nonNull(user) ? user.getName() : null;
+        return runningQueries.compute(queryReq.getRequestId(), (queryId, running) -> {
+            if (Objects.nonNull(running) && !running.isCancelled()) {
+                // another user's token must not be joined, it could be cancelled through it
+                if (!StringUtils.equals(userName, running.getUser())) {
+                    throw new InvalidPermissionException(
+                            "query id " + queryId + " is in use by another user");
+                }
+                if (running.retain()) {
+                    return running;
+                }
+            }
+            return new CancellationToken(queryId, userName, timeoutMs, queryReq.getPriority());
+        });
+    }
+
+    public void finish(CancellationToken cancellationToken) {
+        if (Objects.nonNull(cancellationToken) && cancellationToken.release()) {
+            runningQueries.remove(cancellationToken.getQueryId(), cancellationToken);
+        }
+    }
+
+    /**
+     * Cancels a query of the user, super admins may cancel any query.
+     *
+     * @return false if no such query is running
+     */
+    public boolean cancel(String queryId, User user) {
+        CancellationToken cancellationToken = runningQueries.get(queryId);
+        if (Objects.isNull(cancellationToken)) {
+            return false;
+        }
+        if (!user.isSuperAdmin()
+                && !StringUtils.equals(user.getName(), cancellationToken.getUser())) {
+            throw new InvalidPermissionException("no permission to cancel query " + queryId);
+        }
+        return cancel(queryId);
+    }
+
+    /** cancels a query on behalf of a caller that went away, e.g. a disconnected client */
+    public boolean cancel(String queryId) {
+        CancellationToken cancellationToken = runningQueries.remove(queryId);
+        if (Objects.isNull(cancellationToken)) {
+            return false;
+        }
+        log.info("cancel query {}", queryId);
+        cancellationToken.cancel();
+        return true;
+    }
+}
@@ -2,8 +2,29 @@ package com.tencent.supersonic.headless.server.persistence.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.tencent.supersonic.headless.server.persistence.dataobject.QueryStatDO;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 @Mapper
 public interface StatMapper extends BaseMapper<QueryStatDO> {
+
+    @Insert("<script>"
+            + "INSERT INTO s2_query_stat_info (trace_id, model_id, data_set_id, query_user, query_type, "
+            + "query_type_back, query_sql_cmd, sql_cmd_md5, query_struct_cmd, struct_cmd_md5, query_sql, "
+            + "sql_md5, query_engine, elapsed_ms, query_state, native_query, start_date, end_date, "
+            + "dimensions, metrics, select_cols, agg_cols, filter_cols, group_by_cols, order_by_cols, "
+            + "use_result_cache, use_sql_cache, sql_cache_key, result_cache_key, query_opt_mode) VALUES "
+            + "<foreach collection='list' item='stat' separator=','>"
+            + "(#{stat.traceId}, #{stat.modelId}, #{stat.dataSetId}, #{stat.queryUser}, #{stat.queryType}, "
+            + "#{stat.queryTypeBack}, #{stat.querySqlCmd}, #{stat.querySqlCmdMd5}, #{stat.queryStructCmd}, "
+            + "#{stat.queryStructCmdMd5}, #{stat.querySql}, #{stat.sqlMd5}, #{stat.queryEngine}, "
+            + "#{stat.elapsedMs}, #{stat.queryState}, #{stat.nativeQuery}, #{stat.startDate}, "
+            + "#{stat.endDate}, #{stat.dimensions}, #{stat.metrics}, #{stat.selectCols}, #{stat.aggCols}, "
+            + "#{stat.filterCols}, #{stat.groupByCols}, #{stat.orderByCols}, #{stat.useResultCache}, "
+            + "#{stat.useSqlCache}, #{stat.sqlCacheKey}, #{stat.resultCacheKey}, #{stat.queryOptMode})"
+            + "</foreach>" + "</script>")
+    int batchInsert(@Param("list") List<QueryStatDO> queryStatDOS);
 }
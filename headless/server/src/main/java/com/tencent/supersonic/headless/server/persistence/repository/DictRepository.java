@@ -28,5 +28,7 @@ public interface DictRepository {
 
     DictTaskResp queryLatestDictTask(DictSingleTaskReq taskReq);
 
+    DictTaskDO queryLatestSuccessDictTask(Long itemId, String type);
+
     List<DictTaskDO> queryAllDictTask(ValueTaskQueryReq taskQueryReq);
 }
@@ -3,13 +3,21 @@ package com.tencent.supersonic.headless.server.persistence.repository;
 import com.tencent.supersonic.headless.api.pojo.QueryStat;
 import com.tencent.supersonic.headless.api.pojo.request.ItemUseReq;
 import com.tencent.supersonic.headless.api.pojo.response.ItemUseResp;
+import com.tencent.supersonic.headless.server.persistence.dataobject.QueryStatDO;
 
+import java.util.Date;
 import java.util.List;
 
 public interface StatRepository {
 
     Boolean createRecord(QueryStat queryStatInfo);
 
+    /** inserts the records by a single multi-row statement */
+    int batchCreateRecord(List<QueryStat> queryStatInfos);
+
     List<ItemUseResp> getStatInfo(ItemUseReq itemUseCommend);
 
+    /** successful user queries of data sets since the given time, without pre-flush queries */
+    List<QueryStatDO> getDataSetQueryStats(Date since);
+
 }
@@ -1,6 +1,7 @@
 package com.tencent.supersonic.headless.server.persistence.repository.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.tencent.supersonic.common.pojo.enums.TaskStatusEnum;
 import com.tencent.supersonic.common.pojo.enums.TypeEnums;
 import com.tencent.supersonic.headless.api.pojo.request.DictItemFilter;
 import com.tencent.supersonic.headless.api.pojo.request.DictSingleTaskReq;
@@ -104,6 +105,18 @@ public class DictRepositoryImpl implements DictRepository {
         return taskResp;
     }
 
+    @Override
+    public DictTaskDO queryLatestSuccessDictTask(Long itemId, String type) {
+        QueryWrapper<DictTaskDO> wrapper = new QueryWrapper<>();
+        wrapper.lambda().eq(DictTaskDO::getItemId, itemId);
+        wrapper.lambda().eq(DictTaskDO::getType, type);
+        wrapper.lambda().eq(DictTaskDO::getStatus, TaskStatusEnum.SUCCESS.getStatus());
+        wrapper.lambda().orderByDesc(DictTaskDO::getCreatedAt);
+        wrapper.last("limit 1");
+        List<DictTaskDO> dictTaskDOList = dictTaskMapper.selectList(wrapper);
+        return CollectionUtils.isEmpty(dictTaskDOList) ? null : dictTaskDOList.get(0);
+    }
+
     @Override
     public List<DictTaskDO> queryAllDictTask(ValueTaskQueryReq taskQueryReq) {
         QueryWrapper<DictTaskDO> wrapper = new QueryWrapper<>();
@@ -3,8 +3,10 @@ package com.tencent.supersonic.headless.server.persistence.repository.impl;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tencent.supersonic.common.pojo.enums.TaskStatusEnum;
 import com.tencent.supersonic.common.pojo.enums.TypeEnums;
 import com.tencent.supersonic.headless.api.pojo.QueryStat;
+import com.tencent.supersonic.headless.api.pojo.enums.QueryTypeBack;
 import com.tencent.supersonic.headless.api.pojo.request.ItemUseReq;
 import com.tencent.supersonic.headless.api.pojo.response.ItemUseResp;
 import com.tencent.supersonic.headless.server.persistence.dataobject.QueryStatDO;
@@ -19,6 +21,7 @@ import org.springframework.stereotype.Repository;
 
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -45,6 +48,19 @@ public class StatRepositoryImpl implements StatRepository {
         return statMapper.insertOrUpdate(queryStatDO);
     }
 
+    @Override
+    public int batchCreateRecord(List<QueryStat> queryStatInfos) {
+        if (CollectionUtils.isEmpty(queryStatInfos)) {
+            return 0;
+        }
+        List<QueryStatDO> queryStatDOS = queryStatInfos.stream().map(queryStatInfo -> {
+            QueryStatDO queryStatDO = new QueryStatDO();
+            BeanUtils.copyProperties(queryStatInfo, queryStatDO);
+            return queryStatDO;
+        }).collect(Collectors.toList());
+        return statMapper.batchInsert(queryStatDOS);
+    }
+
     @Override
     @SneakyThrows
     public List<ItemUseResp> getStatInfo(ItemUseReq itemUseReq) {
@@ -72,6 +88,18 @@ public class StatRepositoryImpl implements StatRepository {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public List<QueryStatDO> getDataSetQueryStats(Date since) {
+        QueryWrapper<QueryStatDO> queryWrapper = new QueryWrapper<>();
+        queryWrapper.lambda()
+                .select(QueryStatDO::getDataSetId, QueryStatDO::getDimensions,
+                        QueryStatDO::getMetrics)
+                .isNotNull(QueryStatDO::getDataSetId).ge(QueryStatDO::getCreatedAt, since)
+                .eq(QueryStatDO::getQueryTypeBack, QueryTypeBack.NORMAL.getState())
+                .eq(QueryStatDO::getQueryState, TaskStatusEnum.SUCCESS.getStatus());
+        return statMapper.selectList(queryWrapper);
+    }
+
     private List<QueryStatDO> getQueryStats(ItemUseReq itemUseReq) {
         QueryWrapper<QueryStatDO> queryWrapper = new QueryWrapper<>();
         if (Objects.nonNull(itemUseReq.getModelId())) {
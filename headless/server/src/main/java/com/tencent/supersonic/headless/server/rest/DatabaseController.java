@@ -8,6 +8,7 @@ import com.tencent.supersonic.headless.api.pojo.request.ModelBuildReq;
 import com.tencent.supersonic.headless.api.pojo.request.SqlExecuteReq;
 import com.tencent.supersonic.headless.api.pojo.response.DatabaseResp;
 import com.tencent.supersonic.headless.api.pojo.response.SemanticQueryResp;
+import com.tencent.supersonic.headless.core.pojo.DataSourceStats;
 import com.tencent.supersonic.headless.server.pojo.DatabaseParameter;
 import com.tencent.supersonic.headless.server.service.DatabaseService;
 import jakarta.servlet.http.HttpServletRequest;
@@ -56,6 +57,14 @@ public class DatabaseController {
         return databaseService.getDatabase(id, user);
     }
 
+    /** pool usage, queued and rejected queries and connection health of the database */
+    @GetMapping("/{id}/poolStats")
+    public DataSourceStats getPoolStats(@PathVariable("id") Long id, HttpServletRequest request,
+            HttpServletResponse response) {
+        User user = UserHolder.findUser(request, response);
+        return databaseService.getDataSourceStats(id, user);
+    }
+
     @GetMapping("/getDatabaseList")
     public List<DatabaseResp> getDatabaseList(HttpServletRequest request,
             HttpServletResponse response) {
@@ -5,6 +5,7 @@ import com.tencent.supersonic.common.pojo.User;
 import com.tencent.supersonic.common.pojo.enums.AuthType;
 import com.tencent.supersonic.headless.api.pojo.response.DomainResp;
 import com.tencent.supersonic.headless.api.pojo.response.ModelResp;
+import com.tencent.supersonic.headless.server.manager.OntologyCacheManager;
 import com.tencent.supersonic.headless.server.service.SchemaService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -15,6 +16,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/semantic/schema")
@@ -23,6 +25,9 @@ public class SchemaController {
     @Autowired
     private SchemaService schemaService;
 
+    @Autowired
+    private OntologyCacheManager ontologyCacheManager;
+
     @GetMapping("/domain/list")
     public List<DomainResp> getDomainList(HttpServletRequest request,
             HttpServletResponse response) {
@@ -37,4 +42,9 @@ public class SchemaController {
         User user = UserHolder.findUser(request, response);
         return schemaService.getModelList(user, AuthType.valueOf(authType), domainId);
     }
+
+    @GetMapping("/ontology/cache/stats")
+    public Map<String, Object> getOntologyCacheStats() {
+        return ontologyCacheManager.getStats();
+    }
 }
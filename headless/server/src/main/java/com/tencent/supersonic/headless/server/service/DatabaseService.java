@@ -8,6 +8,7 @@ import com.tencent.supersonic.headless.api.pojo.request.ModelBuildReq;
 import com.tencent.supersonic.headless.api.pojo.request.SqlExecuteReq;
 import com.tencent.supersonic.headless.api.pojo.response.DatabaseResp;
 import com.tencent.supersonic.headless.api.pojo.response.SemanticQueryResp;
+import com.tencent.supersonic.headless.core.pojo.DataSourceStats;
 import com.tencent.supersonic.headless.server.pojo.DatabaseParameter;
 
 import java.sql.SQLException;
@@ -26,6 +27,10 @@ public interface DatabaseService {
 
     DatabaseResp getDatabase(Long id);
 
+    DataSourceStats getDataSourceStats(Long id, User user);
+
+    DataSourceStats getDataSourceStats(Long id);
+
     Map<String, List<DatabaseParameter>> getDatabaseParameters(User user);
 
     boolean testConnect(DatabaseReq databaseReq, User user);
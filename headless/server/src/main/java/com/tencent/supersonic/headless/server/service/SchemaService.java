@@ -29,6 +29,8 @@ public interface SchemaService {
 
     SemanticSchemaResp fetchSemanticSchema(SchemaFilterReq schemaFilterReq);
 
+    void evictSchemaCache();
+
     List<ModelSchemaResp> fetchModelSchemaResps(List<Long> modelIds);
 
     List<DimensionResp> getDimensions(MetaFilter metaFilter);
@@ -56,6 +56,10 @@ public class DataSetServiceImpl extends ServiceImpl<DataSetDOMapper, DataSetDO>
     @Autowired
     private UserService userService;
 
+    @Lazy
+    @Autowired
+    private SchemaService schemaService;
+
     @Override
     public DataSetResp save(DataSetReq dataSetReq, User user) {
         dataSetReq.createdBy(user.getName());
@@ -75,6 +79,7 @@ public class DataSetServiceImpl extends ServiceImpl<DataSetDOMapper, DataSetDO>
         DataSetResp dataSetResp = convert(dataSetDO);
         // conflictCheck(dataSetResp);
         updateById(dataSetDO);
+        schemaService.evictSchemaCache();
         return dataSetResp;
     }
 
@@ -127,6 +132,7 @@ public class DataSetServiceImpl extends ServiceImpl<DataSetDOMapper, DataSetDO>
         dataSetDO.setUpdatedBy(user.getName());
         dataSetDO.setUpdatedAt(new Date());
         updateById(dataSetDO);
+        schemaService.evictSchemaCache();
     }
 
     @Override
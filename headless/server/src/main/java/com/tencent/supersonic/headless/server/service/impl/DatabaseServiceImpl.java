@@ -17,6 +17,7 @@ import com.tencent.supersonic.headless.api.pojo.response.ModelResp;
 import com.tencent.supersonic.headless.api.pojo.response.SemanticQueryResp;
 import com.tencent.supersonic.headless.core.adaptor.db.DbAdaptor;
 import com.tencent.supersonic.headless.core.adaptor.db.DbAdaptorFactory;
+import com.tencent.supersonic.headless.core.pojo.DataSourceStats;
 import com.tencent.supersonic.headless.core.utils.JdbcDataSourceUtils;
 import com.tencent.supersonic.headless.core.utils.SqlUtils;
 import com.tencent.supersonic.headless.core.utils.SqlVariableParseUtils;
@@ -25,6 +26,7 @@ import com.tencent.supersonic.headless.server.persistence.mapper.DatabaseDOMappe
 import com.tencent.supersonic.headless.server.pojo.*;
 import com.tencent.supersonic.headless.server.service.DatabaseService;
 import com.tencent.supersonic.headless.server.service.ModelService;
+import com.tencent.supersonic.headless.server.service.SchemaService;
 import com.tencent.supersonic.headless.server.utils.DatabaseConverter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
@@ -49,6 +51,10 @@ public class DatabaseServiceImpl extends ServiceImpl<DatabaseDOMapper, DatabaseD
     @Autowired
     private ModelService datasourceService;
 
+    @Lazy
+    @Autowired
+    private SchemaService schemaService;
+
     @Override
     public boolean testConnect(DatabaseReq databaseReq, User user) {
         DatabaseResp database = DatabaseConverter.convert(databaseReq);
@@ -67,6 +73,8 @@ public class DatabaseServiceImpl extends ServiceImpl<DatabaseDOMapper, DatabaseD
             databaseReq.updatedBy(user.getName());
             DatabaseConverter.convert(databaseReq, databaseDO);
             updateById(databaseDO);
+            // the compiled ontologies hold the connection of the database
+            schemaService.evictSchemaCache();
             return DatabaseConverter.convertWithPassword(databaseDO);
         }
         databaseReq.createdBy(user.getName());
@@ -145,6 +153,7 @@ public class DatabaseServiceImpl extends ServiceImpl<DatabaseDOMapper, DatabaseD
             throw new RuntimeException(message);
         }
         removeById(databaseId);
+        schemaService.evictSchemaCache();
     }
 
     @Override
@@ -160,6 +169,16 @@ public class DatabaseServiceImpl extends ServiceImpl<DatabaseDOMapper, DatabaseD
         return databaseResp;
     }
 
+    @Override
+    public DataSourceStats getDataSourceStats(Long id, User user) {
+        return sqlUtils.init(getDatabase(id, user)).getDataSourceStats();
+    }
+
+    @Override
+    public DataSourceStats getDataSourceStats(Long id) {
+        return sqlUtils.init(getDatabase(id)).getDataSourceStats();
+    }
+
     @Override
     public List<DatabaseResp> getDatabaseByType(DataType dataType) {
         QueryWrapper<DatabaseDO> queryWrapper = new QueryWrapper<>();
@@ -18,25 +18,36 @@ import com.tencent.supersonic.headless.api.pojo.response.DictTaskResp;
 import com.tencent.supersonic.headless.api.pojo.response.DictValueDimResp;
 import com.tencent.supersonic.headless.api.pojo.response.DictValueResp;
 import com.tencent.supersonic.headless.api.pojo.response.DimensionResp;
+import com.tencent.supersonic.headless.api.pojo.response.ModelResp;
 import com.tencent.supersonic.headless.chat.knowledge.DictWord;
 import com.tencent.supersonic.headless.chat.knowledge.file.FileHandler;
 import com.tencent.supersonic.headless.server.persistence.dataobject.DictTaskDO;
 import com.tencent.supersonic.headless.server.persistence.repository.DictRepository;
+import com.tencent.supersonic.headless.server.service.DatabaseService;
 import com.tencent.supersonic.headless.server.service.DictTaskService;
 import com.tencent.supersonic.headless.server.service.DimensionService;
+import com.tencent.supersonic.headless.server.service.ModelService;
 import com.tencent.supersonic.headless.server.utils.DictUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.stream.Collectors;
 
 @Service
@@ -52,6 +63,10 @@ public class DictTaskServiceImpl implements DictTaskService {
     @Value("${dict.file.type:txt}")
     private String dictFileType;
 
+    // 同一数据库同时执行的查询数上限, 实际不超过该数据库可用于批量查询的连接数
+    @Value("${s2.dict.refresh.per-database:2}")
+    private Integer dictRefreshPerDatabase;
+
     private String dimValue = "DimValue_%d_%d";
 
     private final DictRepository dictRepository;
@@ -60,16 +75,24 @@ public class DictTaskServiceImpl implements DictTaskService {
     private final FileHandler fileHandler;
     private final DictWordService dictWordService;
     private final DimensionService dimensionService;
+    private final ModelService modelService;
+    private final DatabaseService databaseService;
+    private final ThreadPoolExecutor dictRefreshExecutor;
 
     public DictTaskServiceImpl(DictRepository dictRepository, DictUtils dictConverter,
             DictUtils dictUtils, FileHandler fileHandler, DictWordService dictWordService,
-            DimensionService dimensionService) {
+            DimensionService dimensionService, ModelService modelService,
+            DatabaseService databaseService,
+            @Qualifier("dictRefreshExecutor") ThreadPoolExecutor dictRefreshExecutor) {
         this.dictRepository = dictRepository;
         this.dictConverter = dictConverter;
         this.dictUtils = dictUtils;
         this.fileHandler = fileHandler;
         this.dictWordService = dictWordService;
         this.dimensionService = dimensionService;
+        this.modelService = modelService;
+        this.databaseService = databaseService;
+        this.dictRefreshExecutor = dictRefreshExecutor;
     }
 
     @Override
@@ -111,19 +134,21 @@ public class DictTaskServiceImpl implements DictTaskService {
         dictTaskDO.setStatus(TaskStatusEnum.RUNNING.getStatus());
         dictRepository.editDictTask(dictTaskDO);
 
-        // 1.Generate item dictionary data
-        List<String> data = dictUtils.fetchItemValue(dictItemResp);
-
-        // 2.Change dictionary file
-        String fileName = dictItemResp.fetchDictFileName() + Constants.DOT + dictFileType;
-        fileHandler.writeFile(data, fileName, false);
-
-        // 3.Change in-memory dictionary data in real time
         String status = TaskStatusEnum.SUCCESS.getStatus();
         try {
-            dictWordService.loadDictWord();
+            // 1.Generate item dictionary data, a failed query throws and keeps the values as is
+            List<String> data = dictUtils.fetchItemValue(dictItemResp);
+
+            // 2.Change dictionary file
+            String fileName = fetchDictFileName(dictItemResp);
+            List<String> oldData = fileHandler.readFile(fileName);
+            fileHandler.writeFile(data, fileName, false);
+
+            // 3.Change in-memory dictionary data in real time, only the changed values, the empty
+            // result of a successful query removes the values of the item
+            dictWordService.updateDictValues(oldData, data);
         } catch (Exception e) {
-            log.error("reloadCustomDictionary error", e);
+            log.error("runDictTask item:{} error", dictItemResp.getItemId(), e);
             status = TaskStatusEnum.ERROR.getStatus();
             dictTaskDO.setDescription(e.toString());
         }
@@ -135,11 +160,12 @@ public class DictTaskServiceImpl implements DictTaskService {
     @Override
     public Long deleteDictTask(DictSingleTaskReq taskReq, User user) {
         DictItemResp dictItemResp = fetchDictItemResp(taskReq);
-        String fileName = dictItemResp.fetchDictFileName() + Constants.DOT + dictFileType;
+        String fileName = fetchDictFileName(dictItemResp);
+        List<String> oldData = fileHandler.readFile(fileName);
         fileHandler.deleteDictFile(fileName);
 
         try {
-            dictWordService.loadDictWord();
+            dictWordService.updateDictValues(oldData, new ArrayList<>());
         } catch (Exception e) {
             log.error("reloadCustomDictionary error", e);
         }
@@ -157,14 +183,137 @@ public class DictTaskServiceImpl implements DictTaskService {
         log.info("[dailyDictTask] start");
         if (!dictFlushDailyEnable) {
             log.info("dictFlushDailyEnable is false, now finish dailyDictTask");
+            return true;
         }
         DictItemFilter filter = DictItemFilter.builder().status(StatusEnum.ONLINE).build();
         List<DictItemResp> dictItemRespList = dictRepository.queryDictConf(filter);
-        dictItemRespList.stream().forEach(item -> handleDictTaskByItemResp(item, null));
+        if (CollectionUtils.isEmpty(dictItemRespList)) {
+            log.info("[dailyDictTask] finish, no online item");
+            return true;
+        }
+
+        // 1.Refresh the dictionary files, the items of a database by a few queues at a time
+        Map<Long, DictTaskDO> taskMap = new ConcurrentHashMap<>();
+        Map<Long, Date> lastSuccessMap = new HashMap<>();
+        for (DictItemResp dictItemResp : dictItemRespList) {
+            DictTaskDO lastSuccess = dictRepository.queryLatestSuccessDictTask(
+                    dictItemResp.getItemId(), dictItemResp.getType().name());
+            DictTaskDO dictTaskDO =
+                    dictConverter.generateDictTaskDO(dictItemResp, null, TaskStatusEnum.RUNNING);
+            dictRepository.addDictTask(dictTaskDO);
+            dictItemResp.setId(dictTaskDO.getId());
+            taskMap.put(dictTaskDO.getId(), dictTaskDO);
+            // a changed config invalidates the values fetched so far
+            if (Objects.nonNull(lastSuccess)
+                    && Objects.equals(lastSuccess.getConfig(), dictTaskDO.getConfig())) {
+                lastSuccessMap.put(dictTaskDO.getId(), lastSuccess.getCreatedAt());
+            }
+        }
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (List<DictItemResp> queue : splitByDatabase(dictItemRespList)) {
+            futures.add(CompletableFuture.runAsync(() -> queue.forEach(item -> {
+                DictTaskDO dictTaskDO = taskMap.get(item.getId());
+                try {
+                    refreshDictFile(item, lastSuccessMap.get(item.getId()));
+                } catch (Exception e) {
+                    // the file and the last success are kept, the next run fetches the same data
+                    log.error("[dailyDictTask] refresh item:{} error", item.getItemId(), e);
+                    dictTaskDO.setStatus(TaskStatusEnum.ERROR.getStatus());
+                    dictTaskDO.setDescription(e.toString());
+                }
+            }), dictRefreshExecutor));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+        // 2.Swap the in-memory dictionary once for all the files
+        try {
+            dictWordService.loadDictWord();
+        } catch (Exception e) {
+            log.error("reloadCustomDictionary error", e);
+            taskMap.values().forEach(dictTaskDO -> {
+                dictTaskDO.setStatus(TaskStatusEnum.ERROR.getStatus());
+                dictTaskDO.setDescription(e.toString());
+            });
+        }
+        for (DictTaskDO dictTaskDO : taskMap.values()) {
+            if (!TaskStatusEnum.ERROR.getStatus().equals(dictTaskDO.getStatus())) {
+                dictTaskDO.setStatus(TaskStatusEnum.SUCCESS.getStatus());
+            }
+            dictTaskDO.setElapsedMs(DateUtils.calculateDiffMs(dictTaskDO.getCreatedAt()));
+            dictRepository.editDictTask(dictTaskDO);
+        }
         log.info("[dailyDictTask] finish");
         return true;
     }
 
+    /**
+     * Splits the items into queues run one item after another, for the items of a database at most
+     * as many queues as it admits batch queries at once, capped by {@code dictRefreshPerDatabase},
+     * so that no queue waits in its admission queue for a turn.
+     */
+    private List<List<DictItemResp>> splitByDatabase(List<DictItemResp> dictItemRespList) {
+        Map<Long, Long> modelDatabaseMap = new HashMap<>();
+        Map<Long, List<DictItemResp>> databaseItemMap = new LinkedHashMap<>();
+        for (DictItemResp dictItemResp : dictItemRespList) {
+            Long databaseId =
+                    modelDatabaseMap.computeIfAbsent(dictItemResp.getModelId(), modelId -> {
+                        ModelResp model = modelService.getModel(modelId);
+                        return Objects.isNull(model) ? -1L : model.getDatabaseId();
+                    });
+            databaseItemMap.computeIfAbsent(databaseId, k -> new ArrayList<>()).add(dictItemResp);
+        }
+        List<List<DictItemResp>> queues = new ArrayList<>();
+        for (List<DictItemResp> items : databaseItemMap.values()) {
+            int queueNum = Math.max(1, Math.min(Math.min(dictRefreshPerDatabase,
+                    getMaxBatchActive(databaseId)), items.size()));
+            List<List<DictItemResp>> databaseQueues = new ArrayList<>();
+            for (int i = 0; i < queueNum; i++) {
+                databaseQueues.add(new ArrayList<>());
+            }
+            for (int i = 0; i < items.size(); i++) {
+                databaseQueues.get(i % queueNum).add(items.get(i));
+            }
+            queues.addAll(databaseQueues);
+        }
+        return queues;
+    }
+
+    private int getMaxBatchActive(Long databaseId) {
+        if (databaseId < 0) {
+            return 1;
+        }
+        try {
+            return databaseService.getDataSourceStats(databaseId).getMaxBatchActive();
+        } catch (Exception e) {
+            log.warn("[dailyDictTask] get stats of database:{} error", databaseId, e);
+            return 1;
+        }
+    }
+
+    /**
+     * Rewrites the dictionary file of an item. An incremental item with a previous successful run
+     * only fetches the partitions loaded since and merges them into the values of the file.
+     */
+    private void refreshDictFile(DictItemResp dictItemResp, Date lastSuccess) {
+        String fileName = fetchDictFileName(dictItemResp);
+        List<String> data = null;
+        if (Objects.nonNull(lastSuccess) && dictUtils.isIncremental(dictItemResp)) {
+            List<String> oldData = fileHandler.readFile(fileName);
+            if (!CollectionUtils.isEmpty(oldData)) {
+                List<String> deltaData = dictUtils.fetchItemValue(dictItemResp, lastSuccess);
+                data = dictUtils.mergeItemValue(dictItemResp, oldData, deltaData);
+            }
+        }
+        if (Objects.isNull(data)) {
+            data = dictUtils.fetchItemValue(dictItemResp);
+        }
+        fileHandler.writeFile(data, fileName, false);
+    }
+
+    private String fetchDictFileName(DictItemResp dictItemResp) {
+        return dictItemResp.fetchDictFileName() + Constants.DOT + dictFileType;
+    }
+
     @Override
     public DictTaskResp queryLatestDictTask(DictSingleTaskReq taskReq, User user) {
         return dictRepository.queryLatestDictTask(taskReq);
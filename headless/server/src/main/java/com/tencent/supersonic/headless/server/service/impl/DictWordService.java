@@ -34,23 +34,52 @@ public class DictWordService {
 
     public void loadDictWord() {
         List<DictWord> dictWords = getAllDictWords();
-        setPreDictWords(dictWords);
+        // reloadAllData appends the aliases found in the files to the list
+        setPreDictWords(new ArrayList<>(dictWords));
         knowledgeBaseService.reloadAllData(dictWords);
     }
 
     public void reloadDictWord() {
         long startTime = System.currentTimeMillis();
         List<DictWord> dictWords = getAllDictWords();
-        List<DictWord> preDictWords = getPreDictWords();
-        if (org.apache.commons.collections.CollectionUtils.isEqualCollection(dictWords,
-                preDictWords)) {
+        int changed = knowledgeBaseService.updateDeltaKnowledge(getPreDictWords(), dictWords);
+        if (changed == 0) {
             log.debug("Dictionary hasn't been reloaded.");
             return;
         }
         setPreDictWords(dictWords);
-        knowledgeBaseService.reloadAllData(dictWords);
         long duration = System.currentTimeMillis() - startTime;
-        log.info("Dictionary has been regularly reloaded in {} milliseconds", duration);
+        log.info("Dictionary has been regularly updated with {} changed words in {} milliseconds",
+                changed, duration);
+    }
+
+    /** applies the change of a dimension value file, its lines before and after */
+    public void updateDictValues(List<String> oldLines, List<String> newLines) {
+        long startTime = System.currentTimeMillis();
+        int changed = knowledgeBaseService.updateDeltaKnowledge(toDictWords(oldLines),
+                toDictWords(newLines));
+        log.info("Dictionary has been updated with {} changed values in {} milliseconds", changed,
+                System.currentTimeMillis() - startTime);
+    }
+
+    /** the words of the lines of a dictionary file, {@code value nature frequency} */
+    private List<DictWord> toDictWords(List<String> lines) {
+        List<DictWord> words = new ArrayList<>();
+        if (CollectionUtils.isEmpty(lines)) {
+            return words;
+        }
+        for (String line : lines) {
+            String[] items = line.trim().split("\\s+");
+            if (items.length < 3) {
+                continue;
+            }
+            DictWord dictWord = new DictWord();
+            dictWord.setWord(items[0]);
+            dictWord.setNature(items[1]);
+            dictWord.setNatureWithFrequency(items[1] + " " + items[2]);
+            words.add(dictWord);
+        }
+        return words;
     }
 
     public List<DictWord> getAllDictWords() {
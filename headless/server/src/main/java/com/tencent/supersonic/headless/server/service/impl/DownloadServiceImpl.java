@@ -10,6 +10,7 @@ import com.tencent.supersonic.common.util.DateUtils;
 import com.tencent.supersonic.headless.api.pojo.DrillDownDimension;
 import com.tencent.supersonic.headless.api.pojo.MetaFilter;
 import com.tencent.supersonic.headless.api.pojo.RelateDimension;
+import com.tencent.supersonic.headless.api.pojo.enums.QueryPriority;
 import com.tencent.supersonic.headless.api.pojo.enums.SemanticType;
 import com.tencent.supersonic.headless.api.pojo.request.BatchDownloadReq;
 import com.tencent.supersonic.headless.api.pojo.request.DownloadMetricReq;
@@ -67,8 +68,9 @@ public class DownloadServiceImpl implements DownloadService {
         File file = FileUtils.createTmpFile(fileName);
         try {
             QueryStructReq queryStructReq = metricService.convert(downloadMetricReq);
-            SemanticQueryResp queryResult =
-                    queryService.queryByReq(queryStructReq.convert(true), user);
+            QuerySqlReq querySqlReq = queryStructReq.convert(true);
+            querySqlReq.setPriority(QueryPriority.BATCH);
+            SemanticQueryResp queryResult = queryService.queryByReq(querySqlReq, user);
             DataDownload dataDownload =
                     buildDataDownload(queryResult, queryStructReq, downloadMetricReq.isTransform());
             EasyExcel.write(file).sheet("Sheet1").head(dataDownload.getHeaders())
@@ -123,6 +125,7 @@ public class DownloadServiceImpl implements DownloadService {
                             buildDownloadReq(dimensions, metric, batchDownloadReq);
                     QuerySqlReq querySqlReq = queryStructReq.convert();
                     querySqlReq.setNeedAuth(true);
+                    querySqlReq.setPriority(QueryPriority.BATCH);
                     SemanticQueryResp queryResult = queryService.queryByReq(querySqlReq, user);
                     DataDownload dataDownload = buildDataDownload(queryResult, queryStructReq,
                             batchDownloadReq.isTransform());
@@ -20,11 +20,15 @@ import com.tencent.supersonic.headless.api.pojo.request.QuerySqlReq;
 import com.tencent.supersonic.headless.api.pojo.request.SemanticQueryReq;
 import com.tencent.supersonic.headless.api.pojo.response.SemanticQueryResp;
 import com.tencent.supersonic.headless.server.facade.service.SemanticLayerService;
+import com.tencent.supersonic.headless.server.manager.RunningQueryManager;
 import com.tencent.supersonic.headless.server.service.FlightService;
 import com.tencent.supersonic.headless.server.utils.FlightUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.arrow.adapter.jdbc.ArrowVectorIterator;
+import org.apache.arrow.adapter.jdbc.JdbcToArrowConfig;
+import org.apache.arrow.adapter.jdbc.JdbcToArrowConfigBuilder;
 import org.apache.arrow.adapter.jdbc.JdbcToArrowUtils;
+import org.apache.arrow.flight.BackpressureStrategy;
 import org.apache.arrow.flight.CallHeaders;
 import org.apache.arrow.flight.CallStatus;
 import org.apache.arrow.flight.FlightConstants;
@@ -46,10 +50,13 @@ import org.apache.arrow.memory.RootAllocator;
 import org.apache.arrow.vector.VectorLoader;
 import org.apache.arrow.vector.VectorSchemaRoot;
 import org.apache.arrow.vector.VectorUnloader;
+import org.apache.arrow.vector.ipc.message.ArrowRecordBatch;
 import org.apache.arrow.vector.types.pojo.Schema;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
@@ -87,13 +94,29 @@ public class FlightServiceImpl extends BasicFlightSqlProducer implements FlightS
     private final SemanticLayerService queryService;
     private final AuthenticationConfig authenticationConfig;
     private final UserService userService;
+    private final RunningQueryManager runningQueryManager;
+
+    /**
+     * Streams results straight from the data source instead of loading them first. Streamed
+     * results skip the accelerators and the dimension value mapping of regular queries.
+     */
+    @Value("${s2.flight.stream.enable:false}")
+    private boolean streamEnable;
+
+    @Value("${s2.flight.stream.batch-size:1024}")
+    private int streamBatchSize;
+
+    @Value("${s2.flight.stream.backpressure-timeout-ms:60000}")
+    private long backpressureTimeoutMs;
 
     public FlightServiceImpl(SemanticLayerService queryService,
-            AuthenticationConfig authenticationConfig, UserService userService) {
+            AuthenticationConfig authenticationConfig, UserService userService,
+            RunningQueryManager runningQueryManager) {
         this.queryService = queryService;
         this.authenticationConfig = authenticationConfig;
 
         this.userService = userService;
+        this.runningQueryManager = runningQueryManager;
     }
 
     public void setLocation(String host, Integer port) {
@@ -153,6 +176,10 @@ public class FlightServiceImpl extends BasicFlightSqlProducer implements FlightS
             listener.completed();
             return;
         }
+        // a client that disconnects cancels the query on the data source
+        String queryId = hander.toStringUtf8();
+        semanticQueryReq.setRequestId(queryId);
+        listener.setOnCancelHandler(() -> runningQueryManager.cancel(queryId));
         executorService.submit(() -> {
             try (BufferAllocator rootAllocator = new RootAllocator()) {
                 Optional<Param> authOpt = semanticQueryReq.getParams().stream().filter(
@@ -161,6 +188,17 @@ public class FlightServiceImpl extends BasicFlightSqlProducer implements FlightS
                 if (authOpt.isPresent()) {
                     User user = UserHolder.findUser(authOpt.get().getValue(),
                             authenticationConfig.getTokenHttpHeaderAppKey());
+                    if (streamEnable) {
+                        queryService.streamByReq(semanticQueryReq, user, resultSet -> {
+                            try {
+                                streamResultSet(queryId, resultSet, rootAllocator, listener);
+                            } catch (IOException e) {
+                                throw new SQLException(e);
+                            }
+                            return null;
+                        });
+                        return;
+                    }
                     SemanticQueryResp resp = queryService.queryByReq(semanticQueryReq, user);
                     ResultSet resultSet =
                             semanticQueryRespToResultSet(resp, semanticQueryReq.getDataSetId());
@@ -199,6 +237,51 @@ public class FlightServiceImpl extends BasicFlightSqlProducer implements FlightS
         });
     }
 
+    /**
+     * Sends the live result set to the client in batches of {@code streamBatchSize} rows, taking
+     * column types from the result set metadata. Each batch waits until the client is ready to
+     * receive it, so at most one batch is held in memory.
+     */
+    private void streamResultSet(String queryId, ResultSet resultSet, BufferAllocator allocator,
+            ServerStreamListener listener) throws SQLException, IOException {
+        JdbcToArrowConfig config = new JdbcToArrowConfigBuilder(allocator, defaultCalendar)
+                .setTargetBatchSize(streamBatchSize).setReuseVectorSchemaRoot(true).build();
+        Schema schema = jdbcToArrowSchema(resultSet.getMetaData(), config);
+        BackpressureStrategy backpressure =
+                new BackpressureStrategy.CallbackBackpressureStrategy() {
+                    @Override
+                    protected void cancelCallback() {
+                        // registering replaces the cancel handler of the listener
+                        runningQueryManager.cancel(queryId);
+                    }
+                };
+        try (VectorSchemaRoot vectorSchemaRoot = VectorSchemaRoot.create(schema, allocator);
+                ArrowVectorIterator iterator = sqlToArrowVectorIterator(resultSet, config)) {
+            VectorLoader loader = new VectorLoader(vectorSchemaRoot);
+            backpressure.register(listener);
+            listener.start(vectorSchemaRoot);
+            while (iterator.hasNext()) {
+                VectorSchemaRoot batch = iterator.next();
+                if (batch.getRowCount() == 0) {
+                    break;
+                }
+                BackpressureStrategy.WaitResult waitResult =
+                        backpressure.waitForListener(backpressureTimeoutMs);
+                if (waitResult == BackpressureStrategy.WaitResult.CANCELLED) {
+                    log.info("flight stream cancelled by client");
+                    return;
+                }
+                if (waitResult != BackpressureStrategy.WaitResult.READY) {
+                    throw new IOException("flight client not ready: " + waitResult);
+                }
+                try (ArrowRecordBatch recordBatch = new VectorUnloader(batch).getRecordBatch()) {
+                    loader.load(recordBatch);
+                }
+                listener.putNext();
+            }
+        }
+    }
+
     @Override
     public void closePreparedStatement(final ActionClosePreparedStatementRequest request,
             final CallContext context, final StreamListener<Result> listener) {
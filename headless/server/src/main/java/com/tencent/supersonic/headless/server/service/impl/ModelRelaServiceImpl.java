@@ -14,6 +14,7 @@ import com.tencent.supersonic.headless.server.persistence.dataobject.ModelRelaDO
 import com.tencent.supersonic.headless.server.persistence.mapper.ModelRelaDOMapper;
 import com.tencent.supersonic.headless.server.service.ModelRelaService;
 import com.tencent.supersonic.headless.server.service.ModelService;
+import com.tencent.supersonic.headless.server.service.SchemaService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
@@ -30,12 +31,17 @@ public class ModelRelaServiceImpl extends ServiceImpl<ModelRelaDOMapper, ModelRe
     @Autowired
     private ModelService modelService;
 
+    @Lazy
+    @Autowired
+    private SchemaService schemaService;
+
     @Override
     public void save(ModelRela modelRela, User user) {
         check(modelRela);
         modelRela.createdBy(user.getName());
         ModelRelaDO modelRelaDO = convert(modelRela);
         save(modelRelaDO);
+        schemaService.evictSchemaCache();
     }
 
     @Override
@@ -44,6 +50,7 @@ public class ModelRelaServiceImpl extends ServiceImpl<ModelRelaDOMapper, ModelRe
         modelRela.updatedBy(user.getName());
         ModelRelaDO modelRelaDO = convert(modelRela);
         updateById(modelRelaDO);
+        schemaService.evictSchemaCache();
     }
 
     private void check(ModelRela modelRela) {
@@ -86,6 +93,7 @@ public class ModelRelaServiceImpl extends ServiceImpl<ModelRelaDOMapper, ModelRe
     @Override
     public void delete(Long id) {
         removeById(id);
+        schemaService.evictSchemaCache();
     }
 
     private ModelRela convert(ModelRelaDO modelRelaDO) {
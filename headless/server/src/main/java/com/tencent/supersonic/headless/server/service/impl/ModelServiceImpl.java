@@ -63,6 +63,8 @@ public class ModelServiceImpl implements ModelService {
 
     private final ApplicationEventPublisher eventPublisher;
 
+    private final SchemaService schemaService;
+
     ExecutorService executor =
             new ThreadPoolExecutor(0, 5, 5L, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
 
@@ -70,7 +72,7 @@ public class ModelServiceImpl implements ModelService {
             @Lazy DimensionService dimensionService, @Lazy MetricService metricService,
             DomainService domainService, UserService userService, DataSetService dataSetService,
             DateInfoRepository dateInfoRepository, ModelRelaService modelRelaService,
-            ApplicationEventPublisher eventPublisher) {
+            ApplicationEventPublisher eventPublisher, @Lazy SchemaService schemaService) {
         this.modelRepository = modelRepository;
         this.databaseService = databaseService;
         this.dimensionService = dimensionService;
@@ -81,6 +83,7 @@ public class ModelServiceImpl implements ModelService {
         this.dateInfoRepository = dateInfoRepository;
         this.modelRelaService = modelRelaService;
         this.eventPublisher = eventPublisher;
+        this.schemaService = schemaService;
     }
 
     @Override
@@ -170,6 +173,7 @@ public class ModelServiceImpl implements ModelService {
         datasourceDO.setUpdatedAt(new Date());
         datasourceDO.setUpdatedBy(user.getName());
         modelRepository.updateModel(datasourceDO);
+        schemaService.evictSchemaCache();
     }
 
     @Override
@@ -20,6 +20,7 @@ import com.tencent.supersonic.headless.api.pojo.response.*;
 import com.tencent.supersonic.headless.server.manager.DimensionYamlManager;
 import com.tencent.supersonic.headless.server.manager.MetricYamlManager;
 import com.tencent.supersonic.headless.server.manager.ModelYamlManager;
+import com.tencent.supersonic.headless.server.manager.OntologyCacheManager;
 import com.tencent.supersonic.headless.server.pojo.ModelFilter;
 import com.tencent.supersonic.headless.server.pojo.TagFilter;
 import com.tencent.supersonic.headless.server.pojo.yaml.DataModelYamlTpl;
@@ -35,6 +36,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.CollectionUtils;
 
 import java.util.*;
@@ -65,6 +68,7 @@ public class SchemaServiceImpl implements SchemaService {
     private final ModelRelaService modelRelaService;
     private final TermService termService;
     private final DatabaseService databaseService;
+    private final OntologyCacheManager ontologyCacheManager;
 
     @Value("${s2.schema.cache.enable:true}")
     private boolean schemaCacheEnable;
@@ -72,7 +76,7 @@ public class SchemaServiceImpl implements SchemaService {
     public SchemaServiceImpl(ModelService modelService, DimensionService dimensionService,
             MetricService metricService, DomainService domainService, DataSetService dataSetService,
             ModelRelaService modelRelaService, StatUtils statUtils, TermService termService,
-            DatabaseService databaseService) {
+            DatabaseService databaseService, OntologyCacheManager ontologyCacheManager) {
         this.modelService = modelService;
         this.dimensionService = dimensionService;
         this.metricService = metricService;
@@ -82,6 +86,7 @@ public class SchemaServiceImpl implements SchemaService {
         this.statUtils = statUtils;
         this.termService = termService;
         this.databaseService = databaseService;
+        this.ontologyCacheManager = ontologyCacheManager;
     }
 
     public List<DataSetSchemaResp> fetchDataSetSchema(DataSetFilterReq filter) {
@@ -90,8 +95,11 @@ public class SchemaServiceImpl implements SchemaService {
             dataSetList = dataSetSchemaCache.getIfPresent(filter);
         }
         if (CollectionUtils.isEmpty(dataSetList)) {
+            long version = ontologyCacheManager.getSchemaVersion();
             dataSetList = buildDataSetSchema(filter);
-            dataSetSchemaCache.put(filter, dataSetList);
+            if (version == ontologyCacheManager.getSchemaVersion()) {
+                dataSetSchemaCache.put(filter, dataSetList);
+            }
         }
         return dataSetList;
     }
@@ -390,12 +398,45 @@ public class SchemaServiceImpl implements SchemaService {
             semanticSchemaResp = semanticSchemaCache.getIfPresent(schemaFilterReq);
         }
         if (semanticSchemaResp == null) {
+            long version = ontologyCacheManager.getSchemaVersion();
             semanticSchemaResp = buildSemanticSchema(schemaFilterReq);
-            semanticSchemaCache.put(schemaFilterReq, semanticSchemaResp);
+            // a schema built while an eviction happened may already be outdated
+            if (version == ontologyCacheManager.getSchemaVersion()) {
+                semanticSchemaCache.put(schemaFilterReq, semanticSchemaResp);
+            }
         }
         return semanticSchemaResp;
     }
 
+    /**
+     * Evicts the cached schemas once the current transaction, if any, has committed, otherwise a
+     * concurrent query could cache the schema about to be replaced again. The eviction is done on
+     * completion rather than in {@code afterCommit}, so that it also runs when called from an
+     * after-commit listener.
+     */
+    @Override
+    public void evictSchemaCache() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            doEvictSchemaCache();
+            return;
+        }
+        TransactionSynchronizationManager
+                .registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        if (status == STATUS_COMMITTED) {
+                            doEvictSchemaCache();
+                        }
+                    }
+                });
+    }
+
+    private void doEvictSchemaCache() {
+        ontologyCacheManager.invalidate();
+        dataSetSchemaCache.invalidateAll();
+        semanticSchemaCache.invalidateAll();
+    }
+
     @SneakyThrows
     @Override
     public List<ItemUseResp> getStatInfo(ItemUseReq itemUseReq) {
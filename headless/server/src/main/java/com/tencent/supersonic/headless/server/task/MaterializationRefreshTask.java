@@ -0,0 +1,285 @@
+package com.tencent.supersonic.headless.server.task;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tencent.supersonic.auth.api.authentication.service.UserService;
+import com.tencent.supersonic.common.pojo.Constants;
+import com.tencent.supersonic.headless.api.pojo.DataSetSchema;
+import com.tencent.supersonic.headless.api.pojo.SchemaElement;
+import com.tencent.supersonic.headless.api.pojo.enums.QueryPriority;
+import com.tencent.supersonic.headless.api.pojo.enums.QueryTypeBack;
+import com.tencent.supersonic.headless.api.pojo.request.QuerySqlReq;
+import com.tencent.supersonic.headless.core.config.ExecutorConfig;
+import com.tencent.supersonic.headless.core.executor.QueryAccelerator;
+import com.tencent.supersonic.headless.core.pojo.DuckDbSource;
+import com.tencent.supersonic.headless.core.pojo.Materialization;
+import com.tencent.supersonic.headless.core.utils.ComponentFactory;
+import com.tencent.supersonic.headless.core.utils.JdbcDuckDbUtils;
+import com.tencent.supersonic.headless.server.facade.service.SemanticLayerService;
+import com.tencent.supersonic.headless.server.persistence.dataobject.QueryStatDO;
+import com.tencent.supersonic.headless.server.persistence.repository.StatRepository;
+import com.tencent.supersonic.headless.server.service.SchemaService;
+import com.tencent.supersonic.headless.server.utils.StatUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps rollup tables in duckDb for the metric/dimension combinations that are queried most, as
+ * recorded in the query statistics. Each rollup is loaded one daily partition at a time: missing
+ * partitions of the window and the latest ones that may still change are reloaded, expired ones are
+ * dropped. The partition of the current day is never loaded, so queries including it always go to
+ * the data source.
+ */
+@Slf4j
+@Component
+@Order(3)
+public class MaterializationRefreshTask implements CommandLineRunner {
+
+    private static final String DEFAULT_PARTITION_TIME_FORMAT = "yyyy-MM-dd";
+    private static final Set<String> ROLLUP_AGGREGATES = Set.of("SUM", "MAX", "MIN");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    private ExecutorConfig executorConfig;
+
+    @Autowired
+    private DuckDbSource duckDbSource;
+
+    @Autowired
+    private StatRepository statRepository;
+
+    @Autowired
+    private SchemaService schemaService;
+
+    @Autowired
+    private SemanticLayerService semanticLayerService;
+
+    @Autowired
+    private UserService userService;
+
+    @Override
+    public void run(String... args) {
+        if (isEnabled()) {
+            reloadAccelerators();
+        }
+    }
+
+    @Scheduled(cron = "${s2.accelerator.rollup.refresh.cron:0 30 * * * ?}")
+    public void refresh() {
+        if (!isEnabled()) {
+            return;
+        }
+        log.info("refresh rollups start");
+        try {
+            List<Materialization> materializations = getHotMaterializations();
+            Set<String> names = materializations.stream().map(Materialization::getName)
+                    .collect(Collectors.toSet());
+            for (Materialization existing : JdbcDuckDbUtils.listMaterializations(duckDbSource)) {
+                if (!names.contains(existing.getName())) {
+                    log.info("drop rollup {} which is no longer hot", existing.getName());
+                    JdbcDuckDbUtils.dropMaterialization(duckDbSource, existing.getName());
+                }
+            }
+            for (Materialization materialization : materializations) {
+                refresh(materialization);
+            }
+        } catch (Exception e) {
+            log.error("refresh rollups error", e);
+        }
+        reloadAccelerators();
+        log.info("refresh rollups end");
+    }
+
+    private void refresh(Materialization materialization) throws Exception {
+        JdbcDuckDbUtils.saveMaterialization(duckDbSource, materialization);
+        DateTimeFormatter formatter =
+                DateTimeFormatter.ofPattern(materialization.getPartitionTimeFormat());
+        // today's partition is still being written, so it is left to the data source
+        LocalDate today = LocalDate.now();
+        LocalDate start = today.minusDays(executorConfig.getRollupDays());
+        JdbcDuckDbUtils.dropPartitionsOutside(duckDbSource, materialization, start, today);
+        Set<String> loaded =
+                new HashSet<>(JdbcDuckDbUtils.getPartitions(duckDbSource, materialization));
+        LocalDate recent = today.minusDays(executorConfig.getRollupRecentDays());
+        for (LocalDate day = start; day.isBefore(today); day = day.plusDays(1)) {
+            String partition = day.format(formatter);
+            if (loaded.contains(partition) && day.isBefore(recent)) {
+                continue;
+            }
+            try {
+                long rows = loadPartition(materialization, partition);
+                log.debug("load {} rows into partition {} of {}", rows, partition,
+                        materialization.getName());
+            } catch (Exception e) {
+                // the next refresh retries the missing partition
+                log.warn("load partition {} of {} error", partition, materialization.getName(), e);
+            }
+        }
+    }
+
+    private long loadPartition(Materialization materialization, String partition) throws Exception {
+        List<String> dimensions = materialization.getColumns().stream()
+                .filter(c -> !c.equals(materialization.getPartitionName())
+                        && !materialization.getMetrics().containsKey(c))
+                .collect(Collectors.toList());
+        List<String> groups = new ArrayList<>(dimensions);
+        groups.add(materialization.getPartitionName());
+        List<String> selects = new ArrayList<>(groups);
+        materialization.getMetrics().forEach(
+                (metric, agg) -> selects.add(String.format("%s(%s) AS %s", agg, metric, metric)));
+        int maxRows = executorConfig.getRollupMaxPartitionRows();
+        String sql = String.format("SELECT %s FROM %s WHERE %s = '%s' GROUP BY %s LIMIT %d",
+                String.join(", ", selects), Constants.TABLE_PREFIX + materialization.getDataSetId(),
+                materialization.getPartitionName(), partition, String.join(", ", groups),
+                maxRows + 1);
+        QuerySqlReq querySqlReq = new QuerySqlReq();
+        querySqlReq.setDataSetId(materialization.getDataSetId());
+        querySqlReq.setSql(sql);
+        querySqlReq.setLimit(maxRows + 1);
+        querySqlReq.setPriority(QueryPriority.BATCH);
+        // a rollup holds all rows, the row permissions of a user are conditions of the query
+        // it answers and thereby part of matching it to the rollup
+        querySqlReq.setNeedAuth(false);
+        return semanticLayerService.streamByReq(querySqlReq, userService.getDefaultUser(), rs -> {
+            // keep the loads out of the statistics that pick the rollups
+            StatUtils.get().setQueryTypeBack(QueryTypeBack.PRE_FLUSH.getState());
+            return JdbcDuckDbUtils.replacePartition(duckDbSource, materialization, partition, rs,
+                    maxRows);
+        });
+    }
+
+    /** counts the metric/dimension combinations queried per data set and keeps the hottest */
+    @SuppressWarnings("unchecked")
+    private List<Materialization> getHotMaterializations() {
+        Date since = Date.from(LocalDate.now().minusDays(executorConfig.getRollupStatDays())
+                .atStartOfDay(ZoneId.systemDefault()).toInstant());
+        Map<List<Object>, Integer> hits = new HashMap<>();
+        for (QueryStatDO queryStat : statRepository.getDataSetQueryStats(since)) {
+            Set<String> metrics = parseNames(queryStat.getMetrics());
+            if (metrics.isEmpty()) {
+                continue;
+            }
+            List<Object> key = List.of(queryStat.getDataSetId(),
+                    parseNames(queryStat.getDimensions()), metrics);
+            hits.merge(key, 1, Integer::sum);
+        }
+        Map<Long, DataSetSchema> schemas = new HashMap<>();
+        List<Materialization> materializations = new ArrayList<>();
+        List<Map.Entry<List<Object>, Integer>> ranked = hits.entrySet().stream()
+                .filter(e -> e.getValue() >= executorConfig.getRollupMinHits())
+                .sorted(Map.Entry.<List<Object>, Integer>comparingByValue().reversed())
+                .collect(Collectors.toList());
+        for (Map.Entry<List<Object>, Integer> entry : ranked) {
+            if (materializations.size() >= executorConfig.getRollupMaxTables()) {
+                break;
+            }
+            Long dataSetId = (Long) entry.getKey().get(0);
+            DataSetSchema schema =
+                    schemas.computeIfAbsent(dataSetId, schemaService::getDataSetSchema);
+            Materialization materialization = buildMaterialization(dataSetId, schema,
+                    (Set<String>) entry.getKey().get(1), (Set<String>) entry.getKey().get(2));
+            if (Objects.nonNull(materialization)
+                    && materializations.stream().noneMatch(m -> subsumes(m, materialization))) {
+                materializations.add(materialization);
+            }
+        }
+        return materializations;
+    }
+
+    private Materialization buildMaterialization(Long dataSetId, DataSetSchema schema,
+            Set<String> dimensionNames, Set<String> metricNames) {
+        if (Objects.isNull(schema) || Objects.isNull(schema.getPartitionDimension())) {
+            return null;
+        }
+        String partitionName = schema.getPartitionDimension().getBizName();
+        Set<String> dimensions = new TreeSet<>();
+        for (String name : dimensionNames) {
+            SchemaElement dimension = findElement(schema.getDimensions(), name);
+            if (Objects.isNull(dimension)) {
+                return null;
+            }
+            if (!partitionName.equals(dimension.getBizName())) {
+                dimensions.add(dimension.getBizName());
+            }
+        }
+        Map<String, String> metrics = new LinkedHashMap<>();
+        for (String name : new TreeSet<>(metricNames)) {
+            SchemaElement metric = findElement(schema.getMetrics(), name);
+            if (Objects.isNull(metric) || Objects.isNull(metric.getDefaultAgg())
+                    || !ROLLUP_AGGREGATES.contains(metric.getDefaultAgg().toUpperCase())) {
+                return null;
+            }
+            metrics.put(metric.getBizName(), metric.getDefaultAgg().toUpperCase());
+        }
+        List<String> columns = new ArrayList<>(dimensions);
+        columns.add(partitionName);
+        columns.addAll(metrics.keySet());
+        String name = String.format("%s.ds%d_%s", JdbcDuckDbUtils.MATERIALIZATION_DB, dataSetId,
+                DigestUtils.md5Hex(dimensions + "|" + metrics).substring(0, 12));
+        return Materialization.builder().name(name).dataSetId(dataSetId).columns(columns)
+                .isPartitioned(true).partitionName(partitionName)
+                .partitionTimeFormat(StringUtils.defaultIfBlank(schema.getPartitionTimeFormat(),
+                        DEFAULT_PARTITION_TIME_FORMAT))
+                .metrics(metrics).partitions(Collections.emptyList()).build();
+    }
+
+    /** whether every query answered by the candidate is answered by the rollup as well */
+    private static boolean subsumes(Materialization rollup, Materialization candidate) {
+        return rollup.getDataSetId().equals(candidate.getDataSetId())
+                && rollup.getColumns().containsAll(candidate.getColumns())
+                && candidate.getMetrics().entrySet().stream()
+                        .allMatch(e -> e.getValue().equals(rollup.getMetrics().get(e.getKey())));
+    }
+
+    private static SchemaElement findElement(Set<SchemaElement> elements, String name) {
+        return elements.stream()
+                .filter(e -> name.equalsIgnoreCase(e.getBizName()) || name.equals(e.getName()))
+                .findFirst().orElse(null);
+    }
+
+    private Set<String> parseNames(String names) {
+        if (StringUtils.isBlank(names)) {
+            return Collections.emptySet();
+        }
+        try {
+            return new TreeSet<>(
+                    objectMapper.readValue(names, new TypeReference<List<String>>() {}));
+        } catch (Exception e) {
+            return Collections.emptySet();
+        }
+    }
+
+    private void reloadAccelerators() {
+        for (QueryAccelerator queryAccelerator : ComponentFactory.getQueryAccelerators()) {
+            queryAccelerator.reload();
+        }
+    }
+
+    private boolean isEnabled() {
+        return Boolean.TRUE.equals(executorConfig.getDuckEnable())
+                && Boolean.TRUE.equals(executorConfig.getRollupEnable());
+    }
+}
@@ -2,6 +2,7 @@ package com.tencent.supersonic.headless.server.utils;
 
 import com.tencent.supersonic.common.util.ContextUtils;
 import com.tencent.supersonic.common.util.JsonUtil;
+import com.tencent.supersonic.common.util.StageMetrics;
 import com.tencent.supersonic.headless.api.pojo.SemanticParseInfo;
 import com.tencent.supersonic.headless.api.pojo.enums.ChatWorkflowState;
 import com.tencent.supersonic.headless.api.pojo.request.SemanticQueryReq;
@@ -39,7 +40,9 @@ public class ChatWorkflowEngine {
         ParseResp parseResult = queryCtx.getParseResp();
         queryCtx.setChatWorkflowState(initialState);
         while (queryCtx.getChatWorkflowState() != ChatWorkflowState.FINISHED) {
-            switch (queryCtx.getChatWorkflowState()) {
+            ChatWorkflowState state = queryCtx.getChatWorkflowState();
+            long stageStart = System.currentTimeMillis();
+            switch (state) {
                 case MAPPING:
                     performMapping(queryCtx);
                     if (queryCtx.getMapInfo().isEmpty()) {
@@ -90,30 +93,54 @@ public class ChatWorkflowEngine {
                     queryCtx.setChatWorkflowState(ChatWorkflowState.FINISHED);
                     break;
             }
+            if (state != ChatWorkflowState.FINISHED) {
+                addStageCost(parseResult, state.name(), StageMetrics.TOTAL,
+                        System.currentTimeMillis() - stageStart);
+            }
         }
     }
 
     private void performMapping(ChatQueryContext queryCtx) {
         if (Objects.isNull(queryCtx.getMapInfo())
                 || MapUtils.isEmpty(queryCtx.getMapInfo().getDataSetElementMatches())) {
-            schemaMappers.forEach(mapper -> mapper.map(queryCtx));
+            schemaMappers.forEach(mapper -> timed(queryCtx, ChatWorkflowState.MAPPING, mapper,
+                    () -> mapper.map(queryCtx)));
         }
     }
 
     private void performParsing(ChatQueryContext queryCtx) {
         semanticParsers.forEach(parser -> {
-            parser.parse(queryCtx);
+            timed(queryCtx, ChatWorkflowState.PARSING, parser, () -> parser.parse(queryCtx));
             log.debug("{} result:{}", parser.getClass().getSimpleName(),
                     JsonUtil.toString(queryCtx));
         });
     }
 
+    /** runs a component of a stage and adds its time cost to the trace of the request */
+    private void timed(ChatQueryContext queryCtx, ChatWorkflowState state, Object component,
+            Runnable runnable) {
+        long start = System.currentTimeMillis();
+        try {
+            runnable.run();
+        } finally {
+            addStageCost(queryCtx.getParseResp(), state.name(),
+                    component.getClass().getSimpleName(), System.currentTimeMillis() - start);
+        }
+    }
+
+    /** adds the cost to the trace of the request and to the timers of the stage */
+    private void addStageCost(ParseResp parseResp, String stage, String component, long cost) {
+        parseResp.getParseTimeCost().addStageCost(stage, component, cost);
+        StageMetrics.record(stage, component, cost);
+    }
+
     private void performCorrecting(ChatQueryContext queryCtx) {
         List<SemanticQuery> candidateQueries = queryCtx.getCandidateQueries();
         if (CollectionUtils.isNotEmpty(candidateQueries)) {
             for (SemanticQuery semanticQuery : candidateQueries) {
                 for (SemanticCorrector corrector : semanticCorrectors) {
-                    corrector.correct(queryCtx, semanticQuery.getParseInfo());
+                    timed(queryCtx, ChatWorkflowState.S2SQL_CORRECTING, corrector,
+                            () -> corrector.correct(queryCtx, semanticQuery.getParseInfo()));
                     if (!ChatWorkflowState.S2SQL_CORRECTING
                             .equals(queryCtx.getChatWorkflowState())) {
                         break;
@@ -174,7 +201,8 @@ public class ChatWorkflowEngine {
             for (SemanticQuery semanticQuery : candidateQueries) {
                 for (SemanticCorrector corrector : semanticCorrectors) {
                     if (corrector instanceof LLMPhysicalSqlCorrector) {
-                        corrector.correct(queryCtx, semanticQuery.getParseInfo());
+                        timed(queryCtx, ChatWorkflowState.PHYSICAL_SQL_CORRECTING, corrector,
+                                () -> corrector.correct(queryCtx, semanticQuery.getParseInfo()));
                         // 如果物理SQL被修正了，更新querySQL为修正后的版本
                         SemanticParseInfo parseInfo = semanticQuery.getParseInfo();
                         if (StringUtils.isNotBlank(parseInfo.getSqlInfo().getCorrectedQuerySQL())) {
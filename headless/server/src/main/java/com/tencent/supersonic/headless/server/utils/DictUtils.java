@@ -7,6 +7,7 @@ import com.tencent.supersonic.common.util.BeanMapper;
 import com.tencent.supersonic.common.util.JsonUtil;
 import com.tencent.supersonic.headless.api.pojo.Dimension;
 import com.tencent.supersonic.headless.api.pojo.ItemValueConfig;
+import com.tencent.supersonic.headless.api.pojo.enums.QueryPriority;
 import com.tencent.supersonic.headless.api.pojo.request.DictItemReq;
 import com.tencent.supersonic.headless.api.pojo.request.QuerySqlReq;
 import com.tencent.supersonic.headless.api.pojo.request.QueryStructReq;
@@ -27,6 +28,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
 
 import java.time.LocalDate;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 
@@ -136,15 +138,32 @@ public class DictUtils {
     }
 
     public List<String> fetchItemValue(DictItemResp dictItemResp) {
+        return fetchItemValue(dictItemResp, null);
+    }
+
+    /**
+     * Fetches the values of an item. With the time of the last successful run of an
+     * {@link #isIncremental incremental} item only the partitions loaded since are queried, the
+     * result is meant to be merged into the existing values by {@link #mergeItemValue}.
+     *
+     * @throws RuntimeException if the query fails, so that the values of the item are kept as they
+     *         are instead of being replaced by an empty result
+     */
+    public List<String> fetchItemValue(DictItemResp dictItemResp, Date lastSuccess) {
         List<String> lines = new ArrayList<>();
-        SemanticQueryReq semanticQueryReq = constructQueryReq(dictItemResp);
+        SemanticQueryReq semanticQueryReq = constructQueryReq(dictItemResp, lastSuccess);
         // SECURITY: Auth bypass is safe here - this is an internal dictionary building task
         // executed by system for knowledge base construction, not user-triggered query
         semanticQueryReq.setNeedAuth(false);
+        semanticQueryReq.setPriority(QueryPriority.BATCH);
         String bizName = dictItemResp.getBizName();
         try {
             SemanticQueryResp semanticQueryResp =
                     queryService.queryByReq(semanticQueryReq, userService.getDefaultUser());
+            if (Objects.nonNull(semanticQueryResp)
+                    && StringUtils.isNotBlank(semanticQueryResp.getErrorMsg())) {
+                throw new RuntimeException(semanticQueryResp.getErrorMsg());
+            }
             if (Objects.isNull(semanticQueryResp)
                     || CollectionUtils.isEmpty(semanticQueryResp.getResultList())) {
                 return lines;
@@ -173,6 +192,8 @@ public class DictUtils {
             addWhiteValueLines(dictItemResp, lines, nature);
         } catch (Exception e) {
             log.error("dictItemResp:{},fetchItemValue error:", dictItemResp, e);
+            throw new RuntimeException(String.format("fetch values of item %s error: %s",
+                    dictItemResp.getItemId(), e.getMessage()), e);
         }
         return lines;
     }
@@ -224,9 +245,9 @@ public class DictUtils {
         }
     }
 
-    private SemanticQueryReq constructQueryReq(DictItemResp dictItemResp) {
+    private SemanticQueryReq constructQueryReq(DictItemResp dictItemResp, Date lastSuccess) {
         if (TypeEnums.DIMENSION.equals(dictItemResp.getType())) {
-            return constructDimQueryReq(dictItemResp);
+            return constructDimQueryReq(dictItemResp, lastSuccess);
         }
         log.warn("constructQueryReq failed");
         return null;
@@ -265,18 +286,18 @@ public class DictUtils {
         return querySqlReq;
     }
 
-    private QuerySqlReq constructDimQueryReq(DictItemResp dictItemResp) {
+    private QuerySqlReq constructDimQueryReq(DictItemResp dictItemResp, Date lastSuccess) {
         if (Objects.nonNull(dictItemResp) && Objects.nonNull(dictItemResp.getConfig())
                 && Objects.nonNull(dictItemResp.getConfig().getMetricId())) {
             // 查询默认指标
-            QueryStructReq queryStructReq = generateQueryStruct(dictItemResp);
+            QueryStructReq queryStructReq = generateQueryStruct(dictItemResp, lastSuccess);
             return queryStructReq.convert(true);
         }
         // count(1) 作为指标
-        return constructQuerySqlReq(dictItemResp);
+        return constructQuerySqlReq(dictItemResp, lastSuccess);
     }
 
-    private QuerySqlReq constructQuerySqlReq(DictItemResp dictItemResp) {
+    private QuerySqlReq constructQuerySqlReq(DictItemResp dictItemResp, Date lastSuccess) {
 
         ModelResp model = modelService.getModel(dictItemResp.getModelId());
         String tableStr = StringUtils.isNotBlank(model.getModelDetail().getTableQuery())
@@ -285,7 +306,7 @@ public class DictUtils {
         String sqlPattern =
                 "select %s,count(1) from %s %s group by %s order by count(1) desc limit %d";
         String dimBizName = dictItemResp.getBizName();
-        String whereStr = generateWhereStr(dictItemResp);
+        String whereStr = generateWhereStr(dictItemResp, lastSuccess);
         String where = StringUtils.isEmpty(whereStr) ? "" : "WHERE" + whereStr;
         ItemValueConfig config = dictItemResp.getConfig();
         long limit =
@@ -307,14 +328,14 @@ public class DictUtils {
         return querySqlReq;
     }
 
-    private QueryStructReq generateQueryStruct(DictItemResp dictItemResp) {
+    private QueryStructReq generateQueryStruct(DictItemResp dictItemResp, Date lastSuccess) {
         QueryStructReq queryStructReq = new QueryStructReq();
 
         Set<Long> modelIds = new HashSet<>(Arrays.asList(dictItemResp.getModelId()));
         List<String> groups = new ArrayList<>(Arrays.asList(dictItemResp.getBizName()));
         queryStructReq.setGroups(groups);
 
-        List<Filter> filters = generateFilters(dictItemResp);
+        List<Filter> filters = generateFilters(dictItemResp, lastSuccess);
         queryStructReq.setDimensionFilters(filters);
 
         List<Aggregator> aggregators = new ArrayList<>();
@@ -390,12 +411,12 @@ public class DictUtils {
         }
     }
 
-    private List<Filter> generateFilters(DictItemResp dictItemResp) {
+    private List<Filter> generateFilters(DictItemResp dictItemResp, Date lastSuccess) {
         List<Filter> filters = new ArrayList<>();
         if (Objects.isNull(dictItemResp)) {
             return new ArrayList<>();
         }
-        String whereStr = generateWhereStr(dictItemResp);
+        String whereStr = generateWhereStr(dictItemResp, lastSuccess);
         if (StringUtils.isEmpty(whereStr)) {
             return new ArrayList<>();
         }
@@ -405,6 +426,10 @@ public class DictUtils {
     }
 
     public String generateWhereStr(DictItemResp dictItemResp) {
+        return generateWhereStr(dictItemResp, null);
+    }
+
+    private String generateWhereStr(DictItemResp dictItemResp, Date lastSuccess) {
         StringJoiner joiner = new StringJoiner(SPACE + AND_UPPER + SPACE);
 
         String bizName = dictItemResp.getBizName();
@@ -422,14 +447,14 @@ public class DictUtils {
             }
         }
 
-        String dateFilter = generateDictDateFilter(dictItemResp);
+        String dateFilter = generateDictDateFilter(dictItemResp, lastSuccess);
         if (StringUtils.isNotEmpty(dateFilter)) {
             joiner.add(dateFilter);
         }
         return joiner.toString();
     }
 
-    private String generateDictDateFilter(DictItemResp dictItemResp) {
+    private String generateDictDateFilter(DictItemResp dictItemResp, Date lastSuccess) {
         Dimension partitionTimeDimension = getPartitionTimeDimension(dictItemResp.getModelId());
         // 如果没有设置数据时间维度，则无法做时间分区过滤
         if (partitionTimeDimension == null) {
@@ -448,9 +473,20 @@ public class DictUtils {
                     partitionTimeDimension.getBizName(), endDate);
         }
 
-        // 全表扫描
+        // 全表扫描，增量时只扫描上次成功之后的分区
         if (DateConf.DateMode.ALL.equals(config.getDateConf().getDateMode())) {
-            return "";
+            if (Objects.isNull(lastSuccess)) {
+                return "";
+            }
+            DateTimeFormatter formatter =
+                    DateTimeFormatter.ofPattern(partitionTimeDimension.getDateFormat());
+            LocalDate lastDate =
+                    lastSuccess.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+            String startDate = lastDate.minusDays(itemValueDateEnd).format(formatter);
+            String endDate = LocalDate.now().minusDays(itemValueDateEnd).format(formatter);
+            return String.format("( %s > '%s' and %s <= '%s' )",
+                    partitionTimeDimension.getBizName(), startDate,
+                    partitionTimeDimension.getBizName(), endDate);
         }
         // 静态日期
         if (DateConf.DateMode.BETWEEN.equals(config.getDateConf().getDateMode())) {
@@ -466,6 +502,59 @@ public class DictUtils {
         return "";
     }
 
+    /**
+     * Whether the values of an item can be refreshed from the new partitions only. That is the case
+     * for an item over the whole table of a model with a partition time dimension, the values of
+     * the other items are bounded by their date range and fetched as a whole.
+     */
+    public boolean isIncremental(DictItemResp dictItemResp) {
+        ItemValueConfig config = dictItemResp.getConfig();
+        return Objects.nonNull(config) && Objects.nonNull(config.getDateConf())
+                && DateConf.DateMode.ALL.equals(config.getDateConf().getDateMode())
+                && Objects.nonNull(getPartitionTimeDimension(dictItemResp.getModelId()));
+    }
+
+    /**
+     * Merges the values fetched from the new partitions into the existing lines. The frequencies of
+     * a value are added up, the white list keeps its fixed frequency, and the most frequent values
+     * are kept up to the limit of the item.
+     */
+    public List<String> mergeItemValue(DictItemResp dictItemResp, List<String> oldLines,
+            List<String> deltaLines) {
+        Map<String, Long> valueAndFrequencyPair = new LinkedHashMap<>();
+        String nature = dictItemResp.getNature();
+        for (List<String> lines : Arrays.asList(oldLines, deltaLines)) {
+            for (String line : lines) {
+                String[] items = line.trim().split("\\s+");
+                if (items.length < 3 || !StringUtils.isNumeric(items[2])) {
+                    continue;
+                }
+                valueAndFrequencyPair.merge(items[0], Long.parseLong(items[2]), Long::sum);
+            }
+        }
+        ItemValueConfig config = dictItemResp.getConfig();
+        Set<String> whiteValues = new HashSet<>();
+        if (Objects.nonNull(config) && !CollectionUtils.isEmpty(config.getWhiteList())) {
+            config.getWhiteList().stream().filter(StringUtils::isNotEmpty)
+                    .forEach(white -> whiteValues.add(white.replace(SPACE, POUND)));
+        }
+        whiteValues.forEach(white -> valueAndFrequencyPair.put(white, itemValueWhiteFrequency));
+
+        long limit = Objects.isNull(config) ? itemValueMaxCount : config.getLimit();
+        if (limit <= 0) {
+            limit = Integer.MAX_VALUE;
+        }
+        List<String> lines = new ArrayList<>();
+        valueAndFrequencyPair.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .filter(entry -> !whiteValues.contains(entry.getKey())).limit(limit)
+                .forEach(entry -> lines
+                        .add(String.format("%s %s %s", entry.getKey(), nature, entry.getValue())));
+        whiteValues.forEach(white -> lines
+                .add(String.format("%s %s %s", white, nature, itemValueWhiteFrequency)));
+        return lines;
+    }
+
     private Dimension getPartitionTimeDimension(Long modelId) {
         ModelResp model = modelService.getModel(modelId);
         if (Objects.nonNull(model)) {
@@ -0,0 +1,166 @@
+package com.tencent.supersonic.headless.server.utils;
+
+import com.tencent.supersonic.headless.api.pojo.QueryStat;
+import com.tencent.supersonic.headless.server.persistence.repository.StatRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes the query stats behind the queries. A stat is put into a bounded buffer without waiting,
+ * and a single writer thread inserts the buffered stats by multi-row statements once a batch is
+ * full or the flush interval has passed. When the buffer is full the stat is dropped and counted
+ * rather than slowing the query down, and what is left in the buffer is written on shutdown.
+ */
+@Component
+@Slf4j
+public class QueryStatWriter {
+
+    @Value("${s2.stat.buffer.size:10000}")
+    private Integer bufferSize;
+
+    @Value("${s2.stat.batch.size:200}")
+    private Integer batchSize;
+
+    @Value("${s2.stat.flush.interval.ms:1000}")
+    private Long flushIntervalMs;
+
+    private final StatRepository statRepository;
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private BlockingQueue<QueryStat> buffer;
+    private Thread writer;
+    private volatile boolean running;
+    private long reportedDropped;
+
+    public QueryStatWriter(StatRepository statRepository) {
+        this.statRepository = statRepository;
+    }
+
+    @PostConstruct
+    public void start() {
+        buffer = new ArrayBlockingQueue<>(bufferSize);
+        running = true;
+        writer = new Thread(this::runWriter, "query-stat-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /** buffers the stat, false if the buffer is full and the stat is dropped */
+    public boolean offer(QueryStat queryStat) {
+        if (running && buffer.offer(queryStat)) {
+            accepted.incrementAndGet();
+            return true;
+        }
+        dropped.incrementAndGet();
+        return false;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        try {
+            writer.join(flushIntervalMs + TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // the writer has stopped, or is stuck on the database, write the rest from here
+        List<QueryStat> batch = new ArrayList<>(batchSize);
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+        log.info("query stat writer stopped, accepted:{}, written:{}, dropped:{}, failed:{}",
+                accepted.get(), written.get(), dropped.get(), failed.get());
+    }
+
+    public long getAccepted() {
+        return accepted.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public long getWritten() {
+        return written.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public int getBuffered() {
+        return buffer.size();
+    }
+
+    private void runWriter() {
+        List<QueryStat> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                long deadline = System.currentTimeMillis() + flushIntervalMs;
+                while (batch.size() < batchSize) {
+                    long waitMs = deadline - System.currentTimeMillis();
+                    QueryStat queryStat =
+                            waitMs > 0 ? buffer.poll(waitMs, TimeUnit.MILLISECONDS) : null;
+                    if (queryStat == null) {
+                        break;
+                    }
+                    batch.add(queryStat);
+                    buffer.drainTo(batch, batchSize - batch.size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+            reportDropped();
+        }
+    }
+
+    private void write(List<QueryStat> batch) {
+        try {
+            statRepository.batchCreateRecord(batch);
+            written.addAndGet(batch.size());
+            return;
+        } catch (Exception e) {
+            log.warn("batch insert of {} query stats failed, insert them one by one", batch.size(),
+                    e);
+        }
+        // a single bad row should not lose the whole batch
+        for (QueryStat queryStat : batch) {
+            try {
+                statRepository.createRecord(queryStat);
+                written.incrementAndGet();
+            } catch (Exception e) {
+                failed.incrementAndGet();
+                log.warn("queryStatInfo, exception:", e);
+            }
+        }
+    }
+
+    private void reportDropped() {
+        long droppedNow = dropped.get();
+        if (droppedNow > reportedDropped) {
+            log.warn("query stat buffer is full, {} stats dropped, {} in total",
+                    droppedNow - reportedDropped, droppedNow);
+            reportedDropped = droppedNow;
+        }
+    }
+}
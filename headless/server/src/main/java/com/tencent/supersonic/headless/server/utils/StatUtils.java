@@ -30,7 +30,6 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Component
@@ -41,12 +40,15 @@ public class StatUtils {
             new TransmittableThreadLocal<>();
     private final StatRepository statRepository;
     private final SqlFilterUtils sqlFilterUtils;
+    private final QueryStatWriter queryStatWriter;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
-    public StatUtils(StatRepository statRepository, SqlFilterUtils sqlFilterUtils) {
+    public StatUtils(StatRepository statRepository, SqlFilterUtils sqlFilterUtils,
+            QueryStatWriter queryStatWriter) {
 
         this.statRepository = statRepository;
         this.sqlFilterUtils = sqlFilterUtils;
+        this.queryStatWriter = queryStatWriter;
     }
 
     public static QueryStat get() {
@@ -65,12 +67,7 @@ public class StatUtils {
         QueryStat queryStatInfo = get();
         queryStatInfo.setElapsedMs(System.currentTimeMillis() - queryStatInfo.getStartTime());
         queryStatInfo.setQueryState(state.getStatus());
-        CompletableFuture.runAsync(() -> {
-            statRepository.createRecord(queryStatInfo);
-        }).exceptionally(exception -> {
-            log.warn("queryStatInfo, exception:", exception);
-            return null;
-        });
+        queryStatWriter.offer(queryStatInfo);
 
         remove();
     }
@@ -80,6 +77,10 @@ public class StatUtils {
         return true;
     }
 
+    public void updateSqlCacheKey(String key, boolean useSqlCache) {
+        STATS.get().setSqlCacheKey(key).setUseSqlCache(useSqlCache);
+    }
+
     public void initStatInfo(SemanticQueryReq semanticQueryReq, User facadeUser) {
         if (semanticQueryReq instanceof QuerySqlReq) {
             initSqlStatInfo((QuerySqlReq) semanticQueryReq, facadeUser);
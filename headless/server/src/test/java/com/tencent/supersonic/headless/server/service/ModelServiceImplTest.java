@@ -78,9 +78,10 @@ class ModelServiceImplTest {
         DataSetService viewService = Mockito.mock(DataSetService.class);
         ModelRelaService modelRelaService = Mockito.mock(ModelRelaService.class);
         ApplicationEventPublisher eventPublisher = Mockito.mock(ApplicationEventPublisher.class);
+        SchemaService schemaService = Mockito.mock(SchemaService.class);
         return new ModelServiceImpl(modelRepository, databaseService, dimensionService,
                 metricService, domainService, userService, viewService, dateInfoRepository,
-                modelRelaService, eventPublisher);
+                modelRelaService, eventPublisher, schemaService);
     }
 
     private ModelReq mockModelReq() {
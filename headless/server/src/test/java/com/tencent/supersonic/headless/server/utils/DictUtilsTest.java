@@ -0,0 +1,34 @@
+package com.tencent.supersonic.headless.server.utils;
+
+import com.tencent.supersonic.common.pojo.enums.TypeEnums;
+import com.tencent.supersonic.headless.api.pojo.ItemValueConfig;
+import com.tencent.supersonic.headless.api.pojo.response.DictItemResp;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+class DictUtilsTest {
+
+    @Test
+    void testMergeItemValue() {
+        DictUtils dictUtils = new DictUtils(null, null, null, null, null);
+        ReflectionTestUtils.setField(dictUtils, "itemValueMaxCount", 100000);
+        ReflectionTestUtils.setField(dictUtils, "itemValueWhiteFrequency", 999999L);
+        ItemValueConfig config = new ItemValueConfig();
+        config.setLimit(2);
+        config.setWhiteList(List.of("new york"));
+        DictItemResp dictItemResp = new DictItemResp();
+        dictItemResp.setModelId(1L);
+        dictItemResp.setItemId(2L);
+        dictItemResp.setType(TypeEnums.DIMENSION);
+        dictItemResp.setConfig(config);
+
+        List<String> lines = dictUtils.mergeItemValue(dictItemResp,
+                List.of("北京 _1_2 100", "上海 _1_2 90", "深圳 _1_2 80", "new#york _1_2 999999"),
+                List.of("深圳 _1_2 30", "广州 _1_2 5", ""));
+        Assertions.assertEquals(List.of("深圳 _1_2 110", "北京 _1_2 100", "new#york _1_2 999999"),
+                lines);
+    }
+}
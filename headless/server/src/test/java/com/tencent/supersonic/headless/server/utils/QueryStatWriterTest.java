@@ -0,0 +1,100 @@
+package com.tencent.supersonic.headless.server.utils;
+
+import com.tencent.supersonic.headless.api.pojo.QueryStat;
+import com.tencent.supersonic.headless.server.persistence.repository.StatRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyList;
+
+class QueryStatWriterTest {
+
+    @Test
+    void testBatchedBySize() throws Exception {
+        StatRepository statRepository = Mockito.mock(StatRepository.class);
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        CountDownLatch written = new CountDownLatch(1);
+        Mockito.when(statRepository.batchCreateRecord(anyList())).thenAnswer(invocation -> {
+            List<QueryStat> batch = invocation.getArgument(0);
+            batchSizes.add(batch.size());
+            if (batchSizes.stream().mapToInt(Integer::intValue).sum() == 10) {
+                written.countDown();
+            }
+            return batch.size();
+        });
+        QueryStatWriter writer = newWriter(statRepository, 100, 5, 100L);
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertTrue(writer.offer(new QueryStat()));
+        }
+
+        Assertions.assertTrue(written.await(10, TimeUnit.SECONDS));
+        Assertions.assertTrue(batchSizes.stream().allMatch(size -> size <= 5));
+        writer.shutdown();
+        Assertions.assertEquals(10, writer.getWritten());
+    }
+
+    @Test
+    void testDroppedWhenFullAndFlushedOnShutdown() throws Exception {
+        StatRepository statRepository = Mockito.mock(StatRepository.class);
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Mockito.when(statRepository.batchCreateRecord(anyList())).thenAnswer(invocation -> {
+            blocked.countDown();
+            release.await();
+            return ((List<?>) invocation.getArgument(0)).size();
+        });
+        QueryStatWriter writer = newWriter(statRepository, 3, 1, 100L);
+        writer.offer(new QueryStat());
+        // the writer holds the first stat, the buffer fills up behind it
+        Assertions.assertTrue(blocked.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < 5; i++) {
+            writer.offer(new QueryStat());
+        }
+        Assertions.assertEquals(2, writer.getDropped());
+        Assertions.assertEquals(3, writer.getBuffered());
+
+        release.countDown();
+        writer.shutdown();
+        Assertions.assertEquals(4, writer.getWritten());
+        Assertions.assertEquals(0, writer.getBuffered());
+    }
+
+    @Test
+    void testFallbackToSingleInserts() {
+        StatRepository statRepository = Mockito.mock(StatRepository.class);
+        Mockito.when(statRepository.batchCreateRecord(anyList()))
+                .thenThrow(new RuntimeException("too long"));
+        QueryStat bad = new QueryStat();
+        Mockito.when(statRepository.createRecord(Mockito.any())).thenAnswer(invocation -> {
+            if (invocation.getArgument(0) == bad) {
+                throw new RuntimeException("too long");
+            }
+            return true;
+        });
+        QueryStatWriter writer = newWriter(statRepository, 100, 10, 100L);
+        writer.offer(new QueryStat());
+        writer.offer(bad);
+        writer.offer(new QueryStat());
+        writer.shutdown();
+
+        Assertions.assertEquals(2, writer.getWritten());
+        Assertions.assertEquals(1, writer.getFailed());
+    }
+
+    private static QueryStatWriter newWriter(StatRepository statRepository, int bufferSize,
+            int batchSize, long flushIntervalMs) {
+        QueryStatWriter writer = new QueryStatWriter(statRepository);
+        ReflectionTestUtils.setField(writer, "bufferSize", bufferSize);
+        ReflectionTestUtils.setField(writer, "batchSize", batchSize);
+        ReflectionTestUtils.setField(writer, "flushIntervalMs", flushIntervalMs);
+        writer.start();
+        return writer;
+    }
+}